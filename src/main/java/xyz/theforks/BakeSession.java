@@ -0,0 +1,81 @@
+package xyz.theforks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.model.OutputConfig;
+import xyz.theforks.model.ProjectConfig;
+import xyz.theforks.service.SessionBaker;
+
+/**
+ * BakeSession - Renders recordings through an output's node chain ahead of time
+ *
+ * Uses {@link SessionBaker} with the node chain of an output in a project file.
+ * Each recording is saved as a new session that plays straight to that output,
+ * so heavy chains (scripts, interlacing) cost nothing at show time. Several
+ * recordings are baked in parallel.
+ */
+public class BakeSession {
+
+    public static void main(String[] args) {
+        if (args.length < 3 || "--help".equals(args[0])) {
+            System.err.println("Usage: java BakeSession <project.opp> <output-id> <session-name> ... [--suffix s]");
+            System.err.println("  project.opp: Project file holding the output's node chain");
+            System.err.println("  output-id: Output whose node chain is applied");
+            System.err.println("  session-name: Recordings to bake");
+            System.err.println("  --suffix: Appended to each name for the baked recording (default " + SessionBaker.DEFAULT_SUFFIX + ")");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java BakeSession show.opp default show1 show2 show3");
+            System.err.println("  java BakeSession show.opp lights show1 --suffix -lights");
+            System.exit(1);
+        }
+
+        File projectFile = new File(args[0]);
+        String outputId = args[1];
+        String suffix = SessionBaker.DEFAULT_SUFFIX;
+        List<String> sessionNames = new ArrayList<>();
+
+        for (int i = 2; i < args.length; i++) {
+            if ("--suffix".equals(args[i]) && i + 1 < args.length) {
+                suffix = args[++i];
+            } else {
+                sessionNames.add(args[i]);
+            }
+        }
+
+        ProjectConfig project;
+        try {
+            project = new ObjectMapper().readValue(projectFile, ProjectConfig.class);
+        } catch (IOException e) {
+            System.err.println("Error reading project: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        OutputConfig output = project.getOutputs().stream()
+                .filter(o -> outputId.equals(o.getId()))
+                .findFirst()
+                .orElse(null);
+        if (output == null) {
+            System.err.println("Output not found in project: " + outputId);
+            System.exit(1);
+        }
+
+        long started = System.nanoTime();
+        List<SessionBaker.Result> results = SessionBaker.forChain(outputId, output.getNodeChain())
+                .bakeAll(sessionNames, suffix);
+        for (SessionBaker.Result result : results) {
+            System.out.println(result.describe());
+        }
+        System.out.printf("Baked %d of %d recordings in %.1f s%n",
+                results.size(), sessionNames.size(), (System.nanoTime() - started) / 1e9);
+        if (results.size() < sessionNames.size()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package xyz.theforks;
+
+import java.io.IOException;
+
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.service.SessionCompactor;
+
+/**
+ * CompactSession - Writes a smaller copy of a recording with redundant messages removed
+ *
+ * Uses {@link SessionCompactor}: numeric streams are simplified to within a
+ * tolerance and repeated values are dropped. The original recording is left as
+ * it is and a report of the size reduction and maximum error is printed.
+ */
+public class CompactSession {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || "--help".equals(args[0])) {
+            System.err.println("Usage: java CompactSession <session-name> [--out name] [--tolerance t] [--address pattern=t ...] [--keep pattern ...]");
+            System.err.println("  session-name: Name of the recording to compact");
+            System.err.println("  --out: Name of the compacted recording (default <session-name>-compact)");
+            System.err.println("  --tolerance: Maximum error for all addresses, in argument units (default 0, lossless)");
+            System.err.println("  --address: Tolerance for addresses matching an OSC pattern, e.g. '/fader/*=0.01'");
+            System.err.println("  --keep: Keep every message of matching addresses, e.g. triggers");
+            System.err.println("  --dry-run: Print the report without saving");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java CompactSession show1 --tolerance 0.005 --keep '/button/*'");
+            System.err.println("  java CompactSession show1 --address '/lx/modulation/Mag*/mag=2' --out show1-small");
+            System.exit(1);
+        }
+
+        String sessionName = args[0];
+        String outName = sessionName + "-compact";
+        boolean dryRun = false;
+        SessionCompactor compactor = new SessionCompactor(0);
+
+        for (int i = 1; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outName = args[++i];
+            } else if ("--tolerance".equals(args[i]) && i + 1 < args.length) {
+                compactor.setDefaultTolerance(Double.parseDouble(args[++i]));
+            } else if ("--address".equals(args[i]) && i + 1 < args.length) {
+                String rule = args[++i];
+                int split = rule.lastIndexOf('=');
+                if (split <= 0) {
+                    System.err.println("Invalid address tolerance: " + rule + " (expected pattern=tolerance)");
+                    System.exit(1);
+                }
+                compactor.setTolerance(rule.substring(0, split), Double.parseDouble(rule.substring(split + 1)));
+            } else if ("--keep".equals(args[i]) && i + 1 < args.length) {
+                compactor.setTolerance(args[++i], -1);
+            } else if ("--dry-run".equals(args[i])) {
+                dryRun = true;
+            }
+        }
+
+        try {
+            RecordingSession session = RecordingSession.loadSession(sessionName);
+            if (session == null) {
+                System.err.println("Recording not found: " + sessionName);
+                System.exit(1);
+            }
+            SessionCompactor.Result result = compactor.compact(session, outName);
+            System.out.print(result.describe());
+            if (!dryRun) {
+                result.getSession().save();
+                System.out.println("Saved compacted recording: " + outName);
+            }
+        } catch (IOException e) {
+            System.err.println("Error compacting session: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
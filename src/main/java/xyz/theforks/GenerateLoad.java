@@ -0,0 +1,135 @@
+package xyz.theforks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import com.illposed.osc.transport.OSCPortOut;
+import com.illposed.osc.transport.OSCPortOutBuilder;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.service.OSCLoadGenerator;
+
+/**
+ * GenerateLoad - Sends synthetic or recorded OSC traffic to a host and port
+ *
+ * Drives the proxy (or anything else listening for OSC) with
+ * {@link OSCLoadGenerator}: many addresses at a steady rate, bursts, flat out,
+ * or a recording replayed at a multiple of its speed. Prints what was sent and
+ * how precisely it was paced.
+ */
+public class GenerateLoad {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && "--help".equals(args[0])) {
+            System.err.println("Usage: java GenerateLoad [options]");
+            System.err.println("  --host, --port: Where to send (default 127.0.0.1 8000, the proxy input)");
+            System.err.println("  --addresses: Number of addresses to cycle through (default 1)");
+            System.err.println("  --address-format: Address with %d for the index (default " + OSCLoadGenerator.DEFAULT_ADDRESS_FORMAT + ")");
+            System.err.println("  --args: Argument types per message from " + OSCLoadGenerator.ARGUMENT_TYPES + " (default f)");
+            System.err.println("  --rate: Messages per second, 0 for as fast as possible (default 1000)");
+            System.err.println("  --burst, --burst-interval: Send bursts of n messages every interval ms instead");
+            System.err.println("  --count: Stop after this many messages");
+            System.err.println("  --duration: Stop after this many milliseconds (default 10000 unless --count is given)");
+            System.err.println("  --replay: Replay a recorded session instead of generating messages");
+            System.err.println("  --speed: Replay speed factor, 0 for as fast as possible (default 1)");
+            System.err.println("  --loops: Times to replay the session (default 1)");
+            System.err.println("  --seed: Random seed for argument values (default 42)");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java GenerateLoad --addresses 5000 --address-format /mixer/%d/fader --rate 20000 --duration 60000");
+            System.err.println("  java GenerateLoad --args ffi --burst 500 --burst-interval 1000");
+            System.err.println("  java GenerateLoad --replay show1 --speed 10 --loops 3");
+            System.exit(1);
+        }
+
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        String host = "127.0.0.1";
+        int port = 8000;
+        String addressFormat = OSCLoadGenerator.DEFAULT_ADDRESS_FORMAT;
+        int addressCount = 1;
+        int burstSize = 1;
+        long burstIntervalMs = 1000;
+        long count = 0;
+        long durationMs = -1;
+        String replayName = null;
+        double speed = 1.0;
+        int loops = 1;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("--host".equals(args[i]) && i + 1 < args.length) {
+                    host = args[++i];
+                } else if ("--port".equals(args[i]) && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else if ("--addresses".equals(args[i]) && i + 1 < args.length) {
+                    addressCount = Integer.parseInt(args[++i]);
+                } else if ("--address-format".equals(args[i]) && i + 1 < args.length) {
+                    addressFormat = args[++i];
+                } else if ("--args".equals(args[i]) && i + 1 < args.length) {
+                    generator.setArgumentTypes(args[++i]);
+                } else if ("--rate".equals(args[i]) && i + 1 < args.length) {
+                    generator.setRate(Double.parseDouble(args[++i]));
+                } else if ("--burst".equals(args[i]) && i + 1 < args.length) {
+                    burstSize = Integer.parseInt(args[++i]);
+                } else if ("--burst-interval".equals(args[i]) && i + 1 < args.length) {
+                    burstIntervalMs = Long.parseLong(args[++i]);
+                } else if ("--count".equals(args[i]) && i + 1 < args.length) {
+                    count = Long.parseLong(args[++i]);
+                } else if ("--duration".equals(args[i]) && i + 1 < args.length) {
+                    durationMs = Long.parseLong(args[++i]);
+                } else if ("--replay".equals(args[i]) && i + 1 < args.length) {
+                    replayName = args[++i];
+                } else if ("--speed".equals(args[i]) && i + 1 < args.length) {
+                    speed = Double.parseDouble(args[++i]);
+                } else if ("--loops".equals(args[i]) && i + 1 < args.length) {
+                    loops = Integer.parseInt(args[++i]);
+                } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                    generator.setSeed(Long.parseLong(args[++i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        generator.setAddresses(addressFormat, addressCount);
+        generator.setBurst(burstSize, burstIntervalMs);
+        generator.setCount(count);
+        generator.setDurationMs(durationMs >= 0 ? durationMs : count > 0 ? 0 : 10_000);
+
+        OSCPortOut sender = null;
+        try {
+            if (replayName != null) {
+                ColumnarSession session = RecordingSession.loadColumnarSession(replayName);
+                if (session == null) {
+                    System.err.println("Recording not found: " + replayName);
+                    System.exit(1);
+                }
+                generator.setReplay(session, speed, loops);
+            }
+
+            sender = new OSCPortOutBuilder()
+                    .setRemoteSocketAddress(new InetSocketAddress(host, port))
+                    .build();
+            System.out.println("Sending to " + host + ":" + port);
+            OSCLoadGenerator.Stats stats = generator.run(sender::send);
+            System.out.println(stats.describe());
+        } catch (IOException e) {
+            System.err.println("Error generating load: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            System.exit(1);
+        } finally {
+            if (sender != null) {
+                try {
+                    sender.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing sender: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import javafx.application.Platform;
 import javafx.geometry.Pos;
@@ -19,14 +20,23 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import xyz.theforks.model.ColumnarSession;
 import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionQueryIndex;
+import xyz.theforks.model.SessionSummary;
 import xyz.theforks.service.OSCProxyService;
+import xyz.theforks.service.SessionIO;
 import xyz.theforks.ui.Theme;
 
 public class ManageRecordings {
     private final Stage stage;
     private final OSCProxyService proxyService;
     private final ListView<String> recordingsList;
+    // Optional query applied when viewing a session
+    private final TextField addressField = new TextField();
+    private final TextField fromField = new TextField();
+    private final TextField toField = new TextField();
+    private final Runnable sessionsChanged = () -> Platform.runLater(this::updateRecordingsList);
     // Add new fields for threshold storage
     private double savedForwardThreshold = 100;
     private double savedReverseThreshold = 100;
@@ -43,18 +53,20 @@ public class ManageRecordings {
         updateRecordingsList();
 
         VBox root = new VBox(10);
-        recordingsList.getItems().addAll(proxyService.getRecordedSessions());
 
         recordingsList.setCellFactory(param -> new javafx.scene.control.ListCell<>() {
             private final HBox container = new HBox(10);
             private final Label nameLabel = new Label();
+            private final Label summaryLabel = new Label();
             private final Button viewButton = new Button("View");
             private final Button exportButton = new Button("Export");
 
             {
                 nameLabel.setPrefWidth(150);
                 container.setAlignment(Pos.CENTER_LEFT);
-                container.getChildren().addAll(nameLabel, viewButton, exportButton);
+                summaryLabel.setPrefWidth(200);
+                summaryLabel.setStyle("-fx-text-fill: #aaaaaa;");
+                container.getChildren().addAll(nameLabel, summaryLabel, viewButton, exportButton);
                 
                 viewButton.setOnAction(e -> viewSession(getItem()));
                 exportButton.setOnAction(e -> exportCalibration(getItem()));
@@ -67,16 +79,38 @@ public class ManageRecordings {
                     setGraphic(null);
                 } else {
                     nameLabel.setText(item);
+                    // From the summary.json sidecar; a missing one is computed in the background
+                    SessionSummary summary = proxyService.getCachedSessionSummary(item);
+                    summaryLabel.setText(summary != null ? summary.describe() : "");
+                    if (summary == null) {
+                        proxyService.loadSessionSummary(item).thenAccept(loaded -> Platform.runLater(() -> {
+                            if (loaded != null && item.equals(getItem())) {
+                                summaryLabel.setText(loaded.describe());
+                            }
+                        }));
+                    }
                     setGraphic(container);
                 }
             }
         });
 
-        root.getChildren().add(recordingsList);
+        addressField.setPromptText("All addresses, e.g. //mag");
+        addressField.setPrefWidth(220);
+        fromField.setPromptText("Start");
+        fromField.setPrefWidth(70);
+        toField.setPromptText("End");
+        toField.setPrefWidth(70);
+        HBox queryBox = new HBox(10, new Label("View Address:"), addressField,
+                new Label("From (s):"), fromField, new Label("To (s):"), toField);
+        queryBox.setAlignment(Pos.CENTER_LEFT);
+
+        root.getChildren().addAll(queryBox, recordingsList);
         
-        Scene scene = new Scene(root, 400, 300);
+        Scene scene = new Scene(root, 700, 300);
         Theme.applyDark(scene);
         stage.setScene(scene);
+
+        stage.setOnHidden(e -> proxyService.removeSessionListener(sessionsChanged));
     }
 
     private void updateRecordingsList() {
@@ -95,177 +129,217 @@ public class ManageRecordings {
         File file = fileChooser.showSaveDialog(stage);
         
         if (file != null) {
-            try {
-                RecordingSession session = RecordingSession.loadSession(sessionName);
+            // Load and write on the session I/O thread
+            SessionIO.getInstance().submit("Exporting " + sessionName, () -> {
+                ColumnarSession session = RecordingSession.loadColumnarSession(sessionName);
                 if (session != null) {
-                    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                        // Write CSV header
-                        writer.write("timestamp,magx,magy,magz\n");
-                        
-                        // Get start time for normalization
-                        long startTime = session.getMessages().get(0).getTimestamp();
-                        
-                        session.getMessages().forEach(record -> {
-                            try {
-                                double timeInSeconds = (record.getTimestamp() - startTime) / 1000.0;
-                                // Only write records between the saved threshold times
-                                if ((savedForwardThresholdTime < 0 || timeInSeconds >= savedForwardThresholdTime) && 
-                                    (savedReverseThresholdTime < 0 || timeInSeconds <= savedReverseThresholdTime)) {
-                                    writer.write(String.format("%d,%d,%d,%d\n",
-                                        record.getTimestamp(),
-                                        ((Double)record.getArguments()[0]).intValue(),
-                                        ((Double)record.getArguments()[1]).intValue(),
-                                        ((Double)record.getArguments()[2]).intValue()
-                                    ));
-                                }
-                            } catch (IOException e) {
-                                System.err.println("Error writing record to CSV: " + e.getMessage());
-                            }
-                        });
-                    }
+                    writeCalibration(session, file);
                 }
-            } catch (IOException ioex) {
+                return null;
+            }).exceptionally(error -> {
                 System.err.println("Error loading session recording: " + sessionName);
+                return null;
+            });
+        }
+    }
+
+    private void writeCalibration(ColumnarSession session, File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            // Write CSV header
+            writer.write("timestamp,magx,magy,magz\n");
+
+            // Get start time for normalization
+            long startTime = session.getTimestamp(0);
+
+            for (int i = 0; i < session.size(); i++) {
+                try {
+                    double timeInSeconds = (session.getTimestamp(i) - startTime) / 1000.0;
+                    // Only write records between the saved threshold times
+                    if ((savedForwardThresholdTime < 0 || timeInSeconds >= savedForwardThresholdTime) && 
+                        (savedReverseThresholdTime < 0 || timeInSeconds <= savedReverseThresholdTime)) {
+                        writer.write(String.format("%d,%d,%d,%d\n",
+                            session.getTimestamp(i),
+                            session.getInt(i, 0),
+                            session.getInt(i, 1),
+                            session.getInt(i, 2)
+                        ));
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error writing record to CSV: " + e.getMessage());
+                }
             }
         }
     }
 
     private void viewSession(String sessionName) {
+        String pattern = addressField.getText().trim();
+        long fromMs = parseSeconds(fromField.getText(), Long.MIN_VALUE);
+        long toMs = parseSeconds(toField.getText(), Long.MAX_VALUE);
+        CompletableFuture<ColumnarSession> loaded;
+        if (pattern.isEmpty() && fromMs == Long.MIN_VALUE && toMs == Long.MAX_VALUE) {
+            loaded = SessionIO.getInstance().loadColumnar(sessionName);
+        } else {
+            // Read only the matching messages through the session's query index
+            loaded = SessionIO.getInstance().submit("Querying " + sessionName, () -> {
+                SessionQueryIndex index = proxyService.getSessionQueryIndex(sessionName);
+                return index != null ? index.query(pattern, fromMs, toMs) : null;
+            });
+        }
+        // Load on the session I/O thread and build the charts once loaded
+        loaded.whenComplete((session, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Error loading session for viewing: " + sessionName);
+            } else {
+                showSession(sessionName, session);
+            }
+        }));
+    }
+
+    /**
+     * Parse a time field in seconds.
+     * @return The time in milliseconds, or the default if the field is empty or invalid
+     */
+    private static long parseSeconds(String text, long defaultMs) {
+        if (text == null || text.trim().isEmpty()) {
+            return defaultMs;
+        }
         try {
-            RecordingSession session = RecordingSession.loadSession(sessionName);
-            if (session != null && !session.getMessages().isEmpty()) {
-                Stage viewStage = new Stage();
-                viewStage.setTitle("View Session: " + sessionName);
+            return Math.round(Double.parseDouble(text.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid time: " + text);
+            return defaultMs;
+        }
+    }
 
-                VBox chartsContainer = new VBox(10);
-                
-                // Get start time for normalization
-                long startTime = session.getMessages().get(0).getTimestamp();
-                
-                // Create three charts for X, Y, Z
-                LineChart<Number, Number> chartX = createChart("Magnetometer X", "Time (seconds)", "X Value");
-                LineChart<Number, Number> chartY = createChart("Magnetometer Y", "Time (seconds)", "Y Value");
-                LineChart<Number, Number> chartZ = createChart("Magnetometer Z", "Time (seconds)", "Z Value");
-
-                // Populate data
-                XYChart.Series<Number, Number> seriesX = new XYChart.Series<>();
-                XYChart.Series<Number, Number> seriesY = new XYChart.Series<>();
-                XYChart.Series<Number, Number> seriesZ = new XYChart.Series<>();
-
-                // Create series for threshold markers
-                XYChart.Series<Number, Number> thresholdX = new XYChart.Series<>();
-                XYChart.Series<Number, Number> thresholdY = new XYChart.Series<>();
-                XYChart.Series<Number, Number> thresholdZ = new XYChart.Series<>();
-                XYChart.Series<Number, Number> reverseThresholdX = new XYChart.Series<>();
-                XYChart.Series<Number, Number> reverseThresholdY = new XYChart.Series<>();
-                XYChart.Series<Number, Number> reverseThresholdZ = new XYChart.Series<>();
-                thresholdX.setName("Forward Threshold");
-                thresholdY.setName("Forward Threshold");
-                thresholdZ.setName("Forward Threshold");
-                reverseThresholdX.setName("Reverse Threshold");
-                reverseThresholdY.setName("Reverse Threshold");
-                reverseThresholdZ.setName("Reverse Threshold");
-
-                session.getMessages().forEach(record -> {
-                    double timeInSeconds = (record.getTimestamp() - startTime) / 1000.0;
-                    seriesX.getData().add(new XYChart.Data<>(timeInSeconds, ((Double)record.getArguments()[0]).intValue()));
-                    seriesY.getData().add(new XYChart.Data<>(timeInSeconds, ((Double)record.getArguments()[1]).intValue()));
-                    seriesZ.getData().add(new XYChart.Data<>(timeInSeconds, ((Double)record.getArguments()[2]).intValue()));
-                });
-
-                chartX.getData().addAll(seriesX, thresholdX, reverseThresholdX);
-                chartY.getData().addAll(seriesY, thresholdY, reverseThresholdY);
-                chartZ.getData().addAll(seriesZ, thresholdZ, reverseThresholdZ);
-
-                // Add threshold controls
-                HBox controls = new HBox(10);
-                controls.setAlignment(Pos.CENTER);
-                
-                Label forwardThresholdLabel = new Label("Forward Threshold:");
-                TextField forwardThresholdInput = new TextField(String.valueOf(savedForwardThreshold));
-                Label reverseThresholdLabel = new Label("Reverse Threshold:");
-                TextField reverseThresholdInput = new TextField(String.valueOf(savedReverseThreshold));
-                Label windowLabel = new Label("Window Size:");
-                TextField windowInput = new TextField(String.valueOf(savedWindowSize));
-                Button showButton = new Button("Show Threshold Points");
-                Button saveButton = new Button("Save Thresholds");
-
-                controls.getChildren().addAll(
-                    forwardThresholdLabel, forwardThresholdInput,
-                    reverseThresholdLabel, reverseThresholdInput,
-                    windowLabel, windowInput,
-                    showButton, saveButton
-                );
+    private void showSession(String sessionName, ColumnarSession session) {
+        if (session != null && !session.isEmpty()) {
+            Stage viewStage = new Stage();
+            viewStage.setTitle("View Session: " + sessionName);
 
-                // Style the threshold points
-                String thresholdPointStyle = 
-                    "-fx-background-color: red;" +
-                    "-fx-background-radius: 5px;" +
-                    "-fx-padding: 5px;" +
-                    "-fx-shape: \"M0,0 L1,0 L1,1 L0,1 Z\";" +
-                    "-fx-min-width: 10px;" +
-                    "-fx-min-height: 10px;";
-
-                showButton.setOnAction(e -> {
-                    try {
-                        double forwardThreshold = Double.parseDouble(forwardThresholdInput.getText());
-                        double reverseThreshold = Double.parseDouble(reverseThresholdInput.getText());
-                        int windowSize = Integer.parseInt(windowInput.getText());
-                        
-                        double forwardThresholdTime = findMovementStart(session, forwardThreshold, windowSize, startTime);
-                        double reverseThresholdTime = findMovementStartReverse(session, reverseThreshold, windowSize, startTime);
-                        
-                        // Clear and add threshold points
-                        thresholdX.getData().clear();
-                        thresholdY.getData().clear();
-                        thresholdZ.getData().clear();
-                        reverseThresholdX.getData().clear();
-                        reverseThresholdY.getData().clear();
-                        reverseThresholdZ.getData().clear();
-                        
-                        if (forwardThresholdTime >= 0) {
-                            int idx = (int)(forwardThresholdTime * 1000 / session.getMessages().get(1).getTimestamp());
-                            if (idx < session.getMessages().size()) {
-                                var msg = session.getMessages().get(idx);
-                                addThresholdPoint(thresholdX, forwardThresholdTime, ((Double)msg.getArguments()[0]).intValue());
-                                addThresholdPoint(thresholdY, forwardThresholdTime, ((Double)msg.getArguments()[1]).intValue());
-                                addThresholdPoint(thresholdZ, forwardThresholdTime, ((Double)msg.getArguments()[2]).intValue());
-                            }
-                        }
-                        
-                        if (reverseThresholdTime >= 0) {
-                            int idx = (int)(reverseThresholdTime * 1000 / session.getMessages().get(1).getTimestamp());
-                            if (idx < session.getMessages().size()) {
-                                var msg = session.getMessages().get(idx);
-                                addThresholdPoint(reverseThresholdX, reverseThresholdTime, ((Double)msg.getArguments()[0]).intValue());
-                                addThresholdPoint(reverseThresholdY, reverseThresholdTime, ((Double)msg.getArguments()[1]).intValue());
-                                addThresholdPoint(reverseThresholdZ, reverseThresholdTime, ((Double)msg.getArguments()[2]).intValue());
-                            }
+            VBox chartsContainer = new VBox(10);
+            
+            // Get start time for normalization
+            long startTime = session.getTimestamp(0);
+            
+            // Create three charts for X, Y, Z
+            LineChart<Number, Number> chartX = createChart("Magnetometer X", "Time (seconds)", "X Value");
+            LineChart<Number, Number> chartY = createChart("Magnetometer Y", "Time (seconds)", "Y Value");
+            LineChart<Number, Number> chartZ = createChart("Magnetometer Z", "Time (seconds)", "Z Value");
+
+            // Populate data
+            XYChart.Series<Number, Number> seriesX = new XYChart.Series<>();
+            XYChart.Series<Number, Number> seriesY = new XYChart.Series<>();
+            XYChart.Series<Number, Number> seriesZ = new XYChart.Series<>();
+
+            // Create series for threshold markers
+            XYChart.Series<Number, Number> thresholdX = new XYChart.Series<>();
+            XYChart.Series<Number, Number> thresholdY = new XYChart.Series<>();
+            XYChart.Series<Number, Number> thresholdZ = new XYChart.Series<>();
+            XYChart.Series<Number, Number> reverseThresholdX = new XYChart.Series<>();
+            XYChart.Series<Number, Number> reverseThresholdY = new XYChart.Series<>();
+            XYChart.Series<Number, Number> reverseThresholdZ = new XYChart.Series<>();
+            thresholdX.setName("Forward Threshold");
+            thresholdY.setName("Forward Threshold");
+            thresholdZ.setName("Forward Threshold");
+            reverseThresholdX.setName("Reverse Threshold");
+            reverseThresholdY.setName("Reverse Threshold");
+            reverseThresholdZ.setName("Reverse Threshold");
+
+            for (int i = 0; i < session.size(); i++) {
+                double timeInSeconds = (session.getTimestamp(i) - startTime) / 1000.0;
+                seriesX.getData().add(new XYChart.Data<>(timeInSeconds, session.getInt(i, 0)));
+                seriesY.getData().add(new XYChart.Data<>(timeInSeconds, session.getInt(i, 1)));
+                seriesZ.getData().add(new XYChart.Data<>(timeInSeconds, session.getInt(i, 2)));
+            }
+
+            chartX.getData().addAll(seriesX, thresholdX, reverseThresholdX);
+            chartY.getData().addAll(seriesY, thresholdY, reverseThresholdY);
+            chartZ.getData().addAll(seriesZ, thresholdZ, reverseThresholdZ);
+
+            // Add threshold controls
+            HBox controls = new HBox(10);
+            controls.setAlignment(Pos.CENTER);
+            
+            Label forwardThresholdLabel = new Label("Forward Threshold:");
+            TextField forwardThresholdInput = new TextField(String.valueOf(savedForwardThreshold));
+            Label reverseThresholdLabel = new Label("Reverse Threshold:");
+            TextField reverseThresholdInput = new TextField(String.valueOf(savedReverseThreshold));
+            Label windowLabel = new Label("Window Size:");
+            TextField windowInput = new TextField(String.valueOf(savedWindowSize));
+            Button showButton = new Button("Show Threshold Points");
+            Button saveButton = new Button("Save Thresholds");
+
+            controls.getChildren().addAll(
+                forwardThresholdLabel, forwardThresholdInput,
+                reverseThresholdLabel, reverseThresholdInput,
+                windowLabel, windowInput,
+                showButton, saveButton
+            );
+
+            // Style the threshold points
+            String thresholdPointStyle = 
+                "-fx-background-color: red;" +
+                "-fx-background-radius: 5px;" +
+                "-fx-padding: 5px;" +
+                "-fx-shape: \"M0,0 L1,0 L1,1 L0,1 Z\";" +
+                "-fx-min-width: 10px;" +
+                "-fx-min-height: 10px;";
+
+            showButton.setOnAction(e -> {
+                try {
+                    double forwardThreshold = Double.parseDouble(forwardThresholdInput.getText());
+                    double reverseThreshold = Double.parseDouble(reverseThresholdInput.getText());
+                    int windowSize = Integer.parseInt(windowInput.getText());
+                    
+                    double forwardThresholdTime = findMovementStart(session, forwardThreshold, windowSize, startTime);
+                    double reverseThresholdTime = findMovementStartReverse(session, reverseThreshold, windowSize, startTime);
+                    
+                    // Clear and add threshold points
+                    thresholdX.getData().clear();
+                    thresholdY.getData().clear();
+                    thresholdZ.getData().clear();
+                    reverseThresholdX.getData().clear();
+                    reverseThresholdY.getData().clear();
+                    reverseThresholdZ.getData().clear();
+                    
+                    if (forwardThresholdTime >= 0) {
+                        int idx = (int)(forwardThresholdTime * 1000 / session.getTimestamp(1));
+                        if (idx < session.size()) {
+                            addThresholdPoint(thresholdX, forwardThresholdTime, session.getInt(idx, 0));
+                            addThresholdPoint(thresholdY, forwardThresholdTime, session.getInt(idx, 1));
+                            addThresholdPoint(thresholdZ, forwardThresholdTime, session.getInt(idx, 2));
                         }
-                    } catch (NumberFormatException ex) {
-                        System.err.println("Invalid threshold or window size");
                     }
-                });
-
-                saveButton.setOnAction(e -> {
-                    try {
-                        savedForwardThreshold = Double.parseDouble(forwardThresholdInput.getText());
-                        savedReverseThreshold = Double.parseDouble(reverseThresholdInput.getText());
-                        savedWindowSize = Integer.parseInt(windowInput.getText());
-                        savedForwardThresholdTime = findMovementStart(session, savedForwardThreshold, savedWindowSize, startTime);
-                        savedReverseThresholdTime = findMovementStartReverse(session, savedReverseThreshold, savedWindowSize, startTime);
-                    } catch (NumberFormatException ex) {
-                        System.err.println("Invalid values for saving");
+                    
+                    if (reverseThresholdTime >= 0) {
+                        int idx = (int)(reverseThresholdTime * 1000 / session.getTimestamp(1));
+                        if (idx < session.size()) {
+                            addThresholdPoint(reverseThresholdX, reverseThresholdTime, session.getInt(idx, 0));
+                            addThresholdPoint(reverseThresholdY, reverseThresholdTime, session.getInt(idx, 1));
+                            addThresholdPoint(reverseThresholdZ, reverseThresholdTime, session.getInt(idx, 2));
+                        }
                     }
-                });
+                } catch (NumberFormatException ex) {
+                    System.err.println("Invalid threshold or window size");
+                }
+            });
 
-                chartsContainer.getChildren().addAll(chartX, chartY, chartZ, controls);
-                Scene viewScene = new Scene(chartsContainer, 800, 600);
-                viewStage.setScene(viewScene);
-                viewStage.show();
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading session for viewing: " + sessionName);
+            saveButton.setOnAction(e -> {
+                try {
+                    savedForwardThreshold = Double.parseDouble(forwardThresholdInput.getText());
+                    savedReverseThreshold = Double.parseDouble(reverseThresholdInput.getText());
+                    savedWindowSize = Integer.parseInt(windowInput.getText());
+                    savedForwardThresholdTime = findMovementStart(session, savedForwardThreshold, savedWindowSize, startTime);
+                    savedReverseThresholdTime = findMovementStartReverse(session, savedReverseThreshold, savedWindowSize, startTime);
+                } catch (NumberFormatException ex) {
+                    System.err.println("Invalid values for saving");
+                }
+            });
+
+            chartsContainer.getChildren().addAll(chartX, chartY, chartZ, controls);
+            Scene viewScene = new Scene(chartsContainer, 800, 600);
+            viewStage.setScene(viewScene);
+            viewStage.show();
         }
     }
 
@@ -288,58 +362,58 @@ public class ManageRecordings {
         });
     }
 
-    private double findMovementStart(RecordingSession session, double threshold, int windowSize, long startTime) {
-        if (windowSize >= session.getMessages().size()) return -1;
+    private double findMovementStart(ColumnarSession session, double threshold, int windowSize, long startTime) {
+        if (windowSize >= session.size()) return -1;
         
-        for (int i = windowSize; i < session.getMessages().size(); i++) {
+        for (int i = windowSize; i < session.size(); i++) {
             double sumDeltaX = 0, sumDeltaY = 0, sumDeltaZ = 0;
             
             // Calculate average change over window
             for (int j = 0; j < windowSize; j++) {
-                var current = session.getMessages().get(i - j);
-                var previous = session.getMessages().get(i - j - 1);
+                int current = i - j;
+                int previous = i - j - 1;
                 
-                sumDeltaX += Math.abs(((Double)current.getArguments()[0]).intValue() - 
-                                    ((Double)previous.getArguments()[0]).intValue());
-                sumDeltaY += Math.abs(((Double)current.getArguments()[1]).intValue() - 
-                                    ((Double)previous.getArguments()[1]).intValue());
-                sumDeltaZ += Math.abs(((Double)current.getArguments()[2]).intValue() - 
-                                    ((Double)previous.getArguments()[2]).intValue());
+                sumDeltaX += Math.abs(session.getInt(current, 0) - 
+                                    session.getInt(previous, 0));
+                sumDeltaY += Math.abs(session.getInt(current, 1) - 
+                                    session.getInt(previous, 1));
+                sumDeltaZ += Math.abs(session.getInt(current, 2) - 
+                                    session.getInt(previous, 2));
             }
             
             double avgDelta = (sumDeltaX + sumDeltaY + sumDeltaZ) / (3 * windowSize);
             
             if (avgDelta > threshold) {
-                return (session.getMessages().get(i).getTimestamp() - startTime) / 1000.0;
+                return (session.getTimestamp(i) - startTime) / 1000.0;
             }
         }
         
         return -1;
     }
 
-    private double findMovementStartReverse(RecordingSession session, double threshold, int windowSize, long startTime) {
-        if (windowSize >= session.getMessages().size()) return -1;
+    private double findMovementStartReverse(ColumnarSession session, double threshold, int windowSize, long startTime) {
+        if (windowSize >= session.size()) return -1;
         
-        for (int i = session.getMessages().size() - windowSize - 1; i >= 0; i--) {
+        for (int i = session.size() - windowSize - 1; i >= 0; i--) {
             double sumDeltaX = 0, sumDeltaY = 0, sumDeltaZ = 0;
             
             // Calculate average change over window
             for (int j = 0; j < windowSize; j++) {
-                var current = session.getMessages().get(i + j);
-                var previous = session.getMessages().get(i + j + 1);
+                int current = i + j;
+                int previous = i + j + 1;
                 
-                sumDeltaX += Math.abs(((Double)current.getArguments()[0]).intValue() - 
-                                    ((Double)previous.getArguments()[0]).intValue());
-                sumDeltaY += Math.abs(((Double)current.getArguments()[1]).intValue() - 
-                                    ((Double)previous.getArguments()[1]).intValue());
-                sumDeltaZ += Math.abs(((Double)current.getArguments()[2]).intValue() - 
-                                    ((Double)previous.getArguments()[2]).intValue());
+                sumDeltaX += Math.abs(session.getInt(current, 0) - 
+                                    session.getInt(previous, 0));
+                sumDeltaY += Math.abs(session.getInt(current, 1) - 
+                                    session.getInt(previous, 1));
+                sumDeltaZ += Math.abs(session.getInt(current, 2) - 
+                                    session.getInt(previous, 2));
             }
             
             double avgDelta = (sumDeltaX + sumDeltaY + sumDeltaZ) / (3 * windowSize);
             
             if (avgDelta > threshold) {
-                return (session.getMessages().get(i).getTimestamp() - startTime) / 1000.0;
+                return (session.getTimestamp(i) - startTime) / 1000.0;
             }
         }
         
@@ -361,6 +435,10 @@ public class ManageRecordings {
     }
 
     public void show() {
+        if (!stage.isShowing()) {
+            proxyService.addSessionListener(sessionsChanged);
+            updateRecordingsList();
+        }
         stage.show();
     }
 
@@ -198,6 +198,10 @@ public class MultiOutputManager {
         TextField portField = new TextField(String.valueOf(output.getOutPort()));
         CheckBox enabledCheckBox = new CheckBox("Proxy");
         enabledCheckBox.setSelected(output.isEnabled());
+        CheckBox recordCheckBox = new CheckBox("Record sent messages");
+        recordCheckBox.setSelected(proxyService.isOutputRecorded(output.getId()));
+        recordCheckBox.setTooltip(new Tooltip("Save what this output sends, after its node chain and delays, "
+                + "as a separate session alongside each recording"));
 
         grid.add(new Label("ID:"), 0, 0);
         grid.add(new Label(output.getId()), 1, 0);
@@ -206,6 +210,7 @@ public class MultiOutputManager {
         grid.add(new Label("Port:"), 0, 2);
         grid.add(portField, 1, 2);
         grid.add(enabledCheckBox, 1, 3);
+        grid.add(recordCheckBox, 1, 4);
 
         dialog.getDialogPane().setContent(grid);
         Theme.applyDark(dialog.getDialogPane().getScene());
@@ -219,6 +224,7 @@ public class MultiOutputManager {
                     output.setOutHost(host);
                     output.setOutPort(port);
                     output.setEnabled(enabledCheckBox.isSelected());
+                    proxyService.setOutputRecorded(output.getId(), recordCheckBox.isSelected());
 
                     updateOutputsList();
                     if (onOutputsChanged != null) {
@@ -3,7 +3,9 @@ package xyz.theforks;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -39,18 +41,24 @@ import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
+import xyz.theforks.metrics.MetricsRegistry;
+import xyz.theforks.metrics.MetricsServer;
 import xyz.theforks.model.ApplicationConfig;
 import xyz.theforks.model.NodeChainConfig;
 import xyz.theforks.model.OutputConfig;
 import xyz.theforks.model.PlaybackMode;
+import xyz.theforks.model.PlaybackTimingReport;
 import xyz.theforks.model.ProjectConfig;
 import xyz.theforks.model.RecordingSession;
+import xyz.theforks.nodes.NodeChain;
 import xyz.theforks.nodes.OSCNode;
 import xyz.theforks.nodes.ScriptNode;
+import xyz.theforks.service.CaptureBuffer;
 import xyz.theforks.service.OSCInputService;
 import xyz.theforks.service.OSCOutputService;
 import xyz.theforks.service.OSCProxyService;
 import xyz.theforks.service.ProjectManager;
+import xyz.theforks.service.SessionIO;
 import xyz.theforks.ui.MonitorWindow;
 import xyz.theforks.ui.ProjectSplashScreen;
 import xyz.theforks.ui.RecordingEditorUI;
@@ -71,7 +79,11 @@ public class OSCProxyApp extends Application {
     private TextField outPortField;
     private Button manageButton;
     private Button recordButton;
+    private Button saveCaptureButton;
     private Label messageCountLabel;
+    private Label ioStatusLabel;
+    private CheckBox timeShiftCheckBox;
+    private TextField timeShiftField;
     private ComboBox<String> sessionComboBox;
     private ComboBox<String> playbackOutputComboBox;
     private Button playButton;
@@ -106,12 +118,14 @@ public class OSCProxyApp extends Application {
     private static int outPort = 3030;
     private static boolean cliMode = false;
     private static String projectToLoad = null;
+    private static int metricsPort = -1;
 
     // Add fields
     private NodeChainManager nodeChainManager;
     private ProjectManager projectManager;
     private Stage primaryStage;
     private SamplerPadUI samplerPadUI;
+    private MetricsServer metricsServer;
     private RecordingEditorUI recordingEditorUI;
 
     public static void main(String[] args) {
@@ -144,6 +158,16 @@ public class OSCProxyApp extends Application {
                         projectToLoad = args[++i];
                     }
                     break;
+                case "--metrics-port":
+                    if (i + 1 < args.length) {
+                        try {
+                            metricsPort = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Invalid metrics port: " + args[i]);
+                            System.exit(1);
+                        }
+                    }
+                    break;
                 case "--help":
                     printUsage();
                     System.exit(0);
@@ -209,6 +233,7 @@ public class OSCProxyApp extends Application {
 
         // Load application configuration
         loadApplicationConfig();
+        startMetricsServer();
 
         // Currently we can only have one playback operation at a time so we have a single instance
         // here.  The various playback/stop playback buttons will control this instance.
@@ -346,8 +371,36 @@ public class OSCProxyApp extends Application {
         HBox recordingControls = new HBox(10);
         recordButton = new Button("Start Recording");
         messageCountLabel = new Label("Messages: 0");
-        recordingControls.getChildren().addAll(recordButton, messageCountLabel);
-        recordingSection.getChildren().add(recordingControls);
+        saveCaptureButton = new Button("Save Last...");
+        ioStatusLabel = new Label();
+        ioStatusLabel.setStyle("-fx-text-fill: #aaaaaa;");
+        recordingControls.getChildren().addAll(recordButton, messageCountLabel, saveCaptureButton, ioStatusLabel);
+        SessionIO.getInstance().addProgressListener(new SessionIO.ProgressListener() {
+            @Override
+            public void taskStarted(String description, int pending) {
+                String text = pending > 1 ? description + "... (" + (pending - 1) + " queued)" : description + "...";
+                Platform.runLater(() -> ioStatusLabel.setText(text));
+            }
+
+            @Override
+            public void taskFinished(String description, int pending, Throwable error) {
+                if (pending == 0) {
+                    Platform.runLater(() -> ioStatusLabel.setText(""));
+                }
+            }
+        });
+
+        // Time shift controls - delay the whole input stream and scrub it live
+        HBox timeShiftControls = new HBox(10);
+        timeShiftControls.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        timeShiftCheckBox = new CheckBox("Time Shift");
+        timeShiftField = new TextField();
+        timeShiftField.setMaxWidth(80);
+        timeShiftField.setStyle("-fx-font-size: 11px;");
+        timeShiftControls.getChildren().addAll(timeShiftCheckBox, timeShiftField, new Label("seconds behind live"));
+        updateTimeShiftControls();
+
+        recordingSection.getChildren().addAll(recordingControls, timeShiftControls);
 
         Tab recordTab = new Tab("Record", recordingSection);
 
@@ -469,13 +522,23 @@ public class OSCProxyApp extends Application {
             stopPlaybackButton.setDisable(!newVal);
             sessionComboBox.setDisable(newVal);
         });
-         
+
+        playback.lastTimingReportProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                playbackStatusLabel.setText((newVal.isStopped() ? "Stopped: " : "Completed: ") + newVal.describe());
+            }
+        });
+
         // Session selection listener: update audio label or reset when unbound
         sessionComboBox.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldVal, newVal) -> {
                 if (newVal != null) {
                     String audioFile = playback.getAssociatedAudioFile(newVal);
                     audioFileLabel.setText(audioFile != null ? audioFile : "No Audio");
+                    if (!playback.isPlayingProperty().get()) {
+                        PlaybackTimingReport report = playback.getLastTimingReport(newVal);
+                        playbackStatusLabel.setText(report != null ? "Last played: " + report.describe() : "Ready");
+                    }
                 } else {
                     audioFileLabel.setText("No Audio");
                 }
@@ -717,6 +780,11 @@ public class OSCProxyApp extends Application {
                 RecordingSession.setRecordingsDirectory(projectManager.getRecordingsDir());
             }
 
+            // Finish any recordings that were interrupted by a crash
+            for (String recovered : proxyService.recoverInterruptedRecordings()) {
+                log("Recovered interrupted recording: " + recovered);
+            }
+
             // Clear all outputs first to remove any previously loaded data
             log("initializeOutputsFromProject: Clearing all outputs...");
             proxyService.clearAllOutputs();
@@ -726,6 +794,7 @@ public class OSCProxyApp extends Application {
             log("initializeOutputsFromProject: Project has " + project.getOutputs().size() + " outputs configured");
             for (OutputConfig outputConfig : project.getOutputs()) {
                 log("initializeOutputsFromProject: Loading output: " + outputConfig.getId());
+                proxyService.setOutputRecorded(outputConfig.getId(), outputConfig.isRecorded());
                 if ("default".equals(outputConfig.getId())) {
                     // Update the existing default output
                     OSCOutputService defaultOutput = proxyService.getOutput("default");
@@ -745,7 +814,58 @@ public class OSCProxyApp extends Application {
                 }
             }
             log("initializeOutputsFromProject: Final output count: " + proxyService.getOutputs().size());
+
+            applyTimeShiftFromProject(project);
+            applyCaptureFromProject(project);
+            proxyService.setRecordingSegmentMs(Math.round(project.getRecordingSegmentMinutes() * 60 * 1000));
+            proxyService.setRecordingMemoryBudget(project.getRecordingBufferMB() * 1024L * 1024);
+            proxyService.getRecordingNodeChain().setNodes(createNodes(project.getRecordingNodeChain()));
+        }
+    }
+
+    /**
+     * Size the always-on input capture buffer from project settings.
+     */
+    private void applyCaptureFromProject(ProjectConfig project) {
+        if (project.getCaptureBufferMB() <= 0 || project.getCaptureMinutes() <= 0) {
+            proxyService.setCaptureBuffer(null);
+            return;
+        }
+        proxyService.setCaptureBuffer(CaptureBuffer.forMemoryBudget(
+                project.getCaptureBufferMB() * 1024L * 1024L,
+                Math.round(project.getCaptureMinutes() * 60 * 1000)));
+    }
+
+    /**
+     * Enable or disable the proxy time-shift buffer from project settings.
+     */
+    private void applyTimeShiftFromProject(ProjectConfig project) {
+        if (project.isTimeShiftEnabled()) {
+            try {
+                proxyService.enableTimeShift(project.getTimeShiftCapacity(),
+                        Math.round(project.getTimeShiftSeconds() * 1000));
+            } catch (IllegalArgumentException e) {
+                // e.g. a negative offset or zero capacity in a hand-edited project file
+                log("Invalid time shift settings, time shift disabled: " + e.getMessage());
+                project.setTimeShiftEnabled(false);
+                proxyService.disableTimeShift();
+            }
+        } else {
+            proxyService.disableTimeShift();
+        }
+        updateTimeShiftControls();
+    }
+
+    /**
+     * Sync the time shift controls with the current project settings.
+     */
+    private void updateTimeShiftControls() {
+        ProjectConfig project = projectManager.getCurrentProject();
+        if (project == null || timeShiftCheckBox == null || timeShiftField == null) {
+            return;
         }
+        timeShiftCheckBox.setSelected(project.isTimeShiftEnabled());
+        timeShiftField.setText(String.valueOf(project.getTimeShiftSeconds()));
     }
 
     /**
@@ -918,12 +1038,55 @@ public class OSCProxyApp extends Application {
                         output.isEnabled(),
                         saveNodeChainForOutput(output)
                 );
+                outputConfig.setRecorded(proxyService.isOutputRecorded(output.getId()));
                 project.addOrUpdateOutput(outputConfig);
             }
+            project.setRecordingNodeChain(saveNodeChain(proxyService.getRecordingNodeChain()));
         }
     }
 
     private void setupEventHandlers() {
+        timeShiftCheckBox.setOnAction(e -> {
+            ProjectConfig project = projectManager.getCurrentProject();
+            if (project == null) {
+                return;
+            }
+            try {
+                double seconds = Double.parseDouble(timeShiftField.getText());
+                if (seconds < 0) {
+                    throw new NumberFormatException("negative");
+                }
+                project.setTimeShiftSeconds(seconds);
+            } catch (NumberFormatException ex) {
+                log("Invalid time shift offset: " + timeShiftField.getText());
+                timeShiftField.setText(String.valueOf(project.getTimeShiftSeconds()));
+            }
+            project.setTimeShiftEnabled(timeShiftCheckBox.isSelected());
+            applyTimeShiftFromProject(project);
+            log(project.isTimeShiftEnabled()
+                    ? "Time shift enabled: " + project.getTimeShiftSeconds() + "s behind live"
+                    : "Time shift disabled");
+        });
+
+        timeShiftField.setOnAction(e -> {
+            ProjectConfig project = projectManager.getCurrentProject();
+            if (project == null) {
+                return;
+            }
+            try {
+                double seconds = Double.parseDouble(timeShiftField.getText());
+                if (seconds < 0) {
+                    throw new NumberFormatException("negative");
+                }
+                project.setTimeShiftSeconds(seconds);
+                proxyService.setTimeShiftOffsetMs(Math.round(seconds * 1000));
+                log("Time shift offset: " + seconds + "s");
+            } catch (NumberFormatException ex) {
+                log("Invalid time shift offset: " + timeShiftField.getText());
+                timeShiftField.setText(String.valueOf(project.getTimeShiftSeconds()));
+            }
+        });
+
         recordButton.setOnAction(e -> {
             if (!isRecording) {
                 TextInputDialog dialog = new TextInputDialog();
@@ -947,14 +1110,48 @@ public class OSCProxyApp extends Application {
                     showError("Error", "Input service not started");
                     return;
                 }
-                proxyService.stopRecording();
                 isRecording = false;
                 recordButton.setText("Start Recording");
-                updateSessionsList();
                 log("Stopped recording");
+                // The journal is converted on the session I/O thread
+                proxyService.stopRecordingAsync().thenAccept(count -> Platform.runLater(() -> {
+                    updateSessionsList();
+                    log("Saved recording: " + count + " messages");
+                }));
             }
         });
 
+        saveCaptureButton.setOnAction(e -> {
+            CaptureBuffer capture = proxyService.getCaptureBuffer();
+            if (capture == null) {
+                showError("Capture Disabled", "Input capture is disabled for this project");
+                return;
+            }
+            long capturedSeconds = capture.getCapturedDurationMs() / 1000;
+            TextInputDialog dialog = new TextInputDialog(String.valueOf(capture.getMaxAgeMs() / 60000.0));
+            dialog.setTitle("Save Captured Input");
+            dialog.setHeaderText("Save the last N minutes of input (" + capturedSeconds + "s captured)");
+            dialog.setContentText("Minutes:");
+            dialog.showAndWait().ifPresent(minutes -> {
+                long durationMs;
+                try {
+                    durationMs = Math.round(Double.parseDouble(minutes) * 60 * 1000);
+                } catch (NumberFormatException ex) {
+                    showError("Invalid Duration", "Enter the number of minutes to save");
+                    return;
+                }
+                String name = OSCProxyService.defaultCaptureName();
+                proxyService.saveCapture(name, durationMs).whenComplete((session, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        showError("Error Saving Capture", SessionIO.unwrap(error).getMessage());
+                        return;
+                    }
+                    updateSessionsList();
+                    log("Saved " + session.getMessages().size() + " captured messages as: " + name);
+                }));
+            });
+        });
+
         playButton.setOnAction(e -> {
             OSCOutputService outputService = proxyService.getOutputService();
             outputService.setOutHost(outHostField.getText());
@@ -1021,6 +1218,11 @@ public class OSCProxyApp extends Application {
         recordButton.setOnMouseExited(e ->
             statusBar.setText(""));
 
+        saveCaptureButton.setOnMouseEntered(e ->
+            statusBar.setText("Save recently captured input as a recording"));
+        saveCaptureButton.setOnMouseExited(e ->
+            statusBar.setText(""));
+
         manageButton.setOnAction(e -> {
             ManageRecordings manager = new ManageRecordings(proxyService);
             manager.show();
@@ -1340,6 +1542,7 @@ public class OSCProxyApp extends Application {
         System.out.println("  --session <name>    Play specified session and exit");
         System.out.println("  --host <hostname>   Playback host (default: 127.0.0.1)");
         System.out.println("  --port <port>       Playback port (default: 9000)");
+        System.out.println("  --metrics-port <port>  Serve Prometheus metrics at /metrics (0 to turn off)");
         System.out.println("  --help              Show this help message");
     }
 
@@ -1369,6 +1572,26 @@ public class OSCProxyApp extends Application {
         }
     }
 
+    /**
+     * Serve metrics on the port given with --metrics-port, or else the one in
+     * the application config. Listens on every interface so monitoring on
+     * other machines can scrape it.
+     */
+    private void startMetricsServer() {
+        int port = metricsPort >= 0 ? metricsPort : appConfig.getMetricsPort();
+        if (port <= 0) {
+            return;
+        }
+        try {
+            metricsServer = new MetricsServer(MetricsRegistry.getInstance());
+            metricsServer.start(new InetSocketAddress(port));
+            System.out.println("Serving metrics on port " + port + MetricsServer.PATH);
+        } catch (IOException e) {
+            System.err.println("Error starting metrics server: " + e.getMessage());
+            metricsServer = null;
+        }
+    }
+
     /**
      * Save application configuration to file.
      */
@@ -1420,8 +1643,18 @@ public class OSCProxyApp extends Application {
      * Load and apply a node chain configuration to an output.
      */
     private void loadNodeChainForOutput(OSCOutputService output, NodeChainConfig chainConfig) {
+        for (OSCNode node : createNodes(chainConfig)) {
+            proxyService.registerNode(output.getId(), node);
+        }
+    }
+
+    /**
+     * Create and configure the enabled nodes of a node chain configuration.
+     */
+    private List<OSCNode> createNodes(NodeChainConfig chainConfig) {
+        List<OSCNode> nodes = new ArrayList<>();
         if (chainConfig == null || chainConfig.getNodes() == null) {
-            return;
+            return nodes;
         }
 
         for (NodeChainConfig.NodeConfig nodeConfig : chainConfig.getNodes()) {
@@ -1435,7 +1668,7 @@ public class OSCProxyApp extends Application {
                 if (node.configure(args)) {
                     // Register if enabled
                     if (nodeConfig.isEnabled()) {
-                        proxyService.registerNode(output.getId(), node);
+                        nodes.add(node);
                     }
                 } else {
                     log("Warning: Failed to configure node " + nodeConfig.getType());
@@ -1444,6 +1677,7 @@ public class OSCProxyApp extends Application {
                 log("Error loading node " + nodeConfig.getType() + ": " + e.getMessage());
             }
         }
+        return nodes;
     }
 
     /**
@@ -1470,8 +1704,15 @@ public class OSCProxyApp extends Application {
      * Save the node chain of an output to configuration format.
      */
     private NodeChainConfig saveNodeChainForOutput(OSCOutputService output) {
+        return saveNodeChain(output.getNodeChain());
+    }
+
+    /**
+     * Save a node chain to configuration format.
+     */
+    private NodeChainConfig saveNodeChain(NodeChain chain) {
         NodeChainConfig chainConfig = new NodeChainConfig();
-        List<OSCNode> nodes = output.getNodeChain().getNodes();
+        List<OSCNode> nodes = chain.getNodes();
 
         for (OSCNode node : nodes) {
             NodeChainConfig.NodeConfig nodeConfig = new NodeChainConfig.NodeConfig();
@@ -1486,8 +1727,12 @@ public class OSCProxyApp extends Application {
 
     @Override
     public void stop() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
         proxyService.stopProxy();
         saveOutputsToConfig(); // Save outputs and their node chains
         saveApplicationConfig(); // Save config on exit
+        SessionIO.getInstance().awaitIdle(); // Let queued session saves finish
     }
 }
@@ -5,8 +5,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,19 +20,31 @@ import com.illposed.osc.OSCMessage;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
+import xyz.theforks.jfr.PlaybackSendEvent;
+import xyz.theforks.metrics.Counter;
+import xyz.theforks.metrics.Histogram;
+import xyz.theforks.metrics.MetricsRegistry;
+import xyz.theforks.model.ColumnarSession;
 import xyz.theforks.model.MessageRequest;
 import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.PlaybackTimingReport;
 import xyz.theforks.model.RecordingSession;
 import xyz.theforks.model.ScheduledMessage;
+import xyz.theforks.model.SegmentedSession;
 import xyz.theforks.model.SessionSettings;
 import xyz.theforks.nodes.PlaybackContext;
 import xyz.theforks.service.OSCOutputService;
 import xyz.theforks.service.OSCProxyService;
+import xyz.theforks.service.SessionIO;
+import xyz.theforks.util.Clock;
 import xyz.theforks.util.DataDirectory;
+import xyz.theforks.util.LatencyHistogram;
 
 /**
  * Encapsulates the playback of a recorded session.  For mult-trigger, there will be multiple instances
@@ -36,6 +53,8 @@ import xyz.theforks.util.DataDirectory;
 
 public class Playback implements PlaybackContext {
 
+    public static final double DEFAULT_LATE_THRESHOLD_MS = 5.0;
+
     private final DoubleProperty playbackProgress = new SimpleDoubleProperty(0);
     private final BooleanProperty isPlaying = new SimpleBooleanProperty(false);
     private AtomicBoolean stopPlayback = new AtomicBoolean(false);
@@ -49,8 +68,29 @@ public class Playback implements PlaybackContext {
 
     // Fields for delayed message handling
     private PriorityQueue<ScheduledMessage> messageQueue;
-    private long playbackStartTime;
+    private long playbackStartNanos;
     private long sessionStartTime;
+    private long sessionStartNanos;
+    private Clock clock = Clock.nanos();
+
+    // Timing accuracy of the current run, only touched by the playback thread
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private long lateCount;
+    private long droppedCount;
+    private final Histogram latenessMetric = MetricsRegistry.getInstance().histogram(
+            "oscplay_playback_lateness_seconds", "How late playback sent messages",
+            Histogram.LATENCY_BUCKETS);
+    private final Counter droppedMetric = MetricsRegistry.getInstance().counter(
+            "oscplay_playback_dropped_total", "Messages playback failed to send");
+    private double lateThresholdMs = DEFAULT_LATE_THRESHOLD_MS;
+    private final ObjectProperty<PlaybackTimingReport> lastTimingReport = new SimpleObjectProperty<>();
+    // Reads the next segment while one plays; not SessionIO, where saves and
+    // recording conversions could hold it up at a segment boundary
+    private final ExecutorService segmentLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PlaybackSegments");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public Playback() {
         DataDirectory.createDirectories();
@@ -74,8 +114,12 @@ public class Playback implements PlaybackContext {
                 );
             }
 
-            // Save settings with audio file name
-            SessionSettings settings = new SessionSettings(audioFile.getName());
+            // Save settings with audio file name, keeping any other settings
+            SessionSettings settings = RecordingSession.loadSettings(sessionName);
+            if (settings == null) {
+                settings = new SessionSettings();
+            }
+            settings.setAudioFileName(audioFile.getName());
             RecordingSession session = new RecordingSession(sessionName);
             session.saveSettings(settings);
 
@@ -100,6 +144,15 @@ public class Playback implements PlaybackContext {
         }
     }
 
+    /**
+     * Get the timing report saved by a session's last playback.
+     * @param sessionName The session name
+     * @return The report, or null if the session has not been played
+     */
+    public PlaybackTimingReport getLastTimingReport(String sessionName) {
+        return PlaybackTimingReport.read(RecordingSession.getSessionPath(sessionName));
+    }
+
     public DoubleProperty playbackProgressProperty() {
         return playbackProgress;
     }
@@ -108,6 +161,39 @@ public class Playback implements PlaybackContext {
         return isPlaying;
     }
 
+    /**
+     * Set the clock messages are timed on. Defaults to the system clock with
+     * sub-millisecond waits; a {@link xyz.theforks.util.VirtualClock} plays in simulated time.
+     * @param clock The clock
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Report on how closely the last playback kept to time, set when each playback ends.
+     */
+    public ObjectProperty<PlaybackTimingReport> lastTimingReportProperty() {
+        return lastTimingReport;
+    }
+
+    /**
+     * Set how late a message may be sent before it counts as late in the timing report.
+     * @param lateThresholdMs The threshold in milliseconds
+     */
+    public void setLateThresholdMs(double lateThresholdMs) {
+        this.lateThresholdMs = lateThresholdMs;
+    }
+
+    public double getLateThresholdMs() {
+        return lateThresholdMs;
+    }
+
     /**
      * Set the proxy service which manages all outputs.
      * @param proxyService The proxy service
@@ -154,167 +240,317 @@ public class Playback implements PlaybackContext {
 
     @Override
     public long getCurrentPlaybackTime() {
-        return System.currentTimeMillis() - playbackStartTime;
+        return (clock.nanoTime() - playbackStartNanos) / 1_000_000L;
     }
 
     // ========== Playback Methods ==========
 
+    /**
+     * Play a session. The session is loaded on the session I/O thread and playback
+     * starts once it is ready, so callers on the UI or MIDI threads are not blocked.
+     */
     public void playSession(String sessionName) {
-        try {
-            RecordingSession session = RecordingSession.loadSession(sessionName);
-
-            if (session == null || session.getMessages() == null || session.getMessages().isEmpty()) {
+        // Segmented sessions start as soon as their first segment is loaded;
+        // the rest are loaded one segment ahead while playing.
+        SessionIO.getInstance().submit("Loading " + sessionName, () -> {
+            SegmentedSession segmented = RecordingSession.openSegmented(sessionName);
+            ColumnarSession first = segmented != null && segmented.getSegmentCount() > 0
+                    ? segmented.loadSegment(0) : RecordingSession.loadColumnarSession(sessionName);
+            SessionSettings settings = RecordingSession.loadSettings(sessionName);
+            return new Object[] {first, segmented, settings != null ? settings.getOutputId() : null};
+        }).whenComplete((loaded, error) -> {
+            if (error != null) {
+                Throwable cause = SessionIO.unwrap(error);
+                System.err.println("Error loading session: " + cause.getMessage());
+                cause.printStackTrace();
+                Platform.runLater(() -> {
+                    isPlaying.set(false);
+                    playbackProgress.set(0);
+                });
+                return;
+            }
+            ColumnarSession session = (ColumnarSession) loaded[0];
+            if (session == null || session.isEmpty()) {
                 System.err.println("Invalid session data");
                 return;
             }
+            playSession(sessionName, session, (SegmentedSession) loaded[1], (String) loaded[2]);
+        });
+    }
 
-            // Initialize message queue with all session messages
-            messageQueue = new PriorityQueue<>();
-            for (OSCMessageRecord msg : session.getMessages()) {
-                messageQueue.offer(new ScheduledMessage(msg, msg.getTimestamp(), null, 0));
+    /**
+     * Start loading a segment on the playback's segment loader thread.
+     * @return The pending segment, or null if there are no more segments
+     */
+    private CompletableFuture<ColumnarSession> prefetchSegment(SegmentedSession segmented, int position) {
+        if (segmented == null || position >= segmented.getSegmentCount()) {
+            return null;
+        }
+        CompletableFuture<ColumnarSession> future = new CompletableFuture<>();
+        segmentLoader.execute(() -> {
+            try {
+                future.complete(segmented.loadSegment(position));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
             }
+        });
+        return future;
+    }
 
-            // System.out.println("Playing session: " + sessionName
-            //         + " (" + messageQueue.size() + " messages)");
-
-            // Reset control flags
-            stopPlayback.set(false);
-
-            Platform.runLater(() -> {
-                playbackProgress.set(0);
-                isPlaying.set(true);
-            });
-
-            // Create and start playback thread
-            playbackThread = new Thread(() -> {
-                try {
-                    int totalMessages = session.getMessages().size();
-                    int processedCount = 0;
-                    boolean firstMessage = true;
-
-                    while (!messageQueue.isEmpty() && !stopPlayback.get()) {
-                        ScheduledMessage scheduled;
+    /**
+     * @param processedOutputId Output whose processed stream the session holds (baked or
+     *                          recorded from the output), sent without its node chain; or null
+     */
+    private void playSession(String sessionName, ColumnarSession firstSession, SegmentedSession segmented,
+            String processedOutputId) {
+        final OSCOutputService processedOutput = processedOutputId != null ? proxyService.getOutput(processedOutputId) : null;
+        if (processedOutputId != null && processedOutput == null) {
+            System.err.println("Output " + processedOutputId + " of processed session " + sessionName
+                    + " not found, playing through node chains");
+        }
+        // Session messages are played in timestamp order straight from the columns;
+        // the queue only holds messages delayed by node chains during playback.
+        messageQueue = new PriorityQueue<>();
+        // Session messages are timed by their nanosecond offsets (derived from
+        // millisecond timestamps for older sessions); delayed messages by milliseconds.
+        // Every segment's offsets share the session's origin.
+        final int[] firstOrder = firstSession.timeOrder();
+        sessionStartTime = firstSession.getTimestamp(firstOrder[0]);
+        sessionStartNanos = firstSession.getOffsetNanos(firstOrder[0]);
+        final long sessionMessages = segmented != null ? segmented.getMessageCount() : firstSession.size();
+
+        // System.out.println("Playing session: " + sessionName
+        //         + " (" + session.size() + " messages)");
+
+        // Reset control flags
+        stopPlayback.set(false);
+
+        Platform.runLater(() -> {
+            playbackProgress.set(0);
+            isPlaying.set(true);
+        });
+
+        // Create and start playback thread
+        playbackThread = new Thread(() -> {
+            lateness.reset();
+            lateCount = 0;
+            droppedCount = 0;
+            long startedAt = System.currentTimeMillis();
+            try {
+                ColumnarSession session = firstSession;
+                int[] order = firstOrder;
+                int totalMessages = session.size();
+                int segment = 0;
+                CompletableFuture<ColumnarSession> nextSegment = prefetchSegment(segmented, segment + 1);
+                int nextIndex = 0;
+                long processedCount = 0;
+                boolean firstMessage = true;
+
+                while (!stopPlayback.get()) {
+                    // Move on to the next segment once this one has been played
+                    while (nextIndex >= totalMessages && nextSegment != null) {
+                        try {
+                            session = nextSegment.join();
+                        } catch (CompletionException e) {
+                            Throwable cause = SessionIO.unwrap(e);
+                            System.err.println("Error loading session segment: " + cause.getMessage());
+                            cause.printStackTrace();
+                            nextSegment = null;
+                            break;
+                        }
+                        segment++;
+                        nextSegment = prefetchSegment(segmented, segment + 1);
+                        order = session.timeOrder();
+                        totalMessages = session.size();
+                        nextIndex = 0;
+                    }
 
-                        synchronized(messageQueue) {
+                    // Take whichever is due first: the next session message or a delayed message
+                    long nextSessionDue = nextIndex < totalMessages
+                            ? session.getOffsetNanos(order[nextIndex]) - sessionStartNanos : Long.MAX_VALUE;
+                    ScheduledMessage scheduled = null;
+                    synchronized(messageQueue) {
+                        ScheduledMessage head = messageQueue.peek();
+                        if (head != null && scheduledDueNanos(head) < nextSessionDue) {
                             scheduled = messageQueue.poll();
                         }
+                    }
 
-                        if (scheduled == null) break;
-
-                        if (firstMessage) {
-                            // Start audio if associated
-                            String audioFileName = getAssociatedAudioFile(sessionName);
-                            if (audioFileName != null) {
-                                File audioFile = DataDirectory.getSessionFile(sessionName, audioFileName).toFile();
-                                if (audioFile.exists()) {
-                                    Media media = new Media(audioFile.toURI().toString());
-                                    mediaPlayer = new MediaPlayer(media);
-                                    mediaReady = false;
-                                    mediaPlayer.setOnReady(() -> {
-                                        mediaPlayer.setOnPlaying(() -> {
-                                            mediaReady = true;
-                                        });
-                                        mediaPlayer.play();
+                    int sessionIndex = -1;
+                    if (scheduled == null) {
+                        if (nextIndex >= totalMessages) break;
+                        sessionIndex = order[nextIndex++];
+                    }
+                    long dueNanos = scheduled != null ? scheduledDueNanos(scheduled) : nextSessionDue;
+
+                    if (firstMessage) {
+                        // Start audio if associated
+                        String audioFileName = getAssociatedAudioFile(sessionName);
+                        if (audioFileName != null) {
+                            File audioFile = DataDirectory.getSessionFile(sessionName, audioFileName).toFile();
+                            if (audioFile.exists()) {
+                                Media media = new Media(audioFile.toURI().toString());
+                                mediaPlayer = new MediaPlayer(media);
+                                mediaReady = false;
+                                mediaPlayer.setOnReady(() -> {
+                                    mediaPlayer.setOnPlaying(() -> {
+                                        mediaReady = true;
                                     });
-                                    //System.out.println("Started audio playback: " + audioFileName);
-                                } else {
-                                    System.err.println("Audio file not found: " + audioFile.getAbsolutePath());
-                                    mediaReady = true;
-                                }
+                                    mediaPlayer.play();
+                                });
+                                //System.out.println("Started audio playback: " + audioFileName);
                             } else {
+                                System.err.println("Audio file not found: " + audioFile.getAbsolutePath());
                                 mediaReady = true;
                             }
+                        } else {
+                            mediaReady = true;
+                        }
 
-                            // System.out.println("Waiting for media to be ready");
-                            while (!mediaReady) {
-                                try {
-                                    Thread.sleep(5);
-                                } catch (Exception e) {
-                                }
+                        // System.out.println("Waiting for media to be ready");
+                        while (!mediaReady) {
+                            try {
+                                Thread.sleep(5);
+                            } catch (Exception e) {
                             }
-
-                            sessionStartTime = scheduled.getAbsoluteTimestamp();
-                            playbackStartTime = System.currentTimeMillis();
-                            firstMessage = false;
-                            //System.out.println("Playing first message");
                         }
 
-                        // Update progress
+                        playbackStartNanos = clock.nanoTime();
+                        firstMessage = false;
+                        //System.out.println("Playing first message");
+                    }
+
+                    // Update progress
+                    if (sessionIndex >= 0) {
                         processedCount++;
-                        final double progress = (double) processedCount / totalMessages;
+                        final double progress = (double) processedCount / sessionMessages;
                         Platform.runLater(() -> playbackProgress.set(progress));
+                    }
 
-                        try {
-                            if (scheduled.getRecord() != null && scheduled.getRecord().getAddress() != null && scheduled.getRecord().getArguments() != null) {
-                                // Calculate delay and sleep
-                                long delay = scheduled.getAbsoluteTimestamp() - sessionStartTime;
-                                Thread.sleep(Math.max(0, delay - (System.currentTimeMillis() - playbackStartTime)));
-
-                                // Create OSC message
-                                OSCMessage oscMsg = new OSCMessage(
-                                    scheduled.getRecord().getAddress(),
-                                    List.of(scheduled.getRecord().getArguments())
-                                );
-
-                                // Route based on targetOutputId
-                                if (scheduled.getTargetOutputId() != null) {
-                                    // Send to specific output only
-                                    OSCOutputService targetOutput = proxyService.getOutput(scheduled.getTargetOutputId());
-                                    if (targetOutput != null) {
-                                        sendToOutput(targetOutput, oscMsg, scheduled.getTargetOutputId(), scheduled.getPreviousDelay());
+                    try {
+                        String address = scheduled != null ? scheduled.getRecord().getAddress() : session.getAddress(sessionIndex);
+                        Object[] arguments = scheduled != null ? scheduled.getRecord().getArguments() : session.getArguments(sessionIndex);
+                        if (address != null && arguments != null) {
+                            // Wait until the message is due
+                            clock.sleepUntilNanos(playbackStartNanos + dueNanos);
+                            long lateNanos = clock.nanoTime() - playbackStartNanos - dueNanos;
+                            recordLateness(lateNanos);
+                            PlaybackSendEvent sendEvent = new PlaybackSendEvent();
+                            sendEvent.begin();
+
+                            // Create OSC message
+                            OSCMessage oscMsg = new OSCMessage(address, Arrays.asList(arguments));
+                            String scheduledOutputId = scheduled != null ? scheduled.getTargetOutputId() : null;
+                            long previousDelay = scheduled != null ? scheduled.getPreviousDelay() : 0;
+
+                            // Route based on targetOutputId
+                            if (processedOutput != null) {
+                                // Already processed by the output's chain
+                                processedOutput.send(oscMsg, true, true);
+                            } else if (scheduledOutputId != null) {
+                                // Send to specific output only
+                                OSCOutputService targetOutput = proxyService.getOutput(scheduledOutputId);
+                                if (targetOutput != null) {
+                                    if (!sendToOutput(targetOutput, oscMsg, scheduledOutputId, previousDelay)) {
+                                        recordDropped();
                                     }
-                                } else if (targetOutputId != null) {
-                                    // Playback is configured for specific output
-                                    OSCOutputService targetOutput = proxyService.getOutput(targetOutputId);
-                                    if (targetOutput != null) {
-                                        sendToOutput(targetOutput, oscMsg, targetOutputId, scheduled.getPreviousDelay());
+                                }
+                            } else if (targetOutputId != null) {
+                                // Playback is configured for specific output
+                                OSCOutputService targetOutput = proxyService.getOutput(targetOutputId);
+                                if (targetOutput != null) {
+                                    if (!sendToOutput(targetOutput, oscMsg, targetOutputId, previousDelay)) {
+                                        recordDropped();
                                     }
-                                } else {
-                                    // Send to all enabled outputs
-                                    for (OSCOutputService output : proxyService.getOutputs()) {
-                                        if (output.isEnabled()) {
-                                            sendToOutput(output, oscMsg, output.getId(), scheduled.getPreviousDelay());
+                                }
+                            } else {
+                                // Send to all enabled outputs
+                                for (OSCOutputService output : proxyService.getOutputs()) {
+                                    if (output.isEnabled()) {
+                                        if (!sendToOutput(output, oscMsg, output.getId(), previousDelay)) {
+                                            recordDropped();
                                         }
                                     }
                                 }
                             }
-                        } catch (InterruptedException e) {
-                            break;
-                        } catch (Exception e) {
-                            System.err.println("Error playing message: " + e.getMessage());
-                            e.printStackTrace();
+
+                            sendEvent.end();
+                            if (sendEvent.shouldCommit()) {
+                                sendEvent.outputId = processedOutput != null ? processedOutput.getId()
+                                        : scheduledOutputId != null ? scheduledOutputId : targetOutputId;
+                                sendEvent.address = address;
+                                sendEvent.lateness = lateNanos;
+                                sendEvent.commit();
+                            }
                         }
+                    } catch (InterruptedException e) {
+                        break;
+                    } catch (Exception e) {
+                        recordDropped();
+                        System.err.println("Error playing message: " + e.getMessage());
+                        e.printStackTrace();
                     }
-                } finally {
-                    // Reset UI state
-                    Platform.runLater(() -> {
-                        isPlaying.set(false);
-                        if (stopPlayback.get()) {
-                            playbackProgress.set(0);
-                        } else {
-                            playbackProgress.set(1.0);
-                        }
-                    });
-                    //System.out.println("Finished playing session: " + sessionName);
                 }
-            });
+            } finally {
+                PlaybackTimingReport report = new PlaybackTimingReport(sessionName, startedAt, lateness,
+                        lateThresholdMs, lateCount, droppedCount, stopPlayback.get());
+                SessionIO.getInstance().submit("Saving playback timing for " + sessionName, () -> {
+                    report.write(RecordingSession.getSessionPath(sessionName));
+                    return null;
+                }).whenComplete((saved, error) -> {
+                    if (error != null) {
+                        System.err.println("Error saving playback timing for " + sessionName + ": "
+                                + SessionIO.unwrap(error).getMessage());
+                    }
+                });
+                // Reset UI state
+                Platform.runLater(() -> {
+                    isPlaying.set(false);
+                    if (stopPlayback.get()) {
+                        playbackProgress.set(0);
+                    } else {
+                        playbackProgress.set(1.0);
+                    }
+                    lastTimingReport.set(report);
+                });
+                //System.out.println("Finished playing session: " + sessionName);
+            }
+        });
 
-            playbackThread.start();
+        playbackThread.start();
+    }
 
-        } catch (IOException e) {
-            System.err.println("Error loading session: " + e.getMessage());
-            e.printStackTrace();
-            Platform.runLater(() -> {
-                isPlaying.set(false);
-                playbackProgress.set(0);
-            });
+    /**
+     * Get when a delayed message is due, in nanoseconds since playback started.
+     */
+    private long scheduledDueNanos(ScheduledMessage scheduled) {
+        return (scheduled.getAbsoluteTimestamp() - sessionStartTime) * 1_000_000L;
+    }
+
+    /**
+     * Add a sent message's lateness to the timing report.
+     */
+    private void recordLateness(long lateNanos) {
+        lateness.record(lateNanos);
+        latenessMetric.observeNanos(Math.max(0, lateNanos));
+        if (lateNanos > lateThresholdMs * 1_000_000L) {
+            lateCount++;
         }
     }
 
+    /**
+     * Count a message that could not be sent.
+     */
+    private void recordDropped() {
+        droppedCount++;
+        droppedMetric.inc();
+    }
+
     /**
      * Send message to a specific output, processing through its node chain with playback context.
+     * @return false if the message could not be sent
      */
-    private void sendToOutput(OSCOutputService output, OSCMessage message, String outputId, long previousDelay) {
+    private boolean sendToOutput(OSCOutputService output, OSCMessage message, String outputId, long previousDelay) {
         try {
             // System.out.println("sendToOutput: " + message.getAddress() + " previousDelay=" + previousDelay);
 
@@ -336,8 +572,10 @@ public class Playback implements PlaybackContext {
                     scheduleDelayedMessage(req, outputId);
                 }
             }
+            return true;
         } catch (Exception e) {
             System.err.println("Error sending to output: " + e.getMessage());
+            return false;
         }
     }
      public void stopPlayback() {
@@ -0,0 +1,132 @@
+package xyz.theforks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.model.OutputConfig;
+import xyz.theforks.model.ProjectConfig;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.service.ChainProfiler;
+
+/**
+ * ProfileChain - Checks whether a node chain keeps up with a recording's traffic
+ *
+ * Runs the recording through the chain as fast as possible with
+ * {@link ChainProfiler} and prints the throughput, allocation and per-node cost.
+ * The headroom and allocation limits make it usable as a regression gate: the
+ * exit status is 2 when a limit is not met, and 1 when allocation cannot be
+ * measured but --max-alloc was given.
+ */
+public class ProfileChain {
+
+    public static void main(String[] args) {
+        if (args.length < 3 || "--help".equals(args[0])) {
+            System.err.println("Usage: java ProfileChain <session-name> (--chain file.json | --project file.opp --output id) [options]");
+            System.err.println("  session-name: Recording to replay through the chain");
+            System.err.println("  --chain: Node chain file exported from the node chain editor");
+            System.err.println("  --project, --output: Use the node chain of an output in a project");
+            System.err.println("  --passes: Measured passes over the recording (default " + ChainProfiler.DEFAULT_PASSES + ")");
+            System.err.println("  --warmup: Warm-up passes before measuring (default " + ChainProfiler.DEFAULT_WARMUP_PASSES + ")");
+            System.err.println("  --min-headroom: Fail unless the chain runs this many times faster than the peak rate");
+            System.err.println("  --max-alloc: Fail if the chain allocates more bytes than this per message");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java ProfileChain show1 --chain chains/lights.json");
+            System.err.println("  java ProfileChain show1 --project show.opp --output default --min-headroom 10 --max-alloc 512");
+            System.exit(1);
+        }
+
+        String sessionName = args[0];
+        String chainFile = null;
+        String projectFile = null;
+        String outputId = "default";
+        int passes = ChainProfiler.DEFAULT_PASSES;
+        int warmup = ChainProfiler.DEFAULT_WARMUP_PASSES;
+        double minHeadroom = 0;
+        double maxAlloc = -1;
+
+        for (int i = 1; i < args.length; i++) {
+            if ("--chain".equals(args[i]) && i + 1 < args.length) {
+                chainFile = args[++i];
+            } else if ("--project".equals(args[i]) && i + 1 < args.length) {
+                projectFile = args[++i];
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputId = args[++i];
+            } else if ("--passes".equals(args[i]) && i + 1 < args.length) {
+                passes = Integer.parseInt(args[++i]);
+            } else if ("--warmup".equals(args[i]) && i + 1 < args.length) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if ("--min-headroom".equals(args[i]) && i + 1 < args.length) {
+                minHeadroom = Double.parseDouble(args[++i]);
+            } else if ("--max-alloc".equals(args[i]) && i + 1 < args.length) {
+                maxAlloc = Double.parseDouble(args[++i]);
+            }
+        }
+
+        try {
+            NodeChainConfig chainConfig = loadChain(chainFile, projectFile, outputId);
+            RecordingSession session = RecordingSession.loadSession(sessionName);
+            if (session == null) {
+                System.err.println("Recording not found: " + sessionName);
+                System.exit(1);
+            }
+
+            ChainProfiler profiler = new ChainProfiler(chainConfig);
+            profiler.setPasses(passes);
+            profiler.setWarmupPasses(warmup);
+            ChainProfiler.Result result = profiler.profile(session);
+            System.out.print(result.describe());
+
+            boolean failed = false;
+            if (result.getHeadroom() < minHeadroom) {
+                System.err.printf("FAIL: headroom %.1fx is below %.1fx%n", result.getHeadroom(), minHeadroom);
+                failed = true;
+            }
+            if (maxAlloc >= 0 && result.getBytesPerMessage() < 0) {
+                System.err.println("Allocation cannot be measured on this JVM, so --max-alloc cannot be checked");
+                System.exit(1);
+            }
+            if (maxAlloc >= 0 && result.getBytesPerMessage() > maxAlloc) {
+                System.err.printf("FAIL: %.0f bytes allocated per message, limit %.0f%n", result.getBytesPerMessage(), maxAlloc);
+                failed = true;
+            }
+            if (failed) {
+                System.exit(2);
+            }
+        } catch (IOException e) {
+            System.err.println("Error profiling chain: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read a chain from an exported chain file (a list of nodes) or a project's output.
+     */
+    static NodeChainConfig loadChain(String chainFile, String projectFile, String outputId) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        if (chainFile != null) {
+            JsonNode root = mapper.readTree(new File(chainFile));
+            if (root.isArray()) {
+                return new NodeChainConfig(mapper.convertValue(root, new TypeReference<List<NodeChainConfig.NodeConfig>>() {}));
+            }
+            return mapper.treeToValue(root, NodeChainConfig.class);
+        }
+        if (projectFile == null) {
+            throw new IOException("Either --chain or --project is required");
+        }
+        ProjectConfig project = mapper.readValue(new File(projectFile), ProjectConfig.class);
+        for (OutputConfig output : project.getOutputs()) {
+            if (outputId.equals(output.getId())) {
+                return output.getNodeChain();
+            }
+        }
+        throw new IOException("Output not found in project: " + outputId);
+    }
+}
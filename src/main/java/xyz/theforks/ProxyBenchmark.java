@@ -0,0 +1,97 @@
+package xyz.theforks;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.service.LoopbackBenchmark;
+
+/**
+ * ProxyBenchmark - Measures proxy latency, throughput and loss on one machine
+ *
+ * Runs {@link LoopbackBenchmark}: a proxy with the given outputs and node chain
+ * is driven at fixed rates over loopback UDP and the results are written as
+ * JSON, so releases and tuning settings can be compared run against run. Needs
+ * no hardware or services beyond the local network stack.
+ */
+public class ProxyBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && "--help".equals(args[0])) {
+            System.err.println("Usage: java ProxyBenchmark [options]");
+            System.err.println("  --outputs: Number of proxy outputs, each with its own sink (default 1)");
+            System.err.println("  --chain: Node chain file every output runs");
+            System.err.println("  --project, --output: Use the node chain of an output in a project");
+            System.err.println("  --rates: Comma-separated messages per second, one step each (default 1000,5000,10000,20000,50000)");
+            System.err.println("  --duration: Milliseconds to send at each rate (default " + LoopbackBenchmark.DEFAULT_STEP_MS + ")");
+            System.err.println("  --drain: Milliseconds to wait for late messages after each step (default " + LoopbackBenchmark.DEFAULT_DRAIN_MS + ")");
+            System.err.println("  --max-loss: Loss in percent a rate may have to count towards the ceiling (default " + LoopbackBenchmark.DEFAULT_MAX_LOSS_PERCENT + ")");
+            System.err.println("  --out: Write the JSON results to a file instead of standard output");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java ProxyBenchmark --rates 1000,10000 --out baseline.json");
+            System.err.println("  java ProxyBenchmark --outputs 4 --chain chains/lights.json");
+            System.exit(1);
+        }
+
+        LoopbackBenchmark benchmark = new LoopbackBenchmark();
+        String chainFile = null;
+        String projectFile = null;
+        String outputId = "default";
+        String outFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--outputs".equals(args[i]) && i + 1 < args.length) {
+                benchmark.setOutputs(Integer.parseInt(args[++i]));
+            } else if ("--chain".equals(args[i]) && i + 1 < args.length) {
+                chainFile = args[++i];
+            } else if ("--project".equals(args[i]) && i + 1 < args.length) {
+                projectFile = args[++i];
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputId = args[++i];
+            } else if ("--rates".equals(args[i]) && i + 1 < args.length) {
+                String[] parts = args[++i].split(",");
+                int[] rates = new int[parts.length];
+                for (int r = 0; r < parts.length; r++) {
+                    rates[r] = Integer.parseInt(parts[r].trim());
+                }
+                benchmark.setRates(rates);
+            } else if ("--duration".equals(args[i]) && i + 1 < args.length) {
+                benchmark.setStepMs(Long.parseLong(args[++i]));
+            } else if ("--drain".equals(args[i]) && i + 1 < args.length) {
+                benchmark.setDrainMs(Long.parseLong(args[++i]));
+            } else if ("--max-loss".equals(args[i]) && i + 1 < args.length) {
+                benchmark.setMaxLossPercent(Double.parseDouble(args[++i]));
+            } else if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outFile = args[++i];
+            }
+        }
+
+        try {
+            if (chainFile != null || projectFile != null) {
+                NodeChainConfig chainConfig = ProfileChain.loadChain(chainFile, projectFile, outputId);
+                benchmark.setChain(chainConfig);
+            }
+            LoopbackBenchmark.Result result = benchmark.run();
+
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            if (outFile != null) {
+                mapper.writeValue(new File(outFile), result);
+                System.out.println("Results written to " + outFile + ", ceiling " + result.getCeilingRate() + " msgs/s");
+            } else {
+                System.out.println(mapper.writeValueAsString(result));
+            }
+        } catch (IOException e) {
+            System.err.println("Error running benchmark: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Benchmark interrupted");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,144 @@
+package xyz.theforks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.model.BinarySessionFormat;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionJsonDecoder;
+
+/**
+ * SessionFormatBenchmark - Compares the JSON and binary session formats
+ *
+ * Loads a session with Jackson data binding, with the type-driven streaming
+ * decoder used by RecordingSession.loadSession, and with the memory-mapped
+ * binary reader (into records and into a ColumnarSession), and reports file
+ * size and average load/save times for each. Without a session argument a
+ * synthetic session is generated.
+ */
+public class SessionFormatBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Generate a synthetic session resembling a typical controller recording.
+     */
+    static RecordingSession generateSession(int messageCount) {
+        Random random = new Random(42);
+        RecordingSession session = new RecordingSession("benchmark");
+        long timestamp = session.getStartTime();
+        for (int i = 0; i < messageCount; i++) {
+            timestamp += random.nextInt(20);
+            OSCMessageRecord record;
+            switch (i % 4) {
+                case 0:
+                    record = new OSCMessageRecord("/fader/" + (i % 16), new Object[]{random.nextFloat()});
+                    break;
+                case 1:
+                    record = new OSCMessageRecord("/xy/" + (i % 4), new Object[]{random.nextFloat(), random.nextFloat()});
+                    break;
+                case 2:
+                    record = new OSCMessageRecord("/button/" + (i % 32), new Object[]{random.nextInt(2)});
+                    break;
+                default:
+                    record = new OSCMessageRecord("/scene", new Object[]{"scene-" + (i % 8), i});
+                    break;
+            }
+            record.setTimestamp(timestamp);
+            session.addMessage(record);
+        }
+        return session;
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * Run a task repeatedly and return the average time in milliseconds.
+     */
+    private static double time(Task task, int warmup, int iterations) throws IOException {
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+
+    public static void main(String[] args) {
+        String jsonPath = null;
+        int messageCount = 200_000;
+        int iterations = 10;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--messages".equals(args[i]) && i + 1 < args.length) {
+                messageCount = Integer.parseInt(args[++i]);
+            } else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("--help".equals(args[i])) {
+                System.err.println("Usage: java SessionFormatBenchmark [data.json] [--messages n] [--iterations n]");
+                System.err.println("  data.json: Session file to benchmark (optional, generates a synthetic session)");
+                System.err.println("  --messages: Number of synthetic messages (default 200000)");
+                System.err.println("  --iterations: Timed iterations per measurement (default 10)");
+                System.exit(1);
+            } else {
+                jsonPath = args[i];
+            }
+        }
+
+        try {
+            Path workDir = Files.createTempDirectory("oscplay-bench");
+            File jsonFile = workDir.resolve("data.json").toFile();
+            Path binaryFile = workDir.resolve(BinarySessionFormat.FILE_NAME);
+
+            RecordingSession session;
+            if (jsonPath != null) {
+                session = objectMapper.readValue(new File(jsonPath), RecordingSession.class);
+            } else {
+                session = generateSession(messageCount);
+            }
+            objectMapper.writeValue(jsonFile, session);
+            BinarySessionFormat.write(session, binaryFile);
+
+            int count = session.getMessages().size();
+            long jsonSize = jsonFile.length();
+            long binarySize = Files.size(binaryFile);
+            int warmup = Math.max(2, iterations / 2);
+
+            double jsonLoad = time(() -> objectMapper.readValue(jsonFile, RecordingSession.class), warmup, iterations);
+            double jsonStreamLoad = time(() -> SessionJsonDecoder.decode(jsonFile), warmup, iterations);
+            double binaryLoad = time(() -> BinarySessionFormat.read(binaryFile), warmup, iterations);
+            double columnarLoad = time(() -> BinarySessionFormat.readColumnar(binaryFile), warmup, iterations);
+            double jsonSave = time(() -> objectMapper.writeValue(jsonFile, session), warmup, iterations);
+            double binarySave = time(() -> BinarySessionFormat.write(session, binaryFile), warmup, iterations);
+
+            System.out.println("Messages: " + count);
+            System.out.printf("%-8s %14s %12s %12s%n", "Format", "Size (bytes)", "Load (ms)", "Save (ms)");
+            System.out.printf("%-8s %14d %12.2f %12.2f%n", "JSON", jsonSize, jsonLoad, jsonSave);
+            System.out.printf("%-8s %14s %12.2f %12s%n", "JSON str", "(json)", jsonStreamLoad, "-");
+            System.out.printf("%-8s %14d %12.2f %12.2f%n", "Binary", binarySize, binaryLoad, binarySave);
+            System.out.printf("%-8s %14s %12.2f %12s%n", "Columnar", "(binary)", columnarLoad, "-");
+            System.out.printf("Binary is %.1fx smaller and loads %.1fx faster than data-bound JSON%n",
+                    (double) jsonSize / binarySize, jsonLoad / binaryLoad);
+            System.out.printf("Streaming JSON decoding loads %.1fx faster than data-bound JSON%n",
+                    jsonLoad / jsonStreamLoad);
+
+            Files.deleteIfExists(jsonFile.toPath());
+            Files.deleteIfExists(binaryFile);
+            Files.deleteIfExists(workDir);
+        } catch (IOException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package xyz.theforks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.model.SessionQueryIndex;
+import xyz.theforks.util.DataDirectory;
+
+/**
+ * SessionQuery - Prints the messages of a recording matching an address pattern and time range
+ *
+ * Reads through the session's query index (query.idx, built on first use), so
+ * only the matching messages are parsed. Each message is printed as a line of
+ * CSV: seconds from the session start, address, then the arguments.
+ */
+public class SessionQuery {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || "--help".equals(args[0])) {
+            System.err.println("Usage: java SessionQuery <session> [--address pattern] [--from seconds] [--to seconds] [--count] [--addresses]");
+            System.err.println("  session: Name of a recording, or the path of a session directory");
+            System.err.println("  --address: OSC address pattern, e.g. '/lx/modulation/Mag*/mag' or '//mag' (default all)");
+            System.err.println("  --from: Start of the time range in seconds from the session start (inclusive)");
+            System.err.println("  --to: End of the time range in seconds from the session start (exclusive)");
+            System.err.println("  --count: Print only the number of matching messages");
+            System.err.println("  --addresses: Print the matching addresses instead of messages");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java SessionQuery show1 --address '/lx/modulation/Mag*/mag' --from 720 --to 840");
+            System.err.println("  java SessionQuery show1 --addresses");
+            System.exit(1);
+        }
+
+        String session = args[0];
+        String pattern = null;
+        long fromMs = Long.MIN_VALUE;
+        long toMs = Long.MAX_VALUE;
+        boolean countOnly = false;
+        boolean listAddresses = false;
+
+        for (int i = 1; i < args.length; i++) {
+            if ("--address".equals(args[i]) && i + 1 < args.length) {
+                pattern = args[++i];
+            } else if ("--from".equals(args[i]) && i + 1 < args.length) {
+                fromMs = Math.round(Double.parseDouble(args[++i]) * 1000);
+            } else if ("--to".equals(args[i]) && i + 1 < args.length) {
+                toMs = Math.round(Double.parseDouble(args[++i]) * 1000);
+            } else if ("--count".equals(args[i])) {
+                countOnly = true;
+            } else if ("--addresses".equals(args[i])) {
+                listAddresses = true;
+            }
+        }
+
+        Path sessionDir = Paths.get(session);
+        if (!Files.isDirectory(sessionDir)) {
+            sessionDir = DataDirectory.getSessionDir(session);
+        }
+
+        try {
+            long started = System.nanoTime();
+            SessionQueryIndex index = SessionQueryIndex.load(sessionDir);
+            long indexed = System.nanoTime();
+
+            if (listAddresses) {
+                for (String address : index.matchAddresses(pattern)) {
+                    System.out.println(address + "," + index.count(address, fromMs, toMs));
+                }
+            } else if (countOnly) {
+                System.out.println(index.count(pattern, fromMs, toMs));
+            } else {
+                ColumnarSession result = index.query(pattern, fromMs, toMs);
+                long queried = System.nanoTime();
+                printMessages(result);
+                System.err.printf("%d messages (index %.1f ms, query %.1f ms)%n",
+                        result.size(), (indexed - started) / 1e6, (queried - indexed) / 1e6);
+            }
+        } catch (IOException e) {
+            System.err.println("Error querying session: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printMessages(ColumnarSession session) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < session.size(); i++) {
+            line.setLength(0);
+            line.append((session.getTimestamp(i) - session.getStartTime()) / 1000.0)
+                    .append(',').append(session.getAddress(i));
+            for (Object arg : session.getArguments(i)) {
+                line.append(',').append(arg);
+            }
+            out.write(line.append('\n').toString());
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,107 @@
+package xyz.theforks;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import xyz.theforks.service.SoakRunner;
+
+/**
+ * SoakTest - Runs the proxy under sustained load and fails on resource growth
+ *
+ * Runs {@link SoakRunner} for the given time, writes the samples and trends as
+ * JSON, and exits with status 2 when heap, thread or queue growth is over its
+ * limit, so a nightly job can catch leaks before an installation does.
+ */
+public class SoakTest {
+
+    public static void main(String[] args) {
+        if (args.length > 0 && "--help".equals(args[0])) {
+            System.err.println("Usage: java SoakTest [options]");
+            System.err.println("  --duration: Minutes to run (default " + SoakRunner.DEFAULT_DURATION_MS / 60_000 + ")");
+            System.err.println("  --sample: Seconds between samples (default " + SoakRunner.DEFAULT_SAMPLE_INTERVAL_MS / 1000 + ")");
+            System.err.println("  --rate: Messages per second (default " + (int) SoakRunner.DEFAULT_RATE + ")");
+            System.err.println("  --addresses: Distinct addresses to cycle through (default " + SoakRunner.DEFAULT_ADDRESSES + ")");
+            System.err.println("  --outputs: Number of proxy outputs (default 1)");
+            System.err.println("  --chain: Node chain file every output runs");
+            System.err.println("  --project, --output: Use the node chain of an output in a project");
+            System.err.println("  --record: Record the input for the whole run");
+            System.err.println("  --max-heap-growth: MB per hour the heap may grow (default " + SoakRunner.DEFAULT_MAX_HEAP_GROWTH_MB_PER_HOUR + ")");
+            System.err.println("  --max-thread-growth: Threads that may be added (default " + SoakRunner.DEFAULT_MAX_THREAD_GROWTH + ")");
+            System.err.println("  --max-queue-growth: Messages per hour a queue may grow (default " + (int) SoakRunner.DEFAULT_MAX_QUEUE_GROWTH_PER_HOUR + ")");
+            System.err.println("  --out: Write the JSON results to a file instead of standard output");
+            System.err.println();
+            System.err.println("Examples:");
+            System.err.println("  java SoakTest --duration 240 --chain chains/lights.json --out soak.json");
+            System.err.println("  java SoakTest --duration 30 --sample 10 --record");
+            System.exit(1);
+        }
+
+        SoakRunner runner = new SoakRunner();
+        String chainFile = null;
+        String projectFile = null;
+        String outputId = "default";
+        String outFile = null;
+        double rate = SoakRunner.DEFAULT_RATE;
+        int addresses = SoakRunner.DEFAULT_ADDRESSES;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--duration".equals(args[i]) && i + 1 < args.length) {
+                runner.setDurationMs((long) (Double.parseDouble(args[++i]) * 60_000));
+            } else if ("--sample".equals(args[i]) && i + 1 < args.length) {
+                runner.setSampleIntervalMs((long) (Double.parseDouble(args[++i]) * 1000));
+            } else if ("--rate".equals(args[i]) && i + 1 < args.length) {
+                rate = Double.parseDouble(args[++i]);
+            } else if ("--addresses".equals(args[i]) && i + 1 < args.length) {
+                addresses = Integer.parseInt(args[++i]);
+            } else if ("--outputs".equals(args[i]) && i + 1 < args.length) {
+                runner.setOutputs(Integer.parseInt(args[++i]));
+            } else if ("--chain".equals(args[i]) && i + 1 < args.length) {
+                chainFile = args[++i];
+            } else if ("--project".equals(args[i]) && i + 1 < args.length) {
+                projectFile = args[++i];
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputId = args[++i];
+            } else if ("--record".equals(args[i])) {
+                runner.setRecord(true);
+            } else if ("--max-heap-growth".equals(args[i]) && i + 1 < args.length) {
+                runner.setMaxHeapGrowthMBPerHour(Double.parseDouble(args[++i]));
+            } else if ("--max-thread-growth".equals(args[i]) && i + 1 < args.length) {
+                runner.setMaxThreadGrowth(Integer.parseInt(args[++i]));
+            } else if ("--max-queue-growth".equals(args[i]) && i + 1 < args.length) {
+                runner.setMaxQueueGrowthPerHour(Double.parseDouble(args[++i]));
+            } else if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outFile = args[++i];
+            }
+        }
+        runner.setTraffic(rate, addresses);
+
+        try {
+            if (chainFile != null || projectFile != null) {
+                runner.setChain(ProfileChain.loadChain(chainFile, projectFile, outputId));
+            }
+            SoakRunner.Result result = runner.run();
+
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            if (outFile != null) {
+                mapper.writeValue(new File(outFile), result);
+                System.out.println("Results written to " + outFile);
+            } else {
+                System.out.println(mapper.writeValueAsString(result));
+            }
+            for (String failure : result.getFailures()) {
+                System.err.println("FAIL: " + failure);
+            }
+            System.exit(result.isPassed() ? 0 : 2);
+        } catch (IOException e) {
+            System.err.println("Error running soak test: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Soak test interrupted");
+            System.exit(1);
+        }
+    }
+}
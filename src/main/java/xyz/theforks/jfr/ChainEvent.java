@@ -0,0 +1,39 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One message passing through an output's node chain, from the first node
+ * to the requests the chain returns.
+ */
+@Name("xyz.theforks.Chain")
+@Label("Node Chain")
+@Description("Message processed by an output's node chain")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class ChainEvent extends Event {
+
+    @Label("Output")
+    public String outputId;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Playback")
+    @Description("Processed for playback rather than live proxying")
+    public boolean playback;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Requests")
+    @Description("Messages the chain produced; 0 when dropped")
+    public int requests;
+}
@@ -0,0 +1,34 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A delayed message leaving the proxy delay processor. The duration covers
+ * sending it through its output.
+ */
+@Name("xyz.theforks.DelayFired")
+@Label("Delay Fired")
+@Description("Delayed message sent by the proxy delay processor")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class DelayFiredEvent extends Event {
+
+    @Label("Output")
+    public String outputId;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Lateness")
+    @Description("Time past the scheduled send")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lateness;
+}
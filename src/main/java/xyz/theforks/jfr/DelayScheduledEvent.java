@@ -0,0 +1,35 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A message handed to the proxy delay processor.
+ */
+@Name("xyz.theforks.DelayScheduled")
+@Label("Delay Scheduled")
+@Description("Message queued by the proxy delay processor")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class DelayScheduledEvent extends Event {
+
+    @Label("Output")
+    public String outputId;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long delay;
+
+    @Label("Queue Size")
+    public int queueSize;
+}
@@ -0,0 +1,28 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A message arriving at the proxy input. The duration covers handing it to
+ * the proxy, which includes every output's chain and immediate sends.
+ */
+@Name("xyz.theforks.MessageReceived")
+@Label("OSC Message Received")
+@Description("Message received on the proxy input and handled")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class MessageReceivedEvent extends Event {
+
+    @Label("Address")
+    public String address;
+
+    @Label("Arguments")
+    public int arguments;
+}
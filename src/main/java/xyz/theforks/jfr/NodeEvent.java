@@ -0,0 +1,35 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single node processing a message. Only nodes whose address pattern
+ * matched are recorded.
+ */
+@Name("xyz.theforks.Node")
+@Label("Node")
+@Description("Message processed by one node of a chain")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class NodeEvent extends Event {
+
+    @Label("Output")
+    public String outputId;
+
+    @Label("Node")
+    public String node;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Requests")
+    @Description("Messages left after the node; 0 when dropped")
+    public int requests;
+}
@@ -0,0 +1,35 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A recorded message sent during playback. The duration covers routing it
+ * to its outputs, including their chains.
+ */
+@Name("xyz.theforks.PlaybackSend")
+@Label("Playback Send")
+@Description("Recorded message sent during playback")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class PlaybackSendEvent extends Event {
+
+    @Label("Output")
+    @Description("Target output, or null when sent to every enabled output")
+    public String outputId;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Lateness")
+    @Description("Time past the message's place in the session")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lateness;
+}
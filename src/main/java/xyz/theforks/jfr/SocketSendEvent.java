@@ -0,0 +1,32 @@
+package xyz.theforks.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A message serialized and written to an output's socket.
+ */
+@Name("xyz.theforks.SocketSend")
+@Label("Socket Send")
+@Description("Message written to an output's UDP socket")
+@Category({ "OSC Play", "Pipeline" })
+@Enabled(false)
+@StackTrace(false)
+public class SocketSendEvent extends Event {
+
+    @Label("Output")
+    public String outputId;
+
+    @Label("Address")
+    public String address;
+
+    @Label("Size")
+    @DataAmount
+    public int bytes;
+}
@@ -0,0 +1,30 @@
+package xyz.theforks.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, e.g. messages sent. Increments are striped
+ * across cells so the proxy and playback threads do not contend on one value.
+ */
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void inc() {
+        value.increment();
+    }
+
+    /**
+     * @param amount Amount to add; should not be negative
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,85 @@
+package xyz.theforks.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations into fixed buckets, like a Prometheus histogram.
+ * Each bucket is a striped counter, so recording never takes a lock.
+ */
+public class Histogram {
+
+    /** Bucket bounds in seconds, from 10 µs to 1 s, for chain times and playback lateness. */
+    public static final double[] LATENCY_BUCKETS = {
+        0.00001, 0.00005, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1.0
+    };
+
+    private final double[] upperBounds;
+    // One more than the bounds, for observations above the last one
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] upperBounds) {
+        for (int i = 1; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must increase");
+            }
+        }
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value.
+     * @param value The value, in the unit of the bucket bounds
+     */
+    public void observe(double value) {
+        int i = 0;
+        while (i < upperBounds.length && value > upperBounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Record a duration against bounds in seconds.
+     * @param nanos The duration in nanoseconds
+     */
+    public void observeNanos(long nanos) {
+        observe(nanos / 1e9);
+    }
+
+    double[] getUpperBounds() {
+        return upperBounds;
+    }
+
+    /**
+     * Get the observations at or below each bound, and last the total count.
+     * @return Cumulative counts, one longer than the bounds
+     */
+    long[] getCumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,200 @@
+package xyz.theforks.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsRegistry - Counters, histograms and gauges for the message pipeline.
+ *
+ * Metrics are looked up by name and labels, given as name/value pairs, and
+ * the same instance is returned each time, so callers look one up once and
+ * keep it in a field; recording is then lock free. {@link #scrape()} writes
+ * everything in the Prometheus text format, which {@link MetricsServer}
+ * serves over HTTP.
+ */
+public class MetricsRegistry {
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        String text() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        // By rendered labels, e.g. {output="default"}
+        final Map<String, Object> children = new LinkedHashMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Get the application's shared registry.
+     * @return The shared instance
+     */
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get or create a counter.
+     * @param name Metric name, e.g. oscplay_output_messages_total
+     * @param help One line description
+     * @param labels Label names and values, alternating
+     * @return The counter
+     */
+    public synchronized Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).children
+                .computeIfAbsent(renderLabels(labels), k -> new Counter());
+    }
+
+    /**
+     * Get or create a histogram. The bounds of an existing histogram are kept.
+     * @param name Metric name, e.g. oscplay_chain_latency_seconds
+     * @param help One line description
+     * @param upperBounds Increasing bucket bounds
+     * @param labels Label names and values, alternating
+     * @return The histogram
+     */
+    public synchronized Histogram histogram(String name, String help, double[] upperBounds, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).children
+                .computeIfAbsent(renderLabels(labels), k -> new Histogram(upperBounds));
+    }
+
+    /**
+     * Register a gauge read at each scrape, replacing any with the same name and labels.
+     * @param name Metric name, e.g. oscplay_delay_queue_depth
+     * @param help One line description
+     * @param value Supplies the current value; called on the scraping thread
+     * @param labels Label names and values, alternating
+     */
+    public synchronized void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).children.put(renderLabels(labels), value);
+    }
+
+    /**
+     * Remove a metric, e.g. when the output it describes is removed. A later
+     * lookup with the same name and labels starts again from zero.
+     * @param name Metric name
+     * @param labels Label names and values, alternating
+     * @return True if the metric was registered
+     */
+    public synchronized boolean remove(String name, String... labels) {
+        Family family = families.get(name);
+        if (family == null || family.children.remove(renderLabels(labels)) == null) {
+            return false;
+        }
+        if (family.children.isEmpty()) {
+            families.remove(name);
+        }
+        return true;
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type.text());
+        }
+        return family;
+    }
+
+    /**
+     * Write every metric in the Prometheus text exposition format.
+     * @return The metrics text
+     */
+    public String scrape() {
+        List<Family> snapshot;
+        List<List<Map.Entry<String, Object>>> children = new ArrayList<>();
+        synchronized (this) {
+            snapshot = new ArrayList<>(families.values());
+            for (Family family : snapshot) {
+                children.add(new ArrayList<>(family.children.entrySet()));
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (int f = 0; f < snapshot.size(); f++) {
+            Family family = snapshot.get(f);
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text()).append('\n');
+            for (Map.Entry<String, Object> child : children.get(f)) {
+                String labels = child.getKey();
+                Object metric = child.getValue();
+                if (metric instanceof Counter) {
+                    sample(out, family.name, labels, ((Counter) metric).get());
+                } else if (metric instanceof LongSupplier) {
+                    sample(out, family.name, labels, ((LongSupplier) metric).getAsLong());
+                } else {
+                    writeHistogram(out, family.name, labels, (Histogram) metric);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        double[] bounds = histogram.getUpperBounds();
+        long[] counts = histogram.getCumulativeCounts();
+        for (int i = 0; i <= bounds.length; i++) {
+            String le = i < bounds.length ? Double.toString(bounds[i]) : "+Inf";
+            sample(out, name + "_bucket", withLabel(labels, "le", le), counts[i]);
+        }
+        out.append(name).append("_sum").append(labels).append(' ').append(histogram.getSum()).append('\n');
+        sample(out, name + "_count", labels, counts[bounds.length]);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        if (labels.isEmpty()) {
+            return "{" + label + "}";
+        }
+        return labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escapeLabel(labels[i + 1])).append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static String escapeLabel(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
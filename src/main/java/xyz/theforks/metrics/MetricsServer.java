@@ -0,0 +1,94 @@
+package xyz.theforks.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * MetricsServer - Serves a registry at /metrics for Prometheus to scrape.
+ *
+ * Requests are answered one at a time on a daemon thread, away from the
+ * proxy and playback threads.
+ */
+public class MetricsServer {
+
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsServer(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Start serving.
+     * @param address Address to listen on; port 0 picks a free port
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MetricsServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    /**
+     * Get the port being listened on.
+     * @return The port, or -1 if not started
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error serving metrics: " + e.getMessage());
+            e.printStackTrace();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
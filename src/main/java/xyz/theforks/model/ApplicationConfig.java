@@ -15,6 +15,7 @@ public class ApplicationConfig {
     private PlaybackMode playbackMode;
     private String lastHandlerConfigFile;
     private List<OutputConfig> outputs;
+    private int metricsPort;
 
     public ApplicationConfig() {
         this.playbackMode = PlaybackMode.WITHOUT_REWRITE;
@@ -62,6 +63,18 @@ public class ApplicationConfig {
         this.lastHandlerConfigFile = lastHandlerConfigFile;
     }
 
+    /**
+     * Get the port metrics are served on for Prometheus to scrape.
+     * @return The port, or 0 if metrics are not served
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = Math.max(0, Math.min(65535, metricsPort));
+    }
+
     public List<OutputConfig> getOutputs() {
         return outputs;
     }
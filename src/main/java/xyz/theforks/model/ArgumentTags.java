@@ -0,0 +1,75 @@
+package xyz.theforks.model;
+
+/**
+ * OSC type tags for boxed record arguments, shared by the session encodings
+ * so data.osb and the columnar form store every argument the same way.
+ */
+final class ArgumentTags {
+
+    private ArgumentTags() {
+    }
+
+    /**
+     * Get the tag an argument is stored under. The record's type tag string decides
+     * when it matches the arguments, so values widened by JSON (e.g. Float read back
+     * as Double) keep their OSC type; otherwise the tag comes from the value.
+     *
+     * The result is always one the encodings can store: i h f d s b T F N I.
+     * Other OSC types (c, r, m, t...) are stored as strings.
+     *
+     * @param types The record's type tag string (may be null)
+     * @param args The record's arguments
+     * @param index The argument
+     * @return The tag to store
+     */
+    static char storedTag(String types, Object[] args, int index) {
+        Object arg = args[index];
+        boolean typesMatch = types != null && types.length() == args.length + 1;
+        char tag = typesMatch ? types.charAt(index + 1) : tagFor(arg);
+        if (arg == null) {
+            return tag == 'I' ? 'I' : 'N';
+        }
+        if (arg instanceof String && tag != 'b') {
+            return 's';
+        }
+        switch (tag) {
+            case 'i':
+            case 'h':
+            case 'f':
+            case 'd':
+            case 'b':
+            case 'N':
+            case 'I':
+                return tag;
+            case 'T':
+            case 'F':
+                return arg instanceof Boolean ? ((Boolean) arg ? 'T' : 'F') : tag;
+            default:
+                return 's';
+        }
+    }
+
+    /**
+     * Get the OSC type tag for a value.
+     * @param arg The value (may be null)
+     * @return The tag, 's' for anything without its own
+     */
+    static char tagFor(Object arg) {
+        if (arg == null) {
+            return 'N';
+        } else if (arg instanceof Integer) {
+            return 'i';
+        } else if (arg instanceof Long) {
+            return 'h';
+        } else if (arg instanceof Float) {
+            return 'f';
+        } else if (arg instanceof Double) {
+            return 'd';
+        } else if (arg instanceof byte[]) {
+            return 'b';
+        } else if (arg instanceof Boolean) {
+            return (Boolean) arg ? 'T' : 'F';
+        }
+        return 's';
+    }
+}
@@ -0,0 +1,404 @@
+package xyz.theforks.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a {@link RecordingSession} (data.osb).
+ *
+ * Layout (big-endian, varints are unsigned LEB128, signed values are zigzag encoded):
+ * <pre>
+ *   magic "OSCB", version byte
+ *   name (string), startTime (int64)
+ *   flags (byte): bit 0 set if messages carry nanosecond offsets
+ *   source size, source mtime (int64 each): the data.json this copy was written
+ *     from, or -1 if none
+ *   address count (varint), addresses (string...)
+ *   message count (varint)
+ *   per message:
+ *     address index (varint)
+ *     timestamp delta from the previous message, or from startTime for the first (zigzag varint)
+ *     if flagged: nanosecond offset delta from the previous message, or from 0 (zigzag varint)
+ *     argument count (varint)
+ *     per argument: OSC type tag (byte) followed by its value
+ *       i: zigzag varint   h: zigzag varint   f: float32   d: float64
+ *       s: string          b: varint length + bytes       T F N I: no value
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8 bytes. Each address is
+ * stored once, and the per-record type tag string is rebuilt from the argument
+ * tags, so a typical record takes a handful of bytes instead of a JSON object.
+ *
+ * Files are read through a memory-mapped buffer, either into records or
+ * directly into a {@link ColumnarSession}.
+ */
+public final class BinarySessionFormat {
+
+    public static final String FILE_NAME = "data.osb";
+
+    private static final byte[] MAGIC = {'O', 'S', 'C', 'B'};
+    private static final int VERSION = 1;
+    private static final int FLAG_NANOS = 1;
+    private static final long NO_SOURCE = -1;
+
+    private BinarySessionFormat() {
+    }
+
+    /**
+     * Write a session to a file. The file is replaced atomically.
+     * @param session The session
+     * @param file The destination file
+     * @throws IOException If writing fails
+     */
+    public static void write(RecordingSession session, Path file) throws IOException {
+        write(session, file, null);
+    }
+
+    /**
+     * Write a session to a file as a copy of its data.json. The size and
+     * modification time of data.json are stored so {@link #isCurrent} can tell
+     * whether it has changed since. The file is replaced atomically.
+     * @param session The session
+     * @param file The destination file
+     * @param source The data.json the session was saved to or read from, or null
+     * @throws IOException If writing fails
+     */
+    public static void write(RecordingSession session, Path file, Path source) throws IOException {
+        long sourceSize = NO_SOURCE;
+        long sourceModified = NO_SOURCE;
+        if (source != null && Files.exists(source)) {
+            sourceSize = Files.size(source);
+            sourceModified = Files.getLastModifiedTime(source).toMillis();
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024)) {
+            write(session, out, sourceSize, sourceModified);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Check whether a binary copy can be read in place of its data.json: either
+     * there is no data.json, or it has the size and modification time recorded
+     * when the copy was written.
+     * @param file The data.osb file
+     * @param source The data.json next to it
+     * @return True if the binary copy exists and is current
+     */
+    static boolean isCurrent(Path file, Path source) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        if (!Files.exists(source)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long[] stamp = readSourceStamp(buffer);
+            return stamp[0] != NO_SOURCE
+                    && stamp[0] == Files.size(source)
+                    && stamp[1] == Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a session to a stream.
+     * @param session The session
+     * @param stream The destination stream (not closed)
+     * @throws IOException If writing fails
+     */
+    public static void write(RecordingSession session, OutputStream stream) throws IOException {
+        write(session, stream, NO_SOURCE, NO_SOURCE);
+    }
+
+    private static void write(RecordingSession session, OutputStream stream,
+                              long sourceSize, long sourceModified) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        List<OSCMessageRecord> messages = session.getMessages();
+
+        // Build the address dictionary in first-seen order
+        Map<String, Integer> addressIds = new HashMap<>();
+        List<String> addresses = new ArrayList<>();
+        for (OSCMessageRecord record : messages) {
+            if (!addressIds.containsKey(record.getAddress())) {
+                addressIds.put(record.getAddress(), addresses.size());
+                addresses.add(record.getAddress());
+            }
+        }
+
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeString(out, session.getName() != null ? session.getName() : "");
+        out.writeLong(session.getStartTime());
+        boolean hasNanos = false;
+        for (OSCMessageRecord record : messages) {
+            if (record.getOffsetNanos() != null) {
+                hasNanos = true;
+                break;
+            }
+        }
+        out.writeByte(hasNanos ? FLAG_NANOS : 0);
+        out.writeLong(sourceSize);
+        out.writeLong(sourceModified);
+
+        writeVarint(out, addresses.size());
+        for (String address : addresses) {
+            writeString(out, address);
+        }
+
+        writeVarint(out, messages.size());
+        long previous = session.getStartTime();
+        long previousNanos = 0;
+        for (OSCMessageRecord record : messages) {
+            writeVarint(out, addressIds.get(record.getAddress()));
+            writeVarint(out, zigzag(record.getTimestamp() - previous));
+            previous = record.getTimestamp();
+            if (hasNanos) {
+                long nanos = record.getOffsetNanos() != null ? record.getOffsetNanos()
+                        : (record.getTimestamp() - session.getStartTime()) * 1_000_000L;
+                writeVarint(out, zigzag(nanos - previousNanos));
+                previousNanos = nanos;
+            }
+
+            Object[] args = record.getArguments() != null ? record.getArguments() : new Object[0];
+            writeVarint(out, args.length);
+            for (int i = 0; i < args.length; i++) {
+                writeArgument(out, ArgumentTags.storedTag(record.getTypes(), args, i), args[i]);
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeArgument(DataOutputStream out, char tag, Object arg) throws IOException {
+        out.writeByte(tag);
+        switch (tag) {
+            case 'i':
+            case 'h':
+                writeVarint(out, zigzag(((Number) arg).longValue()));
+                break;
+            case 'f':
+                out.writeFloat(((Number) arg).floatValue());
+                break;
+            case 'd':
+                out.writeDouble(((Number) arg).doubleValue());
+                break;
+            case 'b':
+                byte[] blob = arg instanceof byte[] ? (byte[]) arg
+                        : java.util.Base64.getDecoder().decode(arg.toString());
+                writeVarint(out, blob.length);
+                out.write(blob);
+                break;
+            case 'T':
+            case 'F':
+            case 'N':
+            case 'I':
+                break;
+            default:
+                // 's'; storedTag turns other OSC types into strings
+                writeString(out, String.valueOf(arg));
+                break;
+        }
+    }
+
+    /**
+     * Read a session through a memory-mapped buffer.
+     * @param file The data.osb file
+     * @return The session
+     * @throws IOException If the file cannot be read or is not a valid session
+     */
+    public static RecordingSession read(Path file) throws IOException {
+        return readColumnar(file).toSession();
+    }
+
+    /**
+     * Read a session through a memory-mapped buffer directly into columnar form,
+     * without creating a record per message.
+     * @param file The data.osb file
+     * @return The columnar session
+     * @throws IOException If the file cannot be read or is not a valid session
+     */
+    public static ColumnarSession readColumnar(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Session file too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return readColumnar(buffer);
+        }
+    }
+
+    /**
+     * Read a session from a buffer positioned at the start of an encoded session.
+     * @param buffer The buffer
+     * @return The columnar session
+     * @throws IOException If the data is not a valid session
+     */
+    public static ColumnarSession readColumnar(ByteBuffer buffer) throws IOException {
+        try {
+            readHeader(buffer);
+            String name = readString(buffer);
+            long startTime = buffer.getLong();
+            boolean hasNanos = (buffer.get() & FLAG_NANOS) != 0;
+            // Source size and mtime, only used by isCurrent
+            buffer.getLong();
+            buffer.getLong();
+
+            int addressCount = (int) readVarint(buffer);
+            String[] addresses = new String[addressCount];
+            for (int i = 0; i < addressCount; i++) {
+                addresses[i] = readString(buffer);
+            }
+
+            int messageCount = (int) readVarint(buffer);
+            ColumnarSession.Builder builder = new ColumnarSession.Builder(name, startTime, messageCount);
+            int[] addressIds = new int[addressCount];
+            for (int i = 0; i < addressCount; i++) {
+                addressIds[i] = builder.internAddress(addresses[i]);
+            }
+
+            long timestamp = startTime;
+            long nanos = 0;
+            for (int m = 0; m < messageCount; m++) {
+                int addressId = addressIds[(int) readVarint(buffer)];
+                timestamp += unzigzag(readVarint(buffer));
+                builder.startMessage(addressId, timestamp);
+                if (hasNanos) {
+                    nanos += unzigzag(readVarint(buffer));
+                    builder.setOffsetNanos(nanos);
+                }
+
+                int argCount = (int) readVarint(buffer);
+                for (int i = 0; i < argCount; i++) {
+                    readArgument(buffer, (char) buffer.get(), builder);
+                }
+            }
+            return builder.build();
+        } catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException
+                 | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated or corrupt binary session", e);
+        }
+    }
+
+    private static void readHeader(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException("Not a binary OSC session");
+            }
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary session version: " + version);
+        }
+    }
+
+    private static long[] readSourceStamp(ByteBuffer buffer) throws IOException {
+        try {
+            readHeader(buffer);
+            readString(buffer);
+            buffer.getLong();
+            buffer.get();
+            return new long[] {buffer.getLong(), buffer.getLong()};
+        } catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt binary session", e);
+        }
+    }
+
+    private static void readArgument(ByteBuffer buffer, char tag, ColumnarSession.Builder builder) throws IOException {
+        switch (tag) {
+            case 'i':
+                builder.argInt((int) unzigzag(readVarint(buffer)));
+                break;
+            case 'h':
+                builder.argLong(unzigzag(readVarint(buffer)));
+                break;
+            case 'f':
+                builder.argFloat(buffer.getFloat());
+                break;
+            case 'd':
+                builder.argDouble(buffer.getDouble());
+                break;
+            case 'b':
+                byte[] blob = new byte[(int) readVarint(buffer)];
+                buffer.get(blob);
+                builder.argBlob(blob);
+                break;
+            case 'T':
+            case 'F':
+            case 'N':
+            case 'I':
+                builder.argTag(tag);
+                break;
+            case 's':
+                builder.argString(readString(buffer));
+                break;
+            default:
+                throw new IOException("Unknown argument type: " + tag);
+        }
+    }
+
+    // Varint and string helpers
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = (int) readVarint(buffer);
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            buffer.position(buffer.position() + length);
+            return new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,522 @@
+package xyz.theforks.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, column-oriented view of a recorded session.
+ *
+ * Instead of one {@link OSCMessageRecord} object per message, every field is kept
+ * in a primitive column indexed by message number:
+ * <ul>
+ *   <li>{@code timestamps}: one long per message</li>
+ *   <li>{@code offsetNanos}: monotonic nanosecond offset from the session start,
+ *       only present for sessions recorded with nanosecond timing</li>
+ *   <li>{@code addressIds}: one int per message, indexing an interned address table</li>
+ *   <li>{@code argOffsets}: start of each message's arguments in the argument columns</li>
+ *   <li>{@code argTypes}/{@code argValues}: one OSC type tag byte and one long per argument.
+ *       Integers are stored directly, floats and doubles as their raw bits, and
+ *       strings and blobs as an index into a side table of references.</li>
+ * </ul>
+ * A message with one float argument costs about 25 bytes instead of the 150+ of a
+ * record, so multi-million-message sessions fit comfortably in memory.
+ *
+ * Instances are created with a {@link Builder} or converted from a
+ * {@link RecordingSession}. Values are boxed only when asked for as objects.
+ */
+public final class ColumnarSession {
+
+    // Marks a message without a recorded nanosecond offset
+    private static final long NO_OFFSET = Long.MIN_VALUE;
+
+    private final String name;
+    private final long startTime;
+    private final int size;
+    private final long[] timestamps;
+    private final long[] offsetNanos;
+    private final int[] addressIds;
+    private final String[] addresses;
+    private final int[] argOffsets;
+    private final byte[] argTypes;
+    private final long[] argValues;
+    private final Object[] refs;
+
+    private ColumnarSession(Builder builder) {
+        this.name = builder.name;
+        this.startTime = builder.startTime;
+        this.size = builder.size;
+        this.timestamps = Arrays.copyOf(builder.timestamps, builder.size);
+        this.offsetNanos = builder.offsetNanos != null ? Arrays.copyOf(builder.offsetNanos, builder.size) : null;
+        this.addressIds = Arrays.copyOf(builder.addressIds, builder.size);
+        this.addresses = builder.addresses.toArray(new String[0]);
+        this.argOffsets = Arrays.copyOf(builder.argOffsets, builder.size + 1);
+        this.argTypes = Arrays.copyOf(builder.argTypes, builder.argCount);
+        this.argValues = Arrays.copyOf(builder.argValues, builder.argCount);
+        this.refs = builder.refs.toArray();
+    }
+
+    /**
+     * Convert a record-based session.
+     * @param session The session
+     * @return The columnar session
+     */
+    public static ColumnarSession fromSession(RecordingSession session) {
+        Builder builder = new Builder(session.getName(), session.getStartTime(), session.getMessages().size());
+        for (OSCMessageRecord record : session.getMessages()) {
+            builder.add(record.getAddress(), record.getTimestamp(), record.getArguments(), record.getTypes());
+            if (record.getOffsetNanos() != null) {
+                builder.setOffsetNanos(record.getOffsetNanos());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Convert back to a record-based session, e.g. for editing or saving as JSON.
+     * @return The session
+     */
+    public RecordingSession toSession() {
+        List<OSCMessageRecord> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(toRecord(i));
+        }
+        return new RecordingSession(name, messages, startTime);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Get the number of messages.
+     * @return The message count
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Check if any message carries a recorded nanosecond offset.
+     * @return true for sessions recorded with nanosecond timing
+     */
+    public boolean hasNanos() {
+        return offsetNanos != null;
+    }
+
+    /**
+     * Get a message's offset from the session start in nanoseconds.
+     * Messages from millisecond-only sessions fall back to their millisecond timestamp.
+     * @param index The message index
+     * @return The offset in nanoseconds
+     */
+    public long getOffsetNanos(int index) {
+        if (offsetNanos != null && offsetNanos[index] != NO_OFFSET) {
+            return offsetNanos[index];
+        }
+        return (timestamps[index] - startTime) * 1_000_000L;
+    }
+
+    public String getAddress(int index) {
+        return addresses[addressIds[index]];
+    }
+
+    /**
+     * Get the interned address id of a message.
+     * @param index The message index
+     * @return Index into {@link #getAddressTable()}
+     */
+    public int getAddressId(int index) {
+        return addressIds[index];
+    }
+
+    /**
+     * Get the distinct addresses in the session, in first-seen order.
+     * @return A copy of the address table
+     */
+    public String[] getAddressTable() {
+        return addresses.clone();
+    }
+
+    public int getArgumentCount(int index) {
+        return argOffsets[index + 1] - argOffsets[index];
+    }
+
+    /**
+     * Get the OSC type tag of an argument.
+     * @param index The message index
+     * @param arg The argument index
+     * @return The type tag character, e.g. 'i', 'f' or 's'
+     */
+    public char getArgumentType(int index, int arg) {
+        return (char) argTypes[argSlot(index, arg)];
+    }
+
+    /**
+     * Get an argument as a double without boxing.
+     * @param index The message index
+     * @param arg The argument index
+     * @return The numeric value; 1/0 for booleans, NaN for non-numeric arguments
+     */
+    public double getDouble(int index, int arg) {
+        int slot = argSlot(index, arg);
+        switch (argTypes[slot]) {
+            case 'i':
+            case 'h':
+                return argValues[slot];
+            case 'f':
+                return Float.intBitsToFloat((int) argValues[slot]);
+            case 'd':
+                return Double.longBitsToDouble(argValues[slot]);
+            case 'T':
+                return 1;
+            case 'F':
+                return 0;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Get an argument as an int without boxing. Floating point values are truncated.
+     * @param index The message index
+     * @param arg The argument index
+     * @return The numeric value, or 0 for non-numeric arguments
+     */
+    public int getInt(int index, int arg) {
+        int slot = argSlot(index, arg);
+        switch (argTypes[slot]) {
+            case 'i':
+            case 'h':
+                return (int) argValues[slot];
+            default:
+                double value = getDouble(index, arg);
+                return Double.isNaN(value) ? 0 : (int) value;
+        }
+    }
+
+    /**
+     * Get an argument as an object, boxed to the type it was recorded with.
+     * @param index The message index
+     * @param arg The argument index
+     * @return The value
+     */
+    public Object getArgument(int index, int arg) {
+        int slot = argSlot(index, arg);
+        long value = argValues[slot];
+        switch (argTypes[slot]) {
+            case 'i':
+                return (int) value;
+            case 'h':
+                return value;
+            case 'f':
+                return Float.intBitsToFloat((int) value);
+            case 'd':
+                return Double.longBitsToDouble(value);
+            case 'T':
+                return Boolean.TRUE;
+            case 'F':
+                return Boolean.FALSE;
+            case 's':
+            case 'b':
+                return refs[(int) value];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get all arguments of a message as objects.
+     * @param index The message index
+     * @return A new array of arguments
+     */
+    public Object[] getArguments(int index) {
+        Object[] args = new Object[getArgumentCount(index)];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = getArgument(index, i);
+        }
+        return args;
+    }
+
+    /**
+     * Get the OSC type tag string of a message.
+     * @param index The message index
+     * @return The type tag string, e.g. ",fs"
+     */
+    public String getTypes(int index) {
+        StringBuilder types = new StringBuilder(",");
+        for (int slot = argOffsets[index]; slot < argOffsets[index + 1]; slot++) {
+            types.append((char) argTypes[slot]);
+        }
+        return types.toString();
+    }
+
+    /**
+     * Materialize one message as a record.
+     * @param index The message index
+     * @return A new record
+     */
+    public OSCMessageRecord toRecord(int index) {
+        OSCMessageRecord record = new OSCMessageRecord(getAddress(index), getArguments(index), getTypes(index), timestamps[index]);
+        if (offsetNanos != null && offsetNanos[index] != NO_OFFSET) {
+            record.setOffsetNanos(offsetNanos[index]);
+        }
+        return record;
+    }
+
+    /**
+     * Get the message indices in time order, using nanosecond offsets where
+     * recorded. Messages with equal times keep their recorded order.
+     * @return The indices; the identity order if the session is already sorted
+     */
+    public int[] timeOrder() {
+        int[] order = new int[size];
+        boolean sorted = true;
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            if (i > 0 && getOffsetNanos(i) < getOffsetNanos(i - 1)) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            Integer[] boxed = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, Comparator.comparingLong(this::getOffsetNanos));
+            for (int i = 0; i < size; i++) {
+                order[i] = boxed[i];
+            }
+        }
+        return order;
+    }
+
+    private int argSlot(int index, int arg) {
+        int slot = argOffsets[index] + arg;
+        if (arg < 0 || slot >= argOffsets[index + 1]) {
+            throw new IndexOutOfBoundsException("Argument " + arg + " out of range for message " + index);
+        }
+        return slot;
+    }
+
+    /**
+     * Accumulates messages into growable columns.
+     */
+    public static final class Builder {
+        private String name;
+        private long startTime;
+        private int size;
+        private int argCount;
+        private long[] timestamps;
+        private long[] offsetNanos;
+        private int[] addressIds;
+        private int[] argOffsets;
+        private byte[] argTypes;
+        private long[] argValues;
+        private final List<String> addresses = new ArrayList<>();
+        private final Map<String, Integer> addressIndex = new HashMap<>();
+        private final List<Object> refs = new ArrayList<>();
+
+        /**
+         * Create a builder.
+         * @param name The session name
+         * @param startTime The session start time in milliseconds
+         * @param expectedSize Expected number of messages (used for the initial capacity)
+         */
+        public Builder(String name, long startTime, int expectedSize) {
+            this.name = name;
+            this.startTime = startTime;
+            int capacity = Math.max(16, expectedSize);
+            this.timestamps = new long[capacity];
+            this.addressIds = new int[capacity];
+            this.argOffsets = new int[capacity + 1];
+            this.argTypes = new byte[capacity];
+            this.argValues = new long[capacity];
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setStartTime(long startTime) {
+            this.startTime = startTime;
+        }
+
+        /**
+         * Intern an address.
+         * @param address The address
+         * @return Its id in the address table
+         */
+        public int internAddress(String address) {
+            Integer id = addressIndex.get(address);
+            if (id == null) {
+                id = addresses.size();
+                addresses.add(address);
+                addressIndex.put(address, id);
+            }
+            return id;
+        }
+
+        /**
+         * Start a new message. Its arguments are appended with the {@code arg...} methods.
+         * @param addressId Interned address id
+         * @param timestamp Timestamp in milliseconds
+         */
+        public void startMessage(int addressId, long timestamp) {
+            if (size == timestamps.length) {
+                int capacity = timestamps.length * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                if (offsetNanos != null) {
+                    int oldCapacity = offsetNanos.length;
+                    offsetNanos = Arrays.copyOf(offsetNanos, capacity);
+                    Arrays.fill(offsetNanos, oldCapacity, capacity, NO_OFFSET);
+                }
+                addressIds = Arrays.copyOf(addressIds, capacity);
+                argOffsets = Arrays.copyOf(argOffsets, capacity + 1);
+            }
+            timestamps[size] = timestamp;
+            addressIds[size] = addressId;
+            argOffsets[size] = argCount;
+            size++;
+            argOffsets[size] = argCount;
+        }
+
+        /**
+         * Set the nanosecond offset from the session start of the current message.
+         * @param nanos The offset in nanoseconds
+         */
+        public void setOffsetNanos(long nanos) {
+            if (size == 0) {
+                throw new IllegalStateException("No message started");
+            }
+            if (offsetNanos == null) {
+                offsetNanos = new long[timestamps.length];
+                Arrays.fill(offsetNanos, NO_OFFSET);
+            }
+            offsetNanos[size - 1] = nanos;
+        }
+
+        private void appendArg(char type, long value) {
+            if (argCount == argTypes.length) {
+                int capacity = argTypes.length * 2;
+                argTypes = Arrays.copyOf(argTypes, capacity);
+                argValues = Arrays.copyOf(argValues, capacity);
+            }
+            argTypes[argCount] = (byte) type;
+            argValues[argCount] = value;
+            argCount++;
+            argOffsets[size] = argCount;
+        }
+
+        public void argInt(int value) {
+            appendArg('i', value);
+        }
+
+        public void argLong(long value) {
+            appendArg('h', value);
+        }
+
+        public void argFloat(float value) {
+            appendArg('f', Float.floatToRawIntBits(value));
+        }
+
+        public void argDouble(double value) {
+            appendArg('d', Double.doubleToRawLongBits(value));
+        }
+
+        public void argString(String value) {
+            refs.add(value);
+            appendArg('s', refs.size() - 1);
+        }
+
+        public void argBlob(byte[] value) {
+            refs.add(value);
+            appendArg('b', refs.size() - 1);
+        }
+
+        /**
+         * Append a value-less argument such as 'T', 'F', 'N' or 'I'.
+         * @param type The type tag
+         */
+        public void argTag(char type) {
+            appendArg(type, 0);
+        }
+
+        /**
+         * Append a complete message from boxed arguments.
+         * The type tag string decides the stored type when it matches the arguments,
+         * so values widened by JSON (e.g. Float read back as Double) keep their OSC type.
+         *
+         * @param address The address
+         * @param timestamp Timestamp in milliseconds
+         * @param args The arguments (may be null)
+         * @param types The OSC type tag string (may be null)
+         */
+        public void add(String address, long timestamp, Object[] args, String types) {
+            startMessage(internAddress(address), timestamp);
+            if (args == null) {
+                return;
+            }
+            for (int i = 0; i < args.length; i++) {
+                addBoxed(ArgumentTags.storedTag(types, args, i), args[i]);
+            }
+        }
+
+        private void addBoxed(char tag, Object arg) {
+            switch (tag) {
+                case 'i':
+                    argInt(((Number) arg).intValue());
+                    break;
+                case 'h':
+                    argLong(((Number) arg).longValue());
+                    break;
+                case 'f':
+                    argFloat(((Number) arg).floatValue());
+                    break;
+                case 'd':
+                    argDouble(((Number) arg).doubleValue());
+                    break;
+                case 'b':
+                    argBlob(arg instanceof byte[] ? (byte[]) arg
+                            : java.util.Base64.getDecoder().decode(arg.toString()));
+                    break;
+                case 'T':
+                case 'F':
+                case 'N':
+                case 'I':
+                    argTag(tag);
+                    break;
+                default:
+                    argString(String.valueOf(arg));
+                    break;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Build the session, trimming the columns to their final size.
+         * @return The columnar session
+         */
+        public ColumnarSession build() {
+            return new ColumnarSession(this);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package xyz.theforks.model;
 
-import java.time.Instant;
-
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import xyz.theforks.util.Clock;
 
+// Types are written before arguments so streaming readers can decode arguments in one pass
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"address", "timestamp", "offsetNanos", "types", "arguments"})
 public class OSCMessageRecord {
     private String address;
     private Object[] arguments;
     private long timestamp;
     private String types;  // OSC Type Tag String (e.g., ",f", ",fs", ",I")
+    // Monotonic offset from the session start in nanoseconds; null for millisecond-only sessions
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long offsetNanos;
 
     public OSCMessageRecord() {
         // Default constructor for Jackson
@@ -18,14 +26,21 @@ public class OSCMessageRecord {
     public OSCMessageRecord(String address, Object[] arguments) {
         this.address = address;
         this.arguments = arguments;
-        this.timestamp = Instant.now().toEpochMilli();
+        this.timestamp = Clock.getDefault().currentTimeMillis();
         this.types = generateTypeTagString(arguments);
     }
 
     public OSCMessageRecord(String address, Object[] arguments, String types) {
         this.address = address;
         this.arguments = arguments;
-        this.timestamp = Instant.now().toEpochMilli();
+        this.timestamp = Clock.getDefault().currentTimeMillis();
+        this.types = types;
+    }
+
+    public OSCMessageRecord(String address, Object[] arguments, String types, long timestamp) {
+        this.address = address;
+        this.arguments = arguments;
+        this.timestamp = timestamp;
         this.types = types;
     }
 
@@ -74,8 +89,20 @@ public class OSCMessageRecord {
         // Regenerate type tag string when arguments change
         this.types = generateTypeTagString(arguments);
     }
+
+    // Deserialization keeps the stored type tags instead of regenerating them
+    @JsonProperty("arguments")
+    private void setArgumentsFromJson(Object[] arguments) {
+        this.arguments = arguments;
+        if (this.types == null) {
+            this.types = generateTypeTagString(arguments);
+        }
+    }
+
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    public Long getOffsetNanos() { return offsetNanos; }
+    public void setOffsetNanos(Long offsetNanos) { this.offsetNanos = offsetNanos; }
     public String getTypes() { return types; }
     public void setTypes(String types) { this.types = types; }
 }
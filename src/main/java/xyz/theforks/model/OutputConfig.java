@@ -13,6 +13,7 @@ public class OutputConfig {
     private int port;
     private boolean enabled;
     private NodeChainConfig nodeChain;
+    private boolean recorded;
 
     public OutputConfig() {
         this.id = "default";
@@ -75,4 +76,15 @@ public class OutputConfig {
     public void setNodeChain(NodeChainConfig nodeChain) {
         this.nodeChain = nodeChain;
     }
+
+    /**
+     * Whether recordings also capture what this output sends, after its node chain and delays.
+     */
+    public boolean isRecorded() {
+        return recorded;
+    }
+
+    public void setRecorded(boolean recorded) {
+        this.recorded = recorded;
+    }
 }
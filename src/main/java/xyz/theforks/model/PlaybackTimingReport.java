@@ -0,0 +1,133 @@
+package xyz.theforks.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.util.LatencyHistogram;
+
+/**
+ * How closely the last playback of a session kept to its timing, stored in
+ * playback-timing.json next to the session's data.
+ *
+ * Lateness is the time between when a message was due and when playback got
+ * round to sending it. Messages later than the threshold are counted as late;
+ * messages whose send failed are counted as dropped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"sessionName", "startedAt", "messages", "lateThresholdMs", "meanMs", "p50Ms", "p99Ms", "maxMs",
+        "lateCount", "droppedCount", "stopped"})
+public class PlaybackTimingReport {
+
+    public static final String FILE_NAME = "playback-timing.json";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String sessionName;
+    private long startedAt;
+    private long messages;
+    private double lateThresholdMs;
+    private double meanMs;
+    private double p50Ms;
+    private double p99Ms;
+    private double maxMs;
+    private long lateCount;
+    private long droppedCount;
+    private boolean stopped;
+
+    public PlaybackTimingReport() {
+    }
+
+    /**
+     * Build a report from the lateness recorded during a playback.
+     * @param sessionName The session played
+     * @param startedAt Wall-clock time playback started, in milliseconds
+     * @param lateness Lateness of each message sent, in nanoseconds
+     * @param lateThresholdMs Lateness above which a message counted as late
+     * @param lateCount Messages later than the threshold
+     * @param droppedCount Messages that could not be sent
+     * @param stopped Whether playback was stopped before the end
+     */
+    public PlaybackTimingReport(String sessionName, long startedAt, LatencyHistogram lateness, double lateThresholdMs,
+            long lateCount, long droppedCount, boolean stopped) {
+        this.sessionName = sessionName;
+        this.startedAt = startedAt;
+        this.messages = lateness.getCount();
+        this.lateThresholdMs = lateThresholdMs;
+        this.meanMs = lateness.getMean() / 1e6;
+        this.p50Ms = lateness.getValueAtPercentile(50) / 1e6;
+        this.p99Ms = lateness.getValueAtPercentile(99) / 1e6;
+        this.maxMs = lateness.getMax() / 1e6;
+        this.lateCount = lateCount;
+        this.droppedCount = droppedCount;
+        this.stopped = stopped;
+    }
+
+    public String getSessionName() { return sessionName; }
+    public void setSessionName(String sessionName) { this.sessionName = sessionName; }
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+    public long getMessages() { return messages; }
+    public void setMessages(long messages) { this.messages = messages; }
+    public double getLateThresholdMs() { return lateThresholdMs; }
+    public void setLateThresholdMs(double lateThresholdMs) { this.lateThresholdMs = lateThresholdMs; }
+    public double getMeanMs() { return meanMs; }
+    public void setMeanMs(double meanMs) { this.meanMs = meanMs; }
+    public double getP50Ms() { return p50Ms; }
+    public void setP50Ms(double p50Ms) { this.p50Ms = p50Ms; }
+    public double getP99Ms() { return p99Ms; }
+    public void setP99Ms(double p99Ms) { this.p99Ms = p99Ms; }
+    public double getMaxMs() { return maxMs; }
+    public void setMaxMs(double maxMs) { this.maxMs = maxMs; }
+    public long getLateCount() { return lateCount; }
+    public void setLateCount(long lateCount) { this.lateCount = lateCount; }
+    public long getDroppedCount() { return droppedCount; }
+    public void setDroppedCount(long droppedCount) { this.droppedCount = droppedCount; }
+    public boolean isStopped() { return stopped; }
+    public void setStopped(boolean stopped) { this.stopped = stopped; }
+
+    /**
+     * Get a one-line description for the playback status.
+     * @return e.g. "1200 msgs, late mean 0.12 ms, p99 0.80 ms, max 3.10 ms, 0 late, 0 dropped"
+     */
+    public String describe() {
+        return String.format("%d msgs, late mean %.2f ms, p99 %.2f ms, max %.2f ms, %d late, %d dropped",
+                messages, meanMs, p99Ms, maxMs, lateCount, droppedCount);
+    }
+
+    /**
+     * Write this report into a session directory.
+     * @param sessionDir The session directory
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path sessionDir) throws IOException {
+        Path file = sessionDir.resolve(FILE_NAME);
+        Path temp = sessionDir.resolve(FILE_NAME + ".tmp");
+        objectMapper.writeValue(temp.toFile(), this);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read the report of a session's last playback.
+     * @param sessionDir The session directory
+     * @return The report, or null if the session has not been played or it can't be read
+     */
+    public static PlaybackTimingReport read(Path sessionDir) {
+        File file = sessionDir.resolve(FILE_NAME).toFile();
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file, PlaybackTimingReport.class);
+        } catch (IOException e) {
+            System.err.println("Error reading playback timing " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -16,6 +16,20 @@ public class ProjectConfig {
     private String midiDeviceName;
     private String inHost;
     private int inPort;
+    private boolean timeShiftEnabled;
+    private double timeShiftSeconds;
+    private int timeShiftCapacity;
+    private int captureBufferMB;
+    private double captureMinutes;
+    private double recordingSegmentMinutes;
+    private int recordingBufferMB;
+    private NodeChainConfig recordingNodeChain;
+
+    public static final double DEFAULT_TIME_SHIFT_SECONDS = 10.0;
+    public static final int DEFAULT_TIME_SHIFT_CAPACITY = 100000;
+    public static final int DEFAULT_CAPTURE_BUFFER_MB = 32;
+    public static final double DEFAULT_CAPTURE_MINUTES = 10.0;
+    public static final int DEFAULT_RECORDING_BUFFER_MB = 16;
 
     public ProjectConfig() {
         this.projectName = "Untitled";
@@ -26,6 +40,14 @@ public class ProjectConfig {
         this.midiDeviceName = null;
         this.inHost = "127.0.0.1";
         this.inPort = 8000;
+        this.timeShiftEnabled = false;
+        this.timeShiftSeconds = DEFAULT_TIME_SHIFT_SECONDS;
+        this.timeShiftCapacity = DEFAULT_TIME_SHIFT_CAPACITY;
+        this.captureBufferMB = DEFAULT_CAPTURE_BUFFER_MB;
+        this.captureMinutes = DEFAULT_CAPTURE_MINUTES;
+        this.recordingSegmentMinutes = 0;
+        this.recordingBufferMB = DEFAULT_RECORDING_BUFFER_MB;
+        this.recordingNodeChain = new NodeChainConfig();
     }
 
     @JsonCreator
@@ -44,6 +66,14 @@ public class ProjectConfig {
         this.midiDeviceName = midiDeviceName;
         this.inHost = inHost != null ? inHost : "127.0.0.1";
         this.inPort = inPort != null ? inPort : 8000;
+        this.timeShiftEnabled = false;
+        this.timeShiftSeconds = DEFAULT_TIME_SHIFT_SECONDS;
+        this.timeShiftCapacity = DEFAULT_TIME_SHIFT_CAPACITY;
+        this.captureBufferMB = DEFAULT_CAPTURE_BUFFER_MB;
+        this.captureMinutes = DEFAULT_CAPTURE_MINUTES;
+        this.recordingSegmentMinutes = 0;
+        this.recordingBufferMB = DEFAULT_RECORDING_BUFFER_MB;
+        this.recordingNodeChain = new NodeChainConfig();
         if (this.outputs.isEmpty() || !hasOutput("default")) {
             this.outputs.add(0, createDefaultOutput());
         }
@@ -146,4 +176,84 @@ public class ProjectConfig {
     public void setInPort(int inPort) {
         this.inPort = inPort;
     }
+
+    public boolean isTimeShiftEnabled() {
+        return timeShiftEnabled;
+    }
+
+    public void setTimeShiftEnabled(boolean timeShiftEnabled) {
+        this.timeShiftEnabled = timeShiftEnabled;
+    }
+
+    public double getTimeShiftSeconds() {
+        return timeShiftSeconds;
+    }
+
+    public void setTimeShiftSeconds(double timeShiftSeconds) {
+        this.timeShiftSeconds = timeShiftSeconds;
+    }
+
+    public int getTimeShiftCapacity() {
+        return timeShiftCapacity;
+    }
+
+    public void setTimeShiftCapacity(int timeShiftCapacity) {
+        this.timeShiftCapacity = timeShiftCapacity;
+    }
+
+    /**
+     * Memory budget for the always-on input capture buffer (0 disables capture).
+     */
+    public int getCaptureBufferMB() {
+        return captureBufferMB;
+    }
+
+    public void setCaptureBufferMB(int captureBufferMB) {
+        this.captureBufferMB = captureBufferMB;
+    }
+
+    /**
+     * How many minutes of input the capture buffer keeps.
+     */
+    public double getCaptureMinutes() {
+        return captureMinutes;
+    }
+
+    public void setCaptureMinutes(double captureMinutes) {
+        this.captureMinutes = captureMinutes;
+    }
+
+    /**
+     * Length of each segment when recording to segmented storage (0 records a single data.json).
+     */
+    public double getRecordingSegmentMinutes() {
+        return recordingSegmentMinutes;
+    }
+
+    public void setRecordingSegmentMinutes(double recordingSegmentMinutes) {
+        this.recordingSegmentMinutes = recordingSegmentMinutes;
+    }
+
+    /**
+     * Memory budget for recorded messages waiting to be written to disk; beyond it they spill to a file.
+     */
+    public int getRecordingBufferMB() {
+        return recordingBufferMB;
+    }
+
+    public void setRecordingBufferMB(int recordingBufferMB) {
+        this.recordingBufferMB = recordingBufferMB;
+    }
+
+    /**
+     * Nodes applied to input messages before they are recorded, e.g. to drop or throttle
+     * traffic that is never replayed. An empty chain records every message as received.
+     */
+    public NodeChainConfig getRecordingNodeChain() {
+        return recordingNodeChain;
+    }
+
+    public void setRecordingNodeChain(NodeChainConfig recordingNodeChain) {
+        this.recordingNodeChain = recordingNodeChain != null ? recordingNodeChain : new NodeChainConfig();
+    }
 }
@@ -8,12 +8,15 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import xyz.theforks.util.DataDirectory;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"name", "startTime", "messages"})
 public class RecordingSession {
     private String name;
     private List<OSCMessageRecord> messages;
@@ -82,6 +85,16 @@ public class RecordingSession {
         return getRecordingsDirectory().resolve(sessionName);
     }
 
+    /**
+     * Get the directory a session is stored in, in the open project's recordings
+     * directory if there is one.
+     * @param sessionName The session name
+     * @return Path to the session directory
+     */
+    public static Path getSessionPath(String sessionName) {
+        return getSessionDir(sessionName);
+    }
+
     /**
      * Get the session data file path.
      * @param sessionName The session name
@@ -91,6 +104,15 @@ public class RecordingSession {
         return getSessionDir(sessionName).resolve("data.json");
     }
 
+    /**
+     * Get the session binary data file path.
+     * @param sessionName The session name
+     * @return Path to the session's data.osb file
+     */
+    private static Path getSessionBinaryFile(String sessionName) {
+        return getSessionDir(sessionName).resolve(BinarySessionFormat.FILE_NAME);
+    }
+
     /**
      * Get the session settings file path.
      * @param sessionName The session name
@@ -103,6 +125,7 @@ public class RecordingSession {
     /**
      * Save this session to the directory structure.
      * Creates: {recordingsDir}/{sessionName}/data.json
+     * A segmented session keeps its layout and only the changed segments are rewritten.
      */
     public void save() throws IOException {
         final ObjectMapper objectMapper = new ObjectMapper();
@@ -113,26 +136,59 @@ public class RecordingSession {
             sessionDir.mkdirs();
         }
 
+        SegmentedSession segmented = SegmentedSession.open(sessionDir.toPath());
+        if (segmented != null) {
+            int written = segmented.save(this);
+            System.out.println("Saved recording to: " + sessionDir.getAbsolutePath()
+                    + " (" + written + " of " + segmented.getSegmentCount() + " segments written)");
+            SessionSummary.compute(ColumnarSession.fromSession(this)).write(sessionDir.toPath());
+            return;
+        }
+
         // Save session data
         File dataFile = getSessionDataFile(name).toFile();
         objectMapper.writeValue(dataFile, this);
         System.out.println("Saved recording to: " + dataFile.getAbsolutePath());
+
+        // Keep an existing binary copy in sync
+        Path binaryFile = getSessionBinaryFile(name);
+        if (binaryFile.toFile().exists()) {
+            BinarySessionFormat.write(this, binaryFile, dataFile.toPath());
+        }
+
+        SessionSummary.compute(ColumnarSession.fromSession(this)).write(sessionDir.toPath());
     }
 
     /**
      * Load a session from the directory structure.
-     * Loads: {recordingsDir}/{sessionName}/data.json
+     * Loads: {recordingsDir}/{sessionName}/data.json (or an up-to-date data.osb)
+     * Arguments are restored to their recorded types using each record's type tags.
      */
     static public RecordingSession loadSession(String sessionName) throws IOException {
-        final ObjectMapper objectMapper = new ObjectMapper();
+        SegmentedSession segmented = openSegmented(sessionName);
+        if (segmented != null) {
+            ColumnarSession session = segmented.loadColumnar();
+            if (session.isEmpty()) {
+                System.err.println("Invalid session data");
+                return null;
+            }
+            return session.toSession();
+        }
 
         File dataFile = getSessionDataFile(sessionName).toFile();
-        if (!dataFile.exists()) {
+        File binaryFile = getSessionBinaryFile(sessionName).toFile();
+        if (!dataFile.exists() && !binaryFile.exists()) {
             System.err.println("Recording file not found: " + sessionName);
             return null;
         }
 
-        RecordingSession session = objectMapper.readValue(dataFile, RecordingSession.class);
+        // Prefer the binary copy unless data.json has changed since it was written
+        RecordingSession session;
+        if (BinarySessionFormat.isCurrent(binaryFile.toPath(), dataFile.toPath())) {
+            session = BinarySessionFormat.read(binaryFile.toPath());
+        } else {
+            session = SessionJsonDecoder.decode(dataFile);
+        }
 
         if (session == null || session.getMessages() == null || session.getMessages().isEmpty()) {
             System.err.println("Invalid session data");
@@ -142,6 +198,120 @@ public class RecordingSession {
         return session;
     }
 
+    /**
+     * Load a session in columnar form, for read-only use such as playback or analysis.
+     * Either format is decoded straight into columns without creating records.
+     * @param sessionName The session name
+     * @return The session, or null if not found or empty
+     */
+    static public ColumnarSession loadColumnarSession(String sessionName) throws IOException {
+        File dataFile = getSessionDataFile(sessionName).toFile();
+        File binaryFile = getSessionBinaryFile(sessionName).toFile();
+        SegmentedSession segmented = openSegmented(sessionName);
+        if (segmented == null && !dataFile.exists() && !binaryFile.exists()) {
+            System.err.println("Recording file not found: " + sessionName);
+            return null;
+        }
+
+        ColumnarSession session;
+        if (segmented != null) {
+            session = segmented.loadColumnar();
+        } else if (BinarySessionFormat.isCurrent(binaryFile.toPath(), dataFile.toPath())) {
+            session = BinarySessionFormat.readColumnar(binaryFile.toPath());
+        } else {
+            session = SessionJsonDecoder.decodeColumnar(dataFile);
+        }
+
+        if (session.isEmpty()) {
+            System.err.println("Invalid session data");
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Open a session stored as time segments, e.g. to stream it one segment at a time.
+     * @param sessionName The session name
+     * @return The segmented session, or null if the session is stored as a single file
+     * @throws IOException If the manifest cannot be read
+     */
+    static public SegmentedSession openSegmented(String sessionName) throws IOException {
+        return SegmentedSession.open(getSessionDir(sessionName));
+    }
+
+    /**
+     * Convert a single-file session into segmented storage.
+     * @param sessionName The session name
+     * @param segmentDurationMs Length of each segment
+     * @throws IOException If the session cannot be read or written
+     */
+    static public void convertToSegmented(String sessionName, long segmentDurationMs) throws IOException {
+        Path sessionDir = getSessionDir(sessionName);
+        if (SegmentedSession.isSegmented(sessionDir)) {
+            return;
+        }
+        RecordingSession session = loadSession(sessionName);
+        if (session == null) {
+            throw new IOException("Recording file not found: " + sessionName);
+        }
+        SegmentedSession.create(sessionDir, sessionName, session.getStartTime(), segmentDurationMs).save(session);
+        Files.deleteIfExists(getSessionDataFile(sessionName));
+        Files.deleteIfExists(getSessionBinaryFile(sessionName));
+        SessionSummary.compute(ColumnarSession.fromSession(session)).write(sessionDir);
+    }
+
+    /**
+     * Get a session's summary from its summary.json sidecar, computing the sidecar
+     * if it is missing or out of date.
+     * @param sessionName The session name
+     * @return The summary, or null if the session cannot be read
+     */
+    static public SessionSummary loadSummary(String sessionName) {
+        return SessionSummary.load(getSessionDir(sessionName));
+    }
+
+    /**
+     * Get a session's address and time index, building its query.idx sidecar
+     * if it is missing or out of date.
+     * @param sessionName The session name
+     * @return The index
+     * @throws IOException If the session cannot be read
+     */
+    static public SessionQueryIndex loadQueryIndex(String sessionName) throws IOException {
+        return SessionQueryIndex.load(getSessionDir(sessionName));
+    }
+
+    /**
+     * Write a binary copy (data.osb) of a session next to its data.json.
+     * @param sessionName The session name
+     * @throws IOException If the session cannot be read or written
+     */
+    static public void convertToBinary(String sessionName) throws IOException {
+        File dataFile = getSessionDataFile(sessionName).toFile();
+        if (!dataFile.exists()) {
+            throw new IOException("Recording file not found: " + sessionName);
+        }
+        RecordingSession session = SessionJsonDecoder.decode(dataFile);
+        BinarySessionFormat.write(session, getSessionBinaryFile(sessionName), dataFile.toPath());
+    }
+
+    /**
+     * Rewrite a session's data.json from its binary copy.
+     * @param sessionName The session name
+     * @throws IOException If the session cannot be read or written
+     */
+    static public void convertToJson(String sessionName) throws IOException {
+        Path binaryFile = getSessionBinaryFile(sessionName);
+        if (!binaryFile.toFile().exists()) {
+            throw new IOException("Binary recording file not found: " + sessionName);
+        }
+        RecordingSession session = BinarySessionFormat.read(binaryFile);
+        Path dataFile = getSessionDataFile(sessionName);
+        new ObjectMapper().writeValue(dataFile.toFile(), session);
+        // Rewrite the binary copy against the new data.json so it stays the preferred source
+        BinarySessionFormat.write(session, binaryFile, dataFile);
+    }
+
     /**
      * Save settings for this session.
      * @param settings The settings to save
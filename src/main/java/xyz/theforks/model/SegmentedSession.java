@@ -0,0 +1,596 @@
+package xyz.theforks.model;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Segmented storage for long recordings.
+ *
+ * Instead of one data.json, a segmented session is split into fixed-length time
+ * segments, each a file of records written one JSON object per line:
+ *
+ *   Recordings/{name}/manifest.json
+ *   Recordings/{name}/segments/seg-00000.jsonl
+ *   Recordings/{name}/segments/seg-00001.jsonl ...
+ *
+ * Segment n holds the messages whose timestamps fall in
+ * [startTime + n * segmentDurationMs, startTime + (n + 1) * segmentDurationMs).
+ * The manifest lists the segments with their message counts, time ranges and
+ * CRC32 checksums. Recording appends to the current segment and rolls to a new one
+ * at each boundary, playback loads one segment at a time, and saving an edited
+ * session only rewrites segments whose contents changed.
+ *
+ * While a recording is in progress its manifest is kept in
+ * {@value #RECORDING_MANIFEST_FILE}, so the session is not listed until it is
+ * finished and an interrupted recording can be recovered.
+ */
+public final class SegmentedSession {
+
+    public static final String MANIFEST_FILE = "manifest.json";
+    public static final String RECORDING_MANIFEST_FILE = "manifest.recording.json";
+    public static final String SEGMENTS_DIR = "segments";
+    public static final long DEFAULT_SEGMENT_DURATION_MS = 10 * 60 * 1000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Flushing is done by the writer, not after every value
+    private static final ObjectWriter recordWriter = objectMapper.writerFor(OSCMessageRecord.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final Path sessionDir;
+    private final Manifest manifest;
+
+    /**
+     * The manifest.json of a segmented session.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonPropertyOrder({"name", "startTime", "segmentDurationMs", "segments"})
+    public static class Manifest {
+        private String name;
+        private long startTime;
+        private long segmentDurationMs;
+        private List<Segment> segments = new ArrayList<>();
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public long getStartTime() { return startTime; }
+        public void setStartTime(long startTime) { this.startTime = startTime; }
+        public long getSegmentDurationMs() { return segmentDurationMs; }
+        public void setSegmentDurationMs(long segmentDurationMs) { this.segmentDurationMs = segmentDurationMs; }
+        public List<Segment> getSegments() { return segments; }
+        public void setSegments(List<Segment> segments) { this.segments = segments; }
+
+        @JsonIgnore
+        public long getMessageCount() {
+            long count = 0;
+            for (Segment segment : segments) {
+                count += segment.messageCount;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * One segment's entry in the manifest.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonPropertyOrder({"index", "file", "messageCount", "firstTimestamp", "lastTimestamp", "checksum"})
+    public static class Segment {
+        private int index;
+        private String file;
+        private long messageCount;
+        private long firstTimestamp;
+        private long lastTimestamp;
+        private long checksum;
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+        public long getMessageCount() { return messageCount; }
+        public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+        public long getFirstTimestamp() { return firstTimestamp; }
+        public void setFirstTimestamp(long firstTimestamp) { this.firstTimestamp = firstTimestamp; }
+        public long getLastTimestamp() { return lastTimestamp; }
+        public void setLastTimestamp(long lastTimestamp) { this.lastTimestamp = lastTimestamp; }
+        /** CRC32 of the segment file's bytes. */
+        public long getChecksum() { return checksum; }
+        public void setChecksum(long checksum) { this.checksum = checksum; }
+
+        void add(long timestamp) {
+            if (messageCount == 0) {
+                firstTimestamp = timestamp;
+                lastTimestamp = timestamp;
+            } else {
+                firstTimestamp = Math.min(firstTimestamp, timestamp);
+                lastTimestamp = Math.max(lastTimestamp, timestamp);
+            }
+            messageCount++;
+        }
+    }
+
+    private SegmentedSession(Path sessionDir, Manifest manifest) {
+        this.sessionDir = sessionDir;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Check whether a session directory holds a segmented session.
+     * @param sessionDir The session directory
+     * @return True if it has a manifest
+     */
+    public static boolean isSegmented(Path sessionDir) {
+        return sessionDir.resolve(MANIFEST_FILE).toFile().exists();
+    }
+
+    /**
+     * Open a segmented session.
+     * @param sessionDir The session directory
+     * @return The session, or null if the directory has no manifest
+     * @throws IOException If the manifest cannot be read
+     */
+    public static SegmentedSession open(Path sessionDir) throws IOException {
+        return open(sessionDir, MANIFEST_FILE);
+    }
+
+    private static SegmentedSession open(Path sessionDir, String manifestName) throws IOException {
+        File manifestFile = sessionDir.resolve(manifestName).toFile();
+        if (!manifestFile.exists()) {
+            return null;
+        }
+        return new SegmentedSession(sessionDir, objectMapper.readValue(manifestFile, Manifest.class));
+    }
+
+    /**
+     * Create an empty segmented session. Nothing is written until it is saved or recorded to.
+     * @param sessionDir The session directory
+     * @param name The session name
+     * @param startTime Start of the first segment, in epoch milliseconds
+     * @param segmentDurationMs Length of each segment
+     * @return The session
+     */
+    public static SegmentedSession create(Path sessionDir, String name, long startTime, long segmentDurationMs) {
+        if (segmentDurationMs <= 0) {
+            throw new IllegalArgumentException("Segment duration must be positive");
+        }
+        Manifest manifest = new Manifest();
+        manifest.name = name;
+        manifest.startTime = startTime;
+        manifest.segmentDurationMs = segmentDurationMs;
+        return new SegmentedSession(sessionDir, manifest);
+    }
+
+    public Path getSessionDir() {
+        return sessionDir;
+    }
+
+    public Manifest getManifest() {
+        return manifest;
+    }
+
+    public int getSegmentCount() {
+        return manifest.segments.size();
+    }
+
+    public long getMessageCount() {
+        return manifest.getMessageCount();
+    }
+
+    /**
+     * Get a segment's file.
+     * @param position The segment's position in the manifest
+     * @return The path of its .jsonl file
+     */
+    public Path getSegmentFile(int position) {
+        return segmentPath(manifest.segments.get(position));
+    }
+
+    /**
+     * Get the segment a timestamp belongs to.
+     * @param timestamp The timestamp in epoch milliseconds
+     * @return The segment index; messages before the start go into segment 0
+     */
+    public int segmentIndex(long timestamp) {
+        return (int) Math.max(0, Math.floorDiv(timestamp - manifest.startTime, manifest.segmentDurationMs));
+    }
+
+    private static String segmentFileName(int index) {
+        return String.format("seg-%05d.jsonl", index);
+    }
+
+    private Path segmentPath(Segment segment) {
+        return sessionDir.resolve(SEGMENTS_DIR).resolve(segment.file);
+    }
+
+    /**
+     * Load one segment in columnar form.
+     * @param position The segment's position in the manifest (not its time index)
+     * @return The segment's messages, with the session's name and start time
+     * @throws IOException If the segment cannot be read
+     */
+    public ColumnarSession loadSegment(int position) throws IOException {
+        Segment segment = manifest.segments.get(position);
+        ColumnarSession.Builder builder = new ColumnarSession.Builder(manifest.name, manifest.startTime,
+                (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, segment.messageCount)));
+        SessionJsonDecoder.decodeLines(segmentPath(segment).toFile(), builder);
+        return builder.build();
+    }
+
+    /**
+     * Load every segment into a single columnar session.
+     * @return The whole session
+     * @throws IOException If a segment cannot be read
+     */
+    public ColumnarSession loadColumnar() throws IOException {
+        ColumnarSession.Builder builder = new ColumnarSession.Builder(manifest.name, manifest.startTime,
+                (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, getMessageCount())));
+        for (Segment segment : manifest.segments) {
+            SessionJsonDecoder.decodeLines(segmentPath(segment).toFile(), builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Save a session's messages, rewriting only the segments whose contents changed.
+     * Messages are assigned to segments by timestamp relative to the manifest's start time.
+     * @param session The session to save
+     * @return The number of segment files written
+     * @throws IOException If a segment or the manifest cannot be written
+     */
+    public int save(RecordingSession session) throws IOException {
+        TreeMap<Integer, List<OSCMessageRecord>> byIndex = new TreeMap<>();
+        for (OSCMessageRecord record : session.getMessages()) {
+            byIndex.computeIfAbsent(segmentIndex(record.getTimestamp()), i -> new ArrayList<>()).add(record);
+        }
+
+        Map<Integer, Segment> existing = new HashMap<>();
+        for (Segment segment : manifest.segments) {
+            existing.put(segment.index, segment);
+        }
+
+        Path segmentsDir = sessionDir.resolve(SEGMENTS_DIR);
+        Files.createDirectories(segmentsDir);
+        List<Segment> segments = new ArrayList<>();
+        int written = 0;
+        for (Map.Entry<Integer, List<OSCMessageRecord>> entry : byIndex.entrySet()) {
+            Segment segment = new Segment();
+            segment.index = entry.getKey();
+            segment.file = segmentFileName(segment.index);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (JsonGenerator out = objectMapper.getFactory().createGenerator(bytes, JsonEncoding.UTF8)) {
+                out.setRootValueSeparator(null);
+                for (OSCMessageRecord record : entry.getValue()) {
+                    recordWriter.writeValue(out, record);
+                    out.writeRaw('\n');
+                    segment.add(record.getTimestamp());
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            segment.checksum = crc.getValue();
+
+            Segment previous = existing.remove(segment.index);
+            Path file = segmentPath(segment);
+            if (previous == null || previous.checksum != segment.checksum || !Files.exists(file)) {
+                Path temp = segmentsDir.resolve(segment.file + ".tmp");
+                Files.write(temp, bytes.toByteArray());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                written++;
+            }
+            segments.add(segment);
+        }
+
+        manifest.segments = segments;
+        writeManifest();
+
+        // Segments that no longer have any messages
+        for (Segment removed : existing.values()) {
+            Files.deleteIfExists(segmentPath(removed));
+        }
+        return written;
+    }
+
+    /**
+     * Write the manifest atomically.
+     * @throws IOException If it cannot be written
+     */
+    public void writeManifest() throws IOException {
+        writeManifest(MANIFEST_FILE);
+    }
+
+    private void writeManifest(String manifestName) throws IOException {
+        Files.createDirectories(sessionDir);
+        Path temp = sessionDir.resolve(manifestName + ".tmp");
+        objectMapper.writeValue(temp.toFile(), manifest);
+        Files.move(temp, sessionDir.resolve(manifestName), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Remove a segmented session's manifest and segments from a directory.
+     * @param sessionDir The session directory
+     * @throws IOException If a file cannot be deleted
+     */
+    public static void delete(Path sessionDir) throws IOException {
+        Files.deleteIfExists(sessionDir.resolve(MANIFEST_FILE));
+        Files.deleteIfExists(sessionDir.resolve(RECORDING_MANIFEST_FILE));
+        File[] files = sessionDir.resolve(SEGMENTS_DIR).toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.deleteIfExists(sessionDir.resolve(SEGMENTS_DIR));
+    }
+
+    /**
+     * Check whether a segmented recording in a directory was interrupted before it finished.
+     * @param sessionDir The session directory
+     * @return True if it still has a recording manifest
+     */
+    public static boolean isInterrupted(Path sessionDir) {
+        return sessionDir.resolve(RECORDING_MANIFEST_FILE).toFile().exists();
+    }
+
+    /**
+     * Rebuild the manifest of a recording that was interrupted, from the segment files.
+     * A truncated last line, as left by a crash, is dropped from its segment.
+     * @param sessionDir The session directory
+     * @return The recovered session
+     * @throws IOException If there is no recording manifest or a segment cannot be rewritten
+     */
+    public static SegmentedSession recover(Path sessionDir) throws IOException {
+        return recover(sessionDir, List.of());
+    }
+
+    /**
+     * Rebuild the manifest of a recording that was interrupted, from the segment files,
+     * after appending the records in other files of JSON lines, e.g. spill files written
+     * while the recorder was behind, to the segments they fall in. The files are
+     * streamed, and a truncated line ends a file.
+     * @param sessionDir The session directory
+     * @param appended Files of records to append, oldest first
+     * @return The recovered session
+     * @throws IOException If there is no recording manifest or a segment cannot be rewritten
+     */
+    public static SegmentedSession recover(Path sessionDir, List<Path> appended) throws IOException {
+        SegmentedSession session = open(sessionDir, RECORDING_MANIFEST_FILE);
+        if (session == null) {
+            throw new IOException("No recording manifest in " + sessionDir);
+        }
+        session.manifest.segments = recoverSegments(sessionDir);
+        if (!appended.isEmpty()) {
+            for (Path file : appended) {
+                session.appendLines(file);
+            }
+            session.manifest.segments = recoverSegments(sessionDir);
+        }
+        session.writeManifest();
+        Files.delete(sessionDir.resolve(RECORDING_MANIFEST_FILE));
+        return session;
+    }
+
+    private static List<Segment> recoverSegments(Path sessionDir) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        File[] files = sessionDir.resolve(SEGMENTS_DIR).toFile().listFiles((dir, name) -> name.endsWith(".jsonl"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                Segment segment = recoverSegment(file.toPath());
+                if (segment != null) {
+                    segments.add(segment);
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Append the complete lines of a file of JSON records to the segment files they
+     * fall in. Called after the segments have been recovered, so none ends in a torn line.
+     */
+    private void appendLines(Path file) throws IOException {
+        Files.createDirectories(sessionDir.resolve(SEGMENTS_DIR));
+        OutputStream out = null;
+        int index = -1;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    System.err.println("Skipping truncated entry in " + file);
+                    break;
+                }
+                int lineIndex = segmentIndex(node.path("timestamp").asLong());
+                if (out == null || lineIndex != index) {
+                    if (out != null) {
+                        out.close();
+                    }
+                    index = lineIndex;
+                    Path segmentFile = sessionDir.resolve(SEGMENTS_DIR).resolve(segmentFileName(index));
+                    out = new BufferedOutputStream(new FileOutputStream(segmentFile.toFile(), true), 64 * 1024);
+                }
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private static Segment recoverSegment(Path file) throws IOException {
+        Segment segment = new Segment();
+        segment.file = file.getFileName().toString();
+        try {
+            segment.index = Integer.parseInt(segment.file.replaceAll("\\D", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        // Keep every complete line; the checksum covers what is kept
+        ByteArrayOutputStream kept = new ByteArrayOutputStream();
+        boolean truncated = false;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    System.err.println("Skipping truncated segment entry in " + file);
+                    truncated = true;
+                    break;
+                }
+                segment.add(node.path("timestamp").asLong());
+                kept.write(line.getBytes(StandardCharsets.UTF_8));
+                kept.write('\n');
+            }
+        }
+        if (segment.messageCount == 0) {
+            Files.delete(file);
+            return null;
+        }
+        byte[] contents = kept.toByteArray();
+        if (truncated || contents.length != Files.size(file)) {
+            Files.write(file, contents);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        segment.checksum = crc.getValue();
+        return segment;
+    }
+
+    /**
+     * Appends records to a segmented session as they are recorded, rolling to a
+     * new segment file whenever a record falls past the current segment's end.
+     * The recording manifest is rewritten at every roll, so an interrupted recording
+     * can be recovered with {@link #recover(Path)}.
+     */
+    public final class Writer implements Closeable {
+        private Segment current;
+        private CheckedOutputStream checked;
+        private JsonGenerator out;
+
+        private Writer() throws IOException {
+            Files.createDirectories(sessionDir.resolve(SEGMENTS_DIR));
+            writeManifest(RECORDING_MANIFEST_FILE);
+        }
+
+        /**
+         * Append a record.
+         * @param record The record
+         * @throws IOException If writing fails
+         */
+        public void write(OSCMessageRecord record) throws IOException {
+            int index = segmentIndex(record.getTimestamp());
+            if (current == null || index > current.index) {
+                roll(index);
+            }
+            recordWriter.writeValue(out, record);
+            out.writeRaw('\n');
+            current.add(record.getTimestamp());
+        }
+
+        /**
+         * Append a record that is already serialized, e.g. copied from a spill file.
+         * @param json The record as a single line of JSON, without the line break
+         * @param timestamp The record's timestamp
+         * @throws IOException If writing fails
+         */
+        public void writeLine(String json, long timestamp) throws IOException {
+            int index = segmentIndex(timestamp);
+            if (current == null || index > current.index) {
+                roll(index);
+            }
+            out.writeRaw(json);
+            out.writeRaw('\n');
+            current.add(timestamp);
+        }
+
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        private void roll(int index) throws IOException {
+            closeSegment();
+            current = new Segment();
+            current.index = index;
+            current.file = segmentFileName(index);
+            manifest.segments.add(current);
+            writeManifest(RECORDING_MANIFEST_FILE);
+
+            OutputStream file = new BufferedOutputStream(new FileOutputStream(segmentPath(current).toFile()), 64 * 1024);
+            checked = new CheckedOutputStream(file, new CRC32());
+            out = objectMapper.getFactory().createGenerator(checked, JsonEncoding.UTF8);
+            out.setRootValueSeparator(null);
+        }
+
+        private void closeSegment() throws IOException {
+            if (out != null) {
+                out.close();
+                current.checksum = checked.getChecksum().getValue();
+                out = null;
+                checked = null;
+            }
+        }
+
+        /**
+         * Close the current segment and publish the manifest.
+         * @throws IOException If writing fails
+         */
+        @Override
+        public void close() throws IOException {
+            closeSegment();
+            writeManifest();
+            Files.deleteIfExists(sessionDir.resolve(RECORDING_MANIFEST_FILE));
+        }
+    }
+
+    /**
+     * Start appending to this session, e.g. while recording.
+     * @return The writer
+     * @throws IOException If the segments directory or manifest cannot be written
+     */
+    public Writer openWriter() throws IOException {
+        return new Writer();
+    }
+}
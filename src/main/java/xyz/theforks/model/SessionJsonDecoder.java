@@ -0,0 +1,376 @@
+package xyz.theforks.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming decoder for session data.json files.
+ *
+ * Jackson data binding reads {@code arguments} as a generic {@code Object[]}, so a
+ * recorded float comes back as a Double and is replayed as an OSC double. This
+ * decoder walks the file with the streaming API and uses each record's
+ * {@code types} tag to decode every argument straight to the type it was recorded
+ * with ('i' to int, 'f' to float, 'h' to long, 'b' from base64 to byte[], ...),
+ * so replayed messages serialize to the same bytes that were received.
+ *
+ * Sessions are decoded in one pass into a {@link ColumnarSession.Builder}. When a
+ * record lists {@code arguments} before {@code types} (files written before the
+ * property order was fixed), the argument tokens are held until the tag is seen.
+ */
+public final class SessionJsonDecoder {
+
+    private static final JsonFactory factory = new JsonFactory();
+    // Records are decoded from a window of the file; any record from a UDP
+    // datagram, base64 blobs included, is shorter than MAX_RECORD_BYTES
+    private static final int WINDOW_SIZE = 1024 * 1024;
+    private static final int MAX_RECORD_BYTES = 256 * 1024;
+
+    private SessionJsonDecoder() {
+    }
+
+    /**
+     * Decode a data.json file into records.
+     * @param file The file
+     * @return The session
+     * @throws IOException If the file cannot be read or parsed
+     */
+    public static RecordingSession decode(File file) throws IOException {
+        return decodeColumnar(file).toSession();
+    }
+
+    /**
+     * Decode a data.json file straight into columnar form.
+     * @param file The file
+     * @return The columnar session
+     * @throws IOException If the file cannot be read or parsed
+     */
+    public static ColumnarSession decodeColumnar(File file) throws IOException {
+        try (JsonParser parser = factory.createParser(file)) {
+            return decodeColumnar(parser);
+        }
+    }
+
+    /**
+     * Decode a session from JSON text.
+     * @param json The JSON
+     * @return The columnar session
+     * @throws IOException If the text cannot be parsed
+     */
+    public static ColumnarSession decodeColumnar(String json) throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            return decodeColumnar(parser);
+        }
+    }
+
+    /**
+     * Decode a file of records written one JSON object per line, as used for
+     * session segments, appending the records to a builder.
+     * @param file The file
+     * @param builder The builder to add the records to
+     * @return The number of records decoded
+     * @throws IOException If the file cannot be read or parsed
+     */
+    public static int decodeLines(File file, ColumnarSession.Builder builder) throws IOException {
+        int count = 0;
+        try (JsonParser parser = factory.createParser(file)) {
+            PendingArguments pending = new PendingArguments();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                decodeRecord(parser, builder, pending);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decode the records starting at the given byte offsets of a file, e.g. as
+     * found by a {@link SessionQueryIndex}, appending them to a builder.
+     * Offsets must be ascending and point at a record's opening brace.
+     * @param file A data.json or segment file
+     * @param offsets The record offsets
+     * @param from First offset to decode
+     * @param to End of the offsets to decode, exclusive
+     * @param builder The builder to add the records to
+     * @throws IOException If the file cannot be read or an offset is not a record
+     */
+    public static void decodeAt(File file, long[] offsets, int from, int to,
+                                ColumnarSession.Builder builder) throws IOException {
+        PendingArguments pending = new PendingArguments();
+        byte[] window = new byte[WINDOW_SIZE];
+        long windowStart = 0;
+        int windowLength = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (int i = from; i < to; i++) {
+                long target = offsets[i];
+                if (target < windowStart || target + MAX_RECORD_BYTES > windowStart + windowLength
+                        && windowStart + windowLength < size) {
+                    // Refill so that the whole record is in the window
+                    windowStart = target;
+                    ByteBuffer buffer = ByteBuffer.wrap(window);
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, target + buffer.position()) <= 0) {
+                            break;
+                        }
+                    }
+                    windowLength = buffer.position();
+                }
+                int start = (int) (target - windowStart);
+                try (JsonParser parser = factory.createParser(window, start, windowLength - start)) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        throw new IOException("No record at offset " + target + " of " + file);
+                    }
+                    decodeRecord(parser, builder, pending);
+                }
+            }
+        }
+    }
+
+    private static ColumnarSession decodeColumnar(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a session object");
+        }
+        ColumnarSession.Builder builder = new ColumnarSession.Builder(null, 0, 1024);
+        PendingArguments pending = new PendingArguments();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "name":
+                    builder.setName(token == JsonToken.VALUE_NULL ? null : parser.getText());
+                    break;
+                case "startTime":
+                    builder.setStartTime(parser.getLongValue());
+                    break;
+                case "messages":
+                    if (token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            decodeRecord(parser, builder, pending);
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decode one record. The parser is positioned on its START_OBJECT.
+     */
+    private static void decodeRecord(JsonParser parser, ColumnarSession.Builder builder,
+                                     PendingArguments pending) throws IOException {
+        String address = null;
+        String types = null;
+        long timestamp = 0;
+        Long offsetNanos = null;
+        boolean started = false;
+        pending.clear();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "address":
+                    address = parser.getText();
+                    break;
+                case "timestamp":
+                    timestamp = parser.getLongValue();
+                    break;
+                case "offsetNanos":
+                    offsetNanos = token == JsonToken.VALUE_NULL ? null : parser.getLongValue();
+                    break;
+                case "types":
+                    types = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                    break;
+                case "arguments":
+                    if (token != JsonToken.START_ARRAY) {
+                        break;
+                    }
+                    if (types != null && address != null) {
+                        // Usual case: decode directly using the type tag
+                        builder.startMessage(builder.internAddress(address), timestamp);
+                        started = true;
+                        int index = 0;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            decodeArgument(parser, typeAt(types, index++), builder);
+                        }
+                    } else {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            pending.add(parser);
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        if (!started) {
+            builder.startMessage(builder.internAddress(address), timestamp);
+            pending.replay(types, builder);
+        }
+        if (offsetNanos != null) {
+            builder.setOffsetNanos(offsetNanos);
+        }
+    }
+
+    private static char typeAt(String types, int index) {
+        return types != null && index + 1 < types.length() ? types.charAt(index + 1) : 0;
+    }
+
+    /**
+     * Decode the argument at the parser's current token using its type tag.
+     * Falls back to the JSON token type when the tag is missing or does not fit.
+     */
+    private static void decodeArgument(JsonParser parser, char tag, ColumnarSession.Builder builder) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            builder.argTag(tag == 'I' ? 'I' : 'N');
+            return;
+        }
+        if (token.isNumeric()) {
+            switch (tag) {
+                case 'i':
+                    builder.argInt(parser.getIntValue());
+                    return;
+                case 'h':
+                    builder.argLong(parser.getLongValue());
+                    return;
+                case 'f':
+                    // Parse the text directly so the float is exact rather than rounded via double
+                    builder.argFloat(Float.parseFloat(parser.getText()));
+                    return;
+                case 'd':
+                    builder.argDouble(parser.getDoubleValue());
+                    return;
+                default:
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        if (parser.getNumberType() == JsonParser.NumberType.INT) {
+                            builder.argInt(parser.getIntValue());
+                        } else {
+                            builder.argLong(parser.getLongValue());
+                        }
+                    } else {
+                        builder.argDouble(parser.getDoubleValue());
+                    }
+                    return;
+            }
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            builder.argTag(token == JsonToken.VALUE_TRUE ? 'T' : 'F');
+            return;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            if (tag == 'b') {
+                builder.argBlob(parser.getBinaryValue());
+            } else {
+                builder.argString(parser.getText());
+            }
+            return;
+        }
+        // Nested arrays/objects are not valid OSC arguments
+        parser.skipChildren();
+        builder.argString("");
+    }
+
+    /**
+     * Argument values seen before the record's type tag.
+     */
+    private static final class PendingArguments {
+        private final List<Object> values = new ArrayList<>();
+        private final List<JsonToken> tokens = new ArrayList<>();
+
+        void clear() {
+            values.clear();
+            tokens.clear();
+        }
+
+        void add(JsonParser parser) throws IOException {
+            JsonToken token = parser.currentToken();
+            tokens.add(token);
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                    || token == JsonToken.VALUE_STRING) {
+                // Keep the text so numbers can be parsed exactly once the type is known
+                values.add(parser.getText());
+            } else if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                values.add("");
+                tokens.set(tokens.size() - 1, JsonToken.VALUE_STRING);
+            } else {
+                values.add(null);
+            }
+        }
+
+        void replay(String types, ColumnarSession.Builder builder) {
+            for (int i = 0; i < tokens.size(); i++) {
+                char tag = typeAt(types, i);
+                JsonToken token = tokens.get(i);
+                String text = (String) values.get(i);
+                switch (token) {
+                    case VALUE_NULL:
+                        builder.argTag(tag == 'I' ? 'I' : 'N');
+                        break;
+                    case VALUE_TRUE:
+                        builder.argTag('T');
+                        break;
+                    case VALUE_FALSE:
+                        builder.argTag('F');
+                        break;
+                    case VALUE_STRING:
+                        if (tag == 'b') {
+                            builder.argBlob(java.util.Base64.getDecoder().decode(text));
+                        } else {
+                            builder.argString(text);
+                        }
+                        break;
+                    default:
+                        replayNumber(tag, token, text, builder);
+                        break;
+                }
+            }
+        }
+
+        private static void replayNumber(char tag, JsonToken token, String text, ColumnarSession.Builder builder) {
+            switch (tag) {
+                case 'i':
+                    builder.argInt((int) Double.parseDouble(text));
+                    break;
+                case 'h':
+                    builder.argLong(token == JsonToken.VALUE_NUMBER_INT ? Long.parseLong(text) : (long) Double.parseDouble(text));
+                    break;
+                case 'f':
+                    builder.argFloat(Float.parseFloat(text));
+                    break;
+                case 'd':
+                    builder.argDouble(Double.parseDouble(text));
+                    break;
+                default:
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        long value = Long.parseLong(text);
+                        if (value == (int) value) {
+                            builder.argInt((int) value);
+                        } else {
+                            builder.argLong(value);
+                        }
+                    } else {
+                        builder.argDouble(Double.parseDouble(text));
+                    }
+                    break;
+            }
+        }
+    }
+}
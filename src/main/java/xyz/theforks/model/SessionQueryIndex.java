@@ -0,0 +1,495 @@
+package xyz.theforks.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMessageEvent;
+import com.illposed.osc.messageselector.OSCPatternAddressMessageSelector;
+
+/**
+ * Inverted index of a session's messages by OSC address, stored in query.idx.
+ *
+ * For every address the index holds the timestamps of its messages in time order
+ * and where each message is stored: the data.json or segment file, and the byte
+ * offset of its record. A query by address pattern and time range binary searches
+ * the timestamps of the matching addresses and decodes only the records it hits,
+ * so the rest of the session is never parsed.
+ *
+ * Layout (big-endian; strings are an int byte length followed by UTF-8 bytes):
+ * <pre>
+ *   magic "OSQI", version (int)
+ *   name (string), startTime (int64)
+ *   file count (int), per file: path relative to the session directory (string), size (int64)
+ *   address count (int)
+ *   per address:
+ *     address (string), message count (int)
+ *     timestamps (int64...), file numbers (int32...), record offsets (int64...)
+ * </pre>
+ * The index is built on first use and rebuilt whenever it is older than the
+ * session data or one of the indexed files has changed size.
+ */
+public final class SessionQueryIndex {
+
+    public static final String FILE_NAME = "query.idx";
+
+    private static final byte[] MAGIC = {'O', 'S', 'Q', 'I'};
+    private static final int VERSION = 1;
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final Path sessionDir;
+    private final String name;
+    private final long startTime;
+    private final List<String> files;
+    private final long[] fileSizes;
+    private final Map<String, Entries> addresses;
+
+    /**
+     * The messages of one address, in time order.
+     */
+    private static final class Entries {
+        long[] timestamps;
+        int[] files;
+        long[] offsets;
+        int size;
+
+        Entries(int capacity) {
+            timestamps = new long[capacity];
+            files = new int[capacity];
+            offsets = new long[capacity];
+        }
+
+        void add(long timestamp, int file, long offset) {
+            if (size == timestamps.length) {
+                int capacity = Math.max(16, size * 2);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                files = Arrays.copyOf(files, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+            }
+            timestamps[size] = timestamp;
+            files[size] = file;
+            offsets[size] = offset;
+            size++;
+        }
+
+        /**
+         * Sort by timestamp, keeping recording order for equal timestamps.
+         */
+        void sort() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = timestamps[i - 1] <= timestamps[i];
+            }
+            if (sorted) {
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            long[] sortedTimestamps = new long[size];
+            int[] sortedFiles = new int[size];
+            long[] sortedOffsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedFiles[i] = files[order[i]];
+                sortedOffsets[i] = offsets[order[i]];
+            }
+            timestamps = sortedTimestamps;
+            files = sortedFiles;
+            offsets = sortedOffsets;
+        }
+
+        /**
+         * @return The first position whose timestamp is not before the given one
+         */
+        int lowerBound(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private SessionQueryIndex(Path sessionDir, String name, long startTime, List<String> files,
+                              long[] fileSizes, Map<String, Entries> addresses) {
+        this.sessionDir = sessionDir;
+        this.name = name;
+        this.startTime = startTime;
+        this.files = files;
+        this.fileSizes = fileSizes;
+        this.addresses = addresses;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Get the addresses in the session, sorted.
+     * @return The addresses
+     */
+    public List<String> getAddresses() {
+        return Collections.unmodifiableList(new ArrayList<>(addresses.keySet()));
+    }
+
+    /**
+     * Get the addresses matching an OSC address pattern.
+     * @param pattern An OSC address pattern such as "/lx/modulation/Mag*&#47;mag" or "//mag";
+     *                null or empty matches every address
+     * @return The matching addresses, sorted
+     */
+    public List<String> matchAddresses(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return getAddresses();
+        }
+        OSCPatternAddressMessageSelector selector = new OSCPatternAddressMessageSelector(pattern);
+        List<String> matched = new ArrayList<>();
+        for (String address : addresses.keySet()) {
+            try {
+                if (selector.matches(new OSCMessageEvent(this, null, new OSCMessage(address)))) {
+                    matched.add(address);
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a valid OSC address, so no pattern matches it
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Count the messages matching a query without reading them.
+     * @param pattern OSC address pattern, or null for every address
+     * @param fromMs Start of the time range in milliseconds from the session start, inclusive
+     * @param toMs End of the time range in milliseconds from the session start, exclusive
+     * @return The number of matching messages
+     */
+    public long count(String pattern, long fromMs, long toMs) {
+        long from = toTimestamp(fromMs);
+        long to = toTimestamp(toMs);
+        long count = 0;
+        for (String address : matchAddresses(pattern)) {
+            Entries entries = addresses.get(address);
+            count += Math.max(0, entries.lowerBound(to) - entries.lowerBound(from));
+        }
+        return count;
+    }
+
+    /**
+     * Read the messages matching a query.
+     * Use {@link Long#MIN_VALUE} and {@link Long#MAX_VALUE} for an open time range.
+     * @param pattern OSC address pattern, or null for every address
+     * @param fromMs Start of the time range in milliseconds from the session start, inclusive
+     * @param toMs End of the time range in milliseconds from the session start, exclusive
+     * @return The matching messages in recording order, with the session's name and start time
+     * @throws IOException If the session data cannot be read
+     */
+    public ColumnarSession query(String pattern, long fromMs, long toMs) throws IOException {
+        long from = toTimestamp(fromMs);
+        long to = toTimestamp(toMs);
+
+        // Collect the hits as file number and offset packed into one long, so
+        // sorting them gives the order the records are stored in
+        long[] hits = new long[16];
+        int hitCount = 0;
+        for (String address : matchAddresses(pattern)) {
+            Entries entries = addresses.get(address);
+            int end = entries.lowerBound(to);
+            for (int i = entries.lowerBound(from); i < end; i++) {
+                if (hitCount == hits.length) {
+                    hits = Arrays.copyOf(hits, hitCount * 2);
+                }
+                hits[hitCount++] = ((long) entries.files[i] << 40) | entries.offsets[i];
+            }
+        }
+        Arrays.sort(hits, 0, hitCount);
+
+        ColumnarSession.Builder builder = new ColumnarSession.Builder(name, startTime, Math.max(16, hitCount));
+        long[] offsets = new long[hitCount];
+        int start = 0;
+        while (start < hitCount) {
+            int file = (int) (hits[start] >>> 40);
+            int end = start;
+            while (end < hitCount && (int) (hits[end] >>> 40) == file) {
+                offsets[end] = hits[end] & ((1L << 40) - 1);
+                end++;
+            }
+            SessionJsonDecoder.decodeAt(sessionDir.resolve(files.get(file)).toFile(), offsets, start, end, builder);
+            start = end;
+        }
+        return builder.build();
+    }
+
+    private long toTimestamp(long offsetMs) {
+        if (offsetMs == Long.MIN_VALUE || offsetMs == Long.MAX_VALUE) {
+            return offsetMs;
+        }
+        return startTime + offsetMs;
+    }
+
+    /**
+     * Get a session's index, building and writing it if it is missing or out of date.
+     * @param sessionDir The session directory
+     * @return The index
+     * @throws IOException If the session data cannot be read
+     */
+    public static SessionQueryIndex load(Path sessionDir) throws IOException {
+        SessionQueryIndex index = read(sessionDir);
+        if (index != null) {
+            return index;
+        }
+        index = build(sessionDir);
+        try {
+            index.write(sessionDir);
+        } catch (IOException e) {
+            // The index still works, it is just rebuilt next time
+            System.err.println("Error writing query index for " + sessionDir + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Read a session's index if it is present and up to date.
+     * @param sessionDir The session directory
+     * @return The index, or null if missing, unreadable or out of date
+     */
+    public static SessionQueryIndex read(Path sessionDir) {
+        File file = sessionDir.resolve(FILE_NAME).toFile();
+        if (!file.exists() || file.lastModified() < SessionSummary.dataModified(sessionDir)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            SessionQueryIndex index = read(sessionDir, buffer);
+            for (int i = 0; i < index.files.size(); i++) {
+                File indexed = sessionDir.resolve(index.files.get(i)).toFile();
+                if (!indexed.exists() || indexed.length() != index.fileSizes[i]) {
+                    return null;
+                }
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading query index " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static SessionQueryIndex read(Path sessionDir, ByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a query index");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported query index version: " + version);
+        }
+        String name = readString(buffer);
+        long startTime = buffer.getLong();
+
+        int fileCount = buffer.getInt();
+        List<String> files = new ArrayList<>(fileCount);
+        long[] fileSizes = new long[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            files.add(readString(buffer));
+            fileSizes[i] = buffer.getLong();
+        }
+
+        int addressCount = buffer.getInt();
+        Map<String, Entries> addresses = new TreeMap<>();
+        for (int i = 0; i < addressCount; i++) {
+            String address = readString(buffer);
+            int count = buffer.getInt();
+            Entries entries = new Entries(0);
+            entries.size = count;
+            entries.timestamps = new long[count];
+            buffer.asLongBuffer().get(entries.timestamps);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            entries.files = new int[count];
+            buffer.asIntBuffer().get(entries.files);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            entries.offsets = new long[count];
+            buffer.asLongBuffer().get(entries.offsets);
+            buffer.position(buffer.position() + count * Long.BYTES);
+            addresses.put(address, entries);
+        }
+        return new SessionQueryIndex(sessionDir, name, startTime, files, fileSizes, addresses);
+    }
+
+    /**
+     * Write this index into its session directory. The file is replaced atomically.
+     * @param sessionDir The session directory
+     * @throws IOException If writing fails
+     */
+    public void write(Path sessionDir) throws IOException {
+        Path file = sessionDir.resolve(FILE_NAME);
+        Path temp = sessionDir.resolve(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, name);
+            out.writeLong(startTime);
+            out.writeInt(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                writeString(out, files.get(i));
+                out.writeLong(fileSizes[i]);
+            }
+            out.writeInt(addresses.size());
+            for (Map.Entry<String, Entries> entry : addresses.entrySet()) {
+                Entries entries = entry.getValue();
+                writeString(out, entry.getKey());
+                out.writeInt(entries.size);
+                for (int i = 0; i < entries.size; i++) {
+                    out.writeLong(entries.timestamps[i]);
+                }
+                for (int i = 0; i < entries.size; i++) {
+                    out.writeInt(entries.files[i]);
+                }
+                for (int i = 0; i < entries.size; i++) {
+                    out.writeLong(entries.offsets[i]);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Build the index of a session by scanning its data.json or segments.
+     * Only each record's address and timestamp are parsed.
+     * @param sessionDir The session directory
+     * @return The index
+     * @throws IOException If the session has no data or it cannot be parsed
+     */
+    public static SessionQueryIndex build(Path sessionDir) throws IOException {
+        List<String> files = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        Map<String, Entries> addresses = new TreeMap<>();
+        String name;
+        long startTime;
+
+        SegmentedSession segmented = SegmentedSession.open(sessionDir);
+        if (segmented != null) {
+            name = segmented.getManifest().getName();
+            startTime = segmented.getManifest().getStartTime();
+            for (int i = 0; i < segmented.getSegmentCount(); i++) {
+                Path segmentFile = segmented.getSegmentFile(i);
+                files.add(sessionDir.relativize(segmentFile).toString().replace(File.separatorChar, '/'));
+                sizes.add(Files.size(segmentFile));
+                try (JsonParser parser = factory.createParser(segmentFile.toFile())) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        indexRecord(parser, i, addresses);
+                    }
+                }
+            }
+        } else {
+            File dataFile = sessionDir.resolve("data.json").toFile();
+            if (!dataFile.exists()) {
+                throw new IOException("Recording file not found: " + dataFile);
+            }
+            files.add(dataFile.getName());
+            sizes.add(dataFile.length());
+            name = null;
+            startTime = 0;
+            try (JsonParser parser = factory.createParser(dataFile)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a session object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+                    if ("name".equals(field)) {
+                        name = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                    } else if ("startTime".equals(field)) {
+                        startTime = parser.getLongValue();
+                    } else if ("messages".equals(field) && token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            indexRecord(parser, 0, addresses);
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        for (Entries entries : addresses.values()) {
+            entries.sort();
+        }
+        long[] fileSizes = new long[sizes.size()];
+        for (int i = 0; i < fileSizes.length; i++) {
+            fileSizes[i] = sizes.get(i);
+        }
+        if (name == null) {
+            name = sessionDir.getFileName().toString();
+        }
+        return new SessionQueryIndex(sessionDir, name, startTime, files, fileSizes, addresses);
+    }
+
+    /**
+     * Add one record to the index. The parser is positioned on its START_OBJECT.
+     */
+    private static void indexRecord(JsonParser parser, int file, Map<String, Entries> addresses) throws IOException {
+        long offset = parser.getTokenLocation().getByteOffset();
+        String address = null;
+        long timestamp = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("address".equals(field)) {
+                address = parser.getText();
+            } else if ("timestamp".equals(field)) {
+                timestamp = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (address != null) {
+            addresses.computeIfAbsent(address, a -> new Entries(16)).add(timestamp, file, offset);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -9,6 +9,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 public class SessionSettings {
     private String audioFileName;
+    private String outputId;
+    private String bakedFrom;
 
     public SessionSettings() {
     }
@@ -25,4 +27,27 @@ public class SessionSettings {
     public void setAudioFileName(String audioFileName) {
         this.audioFileName = audioFileName;
     }
-}
\ No newline at end of file
+
+    /**
+     * Id of the output whose processed stream this session holds, or null for raw input.
+     * Such sessions are played straight to that output without its node chain.
+     */
+    public String getOutputId() {
+        return outputId;
+    }
+
+    public void setOutputId(String outputId) {
+        this.outputId = outputId;
+    }
+
+    /**
+     * Name of the recording this session was baked from, or null if it was recorded.
+     */
+    public String getBakedFrom() {
+        return bakedFrom;
+    }
+
+    public void setBakedFrom(String bakedFrom) {
+        this.bakedFrom = bakedFrom;
+    }
+}
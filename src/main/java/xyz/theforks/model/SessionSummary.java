@@ -0,0 +1,293 @@
+package xyz.theforks.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Summary of a recording session, stored in summary.json next to its data.json.
+ *
+ * Holds what browsing and inspecting a session needs (message count, duration,
+ * per-address counts, rates and value ranges) so lists of sessions can be shown
+ * without parsing the recordings themselves. The sidecar is written whenever a
+ * session is saved and is recomputed on demand when it is missing or older than
+ * the session data.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"name", "startTime", "messageCount", "firstTimestamp", "lastTimestamp", "durationMs", "addresses"})
+public class SessionSummary {
+
+    public static final String FILE_NAME = "summary.json";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String name;
+    private long startTime;
+    private long messageCount;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long durationMs;
+    private Map<String, AddressStats> addresses = new LinkedHashMap<>();
+
+    public SessionSummary() {
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getStartTime() { return startTime; }
+    public void setStartTime(long startTime) { this.startTime = startTime; }
+    public long getMessageCount() { return messageCount; }
+    public void setMessageCount(long messageCount) { this.messageCount = messageCount; }
+    public long getFirstTimestamp() { return firstTimestamp; }
+    public void setFirstTimestamp(long firstTimestamp) { this.firstTimestamp = firstTimestamp; }
+    public long getLastTimestamp() { return lastTimestamp; }
+    public void setLastTimestamp(long lastTimestamp) { this.lastTimestamp = lastTimestamp; }
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+    public Map<String, AddressStats> getAddresses() { return addresses; }
+    public void setAddresses(Map<String, AddressStats> addresses) { this.addresses = addresses; }
+
+    /**
+     * Get a one-line description for session lists.
+     * @return e.g. "1200 msgs, 12.5s, 4 addresses"
+     */
+    public String describe() {
+        return String.format("%d msgs, %.1fs, %d addresses", messageCount, durationMs / 1000.0, addresses.size());
+    }
+
+    /**
+     * Per-address statistics.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonPropertyOrder({"count", "rate", "types", "min", "max"})
+    public static class AddressStats {
+        private long count;
+        private double rate;
+        private String types;
+        // Per argument index; null where the argument is not numeric
+        private List<Double> min = new ArrayList<>();
+        private List<Double> max = new ArrayList<>();
+
+        public AddressStats() {
+        }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+        /** Messages per second over the session's duration. */
+        public double getRate() { return rate; }
+        public void setRate(double rate) { this.rate = rate; }
+        /** Type tag of the first message seen on this address. */
+        public String getTypes() { return types; }
+        public void setTypes(String types) { this.types = types; }
+        public List<Double> getMin() { return min; }
+        public void setMin(List<Double> min) { this.min = min; }
+        public List<Double> getMax() { return max; }
+        public void setMax(List<Double> max) { this.max = max; }
+
+        /**
+         * Widen the range of an argument to include a value.
+         * @param arg The argument index
+         * @param value The numeric value
+         */
+        public void include(int arg, double value) {
+            ensureArguments(arg + 1);
+            Double low = min.get(arg);
+            if (low == null || value < low) {
+                min.set(arg, value);
+            }
+            Double high = max.get(arg);
+            if (high == null || value > high) {
+                max.set(arg, value);
+            }
+        }
+
+        private void ensureArguments(int count) {
+            while (min.size() < count) {
+                min.add(null);
+                max.add(null);
+            }
+        }
+    }
+
+    /**
+     * Accumulates a summary one message at a time, so it can be built while a
+     * session is streamed to disk.
+     */
+    public static final class Builder {
+        private final SessionSummary summary = new SessionSummary();
+
+        public Builder(String name, long startTime) {
+            summary.name = name;
+            summary.startTime = startTime;
+        }
+
+        /**
+         * Count a message. Numeric arguments are then added with
+         * {@link AddressStats#include(int, double)} on the returned stats.
+         * @param address The OSC address
+         * @param timestamp The message timestamp
+         * @param types The message's type tag, may be null
+         * @return The address's stats
+         */
+        public AddressStats message(String address, long timestamp, String types) {
+            if (summary.messageCount == 0) {
+                summary.firstTimestamp = timestamp;
+                summary.lastTimestamp = timestamp;
+            } else {
+                summary.firstTimestamp = Math.min(summary.firstTimestamp, timestamp);
+                summary.lastTimestamp = Math.max(summary.lastTimestamp, timestamp);
+            }
+            summary.messageCount++;
+            AddressStats stats = summary.addresses.computeIfAbsent(address, a -> new AddressStats());
+            if (stats.count == 0) {
+                stats.types = types;
+            }
+            if (types != null && types.length() > 1) {
+                stats.ensureArguments(types.length() - 1);
+            }
+            stats.count++;
+            return stats;
+        }
+
+        /**
+         * Count a record, including its numeric arguments.
+         * @param record The record
+         */
+        public void add(OSCMessageRecord record) {
+            AddressStats stats = message(record.getAddress(), record.getTimestamp(), record.getTypes());
+            Object[] args = record.getArguments();
+            if (args != null) {
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i] instanceof Number) {
+                        stats.include(i, ((Number) args[i]).doubleValue());
+                    }
+                }
+            }
+        }
+
+        public SessionSummary build() {
+            summary.durationMs = summary.lastTimestamp - summary.firstTimestamp;
+            double seconds = summary.durationMs / 1000.0;
+            for (AddressStats stats : summary.addresses.values()) {
+                stats.rate = seconds > 0 ? stats.count / seconds : 0;
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Compute the summary of a session.
+     * @param session The session
+     * @return The summary
+     */
+    public static SessionSummary compute(ColumnarSession session) {
+        Builder builder = new Builder(session.getName(), session.getStartTime());
+        for (int i = 0; i < session.size(); i++) {
+            AddressStats stats = builder.message(session.getAddress(i), session.getTimestamp(i), session.getTypes(i));
+            int argCount = session.getArgumentCount(i);
+            for (int arg = 0; arg < argCount; arg++) {
+                switch (session.getArgumentType(i, arg)) {
+                    case 'i':
+                    case 'h':
+                    case 'f':
+                    case 'd':
+                        stats.include(arg, session.getDouble(i, arg));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Write this summary into a session directory.
+     * @param sessionDir The session directory
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path sessionDir) throws IOException {
+        Path file = sessionDir.resolve(FILE_NAME);
+        Path temp = sessionDir.resolve(FILE_NAME + ".tmp");
+        objectMapper.writeValue(temp.toFile(), this);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read a session's summary if its sidecar is present and up to date.
+     * @param sessionDir The session directory
+     * @return The summary, or null if missing or older than the session data
+     */
+    public static SessionSummary read(Path sessionDir) {
+        File file = sessionDir.resolve(FILE_NAME).toFile();
+        if (!file.exists() || file.lastModified() < dataModified(sessionDir)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file, SessionSummary.class);
+        } catch (IOException e) {
+            System.err.println("Error reading session summary " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get a session's summary, computing and writing the sidecar if it is missing or stale.
+     * @param sessionDir The session directory
+     * @return The summary, or null if the session cannot be read
+     */
+    public static SessionSummary load(Path sessionDir) {
+        SessionSummary summary = read(sessionDir);
+        if (summary != null) {
+            return summary;
+        }
+        try {
+            ColumnarSession session = loadData(sessionDir);
+            if (session == null) {
+                return null;
+            }
+            summary = compute(session);
+            if (summary.name == null) {
+                summary.name = sessionDir.getFileName().toString();
+            }
+            summary.write(sessionDir);
+            return summary;
+        } catch (IOException e) {
+            System.err.println("Error summarizing session " + sessionDir + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ColumnarSession loadData(Path sessionDir) throws IOException {
+        SegmentedSession segmented = SegmentedSession.open(sessionDir);
+        if (segmented != null) {
+            return segmented.loadColumnar();
+        }
+        File dataFile = sessionDir.resolve("data.json").toFile();
+        File binaryFile = sessionDir.resolve(BinarySessionFormat.FILE_NAME).toFile();
+        if (BinarySessionFormat.isCurrent(binaryFile.toPath(), dataFile.toPath())) {
+            return BinarySessionFormat.readColumnar(binaryFile.toPath());
+        }
+        if (dataFile.exists()) {
+            return SessionJsonDecoder.decodeColumnar(dataFile);
+        }
+        return null;
+    }
+
+    static long dataModified(Path sessionDir) {
+        // Only data.json or the segment manifest count: a data.osb copy is always derived from data.json,
+        // and the manifest is rewritten whenever a segment is
+        return Math.max(sessionDir.resolve("data.json").toFile().lastModified(),
+                sessionDir.resolve(SegmentedSession.MANIFEST_FILE).toFile().lastModified());
+    }
+}
@@ -0,0 +1,51 @@
+package xyz.theforks.nodes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled node address patterns, shared by every chain.
+ *
+ * String.matches compiles its regex on every call, which on the proxy path
+ * meant a new Pattern for each node a message passed. Patterns are compiled
+ * once here and looked up by their text instead.
+ */
+public final class AddressPatterns {
+
+    // Patterns come from node configuration, so there are few of them; the limit
+    // only guards against a caller generating patterns on the fly
+    private static final int MAX_PATTERNS = 1024;
+
+    private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private AddressPatterns() {
+    }
+
+    /**
+     * Get the compiled form of an address pattern.
+     * @param pattern The regex
+     * @return The compiled pattern
+     */
+    public static Pattern compile(String pattern) {
+        Pattern compiled = patterns.get(pattern);
+        if (compiled == null) {
+            if (patterns.size() >= MAX_PATTERNS) {
+                patterns.clear();
+            }
+            compiled = Pattern.compile(pattern);
+            patterns.put(pattern, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Check whether an address matches a pattern, like address.matches(pattern).
+     * @param pattern The regex
+     * @param address The OSC address
+     * @return true if the whole address matches
+     */
+    public static boolean matches(String pattern, String address) {
+        return compile(pattern).matcher(address).matches();
+    }
+}
@@ -72,7 +72,7 @@ public class DelayNode implements OSCNode {
         if (message == null) return;
 
         String addr = message.getAddress();
-        if (addr.matches(addressPattern)) {
+        if (matchesAddress(addr)) {
             // Check if this message was previously delayed (to prevent infinite loop)
             if (currentRequest.wasPreviouslyDelayed()) {
                 //System.out.println("DelayNode: Message " + addr + " was previously delayed (" +
@@ -58,7 +58,7 @@ public class DropNode implements OSCNode {
         if (message == null) return;
 
         String addr = message.getAddress();
-        if (addr.matches(addressPattern)) {
+        if (matchesAddress(addr)) {
             // Drop messages that match
             dropMessage(requests);
         }
@@ -62,7 +62,7 @@ public class IntToBangNode implements OSCNode {
         if (message == null) return;
 
         String addr = message.getAddress();
-        if (addr.matches(addressPattern)) {
+        if (matchesAddress(addr)) {
             List<Object> arguments = message.getArguments();
 
             // Check if message has exactly one argument and it's an integer
@@ -1,6 +1,6 @@
 package xyz.theforks.nodes;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -9,9 +9,22 @@ import java.util.Queue;
 import com.illposed.osc.OSCMessage;
 
 public class MovingAvgNode implements OSCNode {
+    /**
+     * Most addresses to keep a window for. When a new address arrives beyond
+     * this, the window of the address least recently seen is dropped and that
+     * address starts averaging afresh if it comes back. Keeps memory bounded
+     * when an installation sees new addresses for weeks on end.
+     */
+    public static final int MAX_ADDRESSES = 4096;
+
     private String addressPattern;
     private int windowSize;
-    private Map<String, Queue<Float>> windows = new HashMap<>();
+    private final Map<String, Queue<Float>> windows = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Queue<Float>> eldest) {
+            return size() > MAX_ADDRESSES;
+        }
+    };
 
     @Override
     public String getAddressPattern() {
@@ -47,6 +60,7 @@ public class MovingAvgNode implements OSCNode {
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Window size must be an integer");
         }
+        windows.clear();
         return true;
     }
 
@@ -94,4 +108,11 @@ public class MovingAvgNode implements OSCNode {
 	public String[] getArgNames() {
         return new String[] { "Address Pattern", "Window Size" };
     }
+
+    /**
+     * Get the number of addresses a window is kept for.
+     */
+    int getWindowCount() {
+        return windows.size();
+    }
 }
@@ -5,8 +5,14 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.illposed.osc.OSCMessage;
+import xyz.theforks.jfr.ChainEvent;
+import xyz.theforks.jfr.NodeEvent;
+import xyz.theforks.metrics.Histogram;
+import xyz.theforks.metrics.MetricsRegistry;
 import xyz.theforks.model.MessageRequest;
+import xyz.theforks.model.NodeChainConfig;
 import xyz.theforks.ui.NodeChainDebugWindow;
+import xyz.theforks.util.Clock;
 
 /**
  * Centralized engine for applying node chains to OSC messages.
@@ -21,11 +27,18 @@ public class NodeChain {
         RECORDING
     }
 
+    private static final String LATENCY_METRIC = "oscplay_chain_latency_seconds";
+    // Clock of the chain processing a message on this thread
+    private static final ThreadLocal<Clock> processingClock = new ThreadLocal<>();
+
     private final CopyOnWriteArrayList<OSCNode> nodes;
     private volatile boolean enabled;
     private final Context context;
     private volatile NodeChainDebugWindow debugWindow;
+    private volatile String outputId;
+    private volatile Histogram latencyHistogram;
     private ThreadLocal<PlaybackContext> currentContext = new ThreadLocal<>();
+    private volatile Clock clock;
 
     public NodeChain(Context context) {
         this.context = context;
@@ -33,6 +46,36 @@ public class NodeChain {
         this.enabled = true;
     }
 
+    /**
+     * Create a chain holding the enabled nodes of a configuration.
+     * Nodes that cannot be created or configured are reported and left out.
+     * @param context The context the chain is used in
+     * @param chainConfig The configuration, or null for an empty chain
+     * @return The new chain
+     */
+    public static NodeChain fromConfig(Context context, NodeChainConfig chainConfig) {
+        NodeChain chain = new NodeChain(context);
+        if (chainConfig == null || chainConfig.getNodes() == null) {
+            return chain;
+        }
+        for (NodeChainConfig.NodeConfig nodeConfig : chainConfig.getNodes()) {
+            if (!nodeConfig.isEnabled()) {
+                continue;
+            }
+            try {
+                OSCNode node = (OSCNode) Class.forName(nodeConfig.getType()).getDeclaredConstructor().newInstance();
+                if (node.configure(nodeConfig.getArgs().toArray(new String[0]))) {
+                    chain.registerNode(node);
+                } else {
+                    System.err.println("Warning: Failed to configure node " + nodeConfig.getType());
+                }
+            } catch (Exception e) {
+                System.err.println("Error loading node " + nodeConfig.getType() + ": " + e.getMessage());
+            }
+        }
+        return chain;
+    }
+
     /**
      * Process message without context (for proxy/input use).
      * @param message The original OSC message
@@ -68,7 +111,16 @@ public class NodeChain {
 
         // Store context for this processing chain
         currentContext.set(playbackContext);
-
+        Clock previousClock = processingClock.get();
+        Clock chainClock = clock;
+        processingClock.set(chainClock != null ? chainClock
+                : playbackContext != null ? playbackContext.getClock() : null);
+
+        Histogram latency = latencyHistogram;
+        long startNanos = latency != null ? System.nanoTime() : 0;
+        ChainEvent chainEvent = new ChainEvent();
+        chainEvent.begin();
+        List<MessageRequest> requests = null;
         try {
             // Debug: log raw input
             if (debugWindow != null && debugWindow.isOpen()) {
@@ -76,11 +128,34 @@ public class NodeChain {
             }
 
             // Create working list with initial message including previousDelay
-            List<MessageRequest> requests = new ArrayList<>();
+            requests = new ArrayList<>(2);
             requests.add(new MessageRequest(message, 0, null, previousDelay));
 
             // Process through each node
             for (OSCNode node : nodes) {
+                if (requests.size() == 1) {
+                    // The usual case: one message, which the node can change in place
+                    // without copying it into lists of its own
+                    String address = requests.get(0).getMessage().getAddress();
+                    if (node.matchesAddress(address)) {
+                        NodeEvent nodeEvent = new NodeEvent();
+                        nodeEvent.begin();
+                        node.process(requests);
+                        commitNodeEvent(nodeEvent, node, address, requests.size());
+
+                        // Debug: log node output
+                        if (debugWindow != null && debugWindow.isOpen()) {
+                            for (MessageRequest processed : requests) {
+                                debugWindow.addNodeOutput(node.label(), processed.getMessage());
+                            }
+                        }
+                    }
+                    if (requests.isEmpty()) {
+                        return requests;
+                    }
+                    continue;
+                }
+
                 // We need to process each request separately and collect results
                 // because a node might need to expand some requests but not others
                 List<MessageRequest> nextRequests = new ArrayList<>();
@@ -90,14 +165,17 @@ public class NodeChain {
                 for (MessageRequest req : requests) {
                     String address = req.getMessage().getAddress();
 
-                    if (address.matches(node.getAddressPattern())) {
+                    if (node.matchesAddress(address)) {
                         // Node matches - process it
                         // Create a temporary list with just this request
                         List<MessageRequest> tempList = new ArrayList<>();
                         tempList.add(req);
 
                         // Node modifies list in-place
+                        NodeEvent nodeEvent = new NodeEvent();
+                        nodeEvent.begin();
                         node.process(tempList);
+                        commitNodeEvent(nodeEvent, node, address, tempList.size());
 
                         // Debug: log node output
                         if (debugWindow != null && debugWindow.isOpen()) {
@@ -125,7 +203,51 @@ public class NodeChain {
             return requests;
 
         } finally {
-            currentContext.remove();
+            if (latency != null) {
+                latency.observeNanos(System.nanoTime() - startNanos);
+            }
+            chainEvent.end();
+            if (chainEvent.shouldCommit()) {
+                chainEvent.outputId = outputId;
+                chainEvent.address = message.getAddress();
+                chainEvent.playback = playbackContext != null;
+                chainEvent.nodes = nodes.size();
+                chainEvent.requests = requests != null ? requests.size() : 0;
+                chainEvent.commit();
+            }
+            // Cleared rather than removed: remove() would make the next set() allocate a new entry
+            currentContext.set(null);
+            processingClock.set(previousClock);
+        }
+    }
+
+    /**
+     * Set the clock this chain's nodes measure time on, e.g. a virtual clock when
+     * messages are pushed through faster than they were recorded.
+     * @param clock The clock, or null to use the playback context's, or the default
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Get the clock nodes should measure time on: that of the chain processing a
+     * message on this thread, else of its playback context, else the default clock.
+     * @return The clock
+     */
+    public static Clock currentClock() {
+        Clock clock = processingClock.get();
+        return clock != null ? clock : Clock.getDefault();
+    }
+
+    private void commitNodeEvent(NodeEvent event, OSCNode node, String address, int requests) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outputId = outputId;
+            event.node = node.label();
+            event.address = address;
+            event.requests = requests;
+            event.commit();
         }
     }
 
@@ -214,6 +336,31 @@ public class NodeChain {
         return nodes.size();
     }
 
+    /**
+     * Set the output this chain belongs to, for the events and metrics it records.
+     * Only chains that belong to an output record their latency; the latency
+     * metric of any previous output is removed.
+     * @param outputId The output ID, or null for a chain outside any output
+     */
+    public void setOutputId(String outputId) {
+        if (this.outputId != null && !this.outputId.equals(outputId)) {
+            MetricsRegistry.getInstance().remove(LATENCY_METRIC, "output", this.outputId);
+        }
+        this.outputId = outputId;
+        this.latencyHistogram = outputId == null ? null
+                : MetricsRegistry.getInstance().histogram(LATENCY_METRIC,
+                        "Time to run a message through an output's node chain",
+                        Histogram.LATENCY_BUCKETS, "output", outputId);
+    }
+
+    /**
+     * Get the output this chain belongs to.
+     * @return The output ID, or null if not set
+     */
+    public String getOutputId() {
+        return outputId;
+    }
+
     /**
      * Set the debug window for this node chain.
      * When set, the chain will log each processing step to the window.
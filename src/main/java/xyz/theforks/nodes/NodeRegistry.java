@@ -11,7 +11,8 @@ public class NodeRegistry {
         new DelayNode(),
         new PassNode(),
         new ScriptNode(),
-        new SplitterNode()
+        new SplitterNode(),
+        new ThrottleNode()
     };
 
     public static OSCNode[] getNodes() {
@@ -33,6 +33,17 @@ public interface OSCNode {
 
     // ========== Utility Methods ==========
 
+    /**
+     * Check whether an address matches this node's address pattern.
+     * The pattern is compiled once and reused, unlike String.matches.
+     *
+     * @param address The OSC address
+     * @return true if the whole address matches the pattern
+     */
+    default boolean matchesAddress(String address) {
+        return AddressPatterns.matches(getAddressPattern(), address);
+    }
+
     /**
      * Get the input OSC message from the requests list.
      * Assumes list contains exactly 1 element (the typical case).
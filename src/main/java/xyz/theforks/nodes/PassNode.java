@@ -58,7 +58,7 @@ public class PassNode implements OSCNode {
         if (message == null) return;
 
         String addr = message.getAddress();
-        if (!addr.matches(addressPattern)) {
+        if (!matchesAddress(addr)) {
             // Drop messages that don't match
             dropMessage(requests);
         }
@@ -61,7 +61,7 @@ public class PathTrimNode implements OSCNode {
         if (message == null) return;
 
         String addr = message.getAddress();
-        if (addr.matches(addressPattern)) {
+        if (matchesAddress(addr)) {
             // Find the last slash in the address
             int lastSlashIndex = addr.lastIndexOf('/');
 
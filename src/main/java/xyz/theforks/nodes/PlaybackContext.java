@@ -1,6 +1,7 @@
 package xyz.theforks.nodes;
 
 import xyz.theforks.model.MessageRequest;
+import xyz.theforks.util.Clock;
 
 /**
  * Context interface that provides playback-specific operations to node chains.
@@ -28,4 +29,14 @@ public interface PlaybackContext {
      * @return Current playback time in milliseconds
      */
     long getCurrentPlaybackTime();
+
+    /**
+     * Get the clock the playback runs on, e.g. a virtual clock when a session is
+     * baked faster than real time. Nodes read it through {@link NodeChain#currentClock()}.
+     *
+     * @return The playback's clock
+     */
+    default Clock getClock() {
+        return Clock.getDefault();
+    }
 }
@@ -1,6 +1,5 @@
 package xyz.theforks.nodes;
 
-import java.util.Arrays;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -72,12 +71,11 @@ public class RenameNode implements OSCNode {
         OSCMessage message = inputMessage(requests);
         if (message == null) return;
 
-        Object[] arguments = message.getArguments().toArray();
         String addr = message.getAddress();
-        if (addr.matches(addressPattern)) {
+        if (matchesAddress(addr)) {
             String newAddr = regexPattern.matcher(addr).replaceFirst(replaceString);
             if (!newAddr.equals(addr)) {
-                OSCMessage renamedMessage = new OSCMessage(newAddr, Arrays.asList(arguments));
+                OSCMessage renamedMessage = new OSCMessage(newAddr, message.getArguments());
                 replaceMessage(requests, renamedMessage);
             }
             // Otherwise pass through unchanged
@@ -0,0 +1,167 @@
+package xyz.theforks.nodes;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.illposed.osc.OSCMessage;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import xyz.theforks.model.MessageRequest;
+
+/**
+ * Limits each matching address to at most one message per interval.
+ * Messages arriving before the interval has passed since the last one let
+ * through for the same address are dropped. Useful in a recording chain to
+ * thin meter or sensor streams that are sent far faster than they are needed.
+ */
+public class ThrottleNode implements OSCNode {
+    /**
+     * Most addresses to remember. The address least recently seen is
+     * forgotten first, and its next message passes.
+     */
+    public static final int MAX_ADDRESSES = 4096;
+
+    private String addressPattern;
+    private long intervalMs;
+    private final Map<String, Long> lastPassedNanos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ADDRESSES;
+        }
+    };
+
+    @Override
+    public String getAddressPattern() {
+        return addressPattern;
+    }
+
+    @Override
+    public String label() {
+        return "Throttle";
+    }
+
+    @Override
+    public String getHelp() {
+        return "Passes at most one message per interval for each address matching the pattern";
+    }
+
+    @Override
+    public int getNumArgs() {
+        return 2;
+    }
+
+    @Override
+    public String[] getArgs() {
+        return new String[] { addressPattern, String.valueOf(intervalMs) };
+    }
+
+    @Override
+    public String[] getArgNames() {
+        return new String[] { "Address Pattern", "Interval (ms)" };
+    }
+
+    @Override
+    public boolean configure(String[] args) {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("ThrottleNode requires two arguments");
+        }
+        addressPattern = args[0];
+        try {
+            intervalMs = Long.parseLong(args[1]);
+            if (intervalMs < 0) {
+                throw new IllegalArgumentException("Interval must not be negative");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Interval must be an integer number of milliseconds");
+        }
+        synchronized (lastPassedNanos) {
+            lastPassedNanos.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public void process(List<MessageRequest> requests) {
+        OSCMessage message = inputMessage(requests);
+        if (message == null) return;
+
+        if (!accept(message.getAddress(), NodeChain.currentClock().nanoTime())) {
+            dropMessage(requests);
+        }
+    }
+
+    /**
+     * Decide whether a message for an address passes at the given time.
+     * @param address The message address
+     * @param nowNanos Current monotonic time in nanoseconds
+     * @return true if the message passes, false if it should be dropped
+     */
+    boolean accept(String address, long nowNanos) {
+        synchronized (lastPassedNanos) {
+            Long last = lastPassedNanos.get(address);
+            if (last != null && nowNanos - last < intervalMs * 1_000_000L) {
+                return false;
+            }
+            lastPassedNanos.put(address, nowNanos);
+            return true;
+        }
+    }
+
+    /**
+     * Get the number of addresses remembered.
+     */
+    int getAddressCount() {
+        synchronized (lastPassedNanos) {
+            return lastPassedNanos.size();
+        }
+    }
+
+    @Override
+    public void showPreferences() {
+        Stage stage = new Stage();
+        stage.setTitle("Throttle Node Preferences");
+
+        GridPane grid = new GridPane();
+        grid.setPadding(new Insets(10));
+        grid.setHgap(10);
+        grid.setVgap(10);
+
+        Label patternLabel = new Label("Address Pattern:");
+        TextField patternField = new TextField(addressPattern != null ? addressPattern : "");
+        grid.add(patternLabel, 0, 0);
+        grid.add(patternField, 1, 0);
+
+        Label intervalLabel = new Label("Interval (ms):");
+        TextField intervalField = new TextField(String.valueOf(intervalMs));
+        grid.add(intervalLabel, 0, 1);
+        grid.add(intervalField, 1, 1);
+
+        Label helpLabel = new Label("Passes at most one message per interval for each address (regex).\n" +
+                                   "Example: '/meter/.*' with 100 keeps ten meter updates a second per address");
+        helpLabel.setWrapText(true);
+        grid.add(helpLabel, 0, 2, 2, 1);
+
+        Button saveButton = new Button("Save");
+        saveButton.setOnAction(e -> {
+            try {
+                configure(new String[] { patternField.getText(), intervalField.getText().trim() });
+                stage.close();
+            } catch (IllegalArgumentException ex) {
+                helpLabel.setText(ex.getMessage());
+            }
+        });
+        grid.add(saveButton, 1, 3);
+
+        Scene scene = new Scene(grid);
+        xyz.theforks.ui.Theme.applyDark(scene);
+        stage.setScene(scene);
+        stage.show();
+    }
+}
@@ -0,0 +1,168 @@
+package xyz.theforks.service;
+
+import java.util.List;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.util.Clock;
+
+/**
+ * Always-on retroactive capture of the raw input stream.
+ *
+ * Every input message is kept in a fixed-capacity {@link MessageRing} so that the
+ * last few minutes can be saved as a normal {@link RecordingSession} after the
+ * fact, even if nobody pressed record. Capturing only stores a reference to the
+ * already received message and its timestamp, so it does not allocate on the
+ * receive path; records are only built when a snapshot is taken.
+ *
+ * The buffer is bounded both by message count (derived from a memory budget)
+ * and by age: messages older than {@code maxAgeMs} are released as new ones arrive.
+ *
+ * Messages are stamped with the clock's monotonic time, so a wall-clock step
+ * cannot trim the buffer or reorder it; wall-clock timestamps are only worked
+ * out when a snapshot is taken.
+ */
+public class CaptureBuffer {
+
+    /**
+     * Rough retained size of one captured message (message, argument list and
+     * boxed values) plus its ring slot. Used to turn a memory budget into a capacity.
+     */
+    public static final int ESTIMATED_BYTES_PER_MESSAGE = 160;
+
+    private final MessageRing ring;
+    private final long maxAgeMs;
+    private final Clock clock;
+
+    /**
+     * Create a capture buffer.
+     * @param capacity Maximum number of messages retained
+     * @param maxAgeMs Maximum age of retained messages in milliseconds
+     */
+    public CaptureBuffer(int capacity, long maxAgeMs) {
+        this(capacity, maxAgeMs, Clock.getDefault());
+    }
+
+    /**
+     * Create a capture buffer.
+     * @param capacity Maximum number of messages retained
+     * @param maxAgeMs Maximum age of retained messages in milliseconds
+     * @param clock Clock messages are stamped with
+     */
+    public CaptureBuffer(int capacity, long maxAgeMs, Clock clock) {
+        if (maxAgeMs <= 0) {
+            throw new IllegalArgumentException("Maximum age must be positive");
+        }
+        this.ring = new MessageRing(capacity);
+        this.maxAgeMs = maxAgeMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Create a capture buffer sized from a memory budget.
+     * @param budgetBytes Approximate number of bytes the buffer may retain
+     * @param maxAgeMs Maximum age of retained messages in milliseconds
+     * @return The capture buffer
+     */
+    public static CaptureBuffer forMemoryBudget(long budgetBytes, long maxAgeMs) {
+        long capacity = Math.max(1, budgetBytes / ESTIMATED_BYTES_PER_MESSAGE);
+        return new CaptureBuffer((int) Math.min(Integer.MAX_VALUE - 8, capacity), maxAgeMs);
+    }
+
+    /**
+     * Capture a message received now.
+     * @param message The message
+     */
+    public void add(OSCMessage message) {
+        add(message, clock.nanoTime());
+    }
+
+    /**
+     * Capture a message with an explicit receive time.
+     * @param message The message
+     * @param receiveNanos Receive time on the clock's monotonic time
+     */
+    public synchronized void add(OSCMessage message, long receiveNanos) {
+        ring.add(message, receiveNanos);
+        ring.trimBefore(receiveNanos - maxAgeMs * 1_000_000L);
+    }
+
+    /**
+     * Build a recording session from the most recent captured messages.
+     * Only message references are copied while holding the lock; records are
+     * created afterwards so capture is not blocked for long.
+     *
+     * @param sessionName Name for the new session
+     * @param durationMs How far back to include, in milliseconds
+     * @return The session, empty if nothing was captured in that window
+     */
+    public RecordingSession snapshot(String sessionName, long durationMs) {
+        OSCMessage[] messages;
+        long[] stamps;
+        long nowNanos;
+        long nowMillis;
+        synchronized (this) {
+            nowNanos = clock.nanoTime();
+            nowMillis = clock.currentTimeMillis();
+            long first = ring.findFirstAfter(nowNanos - durationMs * 1_000_000L - 1);
+            long end = ring.getNextSequence();
+            int count = (int) (end - first);
+            messages = new OSCMessage[count];
+            stamps = new long[count];
+            for (int i = 0; i < count; i++) {
+                messages[i] = ring.getMessage(first + i);
+                stamps[i] = ring.getTimestamp(first + i);
+            }
+        }
+
+        RecordingSession session = new RecordingSession(sessionName);
+        if (messages.length == 0) {
+            return session;
+        }
+        // Wall-clock time of the first message, as seen from now
+        long startTime = nowMillis - Math.floorDiv(nowNanos - stamps[0], 1_000_000L);
+        session.setStartTime(startTime);
+        for (int i = 0; i < messages.length; i++) {
+            List<Object> args = messages[i].getArguments();
+            OSCMessageRecord record = new OSCMessageRecord(messages[i].getAddress(), args.toArray());
+            long offsetNanos = stamps[i] - stamps[0];
+            record.setOffsetNanos(offsetNanos);
+            record.setTimestamp(startTime + Math.floorDiv(offsetNanos, 1_000_000L));
+            session.addMessage(record);
+        }
+        return session;
+    }
+
+    /**
+     * Get the span of input history currently captured.
+     * @return Milliseconds between the oldest and newest captured message
+     */
+    public synchronized long getCapturedDurationMs() {
+        if (ring.isEmpty()) {
+            return 0;
+        }
+        long spanNanos = ring.getTimestamp(ring.getNextSequence() - 1) - ring.getTimestamp(ring.getOldestSequence());
+        return spanNanos / 1_000_000L;
+    }
+
+    public synchronized int size() {
+        return ring.size();
+    }
+
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    public long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    /**
+     * Discard all captured messages.
+     */
+    public synchronized void clear() {
+        ring.clear();
+    }
+}
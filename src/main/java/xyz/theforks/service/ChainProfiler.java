@@ -0,0 +1,384 @@
+package xyz.theforks.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.MessageRequest;
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.nodes.NodeChain;
+import xyz.theforks.nodes.OSCNode;
+import xyz.theforks.util.VirtualClock;
+
+/**
+ * ChainProfiler - Measures whether a node chain keeps up with a recording's traffic.
+ *
+ * The recording's messages are pushed through {@link NodeChain#processMessage(OSCMessage)}
+ * back to back, with no waiting, after a few warm-up passes so the JIT has
+ * compiled the chain. The throughput is compared with the recording's own
+ * message rate: its average, and its busiest one-second window, since it is
+ * bursts that make a chain fall behind.
+ *
+ * A second set of passes wraps every node to time it and count the bytes it
+ * allocates, so the cost can be traced to a node. Wrapping adds its own
+ * overhead, so the throughput figures come from the unwrapped passes.
+ * Delayed messages are counted as output but not re-processed.
+ *
+ * Each chain runs on a virtual clock that follows the recording's own timing,
+ * so nodes that measure time, such as throttles, pass what they would live
+ * even though the messages arrive back to back.
+ */
+public class ChainProfiler {
+
+    public static final int DEFAULT_WARMUP_PASSES = 3;
+    public static final int DEFAULT_PASSES = 5;
+
+    private final NodeChainConfig chainConfig;
+    private int warmupPasses = DEFAULT_WARMUP_PASSES;
+    private int passes = DEFAULT_PASSES;
+
+    /**
+     * @param chainConfig The chain to profile; a fresh chain is created for each measurement
+     */
+    public ChainProfiler(NodeChainConfig chainConfig) {
+        this.chainConfig = chainConfig;
+    }
+
+    public void setWarmupPasses(int warmupPasses) {
+        this.warmupPasses = Math.max(0, warmupPasses);
+    }
+
+    public void setPasses(int passes) {
+        this.passes = Math.max(1, passes);
+    }
+
+    /**
+     * Profile the chain over a recording.
+     * @param session The recording
+     * @return The measurements
+     */
+    public Result profile(RecordingSession session) {
+        List<OSCMessageRecord> records = session.getMessages();
+        OSCMessage[] messages = new OSCMessage[records.size()];
+        long[] offsets = new long[records.size()];
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < messages.length; i++) {
+            OSCMessageRecord record = records.get(i);
+            messages[i] = new OSCMessage(record.getAddress(), Arrays.asList(record.getArguments()));
+            offsets[i] = record.getOffsetNanos() != null ? record.getOffsetNanos()
+                    : (record.getTimestamp() - session.getStartTime()) * 1_000_000L;
+            first = Math.min(first, record.getTimestamp());
+            last = Math.max(last, record.getTimestamp());
+        }
+        Result result = new Result(session.getName(), messages.length,
+                messages.length > 1 ? (last - first) / 1000.0 : 0, peakRate(records));
+        if (messages.length == 0) {
+            return result;
+        }
+
+        // Whole chain, unwrapped
+        NodeChain chain = NodeChain.fromConfig(NodeChain.Context.PROXY, chainConfig);
+        VirtualClock clock = new VirtualClock(session.getStartTime());
+        chain.setClock(clock);
+        for (int pass = 0; pass < warmupPasses; pass++) {
+            run(chain, messages, offsets, clock);
+        }
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        long outputMessages = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            outputMessages += run(chain, messages, offsets, clock);
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        result.allocatedBytes = allocatedBefore >= 0 ? allocatedBytes() - allocatedBefore : -1;
+        result.processedMessages = (long) passes * messages.length;
+        result.outputMessages = outputMessages / passes;
+
+        // Node by node
+        NodeChain profiled = new NodeChain(NodeChain.Context.PROXY);
+        VirtualClock profiledClock = new VirtualClock(session.getStartTime());
+        profiled.setClock(profiledClock);
+        for (OSCNode node : NodeChain.fromConfig(NodeChain.Context.PROXY, chainConfig).getNodes()) {
+            NodeProfile nodeProfile = new NodeProfile(node);
+            result.nodes.add(nodeProfile);
+            profiled.registerNode(nodeProfile);
+        }
+        for (int pass = 0; pass < warmupPasses; pass++) {
+            run(profiled, messages, offsets, profiledClock);
+        }
+        for (NodeProfile nodeProfile : result.nodes) {
+            nodeProfile.reset();
+        }
+        for (int pass = 0; pass < passes; pass++) {
+            run(profiled, messages, offsets, profiledClock);
+        }
+        return result;
+    }
+
+    /**
+     * Push every message through the chain once, moving the chain's clock to each
+     * message's time. Every pass carries on from where the last one ended.
+     * @return Number of messages the chain produced
+     */
+    private static long run(NodeChain chain, OSCMessage[] messages, long[] offsets, VirtualClock clock) {
+        long base = clock.nanoTime() - offsets[0];
+        long produced = 0;
+        for (int i = 0; i < messages.length; i++) {
+            long ahead = base + offsets[i] - clock.nanoTime();
+            if (ahead > 0) {
+                clock.advance(ahead);
+            }
+            produced += chain.processMessage(messages[i]).size();
+        }
+        return produced;
+    }
+
+    /**
+     * Find the most messages recorded within any one second.
+     */
+    static double peakRate(List<OSCMessageRecord> records) {
+        long[] timestamps = new long[records.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = records.get(i).getTimestamp();
+        }
+        Arrays.sort(timestamps);
+        int peak = 0;
+        int start = 0;
+        for (int end = 0; end < timestamps.length; end++) {
+            while (timestamps[end] - timestamps[start] >= 1000) {
+                start++;
+            }
+            peak = Math.max(peak, end - start + 1);
+        }
+        return peak;
+    }
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 if the JVM can't tell.
+     */
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Wraps a node to time its calls and count what it allocates.
+     */
+    public static class NodeProfile implements OSCNode {
+        private final OSCNode node;
+        private long calls;
+        private long nanos;
+        private long allocated;
+        private long messagesOut;
+
+        NodeProfile(OSCNode node) {
+            this.node = node;
+        }
+
+        void reset() {
+            calls = 0;
+            nanos = 0;
+            allocated = 0;
+            messagesOut = 0;
+        }
+
+        public String getLabel() {
+            return node.label();
+        }
+
+        /**
+         * @return Messages that matched the node's address pattern
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getMessagesOut() {
+            return messagesOut;
+        }
+
+        public double getNanosPerCall() {
+            return calls > 0 ? (double) nanos / calls : 0;
+        }
+
+        public long getTotalNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return Bytes allocated per call, or -1 if the JVM can't measure allocation
+         */
+        public double getBytesPerCall() {
+            return allocated < 0 ? -1 : calls > 0 ? (double) allocated / calls : 0;
+        }
+
+        @Override
+        public void process(List<MessageRequest> requests) {
+            long allocatedBefore = allocatedBytes();
+            long started = System.nanoTime();
+            node.process(requests);
+            nanos += System.nanoTime() - started;
+            if (allocatedBefore >= 0 && allocated >= 0) {
+                allocated += allocatedBytes() - allocatedBefore;
+            } else {
+                allocated = -1;
+            }
+            calls++;
+            messagesOut += requests.size();
+        }
+
+        @Override
+        public String getAddressPattern() {
+            return node.getAddressPattern();
+        }
+
+        @Override
+        public String getHelp() {
+            return node.getHelp();
+        }
+
+        @Override
+        public String label() {
+            return node.label();
+        }
+
+        @Override
+        public int getNumArgs() {
+            return node.getNumArgs();
+        }
+
+        @Override
+        public boolean configure(String[] args) {
+            return node.configure(args);
+        }
+
+        @Override
+        public void showPreferences() {
+            node.showPreferences();
+        }
+
+        @Override
+        public String[] getArgs() {
+            return node.getArgs();
+        }
+
+        @Override
+        public String[] getArgNames() {
+            return node.getArgNames();
+        }
+    }
+
+    /**
+     * Measurements of one profiling run.
+     */
+    public static class Result {
+        private final String sessionName;
+        private final int sessionMessages;
+        private final double sessionSeconds;
+        private final double peakRate;
+        private long processedMessages;
+        private long outputMessages;
+        private long elapsedNanos;
+        private long allocatedBytes;
+        private final List<NodeProfile> nodes = new ArrayList<>();
+
+        Result(String sessionName, int sessionMessages, double sessionSeconds, double peakRate) {
+            this.sessionName = sessionName;
+            this.sessionMessages = sessionMessages;
+            this.sessionSeconds = sessionSeconds;
+            this.peakRate = peakRate;
+        }
+
+        public int getSessionMessages() {
+            return sessionMessages;
+        }
+
+        /**
+         * @return Messages the chain produced for one pass over the recording
+         */
+        public long getOutputMessages() {
+            return outputMessages;
+        }
+
+        /**
+         * @return Messages processed per second with the chain running flat out
+         */
+        public double getMessagesPerSecond() {
+            return elapsedNanos > 0 ? processedMessages * 1e9 / elapsedNanos : 0;
+        }
+
+        public double getNanosPerMessage() {
+            return processedMessages > 0 ? (double) elapsedNanos / processedMessages : 0;
+        }
+
+        /**
+         * @return Bytes allocated per input message, or -1 if the JVM can't measure allocation
+         */
+        public double getBytesPerMessage() {
+            return allocatedBytes < 0 ? -1 : processedMessages > 0 ? (double) allocatedBytes / processedMessages : 0;
+        }
+
+        /**
+         * @return The recording's average message rate per second
+         */
+        public double getAverageRate() {
+            return sessionSeconds > 0 ? sessionMessages / sessionSeconds : sessionMessages;
+        }
+
+        /**
+         * @return Most messages the recording has within one second
+         */
+        public double getPeakRate() {
+            return peakRate;
+        }
+
+        /**
+         * @return How many times faster than the recording's busiest second the chain runs;
+         *         below 1 the chain can't keep up with that traffic
+         */
+        public double getHeadroom() {
+            return peakRate > 0 ? getMessagesPerSecond() / peakRate : Double.POSITIVE_INFINITY;
+        }
+
+        public List<NodeProfile> getNodes() {
+            return nodes;
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Session %s: %d messages over %.1f s (average %.0f/s, peak %.0f/s)%n",
+                    sessionName, sessionMessages, sessionSeconds, getAverageRate(), peakRate));
+            sb.append(String.format("Chain: %.0f messages/s, %.0f ns/message, %s/message, %d out per pass%n",
+                    getMessagesPerSecond(), getNanosPerMessage(), formatBytes(getBytesPerMessage()), outputMessages));
+            sb.append(String.format("Headroom: %.1fx the peak rate%n", getHeadroom()));
+            long nodeNanos = 0;
+            for (NodeProfile node : nodes) {
+                nodeNanos += node.getTotalNanos();
+            }
+            for (NodeProfile node : nodes) {
+                sb.append(String.format("  %-20s %9d calls %9.0f ns/call %10s/call %5.1f%%%n",
+                        node.getLabel(), node.getCalls(), node.getNanosPerCall(), formatBytes(node.getBytesPerCall()),
+                        nodeNanos > 0 ? 100.0 * node.getTotalNanos() / nodeNanos : 0));
+            }
+            return sb.toString();
+        }
+
+        private static String formatBytes(double bytes) {
+            return bytes < 0 ? "n/a" : String.format("%.0f B", bytes);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCSerializeException;
+import com.illposed.osc.messageselector.OSCPatternAddressMessageSelector;
+import com.illposed.osc.transport.OSCPortIn;
+import com.illposed.osc.transport.OSCPortInBuilder;
+import com.illposed.osc.transport.OSCPortOut;
+import com.illposed.osc.transport.OSCPortOutBuilder;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.nodes.NodeChain;
+import xyz.theforks.util.Clock;
+import xyz.theforks.util.LatencyHistogram;
+
+/**
+ * LoopbackBenchmark - Measures the proxy end to end over local UDP.
+ *
+ * A real {@link OSCProxyService} is started on the loopback interface with a
+ * number of outputs, each running the same node chain and sending to its own
+ * UDP sink in this process. A sender drives the proxy input at a series of fixed
+ * rates; every message carries its step, sequence number and send time, so the
+ * sinks can measure the latency through the proxy and count what arrived.
+ *
+ * Each rate is one step. Loss is the share of expected messages (sent times
+ * outputs) that did not reach a sink before the step's drain time ran out, so
+ * a chain that drops or delays messages shows up as loss too. The throughput
+ * ceiling is the highest rate with loss within the limit.
+ */
+public class LoopbackBenchmark {
+
+    public static final int[] DEFAULT_RATES = { 1000, 5000, 10000, 20000, 50000 };
+    public static final long DEFAULT_STEP_MS = 5000;
+    public static final long DEFAULT_DRAIN_MS = 500;
+    public static final double DEFAULT_MAX_LOSS_PERCENT = 0.1;
+
+    private static final String HOST = "127.0.0.1";
+    private static final String ADDRESS = "/bench/latency";
+
+    private int outputs = 1;
+    private NodeChainConfig chainConfig;
+    private int[] rates = DEFAULT_RATES;
+    private long stepMs = DEFAULT_STEP_MS;
+    private long drainMs = DEFAULT_DRAIN_MS;
+    private double maxLossPercent = DEFAULT_MAX_LOSS_PERCENT;
+
+    public void setOutputs(int outputs) {
+        this.outputs = Math.max(1, outputs);
+    }
+
+    /**
+     * @param chainConfig Chain every output runs, or null for none
+     */
+    public void setChain(NodeChainConfig chainConfig) {
+        this.chainConfig = chainConfig;
+    }
+
+    /**
+     * @param rates Messages per second to send, one step each
+     */
+    public void setRates(int[] rates) {
+        this.rates = rates.clone();
+    }
+
+    public void setStepMs(long stepMs) {
+        this.stepMs = Math.max(1, stepMs);
+    }
+
+    /**
+     * @param drainMs How long to wait after a step for the last messages to arrive
+     */
+    public void setDrainMs(long drainMs) {
+        this.drainMs = Math.max(0, drainMs);
+    }
+
+    public void setMaxLossPercent(double maxLossPercent) {
+        this.maxLossPercent = maxLossPercent;
+    }
+
+    /**
+     * Start the proxy and sinks, run every step and shut everything down.
+     * @return The measurements
+     * @throws IOException If a socket cannot be opened
+     * @throws InterruptedException If interrupted while sending or draining
+     */
+    public Result run() throws IOException, InterruptedException {
+        Result result = new Result(outputs, chainConfig != null ? chainConfig.getNodes().size() : 0, stepMs, maxLossPercent);
+        List<Sink> sinks = new ArrayList<>();
+        OSCProxyService proxy = new OSCProxyService();
+        OSCPortOut sender = null;
+        try {
+            for (int i = 0; i < outputs; i++) {
+                sinks.add(new Sink(freePort()));
+            }
+            int inPort = freePort();
+            proxy.setInHost(HOST);
+            proxy.setInPort(inPort);
+            for (int i = 0; i < outputs; i++) {
+                OSCOutputService output = i == 0 ? proxy.getOutputService() : new OSCOutputService("bench-" + (i + 1));
+                output.setOutHost(HOST);
+                output.setOutPort(sinks.get(i).port);
+                output.setEnabled(true);
+                if (i > 0) {
+                    proxy.addOutput(output);
+                }
+                if (chainConfig != null) {
+                    output.getNodeChain().setNodes(NodeChain.fromConfig(NodeChain.Context.PROXY, chainConfig).getNodes());
+                }
+            }
+            proxy.startProxy();
+            sender = new OSCPortOutBuilder()
+                    .setRemoteSocketAddress(new InetSocketAddress(HOST, inPort))
+                    .build();
+
+            for (int step = 0; step < rates.length; step++) {
+                Step measured = runStep(step, rates[step], sender, sinks);
+                result.steps.add(measured);
+                if (measured.lossPercent <= maxLossPercent) {
+                    result.ceilingRate = Math.max(result.ceilingRate, measured.targetRate);
+                }
+            }
+        } finally {
+            if (sender != null) {
+                sender.close();
+            }
+            proxy.stopProxy();
+            for (Sink sink : sinks) {
+                sink.close();
+            }
+        }
+        return result;
+    }
+
+    private Step runStep(int step, int rate, OSCPortOut sender, List<Sink> sinks) throws InterruptedException {
+        for (Sink sink : sinks) {
+            sink.begin(step);
+        }
+        long count = Math.max(1, rate * stepMs / 1000);
+        long periodNanos = 1_000_000_000L / Math.max(1, rate);
+        Clock clock = Clock.nanos();
+        long sent = 0;
+        long started = clock.nanoTime();
+        for (int i = 0; i < count; i++) {
+            clock.sleepUntilNanos(started + i * periodNanos);
+            OSCMessage message = new OSCMessage(ADDRESS, Arrays.asList(step, i, System.nanoTime()));
+            try {
+                sender.send(message);
+                sent++;
+            } catch (IOException | OSCSerializeException e) {
+                // Counted as loss
+            }
+        }
+        long sendNanos = clock.nanoTime() - started;
+        Thread.sleep(drainMs);
+
+        Step result = new Step(rate);
+        LatencyHistogram latency = new LatencyHistogram();
+        long lastArrival = started;
+        for (Sink sink : sinks) {
+            synchronized (sink) {
+                latency.add(sink.latency);
+                result.received += sink.received;
+                lastArrival = Math.max(lastArrival, sink.lastArrivalNanos);
+            }
+        }
+        result.sent = sent;
+        result.expected = count * sinks.size();
+        result.sendRate = sendNanos > 0 ? sent * 1e9 / sendNanos : 0;
+        result.receiveRate = lastArrival > started ? result.received * 1e9 / (lastArrival - started) : 0;
+        result.lossPercent = result.expected > 0 ? 100.0 * (result.expected - result.received) / result.expected : 0;
+        result.meanMicros = latency.getMean() / 1000.0;
+        result.p50Micros = latency.getValueAtPercentile(50) / 1000.0;
+        result.p99Micros = latency.getValueAtPercentile(99) / 1000.0;
+        result.p999Micros = latency.getValueAtPercentile(99.9) / 1000.0;
+        result.maxMicros = latency.getMax() / 1000.0;
+        return result;
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getByName(HOST))) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Receives what one output sends and measures its latency.
+     * Updated on the port's listening thread, read by the benchmark between steps.
+     */
+    private static class Sink {
+        final int port;
+        private final OSCPortIn receiver;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private int step = -1;
+        private long received;
+        private long lastArrivalNanos;
+
+        Sink(int port) throws IOException {
+            this.port = port;
+            receiver = new OSCPortInBuilder()
+                    .setPort(port)
+                    .setLocalSocketAddress(new InetSocketAddress(HOST, port))
+                    .build();
+            receiver.getDispatcher().addListener(
+                    new OSCPatternAddressMessageSelector("//"),
+                    event -> receive(event.getMessage().getArguments(), System.nanoTime()));
+            receiver.startListening();
+        }
+
+        synchronized void begin(int step) {
+            this.step = step;
+            latency.reset();
+            received = 0;
+            lastArrivalNanos = 0;
+        }
+
+        private synchronized void receive(List<Object> args, long nowNanos) {
+            // Stragglers from an earlier step and anything a chain rewrote are ignored
+            if (args.size() < 3 || !(args.get(0) instanceof Integer) || !(args.get(2) instanceof Long)
+                    || (Integer) args.get(0) != step) {
+                return;
+            }
+            latency.record(nowNanos - (Long) args.get(2));
+            received++;
+            lastArrivalNanos = nowNanos;
+        }
+
+        void close() {
+            try {
+                receiver.close();
+            } catch (IOException e) {
+                System.err.println("Error closing benchmark sink: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Measurements at one send rate.
+     */
+    @JsonPropertyOrder({"targetRate", "sent", "sendRate", "expected", "received", "receiveRate", "lossPercent",
+            "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public static class Step {
+        private final int targetRate;
+        private long sent;
+        private double sendRate;
+        private long expected;
+        private long received;
+        private double receiveRate;
+        private double lossPercent;
+        private double meanMicros;
+        private double p50Micros;
+        private double p99Micros;
+        private double p999Micros;
+        private double maxMicros;
+
+        Step(int targetRate) {
+            this.targetRate = targetRate;
+        }
+
+        public int getTargetRate() { return targetRate; }
+        public long getSent() { return sent; }
+        /** @return Rate the sender actually achieved, which is below the target when it can't keep up */
+        public double getSendRate() { return sendRate; }
+        public long getExpected() { return expected; }
+        public long getReceived() { return received; }
+        public double getReceiveRate() { return receiveRate; }
+        public double getLossPercent() { return lossPercent; }
+        public double getMeanMicros() { return meanMicros; }
+        public double getP50Micros() { return p50Micros; }
+        public double getP99Micros() { return p99Micros; }
+        public double getP999Micros() { return p999Micros; }
+        public double getMaxMicros() { return maxMicros; }
+    }
+
+    /**
+     * Measurements of a benchmark run, with enough about the machine to compare runs.
+     */
+    @JsonPropertyOrder({"outputs", "chainNodes", "stepMs", "maxLossPercent", "ceilingRate",
+            "javaVersion", "osName", "processors", "steps"})
+    public static class Result {
+        private final int outputs;
+        private final int chainNodes;
+        private final long stepMs;
+        private final double maxLossPercent;
+        private int ceilingRate;
+        private final List<Step> steps = new ArrayList<>();
+
+        Result(int outputs, int chainNodes, long stepMs, double maxLossPercent) {
+            this.outputs = outputs;
+            this.chainNodes = chainNodes;
+            this.stepMs = stepMs;
+            this.maxLossPercent = maxLossPercent;
+        }
+
+        public int getOutputs() { return outputs; }
+        public int getChainNodes() { return chainNodes; }
+        public long getStepMs() { return stepMs; }
+        public double getMaxLossPercent() { return maxLossPercent; }
+        /** @return Highest rate with loss within the limit, or 0 if none was */
+        public int getCeilingRate() { return ceilingRate; }
+        public String getJavaVersion() { return System.getProperty("java.version"); }
+        public String getOsName() { return System.getProperty("os.name") + " " + System.getProperty("os.arch"); }
+        public int getProcessors() { return Runtime.getRuntime().availableProcessors(); }
+        public List<Step> getSteps() { return steps; }
+    }
+}
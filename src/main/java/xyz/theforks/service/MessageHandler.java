@@ -8,6 +8,15 @@ import com.illposed.osc.OSCSerializeException;
 
 abstract class MessageHandlerClass {
     abstract public void handleMessage(OSCMessage message) throws IOException, OSCSerializeException;
+
+    /**
+     * Handle a message together with its receive time.
+     * @param message The message
+     * @param receiveNanos System.nanoTime() taken when the message was received
+     */
+    public void handleMessage(OSCMessage message, long receiveNanos) throws IOException, OSCSerializeException {
+        handleMessage(message);
+    }
 }
 
 @FunctionalInterface
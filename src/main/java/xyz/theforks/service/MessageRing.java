@@ -0,0 +1,171 @@
+package xyz.theforks.service;
+
+import com.illposed.osc.OSCMessage;
+
+/**
+ * Fixed-capacity ring of timestamped OSC messages.
+ *
+ * Slots are preallocated when the ring is created, so memory use is bounded by
+ * the capacity and adding a message never allocates. Once the ring is full the
+ * oldest message is overwritten.
+ *
+ * Every added message is assigned a monotonically increasing sequence number.
+ * Sequence numbers between {@link #getOldestSequence()} (inclusive) and
+ * {@link #getNextSequence()} (exclusive) are currently held by the ring.
+ *
+ * This class is not thread-safe; callers are expected to synchronize.
+ */
+public class MessageRing {
+    private final OSCMessage[] messages;
+    private final long[] timestamps;
+    private final int capacity;
+    private long nextSequence;
+    private long clearedSequence;
+
+    /**
+     * Create a ring holding at most {@code capacity} messages.
+     * @param capacity Maximum number of messages to retain
+     */
+    public MessageRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.messages = new OSCMessage[capacity];
+        this.timestamps = new long[capacity];
+        this.nextSequence = 0;
+        this.clearedSequence = 0;
+    }
+
+    /**
+     * Add a message, overwriting the oldest one if the ring is full.
+     * @param message The message to add
+     * @param timestamp The message timestamp
+     * @return The sequence number assigned to the message
+     */
+    public long add(OSCMessage message, long timestamp) {
+        int slot = slot(nextSequence);
+        messages[slot] = message;
+        timestamps[slot] = timestamp;
+        return nextSequence++;
+    }
+
+    /**
+     * Get the message stored under a sequence number.
+     * @param sequence The sequence number (must be held by the ring)
+     * @return The message
+     */
+    public OSCMessage getMessage(long sequence) {
+        checkSequence(sequence);
+        return messages[slot(sequence)];
+    }
+
+    /**
+     * Get the timestamp stored under a sequence number.
+     * @param sequence The sequence number (must be held by the ring)
+     * @return The timestamp
+     */
+    public long getTimestamp(long sequence) {
+        checkSequence(sequence);
+        return timestamps[slot(sequence)];
+    }
+
+    /**
+     * Get the sequence number of the oldest message still held.
+     * @return The oldest sequence number
+     */
+    public long getOldestSequence() {
+        return Math.max(clearedSequence, nextSequence - capacity);
+    }
+
+    /**
+     * Get the sequence number the next added message will receive.
+     * @return The next sequence number
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Find the first held message whose timestamp is strictly after the given time.
+     * Timestamps are assumed to be non-decreasing in sequence order.
+     * @param timestamp The time to search from
+     * @return The sequence number found, or {@link #getNextSequence()} if none
+     */
+    public long findFirstAfter(long timestamp) {
+        long low = getOldestSequence();
+        long high = nextSequence;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the number of messages currently held.
+     * @return The message count
+     */
+    public int size() {
+        return (int) (nextSequence - getOldestSequence());
+    }
+
+    /**
+     * Get the maximum number of messages held.
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Check if the ring holds no messages.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Remove messages older than a timestamp, releasing their references.
+     * Timestamps are assumed to be non-decreasing in sequence order.
+     * @param timestamp Messages with a timestamp before this are removed
+     * @return The number of messages removed
+     */
+    public int trimBefore(long timestamp) {
+        int removed = 0;
+        long oldest = getOldestSequence();
+        while (oldest < nextSequence && timestamps[slot(oldest)] < timestamp) {
+            messages[slot(oldest)] = null;
+            oldest++;
+            removed++;
+        }
+        if (removed > 0) {
+            clearedSequence = oldest;
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all messages and release their references.
+     * Sequence numbering continues from where it left off.
+     */
+    public void clear() {
+        java.util.Arrays.fill(messages, null);
+        clearedSequence = nextSequence;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private void checkSequence(long sequence) {
+        if (sequence < getOldestSequence() || sequence >= nextSequence) {
+            throw new IndexOutOfBoundsException("Sequence " + sequence + " is not held by the ring");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package xyz.theforks.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import com.illposed.osc.BufferBytesReceiver;
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCSerializeException;
+import com.illposed.osc.OSCSerializer;
+import com.illposed.osc.OSCSerializerAndParserBuilder;
+
+/**
+ * Sends OSC packets over UDP with one serializer and buffer for its lifetime.
+ *
+ * OSCPortOut builds a new serializer for every packet, cloning each argument
+ * handler, which was most of what a forwarded message allocated. This keeps
+ * the serializer and writes into the same buffer each time.
+ */
+class OSCDatagramSender implements Closeable {
+
+    // Largest UDP payload, as in JavaOSC's own transport
+    private static final int BUFFER_SIZE = 65507;
+
+    private final DatagramChannel channel;
+    private final SocketAddress remote;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final OSCSerializer serializer;
+
+    OSCDatagramSender(SocketAddress remote) throws IOException {
+        this.remote = remote;
+        this.channel = DatagramChannel.open();
+        this.serializer = new OSCSerializerAndParserBuilder().buildSerializer(new BufferBytesReceiver(buffer));
+    }
+
+    /**
+     * Serialize and send a packet.
+     * @param packet The message or bundle to send
+     * @return The number of bytes sent
+     */
+    synchronized int send(OSCPacket packet) throws IOException, OSCSerializeException {
+        buffer.clear();
+        serializer.write(packet);
+        buffer.flip();
+        return channel.send(buffer, remote);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -14,6 +14,10 @@ import com.illposed.osc.transport.OSCPortInBuilder;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 
+import xyz.theforks.jfr.MessageReceivedEvent;
+import xyz.theforks.metrics.Counter;
+import xyz.theforks.metrics.MetricsRegistry;
+
 public class OSCInputService {
 
     private OSCPortIn receiver;
@@ -22,6 +26,7 @@ public class OSCInputService {
     private final IntegerProperty messageCount = new SimpleIntegerProperty(0);
     private MessageHandlerClass messageHandler;
     private boolean isStarted;
+    private Counter receivedCounter;
 
     public OSCInputService() {
         isStarted = false;
@@ -47,14 +52,20 @@ public class OSCInputService {
     public void start() throws IOException {
         if (!isStarted) {
             InetSocketAddress localhostPort = new InetSocketAddress(inHost, inPort);
+            receivedCounter = MetricsRegistry.getInstance().counter("oscplay_input_messages_total",
+                    "Messages received on a proxy input", "input", inHost + ":" + inPort);
             receiver = new OSCPortInBuilder()
                     .setPort(inPort)
                     .setLocalSocketAddress(localhostPort)
                     .build();
 
+            // Take the receive time first thing in the listener, before any other work
             receiver.getDispatcher().addListener(
                     new OSCPatternAddressMessageSelector("//"),
-                    event -> handleMessage(event.getMessage())
+                    event -> {
+                        long receiveNanos = System.nanoTime();
+                        handleMessage(event.getMessage(), receiveNanos);
+                    }
             );
             receiver.startListening();
             isStarted = true;
@@ -93,14 +104,24 @@ public class OSCInputService {
         this.messageHandler = messageHandler;
     }
 
-    private void handleMessage(OSCMessage oscMessage) {
+    private void handleMessage(OSCMessage oscMessage, long receiveNanos) {
+        receivedCounter.inc();
+        MessageReceivedEvent event = new MessageReceivedEvent();
+        event.begin();
         try {
             if (messageHandler != null) {
-                messageHandler.handleMessage(oscMessage);
+                messageHandler.handleMessage(oscMessage, receiveNanos);
             }
         } catch (IOException | OSCSerializeException e) {
             System.err.println("Error handling message: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.address = oscMessage.getAddress();
+                event.arguments = oscMessage.getArguments().size();
+                event.commit();
+            }
         }
     }
 }
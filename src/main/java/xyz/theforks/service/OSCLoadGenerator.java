@@ -0,0 +1,273 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCSerializeException;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.util.Clock;
+import xyz.theforks.util.LatencyHistogram;
+
+/**
+ * OSCLoadGenerator - Produces OSC traffic for testing the proxy and node chains.
+ *
+ * Synthetic traffic cycles through an address space built from a format such
+ * as "/load/%d", with arguments of the given OSC types and random values. It is
+ * sent at a fixed rate, in bursts of messages sent back to back at an interval,
+ * or as fast as the sink accepts them. Alternatively a recorded session is
+ * replayed with its own timing, sped up or slowed down.
+ *
+ * Every message has an absolute due time measured from the start, so pacing
+ * errors don't accumulate; a generator that falls behind sends without waiting
+ * until it has caught up. How late each message went out is kept as a
+ * histogram to show how precise the pacing was.
+ */
+public class OSCLoadGenerator {
+
+    public static final String DEFAULT_ADDRESS_FORMAT = "/load/%d";
+    public static final String ARGUMENT_TYPES = "ifdhsT";
+
+    /**
+     * Where generated messages go, usually an OSC port.
+     */
+    public interface MessageSink {
+        void send(OSCMessage message) throws IOException, OSCSerializeException;
+    }
+
+    private String addressFormat = DEFAULT_ADDRESS_FORMAT;
+    private int addressCount = 1;
+    private String argumentTypes = "f";
+    private double rate = 1000;
+    private int burstSize = 1;
+    private long burstIntervalMs;
+    private long count;
+    private long durationMs;
+    private long seed = 42;
+    private ColumnarSession session;
+    private double speed = 1.0;
+    private int loops = 1;
+    private Clock clock = Clock.nanos();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * @param addressFormat Format with one %d for the address index, e.g. "/mixer/ch/%d/fader"
+     * @param addressCount Number of distinct addresses, cycled in order
+     */
+    public void setAddresses(String addressFormat, int addressCount) {
+        this.addressFormat = addressFormat;
+        this.addressCount = Math.max(1, addressCount);
+    }
+
+    /**
+     * @param argumentTypes OSC type tags of each message's arguments, from {@value #ARGUMENT_TYPES};
+     *                      T is a random boolean
+     */
+    public void setArgumentTypes(String argumentTypes) {
+        for (char type : argumentTypes.toCharArray()) {
+            if (ARGUMENT_TYPES.indexOf(type) < 0) {
+                throw new IllegalArgumentException("Unsupported argument type '" + type + "', use " + ARGUMENT_TYPES);
+            }
+        }
+        this.argumentTypes = argumentTypes;
+    }
+
+    /**
+     * @param rate Messages per second, or 0 to send as fast as possible
+     */
+    public void setRate(double rate) {
+        this.rate = Math.max(0, rate);
+    }
+
+    /**
+     * Send messages in bursts instead of at an even rate.
+     * @param burstSize Messages sent back to back in each burst; 1 turns bursts off
+     * @param burstIntervalMs Time from the start of one burst to the next
+     */
+    public void setBurst(int burstSize, long burstIntervalMs) {
+        this.burstSize = Math.max(1, burstSize);
+        this.burstIntervalMs = Math.max(0, burstIntervalMs);
+    }
+
+    /**
+     * @param count Messages to send, or 0 for no limit
+     */
+    public void setCount(long count) {
+        this.count = Math.max(0, count);
+    }
+
+    /**
+     * @param durationMs How long to send for, or 0 for no limit
+     */
+    public void setDurationMs(long durationMs) {
+        this.durationMs = Math.max(0, durationMs);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Replay a recording instead of generating messages.
+     * @param session The recording, or null to generate synthetic traffic
+     * @param speed Playback speed factor, e.g. 10 for ten times faster; 0 sends as fast as possible
+     * @param loops Times to play the recording
+     */
+    public void setReplay(ColumnarSession session, double speed, int loops) {
+        this.session = session;
+        this.speed = Math.max(0, speed);
+        this.loops = Math.max(1, loops);
+    }
+
+    /**
+     * Set the clock messages are paced on. Defaults to the system clock with
+     * sub-millisecond waits.
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Stop a running generator after the message it is sending.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Send traffic until the count, duration or replay is done, or until stopped.
+     * @param sink Where to send the messages
+     * @return What was sent
+     * @throws InterruptedException If interrupted while waiting for the next message
+     */
+    public Stats run(MessageSink sink) throws InterruptedException {
+        stopped.set(false);
+        Stats stats = new Stats();
+        long started = clock.nanoTime();
+        if (session != null) {
+            replay(sink, stats);
+        } else {
+            generate(sink, stats, started);
+        }
+        stats.elapsedNanos = clock.nanoTime() - started;
+        return stats;
+    }
+
+    private void generate(MessageSink sink, Stats stats, long started) throws InterruptedException {
+        String[] addresses = new String[addressCount];
+        for (int i = 0; i < addressCount; i++) {
+            addresses[i] = String.format(addressFormat, i);
+        }
+        Random random = new Random(seed);
+        double periodNanos = rate > 0 ? 1e9 / rate : 0;
+        long burstIntervalNanos = burstIntervalMs * 1_000_000L;
+        long durationNanos = durationMs * 1_000_000L;
+        boolean paced = burstSize > 1 || rate > 0;
+
+        for (long i = 0; (count == 0 || i < count) && !stopped.get(); i++) {
+            long dueOffset = burstSize > 1 ? (i / burstSize) * burstIntervalNanos
+                    : paced ? (long) (i * periodNanos) : clock.nanoTime() - started;
+            if (durationNanos > 0 && dueOffset >= durationNanos) {
+                break;
+            }
+            List<Object> args = new ArrayList<>(argumentTypes.length());
+            for (int a = 0; a < argumentTypes.length(); a++) {
+                args.add(randomArgument(argumentTypes.charAt(a), random, i));
+            }
+            send(sink, new OSCMessage(addresses[(int) (i % addressCount)], args), started + dueOffset, stats);
+        }
+    }
+
+    private static Object randomArgument(char type, Random random, long index) {
+        switch (type) {
+            case 'i':
+                return random.nextInt(128);
+            case 'f':
+                return random.nextFloat();
+            case 'd':
+                return random.nextDouble();
+            case 'h':
+                return random.nextLong();
+            case 's':
+                return "value-" + (index % 100);
+            default:
+                return random.nextBoolean();
+        }
+    }
+
+    private void replay(MessageSink sink, Stats stats) throws InterruptedException {
+        int[] order = session.timeOrder();
+        if (order.length == 0) {
+            return;
+        }
+        long firstOffset = session.getOffsetNanos(order[0]);
+        for (int loop = 0; loop < loops && !stopped.get(); loop++) {
+            long loopStart = clock.nanoTime();
+            for (int i = 0; i < order.length && !stopped.get(); i++) {
+                int index = order[i];
+                long dueOffset = speed > 0 ? (long) ((session.getOffsetNanos(index) - firstOffset) / speed) : 0;
+                OSCMessage message = new OSCMessage(session.getAddress(index), Arrays.asList(session.getArguments(index)));
+                send(sink, message, loopStart + dueOffset, stats);
+            }
+        }
+    }
+
+    private void send(MessageSink sink, OSCMessage message, long dueNanos, Stats stats) throws InterruptedException {
+        clock.sleepUntilNanos(dueNanos);
+        stats.lateness.record(clock.nanoTime() - dueNanos);
+        try {
+            sink.send(message);
+            stats.sent++;
+        } catch (IOException | OSCSerializeException e) {
+            stats.errors++;
+        }
+    }
+
+    /**
+     * What one run sent.
+     */
+    public static class Stats {
+        private long sent;
+        private long errors;
+        private long elapsedNanos;
+        private final LatencyHistogram lateness = new LatencyHistogram();
+
+        public long getSent() {
+            return sent;
+        }
+
+        /**
+         * @return Messages the sink failed to send
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getMessagesPerSecond() {
+            return elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @return How late messages were sent compared with when they were due, in nanoseconds
+         */
+        public LatencyHistogram getLateness() {
+            return lateness;
+        }
+
+        public String describe() {
+            return String.format("Sent %d messages in %.2f s (%.0f/s), %d errors, pacing late p50 %.1f us, p99 %.1f us, max %.1f us",
+                    sent, elapsedNanos / 1e9, getMessagesPerSecond(), errors,
+                    lateness.getValueAtPercentile(50) / 1000.0, lateness.getValueAtPercentile(99) / 1000.0,
+                    lateness.getMax() / 1000.0);
+        }
+    }
+}
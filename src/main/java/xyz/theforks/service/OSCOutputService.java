@@ -5,24 +5,43 @@ import java.net.InetSocketAddress;
 
 import com.illposed.osc.OSCMessage;
 import com.illposed.osc.OSCSerializeException;
-import com.illposed.osc.transport.OSCPortOut;
-import com.illposed.osc.transport.OSCPortOutBuilder;
+
+import xyz.theforks.jfr.SocketSendEvent;
+import xyz.theforks.metrics.Counter;
+import xyz.theforks.metrics.MetricsRegistry;
+import xyz.theforks.model.OSCMessageRecord;
 import xyz.theforks.nodes.NodeChain;
 import xyz.theforks.ui.MonitorWindow;
 
 public class OSCOutputService {
+    private static final String SENT_METRIC = "oscplay_output_messages_total";
+    private static final String SENT_BYTES_METRIC = "oscplay_output_bytes_total";
+    private static final String ERROR_METRIC = "oscplay_output_errors_total";
+
     private final String id;
-    private OSCPortOut sender;
+    private OSCDatagramSender sender;
     private String outHost;
     private int outPort;
     private final NodeChain nodeChain;
     private boolean enabled = true;
     private MonitorWindow monitorWindow;
     private ProxyDelayProcessor delayProcessor;
+    private volatile SessionRecorder teeRecorder;
+    private final Counter sentCounter;
+    private final Counter sentBytesCounter;
+    private final Counter errorCounter;
 
     public OSCOutputService(String id) {
         this.id = id;
         this.nodeChain = new NodeChain(NodeChain.Context.PROXY);
+        this.nodeChain.setOutputId(id);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.sentCounter = metrics.counter(SENT_METRIC,
+                "Messages sent by an output", "output", id);
+        this.sentBytesCounter = metrics.counter(SENT_BYTES_METRIC,
+                "Bytes sent by an output", "output", id);
+        this.errorCounter = metrics.counter(ERROR_METRIC,
+                "Messages an output failed to send", "output", id);
     }
 
     public OSCOutputService() {
@@ -38,9 +57,7 @@ public class OSCOutputService {
     }
     
     public void start() throws IOException {
-        sender = new OSCPortOutBuilder()
-                .setRemoteSocketAddress(new InetSocketAddress(outHost, outPort))
-                .build();
+        sender = new OSCDatagramSender(new InetSocketAddress(outHost, outPort));
     }
 
     /**
@@ -99,12 +116,7 @@ public class OSCOutputService {
 
         if (bypassNodeChain) {
             // Send directly without node chain processing (already processed in playback)
-            sender.send(message);
-
-            // Send to monitor window if one is open
-            if (monitorWindow != null && monitorWindow.isOpen()) {
-                monitorWindow.addMessage(message);
-            }
+            transmit(message);
         } else {
             // Apply node chain to message (no playback context in proxy mode)
             java.util.List<xyz.theforks.model.MessageRequest> requests = nodeChain.processMessage(message);
@@ -112,29 +124,68 @@ public class OSCOutputService {
             for (xyz.theforks.model.MessageRequest req : requests) {
                 if (req.isImmediate()) {
                     // Send immediately
-                    sender.send(req.getMessage());
-
-                    // Send to monitor window if one is open
-                    if (monitorWindow != null && monitorWindow.isOpen()) {
-                        monitorWindow.addMessage(req.getMessage());
-                    }
+                    transmit(req.getMessage());
                 } else if (delayProcessor != null && delayProcessor.isRunning()) {
                     // Schedule delayed message through the delay processor
                     delayProcessor.scheduleMessage(req, id);
                 } else {
                     // No delay processor available, send immediately as fallback
                     System.err.println("Warning: Delayed message requested but no delay processor available, sending immediately");
-                    sender.send(req.getMessage());
-
-                    // Send to monitor window if one is open
-                    if (monitorWindow != null && monitorWindow.isOpen()) {
-                        monitorWindow.addMessage(req.getMessage());
-                    }
+                    transmit(req.getMessage());
                 }
             }
         }
     }
 
+    /**
+     * Send a fully processed message and pass it to the monitor window and tee recorder.
+     */
+    private void transmit(OSCMessage message) throws IOException, OSCSerializeException {
+        SocketSendEvent event = new SocketSendEvent();
+        event.begin();
+        int bytes;
+        try {
+            bytes = sender.send(message);
+        } catch (IOException | OSCSerializeException e) {
+            errorCounter.inc();
+            throw e;
+        }
+        sentCounter.inc();
+        sentBytesCounter.add(bytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.outputId = id;
+            event.address = message.getAddress();
+            event.bytes = bytes;
+            event.commit();
+        }
+
+        // Send to monitor window if one is open
+        if (monitorWindow != null && monitorWindow.isOpen()) {
+            monitorWindow.addMessage(message);
+        }
+
+        // Only a queue offer on this thread; the recorder writes on its own thread
+        SessionRecorder recorder = teeRecorder;
+        if (recorder != null) {
+            OSCMessageRecord record = new OSCMessageRecord(message.getAddress(), message.getArguments().toArray());
+            recorder.stamp(record, System.nanoTime());
+            recorder.record(record);
+        }
+    }
+
+    /**
+     * Record everything this output sends, after its node chain and any delays.
+     * @param teeRecorder A started recorder, or null to stop recording
+     */
+    public void setTeeRecorder(SessionRecorder teeRecorder) {
+        this.teeRecorder = teeRecorder;
+    }
+
+    public SessionRecorder getTeeRecorder() {
+        return teeRecorder;
+    }
+
     public void stop() {
         if (sender != null) {
             try {
@@ -145,6 +196,17 @@ public class OSCOutputService {
         }
     }
 
+    /**
+     * Remove this output's metrics, once it has been removed from the proxy.
+     */
+    public void unregisterMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.remove(SENT_METRIC, "output", id);
+        metrics.remove(SENT_BYTES_METRIC, "output", id);
+        metrics.remove(ERROR_METRIC, "output", id);
+        nodeChain.setOutputId(null);
+    }
+
     public String getId() {
         return id;
     }
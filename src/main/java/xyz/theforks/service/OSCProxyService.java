@@ -2,10 +2,16 @@ package xyz.theforks.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,24 +21,47 @@ import com.illposed.osc.OSCSerializeException;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import xyz.theforks.model.MessageRequest;
 import xyz.theforks.model.OSCMessageRecord;
 import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionQueryIndex;
+import xyz.theforks.model.SessionSettings;
+import xyz.theforks.model.SessionSummary;
 import xyz.theforks.nodes.NodeChain;
 import xyz.theforks.nodes.OSCNode;
 import xyz.theforks.util.DataDirectory;
 
 public class OSCProxyService {
 
+    public static final long DEFAULT_CAPTURE_BUDGET_BYTES = 32L * 1024 * 1024;
+    public static final long DEFAULT_CAPTURE_MAX_AGE_MS = 10 * 60 * 1000L;
+    public static final long DEFAULT_RECORDING_BUDGET_BYTES = 16L * 1024 * 1024;
+
     private OSCInputService inputService;
     private final Map<String, OSCOutputService> outputs;
-    private RecordingSession currentSession;
-    private boolean isRecording = false;
+    private volatile SessionRecorder currentRecorder;
+    private SessionIndex sessionIndex;
+    private final List<Runnable> sessionIndexListeners = new ArrayList<>();
+    private volatile boolean isRecording = false;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final IntegerProperty messageCount = new SimpleIntegerProperty(0);
     private final IntegerProperty totalMessageCount = new SimpleIntegerProperty(0);
+    // Counted on the receive thread and copied to the properties at most once per FX pulse
+    private final AtomicLong recordedMessages = new AtomicLong();
+    private final AtomicLong totalMessages = new AtomicLong();
+    private final AtomicBoolean counterUpdatePending = new AtomicBoolean();
+    private volatile boolean fxAvailable = true;
     private ProjectManager projectManager;
     private xyz.theforks.ui.SamplerPadUI samplerPadUI;
     private ProxyDelayProcessor delayProcessor;
+    private volatile TimeShiftBuffer timeShiftBuffer;
+    private volatile CaptureBuffer captureBuffer;
+    private long recordingSegmentMs = 0;
+    private long recordingBudgetBytes = DEFAULT_RECORDING_BUDGET_BYTES;
+    private final NodeChain recordingChain = new NodeChain(NodeChain.Context.RECORDING);
+    private final Set<String> recordedOutputIds = ConcurrentHashMap.newKeySet();
+    private final List<OSCOutputService> teeOutputs = new ArrayList<>();
+    private boolean proxyRunning = false;
 
     public OSCProxyService() {
         this(null);
@@ -44,7 +73,12 @@ public class OSCProxyService {
         inputService.setMessageHandler(new MessageHandlerClass() {
             @Override
             public void handleMessage(OSCMessage message) {
-                OSCProxyService.this.handleMessage(message);
+                OSCProxyService.this.handleMessage(message, System.nanoTime());
+            }
+
+            @Override
+            public void handleMessage(OSCMessage message, long receiveNanos) {
+                OSCProxyService.this.handleMessage(message, receiveNanos);
             }
         });
 
@@ -59,6 +93,9 @@ public class OSCProxyService {
         // Create delay processor for proxy mode
         delayProcessor = new ProxyDelayProcessor(this);
 
+        // Always-on retroactive capture of raw input
+        captureBuffer = CaptureBuffer.forMemoryBudget(DEFAULT_CAPTURE_BUDGET_BYTES, DEFAULT_CAPTURE_MAX_AGE_MS);
+
         DataDirectory.createDirectories();
     }
 
@@ -118,6 +155,8 @@ public class OSCProxyService {
         OSCOutputService output = outputs.remove(id);
         if (output != null) {
             output.stop();
+            output.unregisterMetrics();
+            recordedOutputIds.remove(id);
             return true;
         }
         return false;
@@ -139,8 +178,10 @@ public class OSCProxyService {
             OSCOutputService output = outputs.remove(id);
             if (output != null) {
                 output.stop();
+                output.unregisterMetrics();
             }
         }
+        recordedOutputIds.clear();
         // Clear the default output's node chain if it exists
         OSCOutputService defaultOutput = outputs.get("default");
         if (defaultOutput != null) {
@@ -198,11 +239,23 @@ public class OSCProxyService {
                 output.start();
             }
         }
+
+        // Start time-shift playout if enabled
+        if (timeShiftBuffer != null) {
+            timeShiftBuffer.start(this::forwardShiftedMessage);
+        }
+        proxyRunning = true;
         System.out.println("Proxy started with " + outputs.size() + " output(s)");
     }
 
     public void stopProxy() {
         inputService.stop();
+        proxyRunning = false;
+
+        // Stop time-shift playout, keeping the buffered history
+        if (timeShiftBuffer != null) {
+            timeShiftBuffer.stop();
+        }
 
         // Stop delay processor
         if (delayProcessor != null) {
@@ -216,11 +269,16 @@ public class OSCProxyService {
         System.out.println("Proxy stopped");
     }
 
-    private void handleMessage(OSCMessage oscMessage) {
+    /**
+     * Handle a message from the input: capture, record and forward it.
+     * Package-private so tests can drive the proxy path without a socket.
+     */
+    void handleMessage(OSCMessage oscMessage, long receiveNanos) {
         try {
             // Increment total message count for all messages (including /oscplay)
             if (oscMessage != null) {
-                Platform.runLater(() -> totalMessageCount.set(totalMessageCount.get() + 1));
+                totalMessages.incrementAndGet();
+                scheduleCounterUpdate();
             }
 
             // Check if this is an /oscplay command
@@ -230,33 +288,121 @@ public class OSCProxyService {
                 return;
             }
 
+            // Always-on capture of raw input for "save last N minutes"
+            CaptureBuffer capture = captureBuffer;
+            if (capture != null && oscMessage != null) {
+                capture.add(oscMessage);
+            }
+
             // Always record raw input messages (before any processing)
-            if (isRecording && currentSession != null && oscMessage != null) {
-                recordMessage(oscMessage);
+            if (isRecording && currentRecorder != null && oscMessage != null) {
+                recordMessage(oscMessage, receiveNanos);
             }
 
-            // Send to all enabled outputs
-            // Each output applies its own node chain
-            for (OSCOutputService output : outputs.values()) {
-                if (output.isEnabled() && output.isStarted()) {
-                    output.send(oscMessage);
-                }
+            // When time-shifting, the playout thread forwards the message later
+            TimeShiftBuffer shiftBuffer = timeShiftBuffer;
+            if (shiftBuffer != null && shiftBuffer.isRunning()) {
+                shiftBuffer.add(oscMessage);
+                return;
             }
 
+            forwardToOutputs(oscMessage);
+
         } catch (IOException | OSCSerializeException e) {
             System.err.println("Error handling message: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Send a message to all enabled outputs.
+     * Each output applies its own node chain.
+     */
+    private void forwardToOutputs(OSCMessage oscMessage) throws IOException, OSCSerializeException {
+        for (OSCOutputService output : outputs.values()) {
+            if (output.isEnabled() && output.isStarted()) {
+                output.send(oscMessage);
+            }
+        }
+    }
+
+    /**
+     * Forward a message released by the time-shift buffer.
+     */
+    private void forwardShiftedMessage(OSCMessage oscMessage) {
+        try {
+            forwardToOutputs(oscMessage);
+        } catch (IOException | OSCSerializeException e) {
+            System.err.println("Error forwarding time-shifted message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enable the time-shift buffer, delaying the whole input stream by an offset.
+     * Replaces any existing buffer. Playout starts immediately if the proxy is running.
+     * @param capacity Maximum number of buffered messages
+     * @param offsetMs Playout offset in milliseconds
+     */
+    public void enableTimeShift(int capacity, long offsetMs) {
+        disableTimeShift();
+        timeShiftBuffer = new TimeShiftBuffer(capacity, offsetMs);
+        if (proxyRunning) {
+            timeShiftBuffer.start(this::forwardShiftedMessage);
+        }
+        System.out.println("Time shift enabled: " + offsetMs + "ms offset, " + capacity + " message capacity");
+    }
+
+    /**
+     * Disable the time-shift buffer and return to direct forwarding.
+     * Messages still buffered are discarded.
+     */
+    public void disableTimeShift() {
+        if (timeShiftBuffer != null) {
+            timeShiftBuffer.stop();
+            timeShiftBuffer.clear();
+            timeShiftBuffer = null;
+        }
+    }
+
+    /**
+     * Scrub the time-shift playout position by changing the offset.
+     * @param offsetMs The new offset in milliseconds
+     */
+    public void setTimeShiftOffsetMs(long offsetMs) {
+        if (timeShiftBuffer != null) {
+            timeShiftBuffer.setOffsetMs(offsetMs);
+        }
+    }
+
+    /**
+     * Get the time-shift buffer.
+     * @return The buffer, or null if time shift is disabled
+     */
+    public TimeShiftBuffer getTimeShiftBuffer() {
+        return timeShiftBuffer;
+    }
+
     /**
      * Handle /oscplay command messages.
      * Format: /oscplay/sampler<bank> <padNumber>
      * Example: /oscplay/sampler1 1 triggers bank 1, pad 1
+     * Format: /oscplay/timeshift <seconds>
+     * Example: /oscplay/timeshift 30 plays the input back 30 seconds behind live
+     * Format: /oscplay/capture <minutes> [name]
+     * Example: /oscplay/capture 5 saves the last 5 minutes of input as a session
      */
     private void handleOSCPlayCommand(OSCMessage message) {
         String address = message.getAddress();
 
+        if ("/oscplay/timeshift".equals(address)) {
+            handleTimeShiftCommand(message);
+            return;
+        }
+        if ("/oscplay/capture".equals(address)) {
+            handleCaptureCommand(message);
+            return;
+        }
+
         // Parse the address pattern: /oscplay/sampler<bank>
         if (address.matches("/oscplay/sampler[1-4]")) {
             try {
@@ -297,49 +443,346 @@ public class OSCProxyService {
         }
     }
 
-    public void startRecording(String sessionName) {
-        currentSession = new RecordingSession(sessionName);
-        isRecording = true;
-        messageCount.set(0);
-        System.out.println("Started recording session: " + sessionName);
+    /**
+     * Handle /oscplay/timeshift by scrubbing the time-shift offset.
+     */
+    private void handleTimeShiftCommand(OSCMessage message) {
+        if (timeShiftBuffer == null) {
+            System.err.println("Time shift is not enabled");
+            return;
+        }
+        if (message.getArguments().isEmpty() || !(message.getArguments().get(0) instanceof Number)) {
+            System.err.println("OSCPlay timeshift command requires an offset in seconds");
+            return;
+        }
+        double seconds = ((Number) message.getArguments().get(0)).doubleValue();
+        timeShiftBuffer.setOffsetMs(Math.max(0, Math.round(seconds * 1000)));
     }
 
-    public void stopRecording() {
-        if (isRecording && currentSession != null) {
-            saveSession(currentSession);
-            isRecording = false;
-            currentSession = null;
-            System.out.println("Stopped recording. Total messages: " + messageCount.get());
+    /**
+     * Handle /oscplay/capture by saving the last N minutes of captured input.
+     */
+    private void handleCaptureCommand(OSCMessage message) {
+        List<Object> args = message.getArguments();
+        if (args.isEmpty() || !(args.get(0) instanceof Number)) {
+            System.err.println("OSCPlay capture command requires a duration in minutes");
+            return;
         }
+        long durationMs = Math.round(((Number) args.get(0)).doubleValue() * 60 * 1000);
+        String sessionName = args.size() > 1 && args.get(1) instanceof String
+                ? (String) args.get(1)
+                : defaultCaptureName();
+        saveCapture(sessionName, durationMs).exceptionally(error -> {
+            System.err.println("Error saving capture: " + SessionIO.unwrap(error).getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Save recently captured input as a recording session.
+     * The capture is copied immediately and written on the session I/O thread.
+     * @param sessionName Name for the new session
+     * @param durationMs How far back to include, in milliseconds
+     * @return A future completed with the saved session, or exceptionally with an
+     *         IOException if capture is disabled, nothing was captured, or saving fails
+     */
+    public CompletableFuture<RecordingSession> saveCapture(String sessionName, long durationMs) {
+        CaptureBuffer capture = captureBuffer;
+        if (capture == null) {
+            return CompletableFuture.failedFuture(new IOException("Input capture is disabled"));
+        }
+        RecordingSession session = capture.snapshot(sessionName, durationMs);
+        if (session.getMessages().isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new IOException("No input captured in the last " + (durationMs / 1000) + " seconds"));
+        }
+        return SessionIO.getInstance().save(session).thenApply(saved -> {
+            System.out.println("Saved capture " + sessionName + ": " + saved.getMessages().size() + " messages");
+            return saved;
+        });
+    }
+
+    /**
+     * Generate a timestamped name for a capture session.
+     * @return A name like capture-20240131-235959
+     */
+    public static String defaultCaptureName() {
+        return "capture-" + java.time.LocalDateTime.now()
+                .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    }
+
+    /**
+     * Replace the always-on capture buffer.
+     * @param captureBuffer The new buffer, or null to disable capture
+     */
+    public void setCaptureBuffer(CaptureBuffer captureBuffer) {
+        this.captureBuffer = captureBuffer;
+    }
+
+    /**
+     * Get the always-on capture buffer.
+     * @return The buffer, or null if capture is disabled
+     */
+    public CaptureBuffer getCaptureBuffer() {
+        return captureBuffer;
     }
 
-    private void saveSession(RecordingSession session) {
+    /**
+     * Start recording input to a new session.
+     * Messages are streamed to a journal, or to time segments when a segment length
+     * is set, in the session directory as they arrive.
+     * @param sessionName The session name
+     */
+    public void startRecording(String sessionName) {
+        SessionRecorder recorder = new SessionRecorder(sessionName,
+                getRecordingsDirFile().toPath().resolve(sessionName), recordingSegmentMs);
+        recorder.setMemoryBudget(recordingBudgetBytes);
         try {
-            session.save();
+            recorder.start();
         } catch (IOException e) {
-            System.err.println("Error saving session: " + e.getMessage());
+            System.err.println("Error starting recording: " + e.getMessage());
             e.printStackTrace();
+            return;
         }
+        currentRecorder = recorder;
+        isRecording = true;
+        recordedMessages.set(0);
+        scheduleCounterUpdate();
+        System.out.println("Started recording session: " + sessionName);
+        startOutputRecordings(sessionName);
+    }
+
+    /**
+     * Attach a recorder to each output whose processed stream is being recorded.
+     */
+    private void startOutputRecordings(String sessionName) {
+        for (String outputId : recordedOutputIds) {
+            OSCOutputService output = outputs.get(outputId);
+            if (output == null) {
+                continue;
+            }
+            String outputSessionName = getOutputSessionName(sessionName, outputId);
+            SessionRecorder recorder = new SessionRecorder(outputSessionName,
+                    getRecordingsDirFile().toPath().resolve(outputSessionName), recordingSegmentMs);
+            recorder.setMemoryBudget(recordingBudgetBytes);
+            SessionSettings settings = new SessionSettings();
+            settings.setOutputId(outputId);
+            recorder.setSettings(settings);
+            try {
+                recorder.start();
+            } catch (IOException e) {
+                System.err.println("Error starting recording of output " + outputId + ": " + e.getMessage());
+                e.printStackTrace();
+                continue;
+            }
+            output.setTeeRecorder(recorder);
+            teeOutputs.add(output);
+            System.out.println("Started recording output " + outputId + " as session: " + outputSessionName);
+        }
+    }
+
+    /**
+     * Get the name of the session an output's processed stream is recorded to.
+     * @param sessionName The name of the input recording
+     * @param outputId The output id
+     * @return The session name for the output
+     */
+    public static String getOutputSessionName(String sessionName, String outputId) {
+        return sessionName + "-" + outputId;
+    }
+
+    /**
+     * Choose whether recordings also capture what an output sends, after its node
+     * chain and delays. Each recorded output is saved as its own session, named by
+     * {@link #getOutputSessionName(String, String)}, with the output id in its settings.
+     * Takes effect from the next recording.
+     * @param outputId The output id
+     * @param recorded true to record the output
+     */
+    public void setOutputRecorded(String outputId, boolean recorded) {
+        if (recorded) {
+            recordedOutputIds.add(outputId);
+        } else {
+            recordedOutputIds.remove(outputId);
+        }
+    }
+
+    public boolean isOutputRecorded(String outputId) {
+        return recordedOutputIds.contains(outputId);
+    }
+
+    /**
+     * Set the segment length for new recordings.
+     * @param recordingSegmentMs Length of each segment in milliseconds, or 0 to record a single data.json
+     */
+    public void setRecordingSegmentMs(long recordingSegmentMs) {
+        this.recordingSegmentMs = Math.max(0, recordingSegmentMs);
+    }
+
+    public long getRecordingSegmentMs() {
+        return recordingSegmentMs;
+    }
+
+    /**
+     * Set the memory budget for recorded messages waiting to be written.
+     * Messages beyond it are spilled to a file in the session directory.
+     * @param recordingBudgetBytes Approximate budget in bytes, or 0 for no limit
+     */
+    public void setRecordingMemoryBudget(long recordingBudgetBytes) {
+        this.recordingBudgetBytes = Math.max(0, recordingBudgetBytes);
+    }
+
+    public long getRecordingMemoryBudget() {
+        return recordingBudgetBytes;
+    }
+
+    /**
+     * Stop recording and wait for the journal to be turned into the session's data.json.
+     */
+    public void stopRecording() {
+        stopRecordingAsync().join();
+    }
+
+    /**
+     * Get the recorder of the recording in progress.
+     * @return The recorder, or null if not recording
+     */
+    public SessionRecorder getCurrentRecorder() {
+        return currentRecorder;
+    }
+
+    /**
+     * Stop recording. Input stops being recorded immediately; the journal is turned
+     * into the session's data.json on the session I/O thread.
+     * @return A future completed with the number of messages recorded, or 0 if not recording
+     */
+    public CompletableFuture<Long> stopRecordingAsync() {
+        if (!isRecording || currentRecorder == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        isRecording = false;
+        SessionRecorder recorder = currentRecorder;
+        currentRecorder = null;
+        List<CompletableFuture<Long>> outputFutures = new ArrayList<>();
+        for (OSCOutputService output : teeOutputs) {
+            SessionRecorder teeRecorder = output.getTeeRecorder();
+            output.setTeeRecorder(null);
+            if (teeRecorder != null) {
+                outputFutures.add(finishRecording(teeRecorder));
+            }
+        }
+        teeOutputs.clear();
+        CompletableFuture<Long> inputFuture = finishRecording(recorder);
+        return CompletableFuture.allOf(outputFutures.toArray(new CompletableFuture<?>[0]))
+                .thenCombine(inputFuture, (ignored, count) -> count);
+    }
+
+    private CompletableFuture<Long> finishRecording(SessionRecorder recorder) {
+        return SessionIO.getInstance().finishRecording(recorder).handle((count, error) -> {
+            if (error != null) {
+                Throwable cause = SessionIO.unwrap(error);
+                System.err.println("Error saving session " + recorder.getSessionName() + ": " + cause.getMessage());
+                cause.printStackTrace();
+                return 0L;
+            }
+            System.out.println("Stopped recording " + recorder.getSessionName() + ". Total messages: " + count);
+            return count;
+        });
+    }
+
+    /**
+     * Turn recordings interrupted by a crash into regular sessions.
+     * @return Names of the recovered sessions
+     */
+    public List<String> recoverInterruptedRecordings() {
+        return SessionRecorder.recoverJournals(getRecordingsDirFile().toPath());
     }
 
     public List<String> getRecordedSessions() {
-        List<String> sessions = new ArrayList<>();
-        File dir = getRecordingsDirFile();
-        if (dir.exists()) {
-            File[] entries = dir.listFiles();
-            if (entries != null) {
-                for (File entry : entries) {
-                    if (entry.isDirectory()) {
-                        // Check if directory contains data.json
-                        File dataFile = new File(entry, "data.json");
-                        if (dataFile.exists()) {
-                            sessions.add(entry.getName());
-                        }
-                    }
-                }
+        return getSessionIndex().getSessionNames();
+    }
+
+    /**
+     * Get the summary of a recorded session without loading its messages.
+     * Computing a missing summary reads the session, so UI code should use
+     * {@link #getCachedSessionSummary(String)} and {@link #loadSessionSummary(String)}.
+     * @param sessionName The session name
+     * @return The summary, or null if the session does not exist or cannot be read
+     */
+    public SessionSummary getSessionSummary(String sessionName) {
+        return getSessionIndex().getSummary(sessionName);
+    }
+
+    /**
+     * Get the summary of a recorded session if its sidecar is already up to date.
+     * @param sessionName The session name
+     * @return The summary, or null if it has to be computed
+     */
+    public SessionSummary getCachedSessionSummary(String sessionName) {
+        return getSessionIndex().getCachedSummary(sessionName);
+    }
+
+    /**
+     * Get the summary of a recorded session, computing it in the background if needed.
+     * @param sessionName The session name
+     * @return A future completed with the summary, or null if the session cannot be read
+     */
+    public CompletableFuture<SessionSummary> loadSessionSummary(String sessionName) {
+        return getSessionIndex().loadSummary(sessionName);
+    }
+
+    /**
+     * Get the index used to query a recorded session by address and time range.
+     * @param sessionName The session name
+     * @return The index, or null if the session does not exist
+     * @throws IOException If the session cannot be read
+     */
+    public SessionQueryIndex getSessionQueryIndex(String sessionName) throws IOException {
+        return getSessionIndex().getQueryIndex(sessionName);
+    }
+
+    /**
+     * Get the index of sessions in the current recordings directory.
+     * A new index is started when the recordings directory changes, e.g. when a project is opened.
+     * @return The session index
+     */
+    public synchronized SessionIndex getSessionIndex() {
+        Path dir = getRecordingsDirFile().toPath();
+        if (sessionIndex == null || !sessionIndex.getRecordingsDir().equals(dir)) {
+            boolean switched = sessionIndex != null;
+            if (switched) {
+                sessionIndex.stop();
+            }
+            sessionIndex = new SessionIndex(dir);
+            for (Runnable listener : sessionIndexListeners) {
+                sessionIndex.addListener(listener);
             }
+            sessionIndex.start();
+            if (switched) {
+                // Lists showing the old directory need refreshing
+                sessionIndexListeners.forEach(Runnable::run);
+            }
+        }
+        return sessionIndex;
+    }
+
+    /**
+     * Be notified when recorded sessions are added, removed or changed.
+     * Listeners are called from a background thread.
+     * @param listener The listener
+     */
+    public synchronized void addSessionListener(Runnable listener) {
+        sessionIndexListeners.add(listener);
+        if (sessionIndex != null) {
+            sessionIndex.addListener(listener);
+        }
+    }
+
+    public synchronized void removeSessionListener(Runnable listener) {
+        sessionIndexListeners.remove(listener);
+        if (sessionIndex != null) {
+            sessionIndex.removeListener(listener);
         }
-        return sessions;
     }
 
     public String getRecordingsDir() {
@@ -367,16 +810,81 @@ public class OSCProxyService {
     /**
      * Record an OSC message to the current session.
      * @param message The message to record
+     * @param receiveNanos System.nanoTime() taken when the message was received
      */
-    private void recordMessage(OSCMessage message) {
+    private void recordMessage(OSCMessage message, long receiveNanos) {
+        SessionRecorder recorder = currentRecorder;
+        if (recorder == null) {
+            return;
+        }
+        if (recordingChain.getNodeCount() == 0) {
+            recordOne(recorder, message, receiveNanos);
+            return;
+        }
+        // Delays requested by the chain don't apply; everything is stored at its receive time
+        for (MessageRequest request : recordingChain.processMessage(message)) {
+            if (request.getMessage() != null) {
+                recordOne(recorder, request.getMessage(), receiveNanos);
+            }
+        }
+    }
+
+    private void recordOne(SessionRecorder recorder, OSCMessage message, long receiveNanos) {
         OSCMessageRecord record = new OSCMessageRecord(
                 message.getAddress(),
                 message.getArguments().toArray()
         );
-        currentSession.addMessage(record);
-        
-        // Update message count on JavaFX thread
-        Platform.runLater(() -> messageCount.set(messageCount.get() + 1));
+        recorder.stamp(record, receiveNanos);
+        recorder.record(record);
+
+        recordedMessages.incrementAndGet();
+        scheduleCounterUpdate();
+    }
+
+    /**
+     * Copy the message counters to their properties on the JavaFX thread.
+     * At most one update is queued at a time, so a burst of messages costs one
+     * runLater rather than one each. Without a JavaFX toolkit (benchmarks and
+     * command line tools) only the counters are kept.
+     */
+    private void scheduleCounterUpdate() {
+        if (!fxAvailable || !counterUpdatePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Platform.runLater(() -> {
+                counterUpdatePending.set(false);
+                messageCount.set((int) recordedMessages.get());
+                totalMessageCount.set((int) totalMessages.get());
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit not initialized
+            fxAvailable = false;
+        }
+    }
+
+    /**
+     * Get the number of messages received since the counters were last reset,
+     * including /oscplay commands.
+     */
+    public long getTotalMessageCount() {
+        return totalMessages.get();
+    }
+
+    /**
+     * Get the number of messages recorded since the counters were last reset.
+     */
+    public long getRecordedMessageCount() {
+        return recordedMessages.get();
+    }
+
+    /**
+     * Get the node chain applied to input messages before they are recorded.
+     * It does not affect forwarding to outputs or the capture buffer.
+     * @return The recording node chain
+     */
+    public NodeChain getRecordingNodeChain() {
+        return recordingChain;
     }
     
     /**
@@ -493,9 +1001,9 @@ public class OSCProxyService {
      * Useful when loading a new project or clearing state.
      */
     public void resetMessageCounters() {
-        Platform.runLater(() -> {
-            messageCount.set(0);
-            totalMessageCount.set(0);
-        });
+        recordedMessages.set(0);
+        totalMessages.set(0);
+        counterUpdatePending.set(false);
+        scheduleCounterUpdate();
     }
 }
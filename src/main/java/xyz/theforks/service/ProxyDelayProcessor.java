@@ -6,22 +6,65 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.illposed.osc.OSCMessage;
 
+import xyz.theforks.jfr.DelayFiredEvent;
+import xyz.theforks.jfr.DelayScheduledEvent;
+import xyz.theforks.metrics.MetricsRegistry;
 import xyz.theforks.model.MessageRequest;
 import xyz.theforks.model.OSCMessageRecord;
 import xyz.theforks.model.ScheduledMessage;
+import xyz.theforks.util.Clock;
 
 /**
  * Handles delayed message processing in proxy mode.
  * Similar to Playback's delay handling but for real-time proxying with DelayNode.
  */
 public class ProxyDelayProcessor {
-    private final PriorityQueue<ScheduledMessage> messageQueue;
+    private static final String QUEUE_METRIC = "oscplay_delay_queue_depth";
+    private static final long NOT_SLEEPING = Long.MIN_VALUE;
+
+    /**
+     * A scheduled message with its deadline on the clock's monotonic time.
+     * Messages due at the same time keep the order they were scheduled in.
+     */
+    private static final class Pending implements Comparable<Pending> {
+        final ScheduledMessage scheduled;
+        final long deadlineNanos;
+        final long sequence;
+
+        Pending(ScheduledMessage scheduled, long deadlineNanos, long sequence) {
+            this.scheduled = scheduled;
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byDeadline = Long.compare(deadlineNanos, other.deadlineNanos);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final PriorityQueue<Pending> messageQueue;
     private final AtomicBoolean running;
     private Thread processorThread;
     private final OSCProxyService proxyService;
+    private final Clock clock;
+    // Guarded by messageQueue
+    private long nextSequence;
+    // Deadline the processor thread is sleeping until, guarded by messageQueue
+    private long sleepingUntil = NOT_SLEEPING;
 
     public ProxyDelayProcessor(OSCProxyService proxyService) {
+        this(proxyService, Clock.getDefault());
+    }
+
+    /**
+     * @param proxyService Provides the outputs messages are sent through
+     * @param clock Clock delays are measured on
+     */
+    public ProxyDelayProcessor(OSCProxyService proxyService, Clock clock) {
         this.proxyService = proxyService;
+        this.clock = clock;
         this.messageQueue = new PriorityQueue<>();
         this.running = new AtomicBoolean(false);
     }
@@ -35,47 +78,60 @@ public class ProxyDelayProcessor {
         }
 
         running.set(true);
-        processorThread = new Thread(() -> {
-            // System.out.println("ProxyDelayProcessor: Started");
-
-            while (running.get()) {
-                try {
-                    ScheduledMessage scheduled = null;
+        MetricsRegistry.getInstance().gauge(QUEUE_METRIC,
+                "Messages waiting in the proxy delay processor", this::getQueueSize);
+        processorThread = new Thread(this::processLoop);
+        processorThread.setDaemon(true);
+        processorThread.setName("ProxyDelayProcessor");
+        processorThread.start();
+    }
 
-                    synchronized (messageQueue) {
-                        // Peek at the next message without removing it
-                        if (!messageQueue.isEmpty()) {
-                            ScheduledMessage next = messageQueue.peek();
-                            long now = System.currentTimeMillis();
-
-                            // If it's time to send this message, remove it from queue
-                            if (next.getAbsoluteTimestamp() <= now) {
-                                scheduled = messageQueue.poll();
-                            }
-                        }
+    /**
+     * Send each message when its deadline comes. The thread waits on the queue while
+     * it is empty and sleeps on the clock until the earliest deadline otherwise; an
+     * earlier message arriving meanwhile interrupts that sleep.
+     */
+    private void processLoop() {
+        while (running.get()) {
+            try {
+                Pending due = null;
+                long deadline;
+                synchronized (messageQueue) {
+                    while (running.get() && messageQueue.isEmpty()) {
+                        messageQueue.wait();
                     }
-
-                    if (scheduled != null) {
-                        // Send the message
-                        sendScheduledMessage(scheduled);
+                    if (!running.get()) {
+                        break;
+                    }
+                    deadline = messageQueue.peek().deadlineNanos;
+                    if (deadline <= clock.nanoTime()) {
+                        due = messageQueue.poll();
                     } else {
-                        // No messages ready to send, sleep briefly
-                        Thread.sleep(1);
+                        sleepingUntil = deadline;
                     }
-                } catch (InterruptedException e) {
-                    break;
-                } catch (Exception e) {
-                    System.err.println("ProxyDelayProcessor error: " + e.getMessage());
-                    e.printStackTrace();
                 }
-            }
 
-            //System.out.println("ProxyDelayProcessor: Stopped");
-        });
+                if (due != null) {
+                    sendScheduledMessage(due);
+                    continue;
+                }
 
-        processorThread.setDaemon(true);
-        processorThread.setName("ProxyDelayProcessor");
-        processorThread.start();
+                try {
+                    clock.sleepUntilNanos(deadline);
+                } finally {
+                    synchronized (messageQueue) {
+                        sleepingUntil = NOT_SLEEPING;
+                        // Drop a wake-up that raced with the deadline, so it can't interrupt a send
+                        Thread.interrupted();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Woken for an earlier message, or stopped; the loop checks which
+            } catch (Exception e) {
+                System.err.println("ProxyDelayProcessor error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
@@ -83,6 +139,7 @@ public class ProxyDelayProcessor {
      */
     public void stop() {
         running.set(false);
+        MetricsRegistry.getInstance().remove(QUEUE_METRIC);
         if (processorThread != null) {
             processorThread.interrupt();
             try {
@@ -109,7 +166,8 @@ public class ProxyDelayProcessor {
             return;
         }
 
-        long absoluteTime = System.currentTimeMillis() + request.getDelayMs();
+        long deadlineNanos = clock.nanoTime() + request.getDelayMs() * 1_000_000L;
+        long absoluteTime = clock.currentTimeMillis() + request.getDelayMs();
 
         // Create a new OSCMessageRecord from the request
         OSCMessageRecord record = new OSCMessageRecord(
@@ -124,8 +182,28 @@ public class ProxyDelayProcessor {
 
         ScheduledMessage scheduled = new ScheduledMessage(record, absoluteTime, targetOutput, request.getDelayMs());
 
+        int queueSize;
         synchronized (messageQueue) {
-            messageQueue.offer(scheduled);
+            Pending pending = new Pending(scheduled, deadlineNanos, nextSequence++);
+            messageQueue.offer(pending);
+            queueSize = messageQueue.size();
+            if (messageQueue.peek() == pending) {
+                if (sleepingUntil != NOT_SLEEPING && deadlineNanos < sleepingUntil) {
+                    // Cut the sleep short for the new, earlier deadline
+                    sleepingUntil = NOT_SLEEPING;
+                    processorThread.interrupt();
+                }
+                messageQueue.notify();
+            }
+        }
+
+        DelayScheduledEvent event = new DelayScheduledEvent();
+        if (event.shouldCommit()) {
+            event.outputId = targetOutput;
+            event.address = record.getAddress();
+            event.delay = request.getDelayMs();
+            event.queueSize = queueSize;
+            event.commit();
         }
 
         // System.out.println("ProxyDelayProcessor: Scheduled delayed message: " + record.getAddress() +
@@ -136,7 +214,10 @@ public class ProxyDelayProcessor {
     /**
      * Send a scheduled message through the appropriate output(s).
      */
-    private void sendScheduledMessage(ScheduledMessage scheduled) {
+    private void sendScheduledMessage(Pending pending) {
+        ScheduledMessage scheduled = pending.scheduled;
+        DelayFiredEvent event = new DelayFiredEvent();
+        event.begin();
         try {
             if (scheduled.getRecord() == null ||
                 scheduled.getRecord().getAddress() == null ||
@@ -168,6 +249,14 @@ public class ProxyDelayProcessor {
         } catch (Exception e) {
             System.err.println("ProxyDelayProcessor: Error sending scheduled message: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            event.end();
+            if (event.shouldCommit() && scheduled.getRecord() != null) {
+                event.outputId = scheduled.getTargetOutputId();
+                event.address = scheduled.getRecord().getAddress();
+                event.lateness = clock.nanoTime() - pending.deadlineNanos;
+                event.commit();
+            }
         }
     }
 
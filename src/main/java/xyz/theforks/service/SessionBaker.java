@@ -0,0 +1,326 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.MessageRequest;
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionSettings;
+import xyz.theforks.nodes.NodeChain;
+import xyz.theforks.nodes.PlaybackContext;
+import xyz.theforks.util.Clock;
+import xyz.theforks.util.VirtualClock;
+
+/**
+ * SessionBaker - Renders recordings through an output's node chain ahead of time.
+ *
+ * A session is pushed through the chain in simulated time: a virtual clock
+ * jumps from one message to the next instead of waiting, and messages delayed
+ * by nodes are queued and re-processed when the clock reaches them, the same
+ * way {@link xyz.theforks.Playback} does in real time. Nodes that measure time,
+ * such as throttles, read each bake's own virtual clock through its playback
+ * context. What the chain sends is written as a new session whose settings
+ * name the output, so playback sends it straight to that output without
+ * running the chain again.
+ *
+ * Nodes keep state (moving averages, throttles), so every session is baked
+ * through its own chain from the chain factory. That also lets
+ * {@link #bakeAll(List, String)} bake many sessions at once on a fork-join pool.
+ */
+public class SessionBaker {
+
+    public static final String DEFAULT_SUFFIX = "-baked";
+
+    private final String outputId;
+    private final Supplier<NodeChain> chainFactory;
+
+    /**
+     * @param outputId Output the baked sessions are meant for
+     * @param chainFactory Creates a fresh chain equivalent to the output's chain
+     */
+    public SessionBaker(String outputId, Supplier<NodeChain> chainFactory) {
+        this.outputId = outputId;
+        this.chainFactory = chainFactory;
+    }
+
+    /**
+     * Create a baker for an output configured in a project.
+     * @param outputId Output the baked sessions are meant for
+     * @param chainConfig The output's node chain configuration
+     * @return The baker
+     */
+    public static SessionBaker forChain(String outputId, NodeChainConfig chainConfig) {
+        return new SessionBaker(outputId, () -> NodeChain.fromConfig(NodeChain.Context.PLAYBACK, chainConfig));
+    }
+
+    public String getOutputId() {
+        return outputId;
+    }
+
+    /**
+     * Bake a session through a fresh chain.
+     * @param session The session to bake
+     * @param bakedName Name of the baked session
+     * @return The result, holding the baked session
+     */
+    public Result bake(RecordingSession session, String bakedName) {
+        long started = System.nanoTime();
+        Run run = new Run(chainFactory.get(), session.getStartTime());
+        List<OSCMessageRecord> messages = new ArrayList<>(session.getMessages());
+        messages.sort(Comparator.comparingLong(OSCMessageRecord::getTimestamp));
+
+        for (OSCMessageRecord record : messages) {
+            // Delayed messages due before this one go first
+            run.releaseUntil(record.getTimestamp(), false);
+            run.moveTo(record.getTimestamp(), record.getOffsetNanos());
+            run.process(new OSCMessage(record.getAddress(), Arrays.asList(record.getArguments())), record.getOffsetNanos(), 0);
+        }
+        run.releaseUntil(Long.MAX_VALUE, true);
+
+        RecordingSession baked = new RecordingSession(bakedName, run.output, session.getStartTime());
+        return new Result(session.getName(), baked, messages.size(), run.routedElsewhere, System.nanoTime() - started);
+    }
+
+    /**
+     * Load, bake and save a recording.
+     * @param sessionName The recording to bake
+     * @param suffix Appended to the name for the baked recording
+     * @return The result
+     * @throws IOException If the recording cannot be loaded or saved
+     */
+    public Result bakeAndSave(String sessionName, String suffix) throws IOException {
+        RecordingSession session = RecordingSession.loadSession(sessionName);
+        if (session == null) {
+            throw new IOException("Recording not found: " + sessionName);
+        }
+        Result result = bake(session, sessionName + suffix);
+        RecordingSession baked = result.getSession();
+        baked.save();
+        SessionSettings settings = new SessionSettings();
+        settings.setOutputId(outputId);
+        settings.setBakedFrom(sessionName);
+        baked.saveSettings(settings);
+        return result;
+    }
+
+    /**
+     * Bake and save recordings in parallel on a fork-join pool sized to the machine.
+     * A recording that fails is reported and left out of the results.
+     * @param sessionNames The recordings to bake
+     * @param suffix Appended to each name for the baked recording
+     * @return Results of the recordings that were baked, in the order given
+     */
+    public List<Result> bakeAll(List<String> sessionNames, String suffix) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(sessionNames.size(),
+                Runtime.getRuntime().availableProcessors())));
+        try {
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+            for (String sessionName : sessionNames) {
+                tasks.add(pool.submit(() -> {
+                    try {
+                        return bakeAndSave(sessionName, suffix);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Error baking session " + sessionName + ": " + e.getMessage());
+                        e.printStackTrace();
+                        return null;
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (ForkJoinTask<Result> task : tasks) {
+                Result result = task.join();
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * State of one bake: the chain, the virtual clock and the delayed messages.
+     */
+    private class Run implements PlaybackContext {
+        private final NodeChain chain;
+        // Delayed messages by due time, then by the order they were scheduled
+        private final PriorityQueue<Delayed> delayed = new PriorityQueue<>(
+                Comparator.comparingLong((Delayed d) -> d.due).thenComparingLong(d -> d.sequence));
+        private final List<OSCMessageRecord> output = new ArrayList<>();
+        // Current time on the session's timeline, in milliseconds
+        private long time;
+        private final long startTime;
+        // Time of the first message, where playback time starts as in Playback
+        private long playbackStart = Long.MIN_VALUE;
+        // The same time as a clock for nodes, in nanoseconds from the session start
+        private final VirtualClock clock;
+        private long sequence;
+        private long routedElsewhere;
+        private long firstTimestamp = Long.MIN_VALUE;
+        private long firstOffsetNanos;
+
+        Run(NodeChain chain, long startTime) {
+            this.chain = chain;
+            this.startTime = startTime;
+            this.clock = new VirtualClock(startTime);
+        }
+
+        /**
+         * Move to a message's time. The clock uses its nanosecond offset when it has one.
+         */
+        void moveTo(long timestamp, Long offsetNanos) {
+            time = timestamp;
+            if (playbackStart == Long.MIN_VALUE) {
+                playbackStart = timestamp;
+            }
+            long nanos = offsetNanos != null ? offsetNanos : (timestamp - startTime) * 1_000_000L;
+            long ahead = nanos - clock.nanoTime();
+            if (ahead > 0) {
+                clock.advance(ahead);
+            }
+        }
+
+        /**
+         * Process delayed messages due before a time (or at it, if inclusive).
+         */
+        void releaseUntil(long until, boolean inclusive) {
+            while (!delayed.isEmpty() && (delayed.peek().due < until || (inclusive && delayed.peek().due == until))) {
+                Delayed next = delayed.poll();
+                moveTo(next.due, null);
+                process(next.message, null, next.previousDelay);
+            }
+        }
+
+        void process(OSCMessage message, Long offsetNanos, long previousDelay) {
+            for (MessageRequest request : chain.processMessage(message, this, previousDelay)) {
+                if (request.getMessage() == null) {
+                    continue;
+                }
+                if (!request.isImmediate()) {
+                    scheduleDelayedMessage(request, outputId);
+                } else if (request.hasTargetOutput() && !outputId.equals(request.getTargetOutputId())) {
+                    routedElsewhere++;
+                } else {
+                    emit(request.getMessage(), offsetNanos);
+                }
+            }
+        }
+
+        private void emit(OSCMessage message, Long offsetNanos) {
+            OSCMessageRecord record = new OSCMessageRecord(message.getAddress(), message.getArguments().toArray());
+            record.setTimestamp(time);
+            if (offsetNanos != null) {
+                record.setOffsetNanos(offsetNanos);
+                if (firstTimestamp == Long.MIN_VALUE) {
+                    firstTimestamp = time;
+                    firstOffsetNanos = offsetNanos;
+                }
+            } else if (firstTimestamp != Long.MIN_VALUE) {
+                // Delayed messages are placed on the same nanosecond timeline
+                record.setOffsetNanos(firstOffsetNanos + (time - firstTimestamp) * 1_000_000L);
+            }
+            output.add(record);
+        }
+
+        @Override
+        public void scheduleDelayedMessage(MessageRequest request, String targetOutputId) {
+            if (request.hasTargetOutput() && !outputId.equals(request.getTargetOutputId())) {
+                routedElsewhere++;
+                return;
+            }
+            delayed.add(new Delayed(request.getMessage(), time + request.getDelayMs(), request.getDelayMs(), sequence++));
+        }
+
+        @Override
+        public long getCurrentPlaybackTime() {
+            return playbackStart == Long.MIN_VALUE ? 0 : time - playbackStart;
+        }
+
+        @Override
+        public Clock getClock() {
+            return clock;
+        }
+    }
+
+    private static class Delayed {
+        final OSCMessage message;
+        final long due;
+        final long previousDelay;
+        final long sequence;
+
+        Delayed(OSCMessage message, long due, long previousDelay, long sequence) {
+            this.message = message;
+            this.due = due;
+            this.previousDelay = previousDelay;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Outcome of baking one session.
+     */
+    public static class Result {
+        private final String sourceName;
+        private final RecordingSession session;
+        private final long inputMessages;
+        private final long routedElsewhere;
+        private final long elapsedNanos;
+
+        Result(String sourceName, RecordingSession session, long inputMessages, long routedElsewhere, long elapsedNanos) {
+            this.sourceName = sourceName;
+            this.session = session;
+            this.inputMessages = inputMessages;
+            this.routedElsewhere = routedElsewhere;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        /**
+         * @return The baked session, messages in the order they were sent
+         */
+        public RecordingSession getSession() {
+            return session;
+        }
+
+        public long getInputMessages() {
+            return inputMessages;
+        }
+
+        public long getOutputMessages() {
+            return session.getMessages().size();
+        }
+
+        /**
+         * @return Messages a node routed to a different output, which are left out
+         */
+        public long getRoutedElsewhere() {
+            return routedElsewhere;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public String describe() {
+            return String.format("%s -> %s: %d messages in, %d out%s (%.1f ms)",
+                    sourceName, session.getName(), inputMessages, getOutputMessages(),
+                    routedElsewhere > 0 ? ", " + routedElsewhere + " routed to other outputs" : "",
+                    elapsedNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMessageEvent;
+import com.illposed.osc.messageselector.OSCPatternAddressMessageSelector;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+
+/**
+ * SessionCompactor - Shrinks recordings of continuous controls by dropping redundant messages.
+ *
+ * Each address is compacted on its own. Runs of messages whose non-numeric
+ * arguments and types stay the same are simplified with the Ramer-Douglas-Peucker
+ * algorithm: a message is dropped when its numeric arguments are within the
+ * address's tolerance of the straight line between the messages kept on either
+ * side of it. Then a kept message that repeats the previous kept message's
+ * values exactly is dropped too, since receivers hold the last value they got,
+ * unless that would take the messages around it out of tolerance of the line
+ * between the messages then kept on either side.
+ *
+ * The tolerance bounds the error against linear interpolation between kept
+ * messages, as reported by {@link AddressReport#getMaxError()}. A receiver
+ * that holds the last value instead sees a step at each kept message, so the
+ * report also gives that sample-and-hold error, which can exceed the tolerance
+ * on ramps.
+ *
+ * Kept messages are the original records, so types, timestamps and nanosecond
+ * offsets are unchanged. Addresses with a negative tolerance, e.g. buttons whose
+ * repeated messages are triggers, are copied as they are.
+ */
+public class SessionCompactor {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private double defaultTolerance;
+    // Address pattern to tolerance, first match wins
+    private final Map<String, Double> tolerances = new LinkedHashMap<>();
+
+    /**
+     * @param defaultTolerance Tolerance for addresses without their own
+     */
+    public SessionCompactor(double defaultTolerance) {
+        this.defaultTolerance = defaultTolerance;
+    }
+
+    public double getDefaultTolerance() {
+        return defaultTolerance;
+    }
+
+    public void setDefaultTolerance(double defaultTolerance) {
+        this.defaultTolerance = defaultTolerance;
+    }
+
+    /**
+     * Set the tolerance for addresses matching an OSC address pattern.
+     * Patterns are checked in the order they were added.
+     * @param pattern The address pattern, e.g. "/lx/modulation/Mag*&#47;mag"
+     * @param tolerance Maximum error in argument units; 0 drops only exactly
+     *                  redundant messages, negative keeps every message
+     */
+    public void setTolerance(String pattern, double tolerance) {
+        tolerances.put(pattern, tolerance);
+    }
+
+    /**
+     * Get the tolerance that applies to an address.
+     * @param address The OSC address
+     * @return The tolerance
+     */
+    public double getTolerance(String address) {
+        for (Map.Entry<String, Double> entry : tolerances.entrySet()) {
+            if (matches(entry.getKey(), address)) {
+                return entry.getValue();
+            }
+        }
+        return defaultTolerance;
+    }
+
+    private boolean matches(String pattern, String address) {
+        if (pattern.equals(address)) {
+            return true;
+        }
+        try {
+            return new OSCPatternAddressMessageSelector(pattern)
+                    .matches(new OSCMessageEvent(this, null, new OSCMessage(address)));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The outcome of compacting one address.
+     */
+    public static class AddressReport {
+        private final String address;
+        private final double tolerance;
+        private int originalMessages;
+        private int keptMessages;
+        private int duplicatesDropped;
+        private double maxError;
+        private double maxHoldError;
+
+        AddressReport(String address, double tolerance) {
+            this.address = address;
+            this.tolerance = tolerance;
+        }
+
+        public String getAddress() { return address; }
+        public double getTolerance() { return tolerance; }
+        public int getOriginalMessages() { return originalMessages; }
+        public int getKeptMessages() { return keptMessages; }
+        /** Messages dropped because they repeated the previous values exactly. */
+        public int getDuplicatesDropped() { return duplicatesDropped; }
+        /**
+         * Largest difference between a dropped message's values and the line
+         * between the messages kept on either side of it. This is the error the
+         * tolerance bounds, assuming a receiver interpolates.
+         */
+        public double getMaxError() { return maxError; }
+        /**
+         * Largest difference between a dropped message's values and those of the
+         * last kept message before it, i.e. the error a receiver that holds the
+         * last value sees.
+         */
+        public double getMaxHoldError() { return maxHoldError; }
+    }
+
+    /**
+     * The compacted session and what was dropped.
+     */
+    public static class Result {
+        private final RecordingSession session;
+        private final Map<String, AddressReport> addresses;
+        private final long originalBytes;
+        private final long compactedBytes;
+
+        Result(RecordingSession session, Map<String, AddressReport> addresses, long originalBytes, long compactedBytes) {
+            this.session = session;
+            this.addresses = addresses;
+            this.originalBytes = originalBytes;
+            this.compactedBytes = compactedBytes;
+        }
+
+        public RecordingSession getSession() { return session; }
+        public Map<String, AddressReport> getAddresses() { return addresses; }
+        /** Size of the original session as data.json. */
+        public long getOriginalBytes() { return originalBytes; }
+        /** Size of the compacted session as data.json. */
+        public long getCompactedBytes() { return compactedBytes; }
+
+        public int getOriginalMessages() {
+            int count = 0;
+            for (AddressReport report : addresses.values()) {
+                count += report.originalMessages;
+            }
+            return count;
+        }
+
+        public int getCompactedMessages() {
+            return session.getMessages().size();
+        }
+
+        public double getMaxError() {
+            double max = 0;
+            for (AddressReport report : addresses.values()) {
+                max = Math.max(max, report.maxError);
+            }
+            return max;
+        }
+
+        public double getMaxHoldError() {
+            double max = 0;
+            for (AddressReport report : addresses.values()) {
+                max = Math.max(max, report.maxHoldError);
+            }
+            return max;
+        }
+
+        /**
+         * Get a multi-line report: totals, then one line per address.
+         * @return The report
+         */
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Messages: %d -> %d (%.1f%%)%n", getOriginalMessages(), getCompactedMessages(),
+                    percent(getCompactedMessages(), getOriginalMessages())));
+            sb.append(String.format("Size: %d -> %d bytes (%.1f%%)%n", originalBytes, compactedBytes,
+                    percent(compactedBytes, originalBytes)));
+            sb.append(String.format("Max error: %.6g interpolated, %.6g held%n", getMaxError(), getMaxHoldError()));
+            for (AddressReport report : addresses.values()) {
+                sb.append(String.format("  %s: %d -> %d, %d duplicates, tolerance %s, max error %.6g interpolated, %.6g held%n",
+                        report.address, report.originalMessages, report.keptMessages, report.duplicatesDropped,
+                        report.tolerance < 0 ? "keep all" : String.valueOf(report.tolerance),
+                        report.maxError, report.maxHoldError));
+            }
+            return sb.toString();
+        }
+
+        private static double percent(long part, long whole) {
+            return whole > 0 ? 100.0 * part / whole : 100.0;
+        }
+    }
+
+    /**
+     * Compact a session. The original session is not modified.
+     * @param session The session
+     * @param name Name of the compacted session
+     * @return The compacted session and report
+     */
+    public Result compact(RecordingSession session, String name) {
+        List<OSCMessageRecord> messages = session.getMessages();
+
+        // Positions of each address's messages, in time order
+        Map<String, List<Integer>> streams = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            streams.computeIfAbsent(messages.get(i).getAddress(), a -> new ArrayList<>()).add(i);
+        }
+
+        boolean[] keep = new boolean[messages.size()];
+        Map<String, AddressReport> reports = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> stream : streams.entrySet()) {
+            List<Integer> positions = stream.getValue();
+            positions.sort((a, b) -> Long.compare(messages.get(a).getTimestamp(), messages.get(b).getTimestamp()));
+            AddressReport report = new AddressReport(stream.getKey(), getTolerance(stream.getKey()));
+            report.originalMessages = positions.size();
+            compactStream(messages, positions, session.getStartTime(), report, keep);
+            reports.put(stream.getKey(), report);
+        }
+
+        List<OSCMessageRecord> kept = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (keep[i]) {
+                kept.add(messages.get(i));
+            }
+        }
+        RecordingSession compacted = new RecordingSession(name, kept, session.getStartTime());
+        return new Result(compacted, reports, jsonSize(session), jsonSize(compacted));
+    }
+
+    private static void compactStream(List<OSCMessageRecord> messages, List<Integer> positions, long startTime,
+                                      AddressReport report, boolean[] keep) {
+        if (report.tolerance < 0) {
+            for (int position : positions) {
+                keep[position] = true;
+            }
+            report.keptMessages = positions.size();
+            return;
+        }
+
+        // Nanoseconds from the session start, as in ColumnarSession.getOffsetNanos
+        int n = positions.size();
+        double[] times = new double[n];
+        double[][] values = new double[n][];
+        for (int i = 0; i < n; i++) {
+            OSCMessageRecord record = messages.get(positions.get(i));
+            times[i] = record.getOffsetNanos() != null ? record.getOffsetNanos()
+                    : (record.getTimestamp() - startTime) * 1_000_000L;
+            values[i] = numericValues(record);
+        }
+
+        // Split into runs with the same shape; each run is simplified on its own
+        int[] runs = new int[n];
+        int run = 0;
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || !sameShape(messages.get(positions.get(i - 1)), messages.get(positions.get(i)))) {
+                simplify(times, values, positions, runStart, i - 1, report.tolerance, keep);
+                Arrays.fill(runs, runStart, i, run++);
+                runStart = i;
+            }
+        }
+
+        // Drop kept messages that repeat the previous kept message exactly, if the
+        // messages up to the next kept one stay within tolerance without them
+        int previous = -1;
+        for (int i = 0; i < n; i++) {
+            if (!keep[positions.get(i)]) {
+                continue;
+            }
+            if (previous >= 0 && sameValues(messages.get(positions.get(previous)), messages.get(positions.get(i)))
+                    && withinTolerance(times, values, runs, previous, nextKept(positions, keep, i),
+                            report.tolerance)) {
+                keep[positions.get(i)] = false;
+                report.duplicatesDropped++;
+            } else {
+                previous = i;
+                report.keptMessages++;
+            }
+        }
+
+        // Measure each dropped message against the messages finally kept around it
+        int[] next = new int[n];
+        int following = -1;
+        for (int i = n - 1; i >= 0; i--) {
+            next[i] = following;
+            if (keep[positions.get(i)]) {
+                following = i;
+            }
+        }
+        int held = -1;
+        for (int i = 0; i < n; i++) {
+            if (keep[positions.get(i)]) {
+                held = i;
+            } else if (held >= 0) {
+                report.maxError = Math.max(report.maxError, error(times, values, runs, held, next[i], i));
+                // What a receiver holding the last kept value sees
+                report.maxHoldError = Math.max(report.maxHoldError, deviation(times, values, held, held, i));
+            }
+        }
+    }
+
+    private static int nextKept(List<Integer> positions, boolean[] keep, int i) {
+        for (int j = i + 1; j < positions.size(); j++) {
+            if (keep[positions.get(j)]) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * True if every message between two kept messages is within tolerance of them.
+     */
+    private static boolean withinTolerance(double[] times, double[][] values, int[] runs, int first, int last,
+                                           double tolerance) {
+        int end = last >= 0 ? last : times.length;
+        for (int i = first + 1; i < end; i++) {
+            if (error(times, values, runs, first, last, i) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Interpolation error of a dropped message. Messages are only interpolated
+     * within a run; past the last kept message of its run a message is compared
+     * with that message's values, which receivers hold until the shape changes.
+     */
+    private static double error(double[] times, double[][] values, int[] runs, int first, int last, int i) {
+        int end = last >= 0 && runs[last] == runs[i] ? last : first;
+        return deviation(times, values, first, end, i);
+    }
+
+    /**
+     * Ramer-Douglas-Peucker over one run, from index from to index to, with an
+     * explicit stack so long runs do not recurse deeply.
+     */
+    private static void simplify(double[] times, double[][] values, List<Integer> positions, int from, int to,
+                                 double tolerance, boolean[] keep) {
+        keep[positions.get(from)] = true;
+        keep[positions.get(to)] = true;
+        if (to - from < 2) {
+            return;
+        }
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = from;
+        stack[top++] = to;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int worst = -1;
+            double worstError = -1;
+            for (int i = first + 1; i < last; i++) {
+                double error = deviation(times, values, first, last, i);
+                if (error > worstError) {
+                    worstError = error;
+                    worst = i;
+                }
+            }
+            if (worst >= 0 && worstError > tolerance) {
+                keep[positions.get(worst)] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = worst;
+                stack[top++] = worst;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    /**
+     * Largest difference between a message's numeric arguments and the line from first to last.
+     */
+    private static double deviation(double[] times, double[][] values, int first, int last, int i) {
+        double span = times[last] - times[first];
+        double fraction = span > 0 ? (times[i] - times[first]) / span : 0;
+        double max = 0;
+        double[] a = values[first];
+        double[] b = values[last];
+        double[] v = values[i];
+        for (int arg = 0; arg < v.length; arg++) {
+            double expected = a[arg] + (b[arg] - a[arg]) * fraction;
+            max = Math.max(max, Math.abs(v[arg] - expected));
+        }
+        return max;
+    }
+
+    private static double[] numericValues(OSCMessageRecord record) {
+        Object[] args = record.getArguments();
+        if (args == null) {
+            return new double[0];
+        }
+        int count = 0;
+        for (Object arg : args) {
+            if (arg instanceof Number) {
+                count++;
+            }
+        }
+        double[] values = new double[count];
+        int index = 0;
+        for (Object arg : args) {
+            if (arg instanceof Number) {
+                values[index++] = ((Number) arg).doubleValue();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * True if two messages have the same types and the same non-numeric arguments,
+     * so numeric arguments can be interpolated between them.
+     */
+    private static boolean sameShape(OSCMessageRecord a, OSCMessageRecord b) {
+        Object[] argsA = a.getArguments() != null ? a.getArguments() : new Object[0];
+        Object[] argsB = b.getArguments() != null ? b.getArguments() : new Object[0];
+        if (argsA.length != argsB.length || !Objects.equals(a.getTypes(), b.getTypes())) {
+            return false;
+        }
+        for (int i = 0; i < argsA.length; i++) {
+            boolean numericA = argsA[i] instanceof Number;
+            boolean numericB = argsB[i] instanceof Number;
+            if (numericA != numericB) {
+                return false;
+            }
+            if (numericA) {
+                if (argsA[i].getClass() != argsB[i].getClass()) {
+                    return false;
+                }
+            } else if (!Objects.deepEquals(argsA[i], argsB[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValues(OSCMessageRecord a, OSCMessageRecord b) {
+        return Objects.equals(a.getTypes(), b.getTypes())
+                && Arrays.deepEquals(a.getArguments() != null ? a.getArguments() : new Object[0],
+                        b.getArguments() != null ? b.getArguments() : new Object[0]);
+    }
+
+    /**
+     * Size of a session written as data.json, without keeping the bytes.
+     */
+    private static long jsonSize(RecordingSession session) {
+        long[] size = new long[1];
+        OutputStream counter = new OutputStream() {
+            @Override
+            public void write(int b) {
+                size[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                size[0] += len;
+            }
+        };
+        try {
+            objectMapper.writeValue(counter, session);
+        } catch (IOException e) {
+            System.err.println("Error measuring session size: " + e.getMessage());
+        }
+        return size[0];
+    }
+}
@@ -0,0 +1,232 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.model.RecordingSession;
+
+/**
+ * SessionIO - Runs session loads and saves on a dedicated I/O thread.
+ *
+ * Callers get a CompletableFuture and attach their completion callbacks to it;
+ * callbacks run on the I/O thread, so UI code should hand results to the JavaFX
+ * thread with Platform.runLater. Tasks run one at a time in submission order.
+ * A save queued for a session that already has a save waiting is merged into it,
+ * so only the latest contents are written.
+ */
+public class SessionIO {
+
+    /**
+     * An I/O operation run on the session I/O thread.
+     */
+    @FunctionalInterface
+    public interface IOTask<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Notified as tasks start and finish, e.g. to show a busy indicator.
+     * Called from the I/O thread.
+     */
+    public interface ProgressListener {
+        /**
+         * @param description What the task does, e.g. "Saving my-session"
+         * @param pending Tasks waiting or running, including this one
+         */
+        void taskStarted(String description, int pending);
+
+        /**
+         * @param description What the task does
+         * @param pending Tasks still waiting
+         * @param error The failure, or null if the task succeeded
+         */
+        void taskFinished(String description, int pending, Throwable error);
+    }
+
+    private static final SessionIO instance = new SessionIO();
+
+    private final ExecutorService executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+    // Saves queued but not yet started, by session name
+    private final Map<String, PendingSave> pendingSaves = new HashMap<>();
+
+    private static final class PendingSave {
+        RecordingSession session;
+        final CompletableFuture<RecordingSession> future = new CompletableFuture<>();
+    }
+
+    public SessionIO() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "SessionIO");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the application's shared session I/O executor.
+     * @return The shared instance
+     */
+    public static SessionIO getInstance() {
+        return instance;
+    }
+
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the number of tasks waiting or running.
+     * @return The pending task count
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Run a task on the I/O thread.
+     * @param description What the task does, for progress reporting
+     * @param task The task
+     * @return A future completed with the task's result, or exceptionally with its IOException
+     */
+    public <T> CompletableFuture<T> submit(String description, IOTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            Throwable error = null;
+            fireStarted(description);
+            try {
+                future.complete(task.run());
+            } catch (Throwable t) {
+                error = t;
+                future.completeExceptionally(t);
+            } finally {
+                pending.decrementAndGet();
+                fireFinished(description, error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Load a session in columnar form.
+     * @param sessionName The session name
+     * @return A future completed with the session, or null if it does not exist or is empty
+     */
+    public CompletableFuture<ColumnarSession> loadColumnar(String sessionName) {
+        return submit("Loading " + sessionName, () -> RecordingSession.loadColumnarSession(sessionName));
+    }
+
+    /**
+     * Load a session as records.
+     * @param sessionName The session name
+     * @return A future completed with the session, or null if it does not exist or is empty
+     */
+    public CompletableFuture<RecordingSession> load(String sessionName) {
+        return submit("Loading " + sessionName, () -> RecordingSession.loadSession(sessionName));
+    }
+
+    /**
+     * Save a session. If a save of the same session is still waiting to run, it
+     * is replaced by this one and both callers get the same future.
+     * @param session The session; it must not be modified until the save completes
+     * @return A future completed with the session that was written
+     */
+    public CompletableFuture<RecordingSession> save(RecordingSession session) {
+        String name = session.getName();
+        PendingSave save;
+        synchronized (pendingSaves) {
+            save = pendingSaves.get(name);
+            if (save != null) {
+                save.session = session;
+                return save.future;
+            }
+            save = new PendingSave();
+            save.session = session;
+            pendingSaves.put(name, save);
+        }
+
+        PendingSave queued = save;
+        submit("Saving " + name, () -> {
+            RecordingSession latest;
+            synchronized (pendingSaves) {
+                // Later saves of this session start a new write
+                pendingSaves.remove(name);
+                latest = queued.session;
+            }
+            latest.save();
+            return latest;
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                queued.future.completeExceptionally(unwrap(error));
+            } else {
+                queued.future.complete(result);
+            }
+        });
+        return save.future;
+    }
+
+    /**
+     * Finish a recording, converting its journal into the session's data.json.
+     * @param recorder The recorder to finish
+     * @return A future completed with the number of messages recorded
+     */
+    public CompletableFuture<Long> finishRecording(SessionRecorder recorder) {
+        return submit("Saving " + recorder.getSessionName(), recorder::finish);
+    }
+
+    /**
+     * Block until every task submitted so far has run.
+     */
+    public void awaitIdle() {
+        CompletableFuture.runAsync(() -> { }, executor).join();
+    }
+
+    /**
+     * Get the underlying cause of a failed future, e.g. for an error dialog.
+     * @param error The throwable passed to a completion callback
+     * @return The cause without CompletionException wrappers
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private void fireStarted(String description) {
+        int count = pending.get();
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.taskStarted(description, count);
+            } catch (Exception e) {
+                System.err.println("Error in session I/O listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireFinished(String description, Throwable error) {
+        int count = pending.get();
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.taskFinished(description, count, error);
+            } catch (Exception e) {
+                System.err.println("Error in session I/O listener: " + e.getMessage());
+            }
+        }
+    }
+}
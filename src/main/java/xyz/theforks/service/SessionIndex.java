@@ -0,0 +1,334 @@
+package xyz.theforks.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import xyz.theforks.model.BinarySessionFormat;
+import xyz.theforks.model.SegmentedSession;
+import xyz.theforks.model.SessionQueryIndex;
+import xyz.theforks.model.SessionSummary;
+
+/**
+ * SessionIndex - Project-level index of recorded sessions and their summaries.
+ *
+ * The recordings directory is scanned once and then kept current with a
+ * WatchService, so listing sessions does not touch the disk. Summaries come from
+ * each session's summary.json sidecar and are cached until the session's files
+ * change, as are the address and time indexes used to query sessions. Listeners
+ * are notified (on the watcher thread) when sessions are added, removed or
+ * modified.
+ *
+ * UI code should use {@link #getCachedSummary(String)}, which only reads an
+ * existing sidecar, and {@link #loadSummary(String)} for the rest, which
+ * computes missing sidecars on a low-priority thread of its own, so a backlog of
+ * them never delays the loads and saves on the {@link SessionIO} thread.
+ */
+public class SessionIndex {
+
+    // Shared by all indexes; one session is read at a time
+    private static final ExecutorService summaryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SessionSummaries");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final Path recordingsDir;
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, SessionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, SessionQueryIndex> queryIndexes = new ConcurrentHashMap<>();
+    // Summaries being computed, by session name
+    private final Map<String, CompletableFuture<SessionSummary>> pendingSummaries = new ConcurrentHashMap<>();
+    // Sessions whose summary could not be computed, until their files change
+    private final Set<String> unreadable = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile WatchService watchService;
+    private Thread watchThread;
+
+    public SessionIndex(Path recordingsDir) {
+        this.recordingsDir = recordingsDir;
+    }
+
+    /**
+     * Scan the recordings directory and start watching it for changes.
+     */
+    public synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            recordingsDir.toFile().mkdirs();
+            watchService = FileSystems.getDefault().newWatchService();
+            register(recordingsDir);
+        } catch (IOException e) {
+            System.err.println("Error watching recordings directory: " + e.getMessage());
+            watchService = null;
+        }
+        scan();
+        if (watchService != null) {
+            watchThread = new Thread(this::watchLoop, "SessionIndex");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+    }
+
+    /**
+     * Stop watching the recordings directory.
+     */
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing watch service: " + e.getMessage());
+        }
+        watchService = null;
+        watchThread = null;
+    }
+
+    public boolean isWatching() {
+        return watchService != null;
+    }
+
+    public Path getRecordingsDir() {
+        return recordingsDir;
+    }
+
+    /**
+     * Get the names of the recorded sessions, sorted.
+     * Without a running watcher the directory is rescanned on each call.
+     * @return The session names
+     */
+    public List<String> getSessionNames() {
+        if (watchService == null) {
+            scan();
+        }
+        List<String> names = new ArrayList<>(sessions);
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Get a session's summary, computing its sidecar if necessary. Computing it
+     * reads the whole session, so this is for background threads.
+     * @param sessionName The session name
+     * @return The summary, or null if the session does not exist or cannot be read
+     */
+    public SessionSummary getSummary(String sessionName) {
+        if (sessionName == null || !sessions.contains(sessionName)) {
+            return null;
+        }
+        SessionSummary summary = summaries.get(sessionName);
+        if (summary == null) {
+            summary = SessionSummary.load(recordingsDir.resolve(sessionName));
+            if (summary != null) {
+                summaries.put(sessionName, summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Get a session's summary if it is cached or its sidecar is up to date, without
+     * reading the session itself.
+     * @param sessionName The session name
+     * @return The summary, or null if it has to be computed
+     */
+    public SessionSummary getCachedSummary(String sessionName) {
+        if (sessionName == null || !sessions.contains(sessionName)) {
+            return null;
+        }
+        SessionSummary summary = summaries.get(sessionName);
+        if (summary == null) {
+            summary = SessionSummary.read(recordingsDir.resolve(sessionName));
+            if (summary != null) {
+                summaries.put(sessionName, summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Get a session's summary, computing a missing sidecar on the low-priority summary
+     * thread. Requests for a summary already being computed share its future, and a
+     * session that could not be read is not tried again until its files change.
+     * @param sessionName The session name
+     * @return A future completed with the summary, or null if the session does not exist or cannot be read
+     */
+    public CompletableFuture<SessionSummary> loadSummary(String sessionName) {
+        SessionSummary cached = getCachedSummary(sessionName);
+        if (cached != null || sessionName == null || !sessions.contains(sessionName)
+                || unreadable.contains(sessionName)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<SessionSummary> future = new CompletableFuture<>();
+        CompletableFuture<SessionSummary> pending = pendingSummaries.putIfAbsent(sessionName, future);
+        if (pending != null) {
+            return pending;
+        }
+        summaryExecutor.execute(() -> {
+            try {
+                SessionSummary summary = getSummary(sessionName);
+                if (summary == null) {
+                    unreadable.add(sessionName);
+                }
+                future.complete(summary);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                pendingSummaries.remove(sessionName, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get a session's query index, building its sidecar if necessary.
+     * @param sessionName The session name
+     * @return The index, or null if the session does not exist
+     * @throws IOException If the session cannot be read
+     */
+    public SessionQueryIndex getQueryIndex(String sessionName) throws IOException {
+        if (sessionName == null || !sessions.contains(sessionName)) {
+            return null;
+        }
+        SessionQueryIndex index = queryIndexes.get(sessionName);
+        if (index == null) {
+            index = SessionQueryIndex.load(recordingsDir.resolve(sessionName));
+            queryIndexes.put(sessionName, index);
+        }
+        return index;
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Rebuild the index from the directory contents.
+     */
+    public void scan() {
+        Set<String> found = ConcurrentHashMap.newKeySet();
+        File[] entries = recordingsDir.toFile().listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                if (entry.isDirectory()) {
+                    if (watchService != null) {
+                        register(entry.toPath());
+                    }
+                    if (isSession(entry.toPath())) {
+                        found.add(entry.getName());
+                    }
+                }
+            }
+        }
+        sessions.retainAll(found);
+        sessions.addAll(found);
+        summaries.keySet().retainAll(found);
+        queryIndexes.keySet().retainAll(found);
+        unreadable.retainAll(found);
+    }
+
+    private static boolean isSession(Path dir) {
+        return dir.resolve("data.json").toFile().exists() || SegmentedSession.isSegmented(dir);
+    }
+
+    private void register(Path dir) {
+        WatchService service = watchService;
+        if (service == null) {
+            return;
+        }
+        try {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.err.println("Error watching " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        while (service != null) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    scan();
+                    changed = true;
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                if (dir.equals(recordingsDir)) {
+                    changed |= sessionDirChanged(child);
+                } else if (isSessionFile(child.getFileName().toString())) {
+                    changed |= sessionDirChanged(dir);
+                }
+            }
+            key.reset();
+            if (changed) {
+                for (Runnable listener : listeners) {
+                    try {
+                        listener.run();
+                    } catch (Exception e) {
+                        System.err.println("Error in session index listener: " + e.getMessage());
+                    }
+                }
+            }
+            service = watchService;
+        }
+    }
+
+    /**
+     * Update the entry for a session directory.
+     * @return True if the index changed
+     */
+    private boolean sessionDirChanged(Path sessionDir) {
+        String name = sessionDir.getFileName().toString();
+        summaries.remove(name);
+        queryIndexes.remove(name);
+        unreadable.remove(name);
+        if (sessionDir.toFile().isDirectory()) {
+            register(sessionDir);
+            if (isSession(sessionDir)) {
+                sessions.add(name);
+                return true;
+            }
+        }
+        return sessions.remove(name);
+    }
+
+    private static boolean isSessionFile(String fileName) {
+        // The journal is rewritten continuously while recording and is not a session yet
+        return fileName.equals("data.json") || fileName.equals(BinarySessionFormat.FILE_NAME)
+                || fileName.equals(SessionSummary.FILE_NAME) || fileName.equals(SegmentedSession.MANIFEST_FILE);
+    }
+}
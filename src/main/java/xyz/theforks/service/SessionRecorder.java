@@ -0,0 +1,816 @@
+package xyz.theforks.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import xyz.theforks.model.BinarySessionFormat;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.SegmentedSession;
+import xyz.theforks.model.SessionSettings;
+import xyz.theforks.model.SessionSummary;
+
+/**
+ * Streams a recording to disk while it is being made.
+ *
+ * Records are handed over through a lock-free queue and appended by a background
+ * writer thread to a journal file ({@value #JOURNAL_FILE}) inside the session
+ * directory, one JSON object per line, with the journal flushed every
+ * {@link #FLUSH_INTERVAL_MS} milliseconds. Memory use stays constant no matter how
+ * long the recording runs, and a crash loses at most the last flush interval.
+ *
+ * When the recording is finished the writer thread writes what is still queued
+ * and closes the journal, which is then streamed into the regular data.json and
+ * deleted. Records handed over after that are counted as dropped. Journals left behind by a crash are turned into
+ * sessions by {@link #recoverJournals(Path)}.
+ *
+ * With a segment duration set, records are written straight into a
+ * {@link SegmentedSession} instead, rolling to a new segment file at each
+ * segment boundary, so there is no single file to convert at the end.
+ *
+ * With a memory budget set, records waiting for the writer are limited to the
+ * budget. If the writer falls behind (a slow disk, a long pause) further records
+ * are handed to a spill thread, which appends them to a spill file in the session
+ * directory, and the writer copies the spill file into the recording once it has
+ * caught up, so the recording stays in arrival order. The recording thread never
+ * does the I/O itself: records waiting for the spill thread are limited to the
+ * same budget, and beyond that, or if the spill file cannot be written, records
+ * are dropped and counted rather than held in memory.
+ */
+public class SessionRecorder {
+
+    public static final String JOURNAL_FILE = "recording.jsonl";
+    public static final String SETTINGS_FILE = "settings.json";
+    public static final long FLUSH_INTERVAL_MS = 500;
+    public static final String SPILL_PREFIX = "recording.spill-";
+    public static final String SPILL_SUFFIX = ".jsonl";
+    /**
+     * Rough retained size of a queued record (record, argument array and boxed
+     * values), not counting strings and blobs. Used to apply the memory budget.
+     */
+    public static final int ESTIMATED_BYTES_PER_RECORD = 200;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Flushing is done on the interval, not after every value
+    private static final ObjectWriter writer = objectMapper.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final String sessionName;
+    private final Path sessionDir;
+    private final long segmentDurationMs;
+    private final long startTime;
+    private final long startNanos;
+    // Offered to wake the writer or spill thread; never written
+    private static final OSCMessageRecord WAKE = new OSCMessageRecord("", new Object[0]);
+    // Offered to the spill thread to close its file and hand it to the writer; never written
+    private static final OSCMessageRecord ROTATE = new OSCMessageRecord("", new Object[0]);
+
+    private final LinkedTransferQueue<OSCMessageRecord> queue = new LinkedTransferQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // Calls to record() in progress; the writer waits for them before its last drain
+    private final AtomicInteger handoffs = new AtomicInteger();
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private Thread writerThread;
+    private IOException writerError;
+    private JsonGenerator journal;
+    private SegmentedSession.Writer segmentWriter;
+    private SessionSummary.Builder segmentSummary;
+    private SessionSettings settings;
+
+    // Memory budget for queued records, 0 for no limit
+    private volatile long memoryBudgetBytes;
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    // Guards the hand-over to the spill thread; records go to it while spilling is set
+    private final Object spillLock = new Object();
+    private volatile boolean spilling;
+    private final LinkedTransferQueue<OSCMessageRecord> spillQueue = new LinkedTransferQueue<>();
+    private final AtomicLong spillQueuedBytes = new AtomicLong();
+    // Records handed to the spill thread and not yet in the spill file
+    private final AtomicLong spillPending = new AtomicLong();
+    private Thread spillThread;
+    // Completed by the spill thread at ROTATE with the file it closed
+    private CompletableFuture<Path> rotation;
+    // Only used on the spill thread, or by the writer once it has stopped
+    private JsonGenerator spill;
+    private Path spillFile;
+    private int spillSequence;
+
+    /**
+     * Create a recorder for a session.
+     * @param sessionName The session name
+     * @param sessionDir Directory the session is stored in
+     */
+    public SessionRecorder(String sessionName, Path sessionDir) {
+        this(sessionName, sessionDir, 0);
+    }
+
+    /**
+     * Create a recorder for a session.
+     * @param sessionName The session name
+     * @param sessionDir Directory the session is stored in
+     * @param segmentDurationMs Length of each segment for segmented storage, or 0 for a single data.json
+     */
+    public SessionRecorder(String sessionName, Path sessionDir, long segmentDurationMs) {
+        this.sessionName = sessionName;
+        this.sessionDir = sessionDir;
+        this.segmentDurationMs = segmentDurationMs;
+        this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Open the journal and start the writer thread.
+     * @throws IOException If the journal cannot be created
+     */
+    public void start() throws IOException {
+        if (running.get()) {
+            return;
+        }
+
+        Files.createDirectories(sessionDir);
+        if (settings != null) {
+            objectMapper.writeValue(sessionDir.resolve(SETTINGS_FILE).toFile(), settings);
+        }
+        if (segmentDurationMs > 0) {
+            // Segments from an earlier recording with this name are replaced
+            SegmentedSession.delete(sessionDir);
+            segmentWriter = SegmentedSession.create(sessionDir, sessionName, startTime, segmentDurationMs).openWriter();
+            segmentSummary = new SessionSummary.Builder(sessionName, startTime);
+            startWriterThread();
+            return;
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(getJournalFile().toFile()), 64 * 1024);
+        journal = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        journal.setRootValueSeparator(null);
+
+        // Header line identifies the session
+        journal.writeStartObject();
+        journal.writeStringField("name", sessionName);
+        journal.writeNumberField("startTime", startTime);
+        journal.writeEndObject();
+        journal.writeRaw('\n');
+        journal.flush();
+        startWriterThread();
+    }
+
+    private void startWriterThread() {
+        running.set(true);
+        writerThread = new Thread(this::writeLoop);
+        writerThread.setDaemon(true);
+        writerThread.setName("SessionRecorder");
+        writerThread.start();
+    }
+
+    /**
+     * Set settings to store with the session, written to {@value #SETTINGS_FILE} when recording starts.
+     * @param settings The settings, or null to leave any existing settings file alone
+     */
+    public void setSettings(SessionSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Set a record's time from its monotonic receive time.
+     * The offset from the start of the recording is kept in nanoseconds, and the
+     * millisecond timestamp is derived from it so it is not affected by wall-clock steps.
+     * @param record The record
+     * @param receiveNanos System.nanoTime() taken when the message was received
+     */
+    public void stamp(OSCMessageRecord record, long receiveNanos) {
+        long offsetNanos = receiveNanos - startNanos;
+        record.setOffsetNanos(offsetNanos);
+        record.setTimestamp(startTime + Math.floorDiv(offsetNanos, 1_000_000L));
+    }
+
+    /**
+     * Limit the memory held by records waiting to be written.
+     * @param memoryBudgetBytes Approximate bytes of queued records, or 0 for no limit
+     */
+    public void setMemoryBudget(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = Math.max(0, memoryBudgetBytes);
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * Queue a record for writing, or spill it to disk if the queue is over the
+     * memory budget. Safe to call from any thread. Records handed over when the
+     * recorder is not running are dropped and counted.
+     * @param record The record
+     */
+    public void record(OSCMessageRecord record) {
+        recordedCount.incrementAndGet();
+        handoffs.incrementAndGet();
+        try {
+            if (!running.get()) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            enqueue(record);
+        } finally {
+            handoffs.decrementAndGet();
+        }
+    }
+
+    private void enqueue(OSCMessageRecord record) {
+        long size = estimateSize(record);
+        long budget = memoryBudgetBytes;
+        if (budget > 0 && (spilling || queuedBytes.get() + size > budget)) {
+            synchronized (spillLock) {
+                // Checked again now that the writer cannot be merging the spill file
+                if (spilling || queuedBytes.get() + size > budget) {
+                    spilling = true;
+                    handToSpill(record, size, budget);
+                    return;
+                }
+            }
+        }
+        queuedBytes.addAndGet(size);
+        queue.offer(record);
+    }
+
+    /**
+     * Estimate the heap retained by a queued record.
+     * @param record The record
+     * @return Approximate size in bytes
+     */
+    static long estimateSize(OSCMessageRecord record) {
+        long size = ESTIMATED_BYTES_PER_RECORD;
+        Object[] args = record.getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof String) {
+                    size += ((String) arg).length();
+                } else if (arg instanceof byte[]) {
+                    size += ((byte[]) arg).length;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Hand a record to the spill thread, starting it if needed, or drop it if the
+     * spill thread is a budget behind too. Called holding spillLock; never blocks.
+     */
+    private void handToSpill(OSCMessageRecord record, long size, long budget) {
+        if (spillQueuedBytes.get() + size > budget) {
+            if (droppedCount.getAndIncrement() == 0) {
+                System.err.println("Recording " + sessionName + " is too far behind, dropping messages");
+            }
+            return;
+        }
+        if (spillThread == null) {
+            spillThread = new Thread(this::spillLoop);
+            spillThread.setDaemon(true);
+            spillThread.setName("SessionRecorder-spill");
+            spillThread.start();
+        }
+        spillQueuedBytes.addAndGet(size);
+        spillPending.incrementAndGet();
+        spillQueue.offer(record);
+    }
+
+    private void spillLoop() {
+        while (true) {
+            OSCMessageRecord record;
+            try {
+                record = spillQueue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (record == WAKE) {
+                // Offered by the writer once nothing more can be handed over
+                closeSpill();
+                return;
+            }
+            if (record == ROTATE) {
+                Path file = spillFile;
+                closeSpill();
+                spillFile = null;
+                rotation.complete(file);
+                continue;
+            }
+            if (record == null) {
+                flushSpill();
+                continue;
+            }
+            spill(record);
+            spillQueuedBytes.addAndGet(-estimateSize(record));
+            if (spillPending.decrementAndGet() == 0) {
+                // Let the writer merge now rather than at its next flush
+                queue.offer(WAKE);
+            }
+        }
+    }
+
+    /**
+     * Append a record to the spill file, opening one if needed. Called on the spill thread.
+     */
+    private void spill(OSCMessageRecord record) {
+        try {
+            if (spill == null) {
+                spillFile = sessionDir.resolve(String.format("%s%05d%s", SPILL_PREFIX, ++spillSequence, SPILL_SUFFIX));
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(spillFile.toFile()), 64 * 1024);
+                spill = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+                spill.setRootValueSeparator(null);
+            }
+            writer.writeValue(spill, record);
+            spill.writeRaw('\n');
+            spilledCount.incrementAndGet();
+        } catch (IOException e) {
+            if (droppedCount.getAndIncrement() == 0) {
+                System.err.println("Recording buffer full and spill file failed, dropping messages: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushSpill() {
+        if (spill != null) {
+            try {
+                spill.flush();
+            } catch (IOException e) {
+                System.err.println("Error flushing spill file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeSpill() {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                System.err.println("Error closing spill file: " + e.getMessage());
+            }
+            spill = null;
+        }
+    }
+
+    /**
+     * Copy the spill file, if any, into the recording. Called by the writer; does
+     * nothing until the queue is empty and the spill thread has written everything
+     * handed to it, so records queued after this are newer than the whole file.
+     */
+    private void mergeSpill() throws IOException {
+        if (!spilling) {
+            return;
+        }
+        CompletableFuture<Path> rotated = null;
+        synchronized (spillLock) {
+            if (!spilling || spillPending.get() > 0 || !queue.isEmpty()) {
+                return;
+            }
+            // New records queue again; any spilled from now go to a new file
+            spilling = false;
+            if (spillThread != null) {
+                rotated = new CompletableFuture<>();
+                rotation = rotated;
+                spillQueue.offer(ROTATE);
+            }
+        }
+        Path file;
+        if (rotated != null) {
+            // The spill thread closes the file, so the lock is never held over disk I/O
+            file = rotated.join();
+        } else {
+            // The spill thread has stopped and closed its file, or never started
+            file = spillFile;
+            spillFile = null;
+        }
+        if (file == null) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (segmentWriter != null) {
+                    JsonNode recordNode = objectMapper.readTree(line);
+                    segmentWriter.writeLine(line, recordNode.path("timestamp").asLong());
+                    summarize(segmentSummary, recordNode);
+                } else {
+                    journal.writeRaw(line);
+                    journal.writeRaw('\n');
+                }
+                writtenCount.incrementAndGet();
+            }
+        }
+        Files.delete(file);
+    }
+
+    /**
+     * Let the spill thread write what it has been handed, then stop it.
+     * Called by the writer once no more records can be handed over.
+     */
+    private void stopSpillThread() {
+        Thread thread;
+        synchronized (spillLock) {
+            thread = spillThread;
+            spillThread = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        spillQueue.offer(WAKE);
+        while (true) {
+            try {
+                thread.join();
+                return;
+            } catch (InterruptedException e) {
+                // Only finish() stops the writer
+            }
+        }
+    }
+
+    private void writeLoop() {
+        long lastFlush = System.nanoTime();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+        while (running.get()) {
+            try {
+                long untilFlush = flushIntervalNanos - (System.nanoTime() - lastFlush);
+                OSCMessageRecord first = queue.poll(Math.max(0, untilFlush), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    write(first);
+                }
+                drainQueue();
+                // Caught up: bring back anything spilled while behind
+                mergeSpill();
+                long now = System.nanoTime();
+                if (now - lastFlush >= flushIntervalNanos) {
+                    flush();
+                    lastFlush = now;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                System.err.println("SessionRecorder error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        // Stopped: write what recording threads already handed over, then close
+        try {
+            while (handoffs.get() > 0) {
+                Thread.onSpinWait();
+            }
+            stopSpillThread();
+            // Queued records are older than anything in the spill file
+            drainQueue();
+            mergeSpill();
+            if (segmentWriter != null) {
+                segmentWriter.close();
+            } else {
+                journal.close();
+            }
+        } catch (IOException e) {
+            writerError = e;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (segmentWriter != null) {
+            segmentWriter.flush();
+        } else {
+            journal.flush();
+        }
+    }
+
+    private void drainQueue() throws IOException {
+        OSCMessageRecord record;
+        while ((record = queue.poll()) != null) {
+            write(record);
+        }
+    }
+
+    private void write(OSCMessageRecord record) throws IOException {
+        if (record == WAKE) {
+            return;
+        }
+        queuedBytes.addAndGet(-estimateSize(record));
+        if (segmentWriter != null) {
+            segmentWriter.write(record);
+            segmentSummary.add(record);
+        } else {
+            writer.writeValue(journal, record);
+            journal.writeRaw('\n');
+        }
+        writtenCount.incrementAndGet();
+    }
+
+    /**
+     * Stop recording, write any queued records and convert the journal into data.json,
+     * or close the last segment of a segmented recording.
+     * @return The number of messages in the finished session
+     * @throws IOException If writing fails
+     */
+    public long finish() throws IOException {
+        if (!running.getAndSet(false)) {
+            return writtenCount.get();
+        }
+        // The writer does the last writes itself, so the journal is only ever used on its thread
+        queue.offer(WAKE);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writerThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        if (writerError != null) {
+            throw writerError;
+        }
+
+        if (spilledCount.get() > 0) {
+            System.out.println("Recording " + sessionName + " spilled " + spilledCount.get()
+                    + " messages to disk while the writer was behind");
+        }
+        if (droppedCount.get() > 0) {
+            System.err.println("Recording " + sessionName + " dropped " + droppedCount.get() + " messages");
+        }
+        if (segmentWriter != null) {
+            segmentWriter = null;
+            // A single-file copy from an earlier recording with this name is now stale
+            Files.deleteIfExists(sessionDir.resolve("data.json"));
+            Files.deleteIfExists(sessionDir.resolve(BinarySessionFormat.FILE_NAME));
+            segmentSummary.build().write(sessionDir);
+            return writtenCount.get();
+        }
+        journal = null;
+
+        return finishJournal(sessionDir);
+    }
+
+    /**
+     * Stream a journal into the session's data.json and delete the journal.
+     * A truncated last line, as left by a crash, is ignored.
+     * @param sessionDir The session directory containing the journal
+     * @return The number of messages written
+     * @throws IOException If the journal cannot be read or data.json cannot be written
+     */
+    static long finishJournal(Path sessionDir) throws IOException {
+        Path journalFile = sessionDir.resolve(JOURNAL_FILE);
+        Path dataFile = sessionDir.resolve("data.json");
+        Path tempFile = sessionDir.resolve("data.json.tmp");
+        JsonFactory factory = objectMapper.getFactory();
+        SessionSummary.Builder summary;
+        long count = 0;
+        List<Path> spillFiles = findSpillFiles(sessionDir);
+
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8);
+             JsonGenerator out = factory.createGenerator(tempFile.toFile(), JsonEncoding.UTF8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("Empty recording journal: " + journalFile);
+            }
+            JsonNode headerNode = objectMapper.readTree(header);
+            String name = headerNode.path("name").asText(sessionDir.getFileName().toString());
+            long startTime = headerNode.path("startTime").asLong();
+            summary = new SessionSummary.Builder(name, startTime);
+
+            out.writeStartObject();
+            out.writeStringField("name", name);
+            out.writeNumberField("startTime", startTime);
+            out.writeArrayFieldStart("messages");
+
+            count += copyRecords(reader, journalFile, out, summary);
+            // Records spilled by a recording that did not finish come after the journal
+            for (Path spillFile : spillFiles) {
+                try (BufferedReader spillReader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                    count += copyRecords(spillReader, spillFile, out, summary);
+                }
+            }
+
+            out.writeEndArray();
+            out.writeEndObject();
+        }
+
+        Files.move(tempFile, dataFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(journalFile);
+        for (Path spillFile : spillFiles) {
+            Files.delete(spillFile);
+        }
+        // A binary copy from an earlier recording with this name is now stale
+        Files.deleteIfExists(sessionDir.resolve(BinarySessionFormat.FILE_NAME));
+        SegmentedSession.delete(sessionDir);
+        summary.build().write(sessionDir);
+        return count;
+    }
+
+    /**
+     * Copy the records of a journal or spill file into data.json.
+     * A truncated last line, as left by a crash, ends the copy.
+     */
+    private static long copyRecords(BufferedReader reader, Path file, JsonGenerator out,
+                                    SessionSummary.Builder summary) throws IOException {
+        long count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            // Validate the whole line first so a torn write does not corrupt the output
+            JsonNode recordNode;
+            try {
+                recordNode = objectMapper.readTree(line);
+            } catch (IOException e) {
+                System.err.println("Skipping truncated journal entry in " + file);
+                break;
+            }
+            if (recordNode.isObject()) {
+                writer.writeValue(out, recordNode);
+                summarize(summary, recordNode);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add the records of a file of complete JSON lines to a summary.
+     */
+    private static void summarizeLines(Path file, SessionSummary.Builder summary) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    summarize(summary, objectMapper.readTree(line));
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the spill files in a session directory, oldest first.
+     */
+    static List<Path> findSpillFiles(Path sessionDir) {
+        List<Path> spillFiles = new ArrayList<>();
+        File[] files = sessionDir.toFile().listFiles(
+                (dir, name) -> name.startsWith(SPILL_PREFIX) && name.endsWith(SPILL_SUFFIX));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                spillFiles.add(file.toPath());
+            }
+        }
+        return spillFiles;
+    }
+
+    private static void summarize(SessionSummary.Builder summary, JsonNode recordNode) {
+        SessionSummary.AddressStats stats = summary.message(recordNode.path("address").asText(),
+                recordNode.path("timestamp").asLong(), recordNode.path("types").asText(null));
+        JsonNode arguments = recordNode.path("arguments");
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i).isNumber()) {
+                stats.include(i, arguments.get(i).asDouble());
+            }
+        }
+    }
+
+    /**
+     * Turn journals and segmented recordings left behind by interrupted recordings into sessions.
+     * @param recordingsDir The recordings directory to scan
+     * @return Names of the recovered sessions
+     */
+    public static List<String> recoverJournals(Path recordingsDir) {
+        List<String> recovered = new ArrayList<>();
+        File[] entries = recordingsDir.toFile().listFiles();
+        if (entries == null) {
+            return recovered;
+        }
+        for (File entry : entries) {
+            if (entry.isDirectory() && new File(entry, JOURNAL_FILE).exists()) {
+                try {
+                    long count = finishJournal(entry.toPath());
+                    System.out.println("Recovered recording " + entry.getName() + ": " + count + " messages");
+                    recovered.add(entry.getName());
+                } catch (IOException e) {
+                    System.err.println("Error recovering recording " + entry.getName() + ": " + e.getMessage());
+                }
+            } else if (entry.isDirectory() && SegmentedSession.isInterrupted(entry.toPath())) {
+                try {
+                    // Records spilled by a recording that stopped while behind come after the segments
+                    List<Path> spillFiles = findSpillFiles(entry.toPath());
+                    SegmentedSession session = SegmentedSession.recover(entry.toPath(), spillFiles);
+                    for (Path spillFile : spillFiles) {
+                        Files.delete(spillFile);
+                    }
+                    SessionSummary.Builder summary = new SessionSummary.Builder(
+                            session.getManifest().getName(), session.getManifest().getStartTime());
+                    for (int i = 0; i < session.getSegmentCount(); i++) {
+                        summarizeLines(session.getSegmentFile(i), summary);
+                    }
+                    summary.build().write(entry.toPath());
+                    System.out.println("Recovered recording " + entry.getName() + ": "
+                            + session.getMessageCount() + " messages");
+                    recovered.add(entry.getName());
+                } catch (IOException e) {
+                    System.err.println("Error recovering recording " + entry.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+        return recovered;
+    }
+
+    public Path getJournalFile() {
+        return sessionDir.resolve(JOURNAL_FILE);
+    }
+
+    public String getSessionName() {
+        return sessionName;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Get the System.nanoTime() value the recording's offsets are measured from.
+     * @return The start time in nanoseconds
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Get the number of records handed to the recorder.
+     * @return The recorded count
+     */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * Get the number of records written to the journal so far.
+     * @return The written count
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Get the number of records written to a spill file because the queue was over budget.
+     * @return The spilled count
+     */
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * Get the number of records lost because they could be neither queued nor spilled,
+     * or were handed over when the recorder was not running.
+     * @return The dropped count
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Get the approximate memory held by records waiting to be written.
+     * @return Bytes, as estimated by {@link #estimateSize(OSCMessageRecord)}
+     */
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+}
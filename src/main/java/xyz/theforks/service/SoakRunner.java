@@ -0,0 +1,405 @@
+package xyz.theforks.service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.illposed.osc.messageselector.OSCPatternAddressMessageSelector;
+import com.illposed.osc.transport.OSCPortIn;
+import com.illposed.osc.transport.OSCPortInBuilder;
+import com.illposed.osc.transport.OSCPortOut;
+import com.illposed.osc.transport.OSCPortOutBuilder;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.nodes.NodeChain;
+
+/**
+ * SoakRunner - Runs the proxy under sustained traffic and watches for leaks.
+ *
+ * The proxy is started on the loopback interface with its outputs sending to
+ * local sinks, and {@link OSCLoadGenerator} drives it for the whole run with
+ * traffic spread over a large address space, so weeks of an installation's
+ * message volume and address churn pass in hours. At every sample the heap is
+ * measured after a full collection, along with the thread count and the depth
+ * of the proxy's queues.
+ *
+ * After a warm-up share of the samples, during which caches and buffers fill
+ * up to their limits, a least-squares trend is fitted to each measurement.
+ * The run fails when the heap or a queue keeps growing faster than its limit,
+ * or when threads are added and not released.
+ */
+public class SoakRunner {
+
+    public static final long DEFAULT_DURATION_MS = 60 * 60 * 1000L;
+    public static final long DEFAULT_SAMPLE_INTERVAL_MS = 30_000;
+    public static final double DEFAULT_WARMUP_FRACTION = 0.2;
+    public static final double DEFAULT_RATE = 20_000;
+    public static final int DEFAULT_ADDRESSES = 100_000;
+    public static final double DEFAULT_MAX_HEAP_GROWTH_MB_PER_HOUR = 20;
+    public static final int DEFAULT_MAX_THREAD_GROWTH = 2;
+    public static final double DEFAULT_MAX_QUEUE_GROWTH_PER_HOUR = 1000;
+    // Message rate of a typical installation, for expressing a run as time in the field
+    public static final double REFERENCE_RATE = 100;
+
+    private static final String HOST = "127.0.0.1";
+
+    private int outputs = 1;
+    private NodeChainConfig chainConfig;
+    private boolean record;
+    private long durationMs = DEFAULT_DURATION_MS;
+    private long sampleIntervalMs = DEFAULT_SAMPLE_INTERVAL_MS;
+    private double warmupFraction = DEFAULT_WARMUP_FRACTION;
+    private double rate = DEFAULT_RATE;
+    private int addresses = DEFAULT_ADDRESSES;
+    private double maxHeapGrowthMBPerHour = DEFAULT_MAX_HEAP_GROWTH_MB_PER_HOUR;
+    private int maxThreadGrowth = DEFAULT_MAX_THREAD_GROWTH;
+    private double maxQueueGrowthPerHour = DEFAULT_MAX_QUEUE_GROWTH_PER_HOUR;
+
+    public void setOutputs(int outputs) {
+        this.outputs = Math.max(1, outputs);
+    }
+
+    /**
+     * @param chainConfig Chain every output runs, or null for none
+     */
+    public void setChain(NodeChainConfig chainConfig) {
+        this.chainConfig = chainConfig;
+    }
+
+    /**
+     * @param record Whether to record the input for the whole run, exercising the recorder
+     */
+    public void setRecord(boolean record) {
+        this.record = record;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = Math.max(1, durationMs);
+    }
+
+    public void setSampleIntervalMs(long sampleIntervalMs) {
+        this.sampleIntervalMs = Math.max(1, sampleIntervalMs);
+    }
+
+    /**
+     * @param warmupFraction Share of the samples at the start left out of the trends
+     */
+    public void setWarmupFraction(double warmupFraction) {
+        this.warmupFraction = Math.min(0.9, Math.max(0, warmupFraction));
+    }
+
+    /**
+     * @param rate Messages per second to send
+     * @param addresses Number of distinct addresses the traffic cycles through
+     */
+    public void setTraffic(double rate, int addresses) {
+        this.rate = rate;
+        this.addresses = Math.max(1, addresses);
+    }
+
+    public void setMaxHeapGrowthMBPerHour(double maxHeapGrowthMBPerHour) {
+        this.maxHeapGrowthMBPerHour = maxHeapGrowthMBPerHour;
+    }
+
+    public void setMaxThreadGrowth(int maxThreadGrowth) {
+        this.maxThreadGrowth = maxThreadGrowth;
+    }
+
+    public void setMaxQueueGrowthPerHour(double maxQueueGrowthPerHour) {
+        this.maxQueueGrowthPerHour = maxQueueGrowthPerHour;
+    }
+
+    /**
+     * Run the soak test for its duration.
+     * @return The samples, trends and any limits exceeded
+     * @throws IOException If a socket cannot be opened
+     * @throws InterruptedException If interrupted while sampling
+     */
+    public Result run() throws IOException, InterruptedException {
+        Result result = new Result(durationMs, sampleIntervalMs, rate, addresses);
+        OSCProxyService proxy = new OSCProxyService();
+        List<OSCPortIn> sinks = new ArrayList<>();
+        AtomicLong received = new AtomicLong();
+        OSCPortOut sender = null;
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        Thread generatorThread = null;
+        try {
+            int inPort = freePort();
+            proxy.setInHost(HOST);
+            proxy.setInPort(inPort);
+            for (int i = 0; i < outputs; i++) {
+                int sinkPort = freePort();
+                OSCPortIn sink = new OSCPortInBuilder()
+                        .setPort(sinkPort)
+                        .setLocalSocketAddress(new InetSocketAddress(HOST, sinkPort))
+                        .build();
+                sink.getDispatcher().addListener(new OSCPatternAddressMessageSelector("//"),
+                        event -> received.incrementAndGet());
+                sink.startListening();
+                sinks.add(sink);
+
+                OSCOutputService output = i == 0 ? proxy.getOutputService() : new OSCOutputService("soak-" + (i + 1));
+                output.setOutHost(HOST);
+                output.setOutPort(sinkPort);
+                output.setEnabled(true);
+                if (i > 0) {
+                    proxy.addOutput(output);
+                }
+                if (chainConfig != null) {
+                    output.getNodeChain().setNodes(NodeChain.fromConfig(NodeChain.Context.PROXY, chainConfig).getNodes());
+                }
+            }
+            proxy.startProxy();
+            if (record) {
+                proxy.startRecording("soak-" + java.time.LocalDateTime.now()
+                        .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            }
+
+            sender = new OSCPortOutBuilder()
+                    .setRemoteSocketAddress(new InetSocketAddress(HOST, inPort))
+                    .build();
+            OSCPortOut generatorSender = sender;
+            generator.setAddresses("/soak/%d", addresses);
+            generator.setArgumentTypes("f");
+            generator.setRate(rate);
+            generator.setDurationMs(durationMs);
+            OSCLoadGenerator.Stats[] stats = new OSCLoadGenerator.Stats[1];
+            generatorThread = new Thread(() -> {
+                try {
+                    stats[0] = generator.run(generatorSender::send);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "soak-generator");
+            generatorThread.setDaemon(true);
+
+            long started = System.currentTimeMillis();
+            generatorThread.start();
+            for (long next = sampleIntervalMs; next <= durationMs; next += sampleIntervalMs) {
+                long wait = started + next - System.currentTimeMillis();
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                }
+                result.samples.add(sample(System.currentTimeMillis() - started, proxy, received.get()));
+            }
+            generator.stop();
+            generatorThread.join();
+            if (stats[0] != null) {
+                result.messagesSent = stats[0].getSent();
+            }
+            result.messagesReceived = received.get();
+        } finally {
+            generator.stop();
+            if (record) {
+                proxy.stopRecording();
+            }
+            if (sender != null) {
+                sender.close();
+            }
+            proxy.stopProxy();
+            for (OSCPortIn sink : sinks) {
+                try {
+                    sink.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing soak sink: " + e.getMessage());
+                }
+            }
+        }
+        evaluate(result);
+        return result;
+    }
+
+    private static Sample sample(long elapsedMs, OSCProxyService proxy, long received) {
+        Sample sample = new Sample(elapsedMs);
+        sample.heapBytes = heapAfterGc();
+        sample.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        ProxyDelayProcessor delayProcessor = proxy.getOutputService().getDelayProcessor();
+        sample.delayQueue = delayProcessor != null ? delayProcessor.getQueueSize() : 0;
+        CaptureBuffer capture = proxy.getCaptureBuffer();
+        sample.captureMessages = capture != null ? capture.size() : 0;
+        SessionRecorder recorder = proxy.getCurrentRecorder();
+        sample.recorderQueuedBytes = recorder != null ? recorder.getQueuedBytes() : 0;
+        sample.ioPending = SessionIO.getInstance().getPendingCount();
+        sample.received = received;
+        return sample;
+    }
+
+    /**
+     * Heap in use after a full collection: what is actually retained.
+     */
+    private static long heapAfterGc() {
+        System.gc();
+        long retained = 0;
+        boolean supported = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    retained += usage.getUsed();
+                    supported = true;
+                }
+            }
+        }
+        return supported ? retained : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Fit trends to the samples after warm-up and check them against the limits.
+     */
+    void evaluate(Result result) {
+        List<Sample> samples = result.samples;
+        int skip = (int) Math.floor(samples.size() * warmupFraction);
+        List<Sample> steady = samples.subList(Math.min(skip, samples.size()), samples.size());
+        if (steady.size() < 3) {
+            result.failures.add("Too few samples after warm-up to fit trends: " + steady.size());
+            return;
+        }
+        result.heapGrowthMBPerHour = slopePerHour(steady, s -> s.heapBytes) / (1024 * 1024);
+        result.delayQueueGrowthPerHour = slopePerHour(steady, s -> s.delayQueue);
+        result.recorderQueueGrowthPerHour = slopePerHour(steady, s -> s.recorderQueuedBytes);
+        int firstThreads = steady.get(0).threads;
+        for (Sample sample : steady) {
+            result.threadGrowth = Math.max(result.threadGrowth, sample.threads - firstThreads);
+        }
+
+        if (result.heapGrowthMBPerHour > maxHeapGrowthMBPerHour) {
+            result.failures.add(String.format("Heap grows %.1f MB/hour, limit %.1f",
+                    result.heapGrowthMBPerHour, maxHeapGrowthMBPerHour));
+        }
+        if (result.threadGrowth > maxThreadGrowth) {
+            result.failures.add(String.format("Thread count grew by %d, limit %d", result.threadGrowth, maxThreadGrowth));
+        }
+        if (result.delayQueueGrowthPerHour > maxQueueGrowthPerHour) {
+            result.failures.add(String.format("Delay queue grows %.0f messages/hour, limit %.0f",
+                    result.delayQueueGrowthPerHour, maxQueueGrowthPerHour));
+        }
+        if (result.recorderQueueGrowthPerHour > maxQueueGrowthPerHour * SessionRecorder.ESTIMATED_BYTES_PER_RECORD) {
+            result.failures.add(String.format("Recorder queue grows %.0f bytes/hour, limit %.0f",
+                    result.recorderQueueGrowthPerHour, maxQueueGrowthPerHour * SessionRecorder.ESTIMATED_BYTES_PER_RECORD));
+        }
+    }
+
+    /**
+     * Least-squares slope of a measurement against time, per hour.
+     */
+    static double slopePerHour(List<Sample> samples, ToDoubleFunction<Sample> value) {
+        int n = samples.size();
+        double meanT = 0;
+        double meanV = 0;
+        for (Sample sample : samples) {
+            meanT += sample.elapsedMs;
+            meanV += value.applyAsDouble(sample);
+        }
+        meanT /= n;
+        meanV /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (Sample sample : samples) {
+            double dt = sample.elapsedMs - meanT;
+            covariance += dt * (value.applyAsDouble(sample) - meanV);
+            variance += dt * dt;
+        }
+        return variance > 0 ? covariance / variance * 3_600_000.0 : 0;
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getByName(HOST))) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Measurements taken at one point in the run.
+     */
+    @JsonPropertyOrder({"elapsedMs", "heapBytes", "threads", "delayQueue", "captureMessages",
+            "recorderQueuedBytes", "ioPending", "received"})
+    public static class Sample {
+        private final long elapsedMs;
+        private long heapBytes;
+        private int threads;
+        private int delayQueue;
+        private int captureMessages;
+        private long recorderQueuedBytes;
+        private int ioPending;
+        private long received;
+
+        Sample(long elapsedMs) {
+            this.elapsedMs = elapsedMs;
+        }
+
+        Sample(long elapsedMs, long heapBytes, int threads, int delayQueue) {
+            this.elapsedMs = elapsedMs;
+            this.heapBytes = heapBytes;
+            this.threads = threads;
+            this.delayQueue = delayQueue;
+        }
+
+        public long getElapsedMs() { return elapsedMs; }
+        /** @return Heap retained after a full collection */
+        public long getHeapBytes() { return heapBytes; }
+        public int getThreads() { return threads; }
+        /** @return Messages waiting in the proxy's delay processor */
+        public int getDelayQueue() { return delayQueue; }
+        /** @return Messages held by the retroactive capture buffer */
+        public int getCaptureMessages() { return captureMessages; }
+        public long getRecorderQueuedBytes() { return recorderQueuedBytes; }
+        /** @return Tasks waiting on the session I/O thread */
+        public int getIoPending() { return ioPending; }
+        /** @return Messages the sinks have received so far */
+        public long getReceived() { return received; }
+    }
+
+    /**
+     * Outcome of a soak run.
+     */
+    @JsonPropertyOrder({"passed", "failures", "durationMs", "sampleIntervalMs", "rate", "addresses",
+            "messagesSent", "messagesReceived", "equivalentHours", "heapGrowthMBPerHour", "threadGrowth",
+            "delayQueueGrowthPerHour", "recorderQueueGrowthPerHour", "samples"})
+    public static class Result {
+        private final long durationMs;
+        private final long sampleIntervalMs;
+        private final double rate;
+        private final int addresses;
+        private long messagesSent;
+        private long messagesReceived;
+        private double heapGrowthMBPerHour;
+        private int threadGrowth;
+        private double delayQueueGrowthPerHour;
+        private double recorderQueueGrowthPerHour;
+        private final List<String> failures = new ArrayList<>();
+        private final List<Sample> samples = new ArrayList<>();
+
+        Result(long durationMs, long sampleIntervalMs, double rate, int addresses) {
+            this.durationMs = durationMs;
+            this.sampleIntervalMs = sampleIntervalMs;
+            this.rate = rate;
+            this.addresses = addresses;
+        }
+
+        public boolean isPassed() { return failures.isEmpty(); }
+        public List<String> getFailures() { return failures; }
+        public long getDurationMs() { return durationMs; }
+        public long getSampleIntervalMs() { return sampleIntervalMs; }
+        public double getRate() { return rate; }
+        public int getAddresses() { return addresses; }
+        public long getMessagesSent() { return messagesSent; }
+        public long getMessagesReceived() { return messagesReceived; }
+        /** @return Hours an installation at {@link SoakRunner#REFERENCE_RATE} messages/s takes to see this traffic */
+        public double getEquivalentHours() { return messagesSent / REFERENCE_RATE / 3600; }
+        public double getHeapGrowthMBPerHour() { return heapGrowthMBPerHour; }
+        public int getThreadGrowth() { return threadGrowth; }
+        public double getDelayQueueGrowthPerHour() { return delayQueueGrowthPerHour; }
+        public double getRecorderQueueGrowthPerHour() { return recorderQueueGrowthPerHour; }
+        public List<Sample> getSamples() { return samples; }
+    }
+}
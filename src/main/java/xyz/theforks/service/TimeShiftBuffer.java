@@ -0,0 +1,244 @@
+package xyz.theforks.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.util.Clock;
+
+/**
+ * DVR-style time-shift buffer for the live input stream.
+ *
+ * Incoming messages are stored in a fixed-size {@link MessageRing} together with
+ * their receive time and are played out {@code offsetMs} later on a dedicated
+ * thread. The offset can be changed while running to scrub through the buffered
+ * history: increasing it rewinds and replays messages that were already played,
+ * decreasing it skips ahead towards live.
+ *
+ * Memory use is fixed by the capacity. If the input outruns the playout position
+ * by more than the capacity, the oldest unplayed messages are overwritten and
+ * counted as dropped.
+ *
+ * Times are milliseconds of the clock's monotonic time, not wall-clock time, so
+ * a clock step cannot reorder the buffer or stall playout.
+ */
+public class TimeShiftBuffer {
+    private final MessageRing ring;
+    private final AtomicBoolean running;
+    private final Clock clock;
+    private long offsetMs;
+    private long readSequence;
+    private long droppedCount;
+    private Thread playoutThread;
+
+    /**
+     * Create a time-shift buffer.
+     * @param capacity Maximum number of buffered messages
+     * @param offsetMs Initial playout offset in milliseconds
+     */
+    public TimeShiftBuffer(int capacity, long offsetMs) {
+        this(capacity, offsetMs, Clock.getDefault());
+    }
+
+    /**
+     * Create a time-shift buffer.
+     * @param capacity Maximum number of buffered messages
+     * @param offsetMs Initial playout offset in milliseconds
+     * @param clock Clock messages are stamped and played out on
+     */
+    public TimeShiftBuffer(int capacity, long offsetMs, Clock clock) {
+        if (offsetMs < 0) {
+            throw new IllegalArgumentException("Offset must be non-negative");
+        }
+        this.ring = new MessageRing(capacity);
+        this.running = new AtomicBoolean(false);
+        this.offsetMs = offsetMs;
+        this.clock = clock;
+    }
+
+    private long now() {
+        return clock.nanoTime() / 1_000_000L;
+    }
+
+    /**
+     * Start the playout thread.
+     * @param sink Receives each message when its shifted time is reached
+     */
+    public void start(Consumer<OSCMessage> sink) {
+        if (running.get()) {
+            return;
+        }
+
+        running.set(true);
+        playoutThread = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    OSCMessage message;
+                    synchronized (this) {
+                        long now = now();
+                        message = pollReady(now);
+                        if (message == null) {
+                            long due = nextDueTime();
+                            if (due == Long.MAX_VALUE) {
+                                wait();
+                            } else {
+                                wait(Math.max(1, due - now));
+                            }
+                            continue;
+                        }
+                    }
+                    sink.accept(message);
+                } catch (InterruptedException e) {
+                    break;
+                } catch (Exception e) {
+                    System.err.println("TimeShiftBuffer error: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        });
+
+        playoutThread.setDaemon(true);
+        playoutThread.setName("TimeShiftPlayout");
+        playoutThread.start();
+    }
+
+    /**
+     * Stop the playout thread. Buffered messages are kept.
+     */
+    public void stop() {
+        running.set(false);
+        if (playoutThread != null) {
+            playoutThread.interrupt();
+            try {
+                playoutThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            playoutThread = null;
+        }
+    }
+
+    /**
+     * Buffer a message received now.
+     * @param message The message
+     */
+    public void add(OSCMessage message) {
+        add(message, now());
+    }
+
+    /**
+     * Buffer a message with an explicit receive time.
+     * @param message The message
+     * @param timestamp Receive time in milliseconds of monotonic time
+     */
+    public synchronized void add(OSCMessage message, long timestamp) {
+        ring.add(message, timestamp);
+        long oldest = ring.getOldestSequence();
+        if (readSequence < oldest) {
+            droppedCount += oldest - readSequence;
+            readSequence = oldest;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Take the next message whose shifted time has been reached.
+     * @param now The current monotonic time in milliseconds
+     * @return The message, or null if nothing is due yet
+     */
+    public synchronized OSCMessage pollReady(long now) {
+        if (readSequence < ring.getOldestSequence()) {
+            readSequence = ring.getOldestSequence();
+        }
+        if (readSequence >= ring.getNextSequence()) {
+            return null;
+        }
+        if (ring.getTimestamp(readSequence) + offsetMs > now) {
+            return null;
+        }
+        return ring.getMessage(readSequence++);
+    }
+
+    /**
+     * Get the time at which the next unplayed message becomes due.
+     * @return The due time in monotonic milliseconds, or Long.MAX_VALUE if nothing is pending
+     */
+    public synchronized long nextDueTime() {
+        long sequence = Math.max(readSequence, ring.getOldestSequence());
+        if (sequence >= ring.getNextSequence()) {
+            return Long.MAX_VALUE;
+        }
+        return ring.getTimestamp(sequence) + offsetMs;
+    }
+
+    /**
+     * Change the playout offset, scrubbing the playout position.
+     * The next message played is the first one received after {@code now - offsetMs}.
+     * @param offsetMs The new offset in milliseconds
+     */
+    public void setOffsetMs(long offsetMs) {
+        setOffsetMs(offsetMs, now());
+    }
+
+    /**
+     * Change the playout offset relative to an explicit current time.
+     * @param offsetMs The new offset in milliseconds
+     * @param now The current monotonic time in milliseconds
+     */
+    public synchronized void setOffsetMs(long offsetMs, long now) {
+        if (offsetMs < 0) {
+            throw new IllegalArgumentException("Offset must be non-negative");
+        }
+        this.offsetMs = offsetMs;
+        this.readSequence = ring.findFirstAfter(now - offsetMs);
+        notifyAll();
+    }
+
+    public synchronized long getOffsetMs() {
+        return offsetMs;
+    }
+
+    /**
+     * Get the span of input history currently buffered.
+     * @return Milliseconds between the oldest and newest buffered message
+     */
+    public synchronized long getBufferedDurationMs() {
+        if (ring.isEmpty()) {
+            return 0;
+        }
+        return ring.getTimestamp(ring.getNextSequence() - 1) - ring.getTimestamp(ring.getOldestSequence());
+    }
+
+    /**
+     * Get the number of buffered messages not yet played.
+     * @return The pending message count
+     */
+    public synchronized int getPendingCount() {
+        return (int) (ring.getNextSequence() - Math.max(readSequence, ring.getOldestSequence()));
+    }
+
+    /**
+     * Get the number of messages overwritten before they were played.
+     * @return The dropped message count
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Discard all buffered messages.
+     */
+    public synchronized void clear() {
+        ring.clear();
+        readSequence = ring.getNextSequence();
+    }
+}
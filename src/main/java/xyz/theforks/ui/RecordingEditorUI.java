@@ -14,11 +14,12 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.ionicons4.Ionicons4IOS;
+import xyz.theforks.model.ColumnarSession;
 import xyz.theforks.model.OSCMessageRecord;
 import xyz.theforks.model.RecordingSession;
 import xyz.theforks.service.OSCProxyService;
+import xyz.theforks.service.SessionIO;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -34,7 +35,7 @@ public class RecordingEditorUI extends VBox {
     private TableView<MessageRow> messagesTable;
     private ObservableList<MessageRow> messageData;
 
-    private RecordingSession currentSession;
+    private ColumnarSession currentSession;
     private String currentSessionName;
 
     public RecordingEditorUI(OSCProxyService proxyService, TextArea logArea, Runnable onSessionsChanged) {
@@ -179,25 +180,34 @@ public class RecordingEditorUI extends VBox {
             currentSessionName = null;
             messageData.clear();
         } else {
-            // Load selected recording
-            try {
-                currentSession = RecordingSession.loadSession(selected);
+            // Load selected recording on the session I/O thread
+            SessionIO.getInstance().loadColumnar(selected).whenComplete((session, error) -> Platform.runLater(() -> {
+                if (!selected.equals(recordingComboBox.getValue())) {
+                    // Another recording was selected while this one loaded
+                    return;
+                }
+                if (error != null) {
+                    String message = SessionIO.unwrap(error).getMessage();
+                    log("Error loading recording: " + message);
+                    showError("Error Loading Recording", message);
+                    return;
+                }
+                currentSession = session;
                 currentSessionName = selected;
                 loadMessages();
                 log("Loaded recording: " + selected);
-            } catch (IOException ex) {
-                log("Error loading recording: " + ex.getMessage());
-                showError("Error Loading Recording", ex.getMessage());
-            }
+            }));
         }
     }
 
     private void loadMessages() {
         messageData.clear();
         if (currentSession != null) {
-            for (OSCMessageRecord msg : currentSession.getMessages()) {
-                messageData.add(new MessageRow(msg));
+            List<MessageRow> rows = new ArrayList<>(currentSession.size());
+            for (int i = 0; i < currentSession.size(); i++) {
+                rows.add(new MessageRow(currentSession, i));
             }
+            messageData.addAll(rows);
         }
     }
 
@@ -226,30 +236,37 @@ public class RecordingEditorUI extends VBox {
 
         // Create session from table data
         RecordingSession session = new RecordingSession(sessionName);
+        if (currentSession != null && sessionName.equals(currentSessionName)) {
+            // Keep the original start time so segments are assigned as when recorded
+            session.setStartTime(currentSession.getStartTime());
+        }
         for (MessageRow row : messageData) {
             OSCMessageRecord msg = row.toOSCMessageRecord();
             session.addMessage(msg);
         }
 
-        // Save session
-        try {
-            session.save();
-            currentSession = session;
-            currentSessionName = sessionName;
-            log("Saved recording: " + sessionName);
+        // Save session on the session I/O thread; repeated saves are coalesced
+        final String savedName = sessionName;
+        currentSession = ColumnarSession.fromSession(session);
+        currentSessionName = savedName;
+        SessionIO.getInstance().save(session).whenComplete((saved, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                String message = SessionIO.unwrap(error).getMessage();
+                log("Error saving recording: " + message);
+                showError("Error Saving Recording", message);
+                return;
+            }
+            log("Saved recording: " + savedName);
 
             // Refresh recordings list
             refreshRecordingsList();
-            recordingComboBox.setValue(sessionName);
+            recordingComboBox.setValue(savedName);
 
             // Notify parent of changes
             if (onSessionsChanged != null) {
                 onSessionsChanged.run();
             }
-        } catch (IOException ex) {
-            log("Error saving recording: " + ex.getMessage());
-            showError("Error Saving Recording", ex.getMessage());
-        }
+        }));
     }
 
     private void log(String message) {
@@ -270,9 +287,14 @@ public class RecordingEditorUI extends VBox {
 
     // Inner class for table rows
     public static class MessageRow {
-        private final SimpleStringProperty timestamp;
-        private final SimpleStringProperty address;
-        private final ObservableList<ArgumentData> arguments;
+        private SimpleStringProperty timestamp;
+        private SimpleStringProperty address;
+        private ObservableList<ArgumentData> arguments;
+        // The loaded message, read from the session only when the row is shown or saved
+        private ColumnarSession source;
+        private int sourceIndex;
+        // Row contents as loaded, so an unedited row saves exactly what was loaded
+        private String originalContents;
 
         public MessageRow() {
             this.timestamp = new SimpleStringProperty("0");
@@ -287,32 +309,70 @@ public class RecordingEditorUI extends VBox {
 
             if (msg.getArguments() != null) {
                 for (Object arg : msg.getArguments()) {
-                    if (arg instanceof Integer) {
-                        arguments.add(new ArgumentData("Int", String.valueOf(arg)));
-                    } else if (arg instanceof Float || arg instanceof Double) {
-                        arguments.add(new ArgumentData("Float", String.valueOf(arg)));
-                    } else if (arg instanceof Boolean) {
-                        arguments.add(new ArgumentData("Bool", String.valueOf(arg)));
-                    } else if (arg instanceof String) {
-                        arguments.add(new ArgumentData("String", (String) arg));
-                    } else if (arg == null) {
-                        arguments.add(new ArgumentData("Infinitum", ""));
-                    }
+                    addArgument(arg);
                 }
             }
         }
 
-        public String getTimestamp() { return timestamp.get(); }
-        public void setTimestamp(String value) { timestamp.set(value); }
-        public SimpleStringProperty timestampProperty() { return timestamp; }
+        public MessageRow(ColumnarSession session, int index) {
+            this.source = session;
+            this.sourceIndex = index;
+        }
+
+        /**
+         * Fill the editable fields from the session the first time they are used.
+         */
+        private void load() {
+            if (timestamp != null) {
+                return;
+            }
+            timestamp = new SimpleStringProperty(String.valueOf(source.getTimestamp(sourceIndex)));
+            address = new SimpleStringProperty(source.getAddress(sourceIndex));
+            arguments = FXCollections.observableArrayList();
+            for (int i = 0; i < source.getArgumentCount(sourceIndex); i++) {
+                addArgument(source.getArgument(sourceIndex, i));
+            }
+            originalContents = contents();
+        }
+
+        private String contents() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(timestamp.get()).append(' ').append(address.get());
+            for (ArgumentData arg : arguments) {
+                sb.append(' ').append(arg.getType()).append(':').append(arg.getValue());
+            }
+            return sb.toString();
+        }
+
+        private void addArgument(Object arg) {
+            if (arg instanceof Integer) {
+                arguments.add(new ArgumentData("Int", String.valueOf(arg)));
+            } else if (arg instanceof Float || arg instanceof Double) {
+                arguments.add(new ArgumentData("Float", String.valueOf(arg)));
+            } else if (arg instanceof Boolean) {
+                arguments.add(new ArgumentData("Bool", String.valueOf(arg)));
+            } else if (arg instanceof String) {
+                arguments.add(new ArgumentData("String", (String) arg));
+            } else if (arg == null) {
+                arguments.add(new ArgumentData("Infinitum", ""));
+            }
+        }
+
+        public String getTimestamp() { load(); return timestamp.get(); }
+        public void setTimestamp(String value) { load(); timestamp.set(value); }
+        public SimpleStringProperty timestampProperty() { load(); return timestamp; }
 
-        public String getAddress() { return address.get(); }
-        public void setAddress(String value) { address.set(value); }
-        public SimpleStringProperty addressProperty() { return address; }
+        public String getAddress() { load(); return address.get(); }
+        public void setAddress(String value) { load(); address.set(value); }
+        public SimpleStringProperty addressProperty() { load(); return address; }
 
-        public ObservableList<ArgumentData> getArguments() { return arguments; }
+        public ObservableList<ArgumentData> getArguments() { load(); return arguments; }
 
         public OSCMessageRecord toOSCMessageRecord() {
+            // Unedited rows keep the recorded argument types and nanosecond offset
+            if (source != null && (timestamp == null || contents().equals(originalContents))) {
+                return source.toRecord(sourceIndex);
+            }
             OSCMessageRecord msg = new OSCMessageRecord();
             msg.setTimestamp(Long.parseLong(timestamp.get()));
             msg.setAddress(address.get());
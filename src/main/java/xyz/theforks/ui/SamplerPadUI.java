@@ -10,6 +10,7 @@ import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import xyz.theforks.Playback;
 import xyz.theforks.model.SamplerPad;
+import xyz.theforks.model.SessionSummary;
 import xyz.theforks.service.MIDIService;
 import xyz.theforks.service.OSCProxyService;
 import xyz.theforks.service.ProjectManager;
@@ -475,6 +476,22 @@ public class SamplerPadUI extends VBox {
         sessionCombo.getItems().addAll(proxyService.getRecordedSessions());
         sessionCombo.setMaxWidth(Double.MAX_VALUE);
 
+        // Show the recording's summary sidecar rather than loading the recording
+        Label summaryLabel = new Label();
+        summaryLabel.setStyle("-fx-text-fill: #aaaaaa;");
+        sessionCombo.valueProperty().addListener((obs, oldValue, newValue) -> {
+            SessionSummary summary = proxyService.getCachedSessionSummary(newValue);
+            summaryLabel.setText(summary != null ? summary.describe() : "");
+            if (summary == null && newValue != null) {
+                // Computed on the I/O thread; shown if the recording is still selected
+                proxyService.loadSessionSummary(newValue).thenAccept(loaded -> Platform.runLater(() -> {
+                    if (loaded != null && newValue.equals(sessionCombo.getValue())) {
+                        summaryLabel.setText(loaded.describe());
+                    }
+                }));
+            }
+        });
+
         TextField labelField = new TextField();
         labelField.setPromptText("Optional display label");
 
@@ -491,10 +508,11 @@ public class SamplerPadUI extends VBox {
 
         grid.add(new Label("Recording:"), 0, 0);
         grid.add(sessionCombo, 1, 0);
-        grid.add(new Label("Label:"), 0, 1);
-        grid.add(labelField, 1, 1);
-        grid.add(new Label("Color:"), 0, 2);
-        grid.add(colorPicker, 1, 2);
+        grid.add(summaryLabel, 1, 1);
+        grid.add(new Label("Label:"), 0, 2);
+        grid.add(labelField, 1, 2);
+        grid.add(new Label("Color:"), 0, 3);
+        grid.add(colorPicker, 1, 3);
 
         dialog.getDialogPane().setContent(grid);
 
@@ -0,0 +1,77 @@
+package xyz.theforks.util;
+
+/**
+ * Source of time for components that schedule or stamp messages.
+ *
+ * Components take a clock instead of calling System.currentTimeMillis,
+ * System.nanoTime or Thread.sleep directly, so tests and offline processing can
+ * run them against a {@link VirtualClock} and simulate hours in milliseconds.
+ *
+ * Implementations:
+ * - {@link SystemClock}: the system clocks, waiting with Thread.sleep
+ * - {@link NanoClock}: the system clocks, waiting to sub-millisecond precision
+ * - {@link VirtualClock}: time that only moves when it is advanced
+ */
+public abstract class Clock {
+
+    private static volatile Clock defaultClock = SystemClock.INSTANCE;
+
+    /**
+     * Wall-clock time, used for timestamps.
+     * @return Milliseconds since the epoch
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * Monotonic time, used for intervals and scheduling.
+     * @return Nanoseconds from an arbitrary origin
+     */
+    public abstract long nanoTime();
+
+    /**
+     * Wait until {@link #nanoTime()} reaches a deadline.
+     * @param deadlineNanos The deadline on this clock's monotonic time
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public abstract void sleepUntilNanos(long deadlineNanos) throws InterruptedException;
+
+    /**
+     * Wait for a number of milliseconds of this clock's time.
+     * @param millis Milliseconds to wait
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void sleepMillis(long millis) throws InterruptedException {
+        sleepUntilNanos(nanoTime() + millis * 1_000_000L);
+    }
+
+    /**
+     * @return The system clock, waiting with Thread.sleep
+     */
+    public static Clock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    /**
+     * @return The system clock, waiting to sub-millisecond precision
+     */
+    public static Clock nanos() {
+        return NanoClock.INSTANCE;
+    }
+
+    /**
+     * Get the clock used by components that were not given one, e.g. to timestamp
+     * new message records.
+     * @return The default clock, the system clock unless it was replaced
+     */
+    public static Clock getDefault() {
+        return defaultClock;
+    }
+
+    /**
+     * Replace the default clock, e.g. with a virtual clock in tests.
+     * @param clock The clock, or null to go back to the system clock
+     */
+    public static void setDefault(Clock clock) {
+        defaultClock = clock != null ? clock : SystemClock.INSTANCE;
+    }
+}
@@ -0,0 +1,31 @@
+package xyz.theforks.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The system clocks, waiting to sub-millisecond precision. Sleeps while the
+ * deadline is far away and parks for the last couple of milliseconds, so
+ * message spacing below a millisecond is kept during playback.
+ */
+public class NanoClock extends SystemClock {
+
+    static final NanoClock INSTANCE = new NanoClock();
+
+    protected NanoClock() {
+    }
+
+    @Override
+    public void sleepUntilNanos(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > 2_000_000L) {
+                Thread.sleep((remaining - 1_000_000L) / 1_000_000L);
+            } else {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package xyz.theforks.util;
+
+/**
+ * The system clocks. Waits with Thread.sleep, so wake-ups are only as precise
+ * as the scheduler, typically a millisecond or so late.
+ */
+public class SystemClock extends Clock {
+
+    static final SystemClock INSTANCE = new SystemClock();
+
+    protected SystemClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void sleepUntilNanos(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package xyz.theforks.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulated time that only moves when it is advanced.
+ *
+ * In manual mode, threads waiting on the clock block until another thread
+ * calls {@link #advance(long)} past their deadline, so a test controls exactly
+ * when scheduled work becomes due. In auto-advance mode a wait moves the clock
+ * straight to its deadline and returns, so a single thread runs through
+ * simulated time as fast as it can: hours of playback in milliseconds.
+ */
+public class VirtualClock extends Clock {
+
+    private final long epochMillis;
+    private long nanos;
+    private boolean autoAdvance;
+    // Deadlines of the threads waiting on the clock
+    private final List<Long> deadlines = new ArrayList<>();
+
+    /**
+     * Create a manual clock.
+     * @param epochMillis Wall-clock time at the clock's origin
+     */
+    public VirtualClock(long epochMillis) {
+        this(epochMillis, false);
+    }
+
+    /**
+     * @param epochMillis Wall-clock time at the clock's origin
+     * @param autoAdvance true to jump to the deadline of every wait instead of blocking
+     */
+    public VirtualClock(long epochMillis, boolean autoAdvance) {
+        this.epochMillis = epochMillis;
+        this.autoAdvance = autoAdvance;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return epochMillis + nanos / 1_000_000L;
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return nanos;
+    }
+
+    @Override
+    public synchronized void sleepUntilNanos(long deadlineNanos) throws InterruptedException {
+        if (autoAdvance) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadlineNanos > nanos) {
+                nanos = deadlineNanos;
+                notifyAll();
+            }
+            return;
+        }
+        Long deadline = deadlineNanos;
+        deadlines.add(deadline);
+        notifyAll();
+        try {
+            while (nanos < deadlineNanos) {
+                if (autoAdvance) {
+                    nanos = deadlineNanos;
+                    notifyAll();
+                    break;
+                }
+                wait();
+            }
+        } finally {
+            deadlines.remove(deadline);
+        }
+    }
+
+    /**
+     * Move the clock forward and wake the threads whose deadlines have passed.
+     * @param deltaNanos Nanoseconds to advance
+     */
+    public synchronized void advance(long deltaNanos) {
+        if (deltaNanos < 0) {
+            throw new IllegalArgumentException("A clock can't go backwards");
+        }
+        nanos += deltaNanos;
+        notifyAll();
+    }
+
+    public void advanceMillis(long deltaMillis) {
+        advance(deltaMillis * 1_000_000L);
+    }
+
+    public synchronized void setAutoAdvance(boolean autoAdvance) {
+        this.autoAdvance = autoAdvance;
+        notifyAll();
+    }
+
+    /**
+     * Wait, in real time, until a number of threads are blocked on this clock with
+     * deadlines still ahead of it. Lets a test know a worker has finished its due
+     * work before advancing again.
+     * @param count Number of waiting threads to wait for
+     * @param timeoutMillis Real time to give up after
+     * @return true if that many threads are waiting
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized boolean awaitSleepers(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (blockedCount() < count) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    private int blockedCount() {
+        int blocked = 0;
+        for (long deadline : deadlines) {
+            if (deadline > nanos) {
+                blocked++;
+            }
+        }
+        return blocked;
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.theforks.jfr;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.illposed.osc.OSCMessage;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import xyz.theforks.nodes.RenameNode;
+import xyz.theforks.service.OSCOutputService;
+
+class PipelineEventsTest {
+
+    private DatagramSocket sink;
+    private OSCOutputService output;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sink = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        output = new OSCOutputService("lights");
+        output.setOutHost("127.0.0.1");
+        output.setOutPort(sink.getLocalPort());
+        output.start();
+
+        RenameNode rename = new RenameNode();
+        rename.configure(new String[] { "/fader/.*", "/fader", "/dimmer" });
+        output.getNodeChain().registerNode(rename);
+    }
+
+    @AfterEach
+    void tearDown() {
+        output.stop();
+        sink.close();
+    }
+
+    private List<RecordedEvent> record(Recording recording) throws Exception {
+        recording.start();
+        output.send(new OSCMessage("/fader/1", List.of(0.5f)));
+        recording.stop();
+
+        Path file = Files.createTempFile("pipeline", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().startsWith("xyz.theforks."))
+                    .collect(Collectors.toList());
+        } finally {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+
+    @Test
+    void testEventsCarryOutputAndAddress() throws Exception {
+        Recording recording = new Recording();
+        recording.enable(ChainEvent.class).withoutThreshold();
+        recording.enable(NodeEvent.class).withoutThreshold();
+        recording.enable(SocketSendEvent.class).withoutThreshold();
+
+        List<RecordedEvent> events = record(recording);
+
+        RecordedEvent chain = find(events, "xyz.theforks.Chain");
+        assertEquals("lights", chain.getString("outputId"));
+        assertEquals("/fader/1", chain.getString("address"));
+        assertEquals(1, chain.getInt("nodes"));
+        assertEquals(1, chain.getInt("requests"));
+        assertFalse(chain.getBoolean("playback"));
+
+        RecordedEvent node = find(events, "xyz.theforks.Node");
+        assertEquals("lights", node.getString("outputId"));
+        assertEquals("/fader/1", node.getString("address"));
+
+        RecordedEvent send = find(events, "xyz.theforks.SocketSend");
+        assertEquals("/dimmer/1", send.getString("address"));
+        assertTrue(send.getInt("bytes") > 0);
+    }
+
+    @Test
+    void testDisabledByDefault() throws Exception {
+        assertTrue(record(new Recording()).isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package xyz.theforks.metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void testCountersAreSharedByNameAndLabels() {
+        Counter a = registry.counter("oscplay_output_messages_total", "Messages sent", "output", "a");
+        Counter b = registry.counter("oscplay_output_messages_total", "Messages sent", "output", "b");
+        assertSame(a, registry.counter("oscplay_output_messages_total", "Messages sent", "output", "a"));
+        assertNotSame(a, b);
+
+        a.inc();
+        a.add(2);
+        b.inc();
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# HELP oscplay_output_messages_total Messages sent\n"));
+        assertTrue(text.contains("# TYPE oscplay_output_messages_total counter\n"));
+        assertTrue(text.contains("oscplay_output_messages_total{output=\"a\"} 3\n"));
+        assertTrue(text.contains("oscplay_output_messages_total{output=\"b\"} 1\n"));
+    }
+
+    @Test
+    void testHistogramBucketsAreCumulative() {
+        Histogram histogram = registry.histogram("oscplay_chain_latency_seconds", "Chain time",
+                new double[] { 0.001, 0.01 }, "output", "default");
+        histogram.observeNanos(500_000);
+        histogram.observeNanos(5_000_000);
+        histogram.observeNanos(5_000_000);
+        histogram.observe(2.0);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE oscplay_chain_latency_seconds histogram\n"));
+        assertTrue(text.contains("oscplay_chain_latency_seconds_bucket{output=\"default\",le=\"0.001\"} 1\n"));
+        assertTrue(text.contains("oscplay_chain_latency_seconds_bucket{output=\"default\",le=\"0.01\"} 3\n"));
+        assertTrue(text.contains("oscplay_chain_latency_seconds_bucket{output=\"default\",le=\"+Inf\"} 4\n"));
+        assertTrue(text.contains("oscplay_chain_latency_seconds_count{output=\"default\"} 4\n"));
+        assertEquals(2.0105, histogram.getSum(), 1e-9);
+    }
+
+    @Test
+    void testGaugeReadAtScrape() {
+        long[] depth = { 3 };
+        registry.gauge("oscplay_delay_queue_depth", "Queued messages", () -> depth[0]);
+        assertTrue(registry.scrape().contains("oscplay_delay_queue_depth 3\n"));
+        depth[0] = 0;
+        assertTrue(registry.scrape().contains("oscplay_delay_queue_depth 0\n"));
+    }
+
+    @Test
+    void testRemovedMetricsAreNoLongerScraped() {
+        Counter a = registry.counter("oscplay_output_messages_total", "Messages sent", "output", "a");
+        registry.counter("oscplay_output_messages_total", "Messages sent", "output", "b");
+        a.inc();
+
+        assertTrue(registry.remove("oscplay_output_messages_total", "output", "a"));
+        assertFalse(registry.remove("oscplay_output_messages_total", "output", "a"));
+        String text = registry.scrape();
+        assertFalse(text.contains("output=\"a\""));
+        assertTrue(text.contains("oscplay_output_messages_total{output=\"b\"} 0\n"));
+        assertEquals(0, registry.counter("oscplay_output_messages_total", "Messages sent", "output", "a").get());
+
+        registry.remove("oscplay_output_messages_total", "output", "a");
+        registry.remove("oscplay_output_messages_total", "output", "b");
+        assertFalse(registry.scrape().contains("oscplay_output_messages_total"));
+    }
+
+    @Test
+    void testLabelValuesAreEscaped() {
+        assertEquals("{output=\"a\\\"b\\\\c\\n\"}", MetricsRegistry.renderLabels("output", "a\"b\\c\n"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsRegistry.renderLabels("output"));
+    }
+
+    @Test
+    void testRejectsTypeMismatch() {
+        registry.counter("oscplay_playback_dropped_total", "Dropped");
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.gauge("oscplay_playback_dropped_total", "Dropped", () -> 0));
+    }
+}
@@ -0,0 +1,59 @@
+package xyz.theforks.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+class MetricsServerTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final MetricsServer server = new MetricsServer(registry);
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpURLConnection open(String method) throws Exception {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + MetricsServer.PATH);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    @Test
+    void testServesPrometheusText() throws Exception {
+        registry.counter("oscplay_input_messages_total", "Messages received", "input", "127.0.0.1:8000").add(42);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        HttpURLConnection connection = open("GET");
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+        String body;
+        try (InputStream in = connection.getInputStream()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(body.contains("oscplay_input_messages_total{input=\"127.0.0.1:8000\"} 42\n"));
+    }
+
+    @Test
+    void testRejectsOtherMethods() throws Exception {
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        assertEquals(405, open("POST").getResponseCode());
+    }
+
+    @Test
+    void testStop() throws Exception {
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        assertTrue(server.getPort() > 0);
+        server.stop();
+        assertEquals(-1, server.getPort());
+    }
+}
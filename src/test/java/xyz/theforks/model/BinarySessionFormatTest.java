@@ -0,0 +1,162 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BinarySessionFormatTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripPreservesTypes() throws IOException {
+        RecordingSession session = new RecordingSession("roundtrip");
+        session.setStartTime(1000);
+        OSCMessageRecord record = new OSCMessageRecord("/all",
+                new Object[]{42, -7L, 0.25f, 1.5, "text", new byte[]{1, 2, 3}, true, false, null});
+        record.setTimestamp(1005);
+        session.addMessage(record);
+        OSCMessageRecord earlier = new OSCMessageRecord("/all", new Object[]{});
+        earlier.setTimestamp(990);
+        session.addMessage(earlier);
+
+        Path file = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        BinarySessionFormat.write(session, file);
+        RecordingSession loaded = BinarySessionFormat.read(file);
+
+        assertEquals("roundtrip", loaded.getName());
+        assertEquals(1000, loaded.getStartTime());
+        assertEquals(2, loaded.getMessages().size());
+
+        OSCMessageRecord first = loaded.getMessages().get(0);
+        assertEquals("/all", first.getAddress());
+        assertEquals(1005, first.getTimestamp());
+        assertEquals(",ihfdsbTFI", first.getTypes());
+        Object[] args = first.getArguments();
+        assertEquals(42, args[0]);
+        assertEquals(-7L, args[1]);
+        assertEquals(0.25f, args[2]);
+        assertEquals(1.5, args[3]);
+        assertEquals("text", args[4]);
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) args[5]);
+        assertEquals(Boolean.TRUE, args[6]);
+        assertEquals(Boolean.FALSE, args[7]);
+        assertNull(args[8]);
+
+        // Timestamps may go backwards
+        assertEquals(990, loaded.getMessages().get(1).getTimestamp());
+        assertEquals(",", loaded.getMessages().get(1).getTypes());
+    }
+
+    @Test
+    void testRoundTripPreservesNanoOffsets() throws IOException {
+        RecordingSession session = new RecordingSession("nanos");
+        session.setStartTime(1000);
+        long[] offsets = {250_000L, 250_001L, 100_000L, 5_000_000_123L};
+        for (long offset : offsets) {
+            OSCMessageRecord record = new OSCMessageRecord("/n", new Object[]{1});
+            record.setTimestamp(1000 + offset / 1_000_000L);
+            record.setOffsetNanos(offset);
+            session.addMessage(record);
+        }
+
+        Path file = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        BinarySessionFormat.write(session, file);
+        ColumnarSession loaded = BinarySessionFormat.readColumnar(file);
+        assertTrue(loaded.hasNanos());
+        for (int i = 0; i < offsets.length; i++) {
+            assertEquals(offsets[i], loaded.getOffsetNanos(i));
+        }
+        // Sub-millisecond ordering is kept
+        assertArrayEquals(new int[]{2, 0, 1, 3}, loaded.timeOrder());
+    }
+
+    @Test
+    void testJsonLoadedSessionUsesTypeTags() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        RecordingSession session = new RecordingSession("json");
+        session.addMessage(new OSCMessageRecord("/fader", new Object[]{0.5f, 3}));
+        RecordingSession fromJson = mapper.readValue(mapper.writeValueAsString(session), RecordingSession.class);
+        // Jackson widens the float to a Double
+        assertEquals(Double.class, fromJson.getMessages().get(0).getArguments()[0].getClass());
+
+        Path file = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        BinarySessionFormat.write(fromJson, file);
+        Object[] args = BinarySessionFormat.read(file).getMessages().get(0).getArguments();
+        assertEquals(0.5f, args[0]);
+        assertEquals(3, args[1]);
+    }
+
+    @Test
+    void testOtherOscTypesRoundTripAsStrings() throws IOException {
+        RecordingSession session = new RecordingSession("other-types");
+        session.setStartTime(1000);
+        session.addMessage(new OSCMessageRecord("/other", new Object[]{"x", 16711935, "midi", 7L}, ",crmt", 1001));
+
+        Path file = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        BinarySessionFormat.write(session, file);
+        OSCMessageRecord loaded = BinarySessionFormat.read(file).getMessages().get(0);
+
+        assertArrayEquals(new Object[]{"x", "16711935", "midi", "7"}, loaded.getArguments());
+        assertEquals(",ssss", loaded.getTypes());
+    }
+
+    @Test
+    void testAddressesStoredOnce() throws IOException {
+        RecordingSession session = new RecordingSession("dictionary");
+        for (int i = 0; i < 1000; i++) {
+            session.addMessage(new OSCMessageRecord("/a/rather/long/address/path", new Object[]{i}));
+        }
+        Path file = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        BinarySessionFormat.write(session, file);
+        assertTrue(Files.size(file) < 1000 * 8);
+    }
+
+    @Test
+    void testRejectsInvalidData() throws IOException {
+        Path file = tempDir.resolve("bad.osb");
+        Files.write(file, new byte[]{'J', 'S', 'O', 'N', 1});
+        assertThrows(IOException.class, () -> BinarySessionFormat.read(file));
+
+        RecordingSession session = new RecordingSession("truncated", List.of(
+                new OSCMessageRecord("/x", new Object[]{"value"})), 0);
+        Path good = tempDir.resolve("good.osb");
+        BinarySessionFormat.write(session, good);
+        byte[] bytes = Files.readAllBytes(good);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> BinarySessionFormat.read(file));
+    }
+
+    @Test
+    void testCopyIsCurrentOnlyForTheDataJsonItWasWrittenFrom() throws IOException {
+        RecordingSession session = new RecordingSession("stamp");
+        session.addMessage(new OSCMessageRecord("/x", new Object[]{1}));
+        Path dataFile = tempDir.resolve("data.json");
+        Path binaryFile = tempDir.resolve(BinarySessionFormat.FILE_NAME);
+        new ObjectMapper().writeValue(dataFile.toFile(), session);
+        BinarySessionFormat.write(session, binaryFile, dataFile);
+        assertTrue(BinarySessionFormat.isCurrent(binaryFile, dataFile));
+
+        // Rewritten within the same timestamp tick, as on a coarse filesystem
+        java.nio.file.attribute.FileTime modified = Files.getLastModifiedTime(dataFile);
+        session.addMessage(new OSCMessageRecord("/y", new Object[]{2}));
+        new ObjectMapper().writeValue(dataFile.toFile(), session);
+        Files.setLastModifiedTime(dataFile, modified);
+        Files.setLastModifiedTime(binaryFile, modified);
+        assertFalse(BinarySessionFormat.isCurrent(binaryFile, dataFile));
+
+        // A copy written without a source is only used when there is no data.json
+        BinarySessionFormat.write(session, binaryFile);
+        assertFalse(BinarySessionFormat.isCurrent(binaryFile, dataFile));
+        Files.delete(dataFile);
+        assertTrue(BinarySessionFormat.isCurrent(binaryFile, dataFile));
+    }
+}
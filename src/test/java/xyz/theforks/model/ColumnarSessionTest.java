@@ -0,0 +1,117 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ColumnarSessionTest {
+
+    @Test
+    void testColumnsMatchRecords() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        messages.add(record("/mag", 100, 1.5, 2.5, 3.5));
+        messages.add(record("/button", 110, 1));
+        messages.add(record("/mag", 120, 4.0, 5.0, 6.0));
+        ColumnarSession session = ColumnarSession.fromSession(new RecordingSession("test", messages, 100));
+
+        assertEquals("test", session.getName());
+        assertEquals(100, session.getStartTime());
+        assertEquals(3, session.size());
+        assertArrayEquals(new String[]{"/mag", "/button"}, session.getAddressTable());
+        assertEquals(session.getAddressId(0), session.getAddressId(2));
+        assertEquals("/button", session.getAddress(1));
+        assertEquals(120, session.getTimestamp(2));
+
+        assertEquals(3, session.getArgumentCount(0));
+        assertEquals(2.5, session.getDouble(0, 1));
+        assertEquals(5, session.getInt(2, 1));
+        assertEquals(1, session.getInt(1, 0));
+        assertEquals('i', session.getArgumentType(1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> session.getDouble(1, 1));
+    }
+
+    @Test
+    void testRoundTripKeepsTypes() {
+        RecordingSession original = new RecordingSession("types");
+        original.addMessage(record("/all", 5, 7, 8L, 0.5f, 0.25, "text", new byte[]{9}, true, false, null));
+        original.addMessage(record("/empty", 6));
+
+        RecordingSession restored = ColumnarSession.fromSession(original).toSession();
+        OSCMessageRecord first = restored.getMessages().get(0);
+        assertEquals(",ihfdsbTFI", first.getTypes());
+        Object[] args = first.getArguments();
+        assertEquals(7, args[0]);
+        assertEquals(8L, args[1]);
+        assertEquals(0.5f, args[2]);
+        assertEquals(0.25, args[3]);
+        assertEquals("text", args[4]);
+        assertArrayEquals(new byte[]{9}, (byte[]) args[5]);
+        assertEquals(Boolean.TRUE, args[6]);
+        assertEquals(Boolean.FALSE, args[7]);
+        assertNull(args[8]);
+        assertEquals(",", restored.getMessages().get(1).getTypes());
+        assertEquals(0, restored.getMessages().get(1).getArguments().length);
+    }
+
+    @Test
+    void testTypeTagsOverrideWidenedValues() {
+        // As read back from JSON: a float argument arrives as a Double
+        OSCMessageRecord widened = new OSCMessageRecord("/fader", new Object[]{0.5}, ",f");
+        RecordingSession original = new RecordingSession("widened", List.of(widened), 0);
+
+        ColumnarSession session = ColumnarSession.fromSession(original);
+        assertEquals('f', session.getArgumentType(0, 0));
+        assertEquals(0.5f, session.getArgument(0, 0));
+    }
+
+    @Test
+    void testTimeOrderIsStable() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        messages.add(record("/a", 30));
+        messages.add(record("/b", 10));
+        messages.add(record("/c", 30));
+        messages.add(record("/d", 20));
+        ColumnarSession unsorted = ColumnarSession.fromSession(new RecordingSession("unsorted", messages, 0));
+        assertArrayEquals(new int[]{1, 3, 0, 2}, unsorted.timeOrder());
+
+        ColumnarSession sorted = ColumnarSession.fromSession(new RecordingSession("sorted",
+                List.of(record("/a", 1), record("/b", 1), record("/c", 2)), 0));
+        assertArrayEquals(new int[]{0, 1, 2}, sorted.timeOrder());
+    }
+
+    @Test
+    void testOffsetsFallBackToMilliseconds() {
+        ColumnarSession legacy = ColumnarSession.fromSession(new RecordingSession("legacy",
+                List.of(record("/a", 105), record("/b", 107)), 100));
+        assertFalse(legacy.hasNanos());
+        assertEquals(5_000_000L, legacy.getOffsetNanos(0));
+        assertNull(legacy.toRecord(1).getOffsetNanos());
+
+        OSCMessageRecord precise = record("/c", 100);
+        precise.setOffsetNanos(400_000L);
+        ColumnarSession mixed = ColumnarSession.fromSession(new RecordingSession("mixed",
+                List.of(record("/a", 100), precise), 100));
+        assertEquals(0L, mixed.getOffsetNanos(0));
+        assertEquals(400_000L, mixed.getOffsetNanos(1));
+        assertEquals(Long.valueOf(400_000L), mixed.toRecord(1).getOffsetNanos());
+    }
+
+    @Test
+    void testBuilderGrowsColumns() {
+        ColumnarSession.Builder builder = new ColumnarSession.Builder("big", 0, 1);
+        int address = builder.internAddress("/x");
+        for (int i = 0; i < 1000; i++) {
+            builder.startMessage(address, i);
+            builder.argFloat(i);
+            builder.argInt(-i);
+        }
+        ColumnarSession session = builder.build();
+        assertEquals(1000, session.size());
+        assertEquals(999.0, session.getDouble(999, 0));
+        assertEquals(-999, session.getInt(999, 1));
+        assertEquals(",fi", session.getTypes(500));
+    }
+}
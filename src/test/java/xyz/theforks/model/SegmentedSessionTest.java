@@ -0,0 +1,118 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+class SegmentedSessionTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Record 30 messages, 100ms apart, into one-second segments.
+     */
+    private SegmentedSession recordSession(Path sessionDir) throws IOException {
+        SegmentedSession session = SegmentedSession.create(sessionDir, "long", 10_000, 1000);
+        try (SegmentedSession.Writer writer = session.openWriter()) {
+            for (int i = 0; i < 30; i++) {
+                writer.write(record("/fader", 10_000 + i * 100L, i * 0.1f, i));
+            }
+        }
+        return session;
+    }
+
+    @Test
+    void testWriterRollsSegmentsByTime() throws IOException {
+        Path sessionDir = tempDir.resolve("long");
+        recordSession(sessionDir);
+
+        assertTrue(SegmentedSession.isSegmented(sessionDir));
+        assertFalse(SegmentedSession.isInterrupted(sessionDir));
+        SegmentedSession session = SegmentedSession.open(sessionDir);
+        assertEquals(3, session.getSegmentCount());
+        assertEquals(30, session.getMessageCount());
+        assertEquals(10, session.loadSegment(1).size());
+        assertEquals(11_000, session.loadSegment(1).getTimestamp(0));
+
+        ColumnarSession all = session.loadColumnar();
+        assertEquals(30, all.size());
+        assertEquals("long", all.getName());
+        assertEquals(10_000, all.getStartTime());
+        assertEquals(12_900, all.getTimestamp(29));
+        assertEquals(29, all.getArgument(29, 1));
+    }
+
+    @Test
+    void testSaveRewritesOnlyChangedSegments() throws IOException {
+        Path sessionDir = tempDir.resolve("long");
+        recordSession(sessionDir);
+        SegmentedSession session = SegmentedSession.open(sessionDir);
+        RecordingSession records = session.loadColumnar().toSession();
+
+        assertEquals(0, session.save(records));
+
+        records.getMessages().set(15, record("/fader", 11_500, 0.0f, -1));
+        assertEquals(1, session.save(records));
+        SegmentedSession reopened = SegmentedSession.open(sessionDir);
+        assertEquals(-1, reopened.loadSegment(1).getArgument(5, 1));
+        assertEquals(0, reopened.save(reopened.loadColumnar().toSession()));
+
+        // Dropping the last second removes its segment
+        records.getMessages().subList(20, 30).clear();
+        assertEquals(0, session.save(records));
+        assertEquals(2, SegmentedSession.open(sessionDir).getSegmentCount());
+        assertFalse(Files.exists(sessionDir.resolve(SegmentedSession.SEGMENTS_DIR).resolve("seg-00002.jsonl")));
+    }
+
+    @Test
+    void testRecoverDropsTruncatedEntry() throws IOException {
+        Path sessionDir = tempDir.resolve("crashed");
+        SegmentedSession session = SegmentedSession.create(sessionDir, "crashed", 0, 1000);
+        SegmentedSession.Writer writer = session.openWriter();
+        for (int i = 0; i < 15; i++) {
+            writer.write(record("/x", i * 100L, i));
+        }
+        writer.flush();
+        // Simulate a crash part way through writing an entry
+        Path last = sessionDir.resolve(SegmentedSession.SEGMENTS_DIR).resolve("seg-00001.jsonl");
+        Files.write(last, "{\"address\":\"/x\",\"time".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertTrue(SegmentedSession.isInterrupted(sessionDir));
+        assertFalse(SegmentedSession.isSegmented(sessionDir));
+        SegmentedSession recovered = SegmentedSession.recover(sessionDir);
+        assertFalse(SegmentedSession.isInterrupted(sessionDir));
+        assertEquals(2, recovered.getSegmentCount());
+        assertEquals(15, recovered.loadColumnar().size());
+        assertEquals(0, recovered.save(recovered.loadColumnar().toSession()));
+    }
+
+    @Test
+    void testRecoverAppendsSpilledRecords() throws IOException {
+        Path sessionDir = tempDir.resolve("spilled");
+        SegmentedSession session = SegmentedSession.create(sessionDir, "spilled", 0, 1000);
+        SegmentedSession.Writer writer = session.openWriter();
+        for (int i = 0; i < 5; i++) {
+            writer.write(record("/x", i * 100L, i));
+        }
+        writer.flush();
+        Path spill = tempDir.resolve("spill.jsonl");
+        String lines = "{\"address\":\"/x\",\"arguments\":[5],\"timestamp\":900,\"types\":\",i\"}\n"
+                + "{\"address\":\"/x\",\"arguments\":[6],\"timestamp\":1200,\"types\":\",i\"}\n"
+                + "{\"address\":\"/x\",\"arg";
+        Files.write(spill, lines.getBytes(StandardCharsets.UTF_8));
+
+        SegmentedSession recovered = SegmentedSession.recover(sessionDir, List.of(spill));
+        assertEquals(2, recovered.getSegmentCount());
+        assertEquals(7, recovered.getMessageCount());
+        assertEquals(6, recovered.loadColumnar().getArgument(6, 0));
+    }
+}
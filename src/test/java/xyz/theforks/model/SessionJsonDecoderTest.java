@@ -0,0 +1,104 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SessionJsonDecoderTest {
+
+    @Test
+    void testArgumentsKeepRecordedTypes() throws IOException {
+        RecordingSession session = new RecordingSession("types");
+        session.setStartTime(500);
+        OSCMessageRecord record = new OSCMessageRecord("/all",
+                new Object[]{7, 1L << 40, 0.1f, 0.1, "text", new byte[]{1, 2}, true, false, null});
+        record.setTimestamp(510);
+        session.addMessage(record);
+        String json = new ObjectMapper().writeValueAsString(session);
+
+        ColumnarSession decoded = SessionJsonDecoder.decodeColumnar(json);
+        assertEquals("types", decoded.getName());
+        assertEquals(500, decoded.getStartTime());
+        assertEquals(510, decoded.getTimestamp(0));
+        assertEquals(",ihfdsbTFI", decoded.getTypes(0));
+
+        Object[] args = decoded.getArguments(0);
+        assertEquals(Integer.valueOf(7), args[0]);
+        assertEquals(Long.valueOf(1L << 40), args[1]);
+        // Exactly the recorded float, not a Double
+        assertEquals(Float.valueOf(0.1f), args[2]);
+        assertEquals(Double.valueOf(0.1), args[3]);
+        assertEquals("text", args[4]);
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) args[5]);
+        assertEquals(Boolean.TRUE, args[6]);
+        assertEquals(Boolean.FALSE, args[7]);
+        assertNull(args[8]);
+    }
+
+    @Test
+    void testTypesAfterArguments() throws IOException {
+        // Layout written before the property order was fixed
+        String json = "{\"name\":\"legacy\",\"messages\":["
+                + "{\"address\":\"/mag\",\"arguments\":[1.5,2,\"x\",123456789012],\"timestamp\":5,\"types\":\",fisd\"},"
+                + "{\"address\":\"/blob\",\"arguments\":[\"AQI=\"],\"timestamp\":6,\"types\":\",b\"}"
+                + "],\"startTime\":1,\"filename\":\"legacy.json\"}";
+
+        ColumnarSession decoded = SessionJsonDecoder.decodeColumnar(json);
+        assertEquals(2, decoded.size());
+        assertEquals(1, decoded.getStartTime());
+        Object[] args = decoded.getArguments(0);
+        assertEquals(Float.valueOf(1.5f), args[0]);
+        assertEquals(Integer.valueOf(2), args[1]);
+        assertEquals("x", args[2]);
+        assertEquals(Double.valueOf(123456789012.0), args[3]);
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) decoded.getArgument(1, 0));
+    }
+
+    @Test
+    void testMissingTypesFallsBackToJsonTypes() throws IOException {
+        String json = "{\"name\":\"untyped\",\"startTime\":0,\"messages\":["
+                + "{\"address\":\"/a\",\"timestamp\":1,\"arguments\":[3,4.5,\"s\",true,9999999999]}]}";
+
+        ColumnarSession decoded = SessionJsonDecoder.decodeColumnar(json);
+        assertEquals(",idsTh", decoded.getTypes(0));
+    }
+
+    @Test
+    void testMatchesDataBindingForMessages() throws IOException {
+        RecordingSession session = new RecordingSession("compare");
+        for (int i = 0; i < 50; i++) {
+            session.addMessage(new OSCMessageRecord("/fader/" + (i % 5), new Object[]{i * 0.01f, i}));
+        }
+        String json = new ObjectMapper().writeValueAsString(session);
+
+        RecordingSession bound = new ObjectMapper().readValue(json, RecordingSession.class);
+        RecordingSession decoded = SessionJsonDecoder.decodeColumnar(json).toSession();
+        assertEquals(bound.getMessages().size(), decoded.getMessages().size());
+        for (int i = 0; i < 50; i++) {
+            OSCMessageRecord expected = session.getMessages().get(i);
+            OSCMessageRecord actual = decoded.getMessages().get(i);
+            assertEquals(bound.getMessages().get(i).getAddress(), actual.getAddress());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            assertArrayEquals(expected.getArguments(), actual.getArguments());
+        }
+    }
+
+    @Test
+    void testDecodesNanoOffsets() throws IOException {
+        RecordingSession session = new RecordingSession("nanos");
+        session.setStartTime(0);
+        OSCMessageRecord record = new OSCMessageRecord("/n", new Object[]{1});
+        record.setOffsetNanos(123_456L);
+        session.addMessage(record);
+        session.addMessage(new OSCMessageRecord("/plain", new Object[]{2}));
+        String json = new ObjectMapper().writeValueAsString(session);
+        assertTrue(json.contains("\"offsetNanos\":123456"));
+
+        ColumnarSession decoded = SessionJsonDecoder.decodeColumnar(json);
+        assertEquals(123_456L, decoded.getOffsetNanos(0));
+        assertNull(decoded.toRecord(1).getOffsetNanos());
+    }
+}
@@ -0,0 +1,100 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SessionQueryIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Three magnetometers and a fader, one message each per 100ms for a minute.
+     */
+    private static RecordingSession sampleSession() {
+        RecordingSession session = new RecordingSession("mags", new ArrayList<>(), 1000);
+        for (int i = 0; i < 600; i++) {
+            long timestamp = 1000 + i * 100L;
+            for (int mag = 1; mag <= 3; mag++) {
+                session.addMessage(record("/lx/modulation/Mag" + mag + "/mag", timestamp, i, mag, 0.5f));
+            }
+            session.addMessage(record("/fader", timestamp, i * 0.001f));
+        }
+        return session;
+    }
+
+    private Path writeJsonSession(RecordingSession session) throws IOException {
+        Path sessionDir = tempDir.resolve(session.getName());
+        Files.createDirectories(sessionDir);
+        new ObjectMapper().writeValue(sessionDir.resolve("data.json").toFile(), session);
+        return sessionDir;
+    }
+
+    @Test
+    void testQueryByPatternAndTimeRange() throws IOException {
+        SessionQueryIndex index = SessionQueryIndex.load(writeJsonSession(sampleSession()));
+        assertEquals("mags", index.getName());
+        assertEquals(4, index.getAddresses().size());
+        assertEquals(List.of("/lx/modulation/Mag1/mag", "/lx/modulation/Mag2/mag", "/lx/modulation/Mag3/mag"),
+                index.matchAddresses("/lx/modulation/Mag*/mag"));
+        assertEquals(1, index.matchAddresses("//Mag2/mag").size());
+
+        // Seconds 12 to 14 of the session
+        ColumnarSession result = index.query("/lx/modulation/Mag[12]/mag", 12_000, 14_000);
+        assertEquals(40, result.size());
+        assertEquals(1000, result.getStartTime());
+        for (int i = 0; i < result.size(); i++) {
+            assertTrue(result.getTimestamp(i) >= 13_000 && result.getTimestamp(i) < 15_000);
+            assertNotEquals("/lx/modulation/Mag3/mag", result.getAddress(i));
+        }
+        // Recording order and recorded types are kept
+        assertEquals("/lx/modulation/Mag1/mag", result.getAddress(0));
+        assertEquals(120, result.getInt(0, 0));
+        assertEquals(",iif", result.getTypes(0));
+        assertEquals(40, index.count("/lx/modulation/Mag[12]/mag", 12_000, 14_000));
+
+        assertEquals(2400, index.query(null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertEquals(0, index.query("/missing", Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testIndexIsReusedUntilDataChanges() throws IOException {
+        Path sessionDir = writeJsonSession(sampleSession());
+        assertNull(SessionQueryIndex.read(sessionDir));
+        SessionQueryIndex.load(sessionDir);
+        assertTrue(Files.exists(sessionDir.resolve(SessionQueryIndex.FILE_NAME)));
+        SessionQueryIndex read = SessionQueryIndex.read(sessionDir);
+        assertNotNull(read);
+        assertEquals(600, read.count("/fader", Long.MIN_VALUE, Long.MAX_VALUE));
+
+        RecordingSession changed = sampleSession();
+        changed.getMessages().subList(0, 400).clear();
+        writeJsonSession(changed);
+        assertEquals(500, SessionQueryIndex.load(sessionDir).count("/fader", Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testQuerySegmentedSession() throws IOException {
+        Path sessionDir = tempDir.resolve("segmented");
+        RecordingSession session = sampleSession();
+        SegmentedSession.create(sessionDir, "segmented", session.getStartTime(), 10_000).save(session);
+
+        SessionQueryIndex index = SessionQueryIndex.load(sessionDir);
+        // Spans the boundary between the second and third segments
+        ColumnarSession result = index.query("/fader", 19_000, 21_000);
+        assertEquals(20, result.size());
+        assertEquals(20_000, result.getTimestamp(0));
+        assertEquals(21_900, result.getTimestamp(19));
+        assertEquals(Float.valueOf(190 * 0.001f), result.getArgument(0, 0));
+    }
+}
@@ -0,0 +1,68 @@
+package xyz.theforks.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SessionSummaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static RecordingSession sampleSession() {
+        return new RecordingSession("sample", List.of(
+                record("/fader", 1000, 0.5f, "label"),
+                record("/fader", 1500, -0.25f, "label"),
+                record("/button", 2000, 1),
+                record("/fader", 3000, 0.75f, "other")), 1000);
+    }
+
+    @Test
+    void testComputeCountsAndRanges() {
+        SessionSummary summary = SessionSummary.compute(ColumnarSession.fromSession(sampleSession()));
+        assertEquals("sample", summary.getName());
+        assertEquals(4, summary.getMessageCount());
+        assertEquals(2000, summary.getDurationMs());
+        assertEquals(2, summary.getAddresses().size());
+
+        SessionSummary.AddressStats fader = summary.getAddresses().get("/fader");
+        assertEquals(3, fader.getCount());
+        assertEquals(1.5, fader.getRate(), 1e-9);
+        assertEquals(",fs", fader.getTypes());
+        assertEquals(Double.valueOf(-0.25), fader.getMin().get(0));
+        assertEquals(Double.valueOf(0.75), fader.getMax().get(0));
+        // Strings have no range
+        assertNull(fader.getMin().get(1));
+        assertEquals(Double.valueOf(1.0), summary.getAddresses().get("/button").getMax().get(0));
+    }
+
+    @Test
+    void testSidecarIsReusedUntilDataChanges() throws IOException {
+        Path sessionDir = tempDir.resolve("sample");
+        Files.createDirectories(sessionDir);
+        Path dataFile = sessionDir.resolve("data.json");
+        new ObjectMapper().writeValue(dataFile.toFile(), sampleSession());
+
+        assertNull(SessionSummary.read(sessionDir));
+        SessionSummary computed = SessionSummary.load(sessionDir);
+        assertEquals(4, computed.getMessageCount());
+        assertTrue(Files.exists(sessionDir.resolve(SessionSummary.FILE_NAME)));
+
+        SessionSummary read = SessionSummary.read(sessionDir);
+        assertNotNull(read);
+        assertEquals(computed.getDurationMs(), read.getDurationMs());
+        assertEquals(3, read.getAddresses().get("/fader").getCount());
+
+        // Newer data makes the sidecar stale
+        dataFile.toFile().setLastModified(System.currentTimeMillis() + 10_000);
+        assertNull(SessionSummary.read(sessionDir));
+    }
+}
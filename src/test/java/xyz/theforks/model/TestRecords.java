@@ -0,0 +1,23 @@
+package xyz.theforks.model;
+
+/**
+ * Message records for tests.
+ */
+public final class TestRecords {
+
+    private TestRecords() {
+    }
+
+    /**
+     * Create a record with its type tags derived from the arguments.
+     * @param address The OSC address
+     * @param timestamp Timestamp in milliseconds
+     * @param args The arguments
+     * @return The record
+     */
+    public static OSCMessageRecord record(String address, long timestamp, Object... args) {
+        OSCMessageRecord record = new OSCMessageRecord(address, args);
+        record.setTimestamp(timestamp);
+        return record;
+    }
+}
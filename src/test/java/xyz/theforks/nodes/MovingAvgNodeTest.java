@@ -251,4 +251,22 @@ class MovingAvgNodeTest {
             assertEquals(expectedAvg, (Float) result.getArguments().get(0), 0.001);
         }
     }
+
+    @Test
+    void testWindowsLimitedToRecentAddresses() {
+        node.configure(new String[]{"/sensor/.*", "3"});
+
+        for (int i = 0; i < MovingAvgNode.MAX_ADDRESSES + 100; i++) {
+            List<MessageRequest> requests = new ArrayList<>();
+            requests.add(new MessageRequest(new OSCMessage("/sensor/" + i, List.of(1.0f))));
+            node.process(requests);
+        }
+        assertEquals(MovingAvgNode.MAX_ADDRESSES, node.getWindowCount());
+
+        // The oldest address was dropped and starts a new window
+        List<MessageRequest> requests = new ArrayList<>();
+        requests.add(new MessageRequest(new OSCMessage("/sensor/0", List.of(4.0f))));
+        node.process(requests);
+        assertEquals(4.0f, (Float) requests.get(0).getMessage().getArguments().get(0), 0.001);
+    }
 }
@@ -0,0 +1,66 @@
+package xyz.theforks.nodes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.illposed.osc.OSCMessage;
+import xyz.theforks.model.MessageRequest;
+
+class ThrottleNodeTest {
+    private ThrottleNode node;
+
+    @BeforeEach
+    void setUp() {
+        node = new ThrottleNode();
+    }
+
+    @Test
+    void testDropsWithinInterval() {
+        node.configure(new String[]{"/meter/.*", "100"});
+        long start = 1_000_000_000L;
+        assertTrue(node.accept("/meter/1", start));
+        assertFalse(node.accept("/meter/1", start + 50_000_000L));
+        assertFalse(node.accept("/meter/1", start + 99_999_999L));
+        assertTrue(node.accept("/meter/1", start + 100_000_000L));
+        assertFalse(node.accept("/meter/1", start + 150_000_000L));
+    }
+
+    @Test
+    void testAddressesAreThrottledSeparately() {
+        node.configure(new String[]{"/meter/.*", "100"});
+        assertTrue(node.accept("/meter/1", 0));
+        assertTrue(node.accept("/meter/2", 0));
+        assertFalse(node.accept("/meter/1", 10));
+        assertFalse(node.accept("/meter/2", 10));
+    }
+
+    @Test
+    void testProcessDropsRepeat() {
+        node.configure(new String[]{"/meter/.*", "60000"});
+        OSCMessage input = new OSCMessage("/meter/1", Collections.singletonList(0.5f));
+
+        List<MessageRequest> first = new ArrayList<>();
+        first.add(new MessageRequest(input));
+        node.process(first);
+        assertEquals(1, first.size());
+        assertEquals(input, first.get(0).getMessage());
+
+        List<MessageRequest> second = new ArrayList<>();
+        second.add(new MessageRequest(input));
+        node.process(second);
+        assertTrue(second.isEmpty());
+    }
+
+    @Test
+    void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class, () -> node.configure(new String[]{"/meter/.*", "fast"}));
+        assertThrows(IllegalArgumentException.class, () -> node.configure(new String[]{"/meter/.*", "-1"}));
+        assertThrows(IllegalArgumentException.class, () -> node.configure(new String[]{"/meter/.*"}));
+    }
+}
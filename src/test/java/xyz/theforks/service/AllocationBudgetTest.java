@@ -0,0 +1,119 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Properties;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.nodes.DropNode;
+import xyz.theforks.nodes.MovingAvgNode;
+import xyz.theforks.nodes.NodeChain;
+import xyz.theforks.nodes.RenameNode;
+import xyz.theforks.nodes.ThrottleNode;
+
+/**
+ * Guards the bytes allocated per forwarded message on the proxy path, from
+ * handleMessage through the node chain to the output's send, against the
+ * budgets in allocation-budgets.properties. When a change lowers allocation,
+ * lower the budget with it.
+ */
+class AllocationBudgetTest {
+
+    private static final int WARMUP_MESSAGES = 50_000;
+    private static final int MEASURED_MESSAGES = 50_000;
+
+    private DatagramSocket sink;
+    private OSCProxyService proxy;
+    private Properties budgets;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sink = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        proxy = new OSCProxyService();
+        OSCOutputService output = proxy.getOutputService();
+        output.setOutHost("127.0.0.1");
+        output.setOutPort(sink.getLocalPort());
+        output.start();
+
+        budgets = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/allocation-budgets.properties")) {
+            assertNotNull(in, "allocation-budgets.properties not found");
+            budgets.load(in);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        proxy.getOutputService().stop();
+        sink.close();
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void assertWithinBudget(String chainName, NodeChainConfig.NodeConfig... nodes) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return; // JVM can't measure allocation
+        }
+        NodeChain chain = NodeChain.fromConfig(NodeChain.Context.PROXY, new NodeChainConfig(List.of(nodes)));
+        proxy.setNodes("default", chain.getNodes());
+
+        OSCMessage message = new OSCMessage("/mixer/3/fader", List.of(0.5f));
+        for (int i = 0; i < WARMUP_MESSAGES; i++) {
+            proxy.handleMessage(message, i);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_MESSAGES; i++) {
+            proxy.handleMessage(message, i);
+        }
+        double perMessage = (double) (allocatedBytes() - before) / MEASURED_MESSAGES;
+
+        long budget = Long.parseLong(budgets.getProperty(chainName));
+        assertTrue(perMessage <= budget,
+                String.format("%s chain allocates %.0f bytes per message, budget %d", chainName, perMessage, budget));
+    }
+
+    @Test
+    void testEmptyChain() {
+        assertWithinBudget("empty");
+    }
+
+    @Test
+    void testRenameChain() {
+        assertWithinBudget("rename",
+                new NodeChainConfig.NodeConfig(RenameNode.class.getName(), true, List.of("/mixer/.*", "/mixer/", "/desk/")));
+    }
+
+    @Test
+    void testFilterChain() {
+        // A drop that doesn't match, then a rename: the common "clean up and route" chain
+        assertWithinBudget("filter",
+                new NodeChainConfig.NodeConfig(DropNode.class.getName(), true, List.of("/meter/.*")),
+                new NodeChainConfig.NodeConfig(RenameNode.class.getName(), true, List.of("/mixer/.*", "/mixer/", "/desk/")));
+    }
+
+    @Test
+    void testMovingAverageChain() {
+        assertWithinBudget("movingAverage",
+                new NodeChainConfig.NodeConfig(MovingAvgNode.class.getName(), true, List.of("/mixer/.*", "8")));
+    }
+
+    @Test
+    void testThrottleChain() {
+        assertWithinBudget("throttle",
+                new NodeChainConfig.NodeConfig(ThrottleNode.class.getName(), true, List.of("/mixer/.*", "0")));
+    }
+}
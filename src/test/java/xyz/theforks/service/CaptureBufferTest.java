@@ -0,0 +1,88 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.util.VirtualClock;
+
+class CaptureBufferTest {
+
+    private static OSCMessage message(int value) {
+        return new OSCMessage("/test", List.of(value));
+    }
+
+    @Test
+    void testSnapshotReturnsOnlyRequestedWindow() {
+        VirtualClock clock = new VirtualClock(1_000_000);
+        CaptureBuffer buffer = new CaptureBuffer(100, 60000, clock);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(message(i));
+            if (i < 9) {
+                clock.advanceMillis(100);
+            }
+        }
+
+        // Last 300ms at 900ms covers messages received at 600..900ms
+        RecordingSession session = buffer.snapshot("capture", 300);
+        assertEquals("capture", session.getName());
+        assertEquals(4, session.getMessages().size());
+        assertEquals(1_000_600, session.getStartTime());
+        assertEquals(6, session.getMessages().get(0).getArguments()[0]);
+        assertEquals(1_000_900, session.getMessages().get(3).getTimestamp());
+        assertEquals(Long.valueOf(300_000_000L), session.getMessages().get(3).getOffsetNanos());
+    }
+
+    @Test
+    void testMessagesOlderThanMaxAgeAreReleased() {
+        VirtualClock clock = new VirtualClock(0);
+        CaptureBuffer buffer = new CaptureBuffer(100, 1000, clock);
+        buffer.add(message(1));
+        clock.advanceMillis(500);
+        buffer.add(message(2));
+        clock.advanceMillis(1100);
+        buffer.add(message(3));
+
+        assertEquals(1, buffer.size());
+        assertEquals(0, buffer.getCapturedDurationMs());
+    }
+
+    @Test
+    void testCapacityIsBounded() {
+        VirtualClock clock = new VirtualClock(0);
+        CaptureBuffer buffer = new CaptureBuffer(3, 60000, clock);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(message(i));
+            clock.advanceMillis(1);
+        }
+
+        RecordingSession session = buffer.snapshot("capture", 60000);
+        assertEquals(3, session.getMessages().size());
+        assertEquals(2, session.getMessages().get(0).getArguments()[0]);
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        VirtualClock clock = new VirtualClock(0);
+        CaptureBuffer buffer = new CaptureBuffer(10, 60000, clock);
+        assertTrue(buffer.snapshot("capture", 1000).getMessages().isEmpty());
+
+        buffer.add(message(1));
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.snapshot("capture", 60000).getMessages().isEmpty());
+    }
+
+    @Test
+    void testForMemoryBudget() {
+        CaptureBuffer buffer = CaptureBuffer.forMemoryBudget(
+                1000L * CaptureBuffer.ESTIMATED_BYTES_PER_MESSAGE, 60000);
+        assertEquals(1000, buffer.getCapacity());
+        assertEquals(60000, buffer.getMaxAgeMs());
+        assertThrows(IllegalArgumentException.class, () -> new CaptureBuffer(10, 0));
+    }
+}
@@ -0,0 +1,73 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.nodes.DropNode;
+import xyz.theforks.nodes.RenameNode;
+import xyz.theforks.nodes.ThrottleNode;
+
+class ChainProfilerTest {
+
+    @Test
+    void testProfileCountsNodesAndRates() {
+        // Ten seconds at 100 messages/s, with a burst of 500 in the sixth second
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            messages.add(record(i % 2 == 0 ? "/in/fader" : "/meter/1", i * 10L, i * 0.001f));
+        }
+        for (int i = 0; i < 500; i++) {
+            messages.add(record("/in/burst", 5000 + i, i));
+        }
+        RecordingSession session = new RecordingSession("traffic", messages, 0);
+
+        List<NodeChainConfig.NodeConfig> nodes = new ArrayList<>();
+        nodes.add(new NodeChainConfig.NodeConfig(DropNode.class.getName(), true, List.of("/meter/.*")));
+        nodes.add(new NodeChainConfig.NodeConfig(RenameNode.class.getName(), true, List.of("/in/.*", "/in/", "/out/")));
+        ChainProfiler profiler = new ChainProfiler(new NodeChainConfig(nodes));
+        profiler.setWarmupPasses(1);
+        profiler.setPasses(2);
+        ChainProfiler.Result result = profiler.profile(session);
+
+        assertEquals(1500, result.getSessionMessages());
+        assertEquals(1000, result.getOutputMessages());
+        assertEquals(600, result.getPeakRate(), 0.001);
+        assertEquals(150, result.getAverageRate(), 1);
+        assertTrue(result.getMessagesPerSecond() > 0);
+        assertTrue(result.getHeadroom() > 0);
+
+        assertEquals(2, result.getNodes().size());
+        ChainProfiler.NodeProfile drop = result.getNodes().get(0);
+        ChainProfiler.NodeProfile rename = result.getNodes().get(1);
+        assertEquals("Drop", drop.getLabel());
+        assertEquals(1000, drop.getCalls());
+        assertEquals(0, drop.getMessagesOut());
+        assertEquals(2000, rename.getCalls());
+        assertEquals(2000, rename.getMessagesOut());
+        assertTrue(result.describe().contains("Rename"));
+    }
+
+    @Test
+    void testTimedNodesFollowRecordingTime() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(record("/fader", i * 10L, i));
+        }
+        List<NodeChainConfig.NodeConfig> nodes = new ArrayList<>();
+        nodes.add(new NodeChainConfig.NodeConfig(ThrottleNode.class.getName(), true, List.of("/fader", "50")));
+        ChainProfiler profiler = new ChainProfiler(new NodeChainConfig(nodes));
+        profiler.setWarmupPasses(1);
+        profiler.setPasses(3);
+
+        // Messages go through back to back, but the throttle sees them 10ms apart
+        ChainProfiler.Result result = profiler.profile(new RecordingSession("fader", messages, 0));
+        assertEquals(20, result.getOutputMessages());
+    }
+}
@@ -0,0 +1,43 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.nodes.RenameNode;
+
+class LoopbackBenchmarkTest {
+
+    @Test
+    void testMeasuresLoopbackThroughChain() throws Exception {
+        LoopbackBenchmark benchmark = new LoopbackBenchmark();
+        benchmark.setOutputs(2);
+        benchmark.setChain(new NodeChainConfig(List.of(
+                new NodeChainConfig.NodeConfig(RenameNode.class.getName(), true, List.of("/bench/.*", "/bench/", "/out/")))));
+        benchmark.setRates(new int[] { 200, 500 });
+        benchmark.setStepMs(300);
+        benchmark.setDrainMs(200);
+        benchmark.setMaxLossPercent(5);
+
+        LoopbackBenchmark.Result result = benchmark.run();
+
+        assertEquals(2, result.getSteps().size());
+        LoopbackBenchmark.Step first = result.getSteps().get(0);
+        assertEquals(60, first.getSent());
+        assertEquals(120, first.getExpected());
+        assertTrue(first.getLossPercent() < 5, "loss " + first.getLossPercent());
+        assertTrue(first.getP50Micros() > 0);
+        assertTrue(first.getMaxMicros() >= first.getP99Micros());
+        assertEquals(500, result.getCeilingRate());
+
+        JsonNode json = new ObjectMapper().valueToTree(result);
+        assertEquals(2, json.get("outputs").asInt());
+        assertEquals(1, json.get("chainNodes").asInt());
+        assertTrue(json.get("steps").get(1).has("p99Micros"));
+    }
+}
@@ -0,0 +1,96 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.util.VirtualClock;
+
+class OSCLoadGeneratorTest {
+
+    private final VirtualClock clock = new VirtualClock(0, true);
+    private final List<OSCMessage> messages = new ArrayList<>();
+    private final List<Long> sentAt = new ArrayList<>();
+
+    private OSCLoadGenerator.Stats run(OSCLoadGenerator generator) throws InterruptedException {
+        generator.setClock(clock);
+        return generator.run(message -> {
+            messages.add(message);
+            sentAt.add(clock.nanoTime());
+        });
+    }
+
+    @Test
+    void testSyntheticAddressesArgumentsAndRate() throws InterruptedException {
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        generator.setAddresses("/mixer/%d/fader", 3);
+        generator.setArgumentTypes("ifsT");
+        generator.setRate(1000);
+        generator.setCount(7);
+
+        OSCLoadGenerator.Stats stats = run(generator);
+
+        assertEquals(7, stats.getSent());
+        assertEquals("/mixer/0/fader", messages.get(0).getAddress());
+        assertEquals("/mixer/2/fader", messages.get(2).getAddress());
+        assertEquals("/mixer/0/fader", messages.get(3).getAddress());
+        List<Object> args = messages.get(0).getArguments();
+        assertTrue(args.get(0) instanceof Integer);
+        assertTrue(args.get(1) instanceof Float);
+        assertTrue(args.get(2) instanceof String);
+        assertTrue(args.get(3) instanceof Boolean);
+        assertEquals(6_000_000L, (long) sentAt.get(6));
+        assertEquals(0, stats.getLateness().getMax());
+    }
+
+    @Test
+    void testBurstsAndDuration() throws InterruptedException {
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        generator.setBurst(5, 100);
+        generator.setDurationMs(250);
+
+        OSCLoadGenerator.Stats stats = run(generator);
+
+        // Bursts at 0, 100 and 200 ms
+        assertEquals(15, stats.getSent());
+        assertEquals(0L, (long) sentAt.get(4));
+        assertEquals(100_000_000L, (long) sentAt.get(5));
+        assertEquals(200_000_000L, (long) sentAt.get(14));
+    }
+
+    @Test
+    void testReplayAtSpeed() throws InterruptedException {
+        List<OSCMessageRecord> records = new ArrayList<>();
+        long[] timestamps = { 1000, 1100, 1300 };
+        for (long timestamp : timestamps) {
+            OSCMessageRecord record = new OSCMessageRecord("/cue", new Object[] { (int) timestamp });
+            record.setTimestamp(timestamp);
+            records.add(record);
+        }
+        ColumnarSession session = ColumnarSession.fromSession(new RecordingSession("show", records, 1000));
+
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        generator.setReplay(session, 2.0, 2);
+        OSCLoadGenerator.Stats stats = run(generator);
+
+        assertEquals(6, stats.getSent());
+        assertEquals(Integer.valueOf(1100), messages.get(1).getArguments().get(0));
+        assertEquals(50_000_000L, (long) sentAt.get(1));
+        assertEquals(150_000_000L, (long) sentAt.get(2));
+        // Second loop starts where the first ended
+        assertEquals(200_000_000L, (long) sentAt.get(4));
+    }
+
+    @Test
+    void testRejectsUnknownArgumentType() {
+        OSCLoadGenerator generator = new OSCLoadGenerator();
+        assertThrows(IllegalArgumentException.class, () -> generator.setArgumentTypes("fx"));
+    }
+}
@@ -0,0 +1,64 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionSettings;
+import xyz.theforks.nodes.DropNode;
+import xyz.theforks.nodes.RenameNode;
+
+class OSCOutputServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testTeeRecordsProcessedStream() throws Exception {
+        OSCOutputService output = new OSCOutputService("lights");
+        output.setOutHost("127.0.0.1");
+        output.setOutPort(39123);
+        output.start();
+
+        RenameNode rename = new RenameNode();
+        rename.configure(new String[]{"/in/.*", "/in/", "/out/"});
+        DropNode drop = new DropNode();
+        drop.configure(new String[]{"/meter/.*"});
+        output.getNodeChain().registerNode(rename);
+        output.getNodeChain().registerNode(drop);
+
+        Path sessionDir = tempDir.resolve("show-lights");
+        SessionRecorder recorder = new SessionRecorder("show-lights", sessionDir);
+        SessionSettings settings = new SessionSettings();
+        settings.setOutputId(output.getId());
+        recorder.setSettings(settings);
+        recorder.start();
+        output.setTeeRecorder(recorder);
+
+        output.send(new OSCMessage("/in/fader", Collections.singletonList(0.5f)));
+        output.send(new OSCMessage("/meter/1", Collections.singletonList(0.1f)));
+        output.send(new OSCMessage("/in/button", Collections.singletonList(1)));
+        output.setTeeRecorder(null);
+        output.send(new OSCMessage("/in/late", Collections.singletonList(2)));
+        output.stop();
+        assertEquals(2, recorder.finish());
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<OSCMessageRecord> messages = mapper.readValue(sessionDir.resolve("data.json").toFile(),
+                RecordingSession.class).getMessages();
+        assertEquals("/out/fader", messages.get(0).getAddress());
+        assertEquals("/out/button", messages.get(1).getAddress());
+        SessionSettings saved = mapper.readValue(sessionDir.resolve(SessionRecorder.SETTINGS_FILE).toFile(),
+                SessionSettings.class);
+        assertEquals("lights", saved.getOutputId());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import xyz.theforks.metrics.MetricsRegistry;
 import xyz.theforks.util.DataDirectory;
 
 import java.io.File;
@@ -60,6 +61,15 @@ class OSCProxyServiceTest {
         assertEquals(testInPort, proxyService.getInputService().getInPort());
     }
 
+    @Test
+    void testRemoveOutputUnregistersItsMetrics() {
+        proxyService.addOutput(new OSCOutputService("metrics-test"));
+        assertTrue(MetricsRegistry.getInstance().scrape().contains("output=\"metrics-test\""));
+
+        assertTrue(proxyService.removeOutput("metrics-test"));
+        assertFalse(MetricsRegistry.getInstance().scrape().contains("output=\"metrics-test\""));
+    }
+
     @Test
     void testRecordingDirectoryCreation() {
         // The constructor should create the recordings directory
@@ -0,0 +1,95 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.model.MessageRequest;
+import xyz.theforks.util.DataDirectory;
+import xyz.theforks.util.VirtualClock;
+
+class ProxyDelayProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VirtualClock clock;
+    private ProxyDelayProcessor processor;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DataDirectory.setTestOverrideDir(tempDir);
+        OSCProxyService proxyService = new OSCProxyService();
+        proxyService.addOutput(new OSCOutputService("capture") {
+            @Override
+            public void send(OSCMessage message, boolean bypassEnabledCheck, boolean bypassNodeChain) {
+                sent.add(message.getAddress() + "@" + clock.currentTimeMillis());
+            }
+        });
+        clock = new VirtualClock(10_000L);
+        processor = new ProxyDelayProcessor(proxyService, clock);
+        processor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.stop();
+        DataDirectory.setTestOverrideDir(null);
+    }
+
+    @Test
+    void testMessagesSentWhenDelayElapses() throws InterruptedException {
+        processor.scheduleMessage(new MessageRequest(new OSCMessage("/late", Collections.emptyList()), 3_600_000L), "capture");
+        processor.scheduleMessage(new MessageRequest(new OSCMessage("/soon", Collections.emptyList()), 100), "capture");
+
+        // Simulate an hour in one-minute steps, letting the processor catch up after each
+        assertTrue(clock.awaitSleepers(1, 5000));
+        clock.advanceMillis(99);
+        assertTrue(clock.awaitSleepers(1, 5000));
+        assertTrue(sent.isEmpty());
+
+        clock.advanceMillis(1);
+        for (int minute = 0; minute < 60; minute++) {
+            assertTrue(clock.awaitSleepers(1, 5000));
+            if (minute == 0) {
+                assertEquals(List.of("/soon@10100"), sent);
+            }
+            clock.advanceMillis(60_000L);
+        }
+        // With nothing left to send the processor waits on its queue, not the clock
+        awaitSent(2);
+        assertTrue(sent.get(1).startsWith("/late@"));
+        assertEquals(0, processor.getQueueSize());
+    }
+
+    @Test
+    void testEarlierMessageWakesProcessor() throws InterruptedException {
+        processor.scheduleMessage(new MessageRequest(new OSCMessage("/later", Collections.emptyList()), 1000), "capture");
+        assertTrue(clock.awaitSleepers(1, 5000));
+
+        processor.scheduleMessage(new MessageRequest(new OSCMessage("/sooner", Collections.emptyList()), 10), "capture");
+        assertTrue(clock.awaitSleepers(1, 5000));
+        clock.advanceMillis(10);
+        awaitSent(1);
+        assertEquals(List.of("/sooner@10010"), sent);
+        assertEquals(1, processor.getQueueSize());
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, sent.size());
+    }
+}
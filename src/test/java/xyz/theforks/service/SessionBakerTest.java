@@ -0,0 +1,120 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import xyz.theforks.model.NodeChainConfig;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+import xyz.theforks.model.SessionSettings;
+import xyz.theforks.nodes.DelayNode;
+import xyz.theforks.nodes.RenameNode;
+import xyz.theforks.nodes.ThrottleNode;
+
+class SessionBakerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        RecordingSession.setRecordingsDirectory(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RecordingSession.setRecordingsDirectory(null);
+    }
+
+    private static NodeChainConfig chainConfig() {
+        List<NodeChainConfig.NodeConfig> nodes = new ArrayList<>();
+        nodes.add(new NodeChainConfig.NodeConfig(RenameNode.class.getName(), true, List.of("/in/.*", "/in/", "/out/")));
+        nodes.add(new NodeChainConfig.NodeConfig(DelayNode.class.getName(), true, List.of("/out/.*", "50")));
+        return new NodeChainConfig(nodes);
+    }
+
+    @Test
+    void testDelaysFollowVirtualClock() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        messages.add(record("/in/x", 1000, 1));
+        messages.add(record("/fast", 1030, 2));
+        messages.add(record("/in/x", 1100, 3));
+        RecordingSession session = new RecordingSession("show", messages, 1000);
+
+        long started = System.nanoTime();
+        SessionBaker.Result result = SessionBaker.forChain("default", chainConfig()).bake(session, "show-baked");
+        // Simulated time: nothing waits for the 50ms delays
+        assertTrue(System.nanoTime() - started < 2_000_000_000L);
+
+        List<OSCMessageRecord> baked = result.getSession().getMessages();
+        assertEquals(3, baked.size());
+        assertEquals("/fast", baked.get(0).getAddress());
+        assertEquals(1030, baked.get(0).getTimestamp());
+        assertEquals("/out/x", baked.get(1).getAddress());
+        assertEquals(1050, baked.get(1).getTimestamp());
+        assertEquals(1, baked.get(1).getArguments()[0]);
+        assertEquals(1150, baked.get(2).getTimestamp());
+        assertEquals(1000, result.getSession().getStartTime());
+        assertEquals(3, result.getInputMessages());
+    }
+
+    @Test
+    void testBakeAllSavesProcessedSessions() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            RecordingSession session = new RecordingSession("show" + s, new ArrayList<>(), 0);
+            for (int i = 0; i < 100; i++) {
+                session.addMessage(record("/in/" + s, i * 10L, i));
+            }
+            session.save();
+            names.add(session.getName());
+        }
+        names.add("missing");
+
+        List<SessionBaker.Result> results = SessionBaker.forChain("lights", chainConfig()).bakeAll(names, "-lights");
+        assertEquals(4, results.size());
+        assertEquals("show0", results.get(0).getSourceName());
+
+        RecordingSession baked = RecordingSession.loadSession("show2-lights");
+        assertEquals(100, baked.getMessages().size());
+        assertEquals("/out/2", baked.getMessages().get(0).getAddress());
+        assertEquals(50, baked.getMessages().get(0).getTimestamp());
+        SessionSettings settings = RecordingSession.loadSettings("show2-lights");
+        assertEquals("lights", settings.getOutputId());
+        assertEquals("show2", settings.getBakedFrom());
+    }
+
+    @Test
+    void testThrottleFollowsEachBakesClock() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            RecordingSession session = new RecordingSession("fader" + s, new ArrayList<>(), 0);
+            for (int i = 0; i < 100; i++) {
+                session.addMessage(record("/fader", i * 10L, i));
+            }
+            session.save();
+            names.add(session.getName());
+        }
+        List<NodeChainConfig.NodeConfig> nodes = new ArrayList<>();
+        nodes.add(new NodeChainConfig.NodeConfig(ThrottleNode.class.getName(), true, List.of("/fader", "50")));
+
+        // One message every 50ms of recording time, however fast the bakes run side by side
+        List<SessionBaker.Result> results = SessionBaker.forChain("default", new NodeChainConfig(nodes))
+                .bakeAll(names, "-throttled");
+        assertEquals(4, results.size());
+        for (SessionBaker.Result result : results) {
+            List<OSCMessageRecord> baked = result.getSession().getMessages();
+            assertEquals(20, baked.size());
+            assertEquals(50, baked.get(1).getTimestamp());
+        }
+    }
+}
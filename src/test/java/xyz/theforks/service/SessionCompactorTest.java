@@ -0,0 +1,151 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static xyz.theforks.model.TestRecords.record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+
+class SessionCompactorTest {
+
+    private static RecordingSession session(List<OSCMessageRecord> messages) {
+        return new RecordingSession("test", messages, 0);
+    }
+
+    @Test
+    void testLinearRampKeepsEndpoints() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            messages.add(record("/fader", i * 10L, i / 100.0f));
+        }
+        SessionCompactor.Result result = new SessionCompactor(0.0001).compact(session(messages), "ramp");
+
+        List<OSCMessageRecord> kept = result.getSession().getMessages();
+        assertEquals(2, kept.size());
+        assertSame(messages.get(0), kept.get(0));
+        assertSame(messages.get(100), kept.get(1));
+        assertEquals("ramp", result.getSession().getName());
+        assertTrue(result.getCompactedBytes() < result.getOriginalBytes());
+    }
+
+    @Test
+    void testErrorStaysWithinTolerance() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            messages.add(record("/sensor", i * 5L, (float) Math.sin(i / 50.0), (float) Math.cos(i / 50.0)));
+        }
+        SessionCompactor.Result result = new SessionCompactor(0.01).compact(session(messages), "sine");
+
+        assertTrue(result.getCompactedMessages() < 200, "kept " + result.getCompactedMessages());
+        assertTrue(result.getMaxError() <= 0.01);
+        assertTrue(result.getMaxError() > 0);
+
+        // Check every dropped sample against the kept neighbours' line
+        List<OSCMessageRecord> kept = result.getSession().getMessages();
+        int k = 0;
+        for (OSCMessageRecord message : messages) {
+            while (kept.get(k + 1).getTimestamp() < message.getTimestamp()) {
+                k++;
+            }
+            OSCMessageRecord a = kept.get(k);
+            OSCMessageRecord b = kept.get(k + 1);
+            double fraction = (double) (message.getTimestamp() - a.getTimestamp()) / (b.getTimestamp() - a.getTimestamp());
+            for (int arg = 0; arg < 2; arg++) {
+                double va = ((Number) a.getArguments()[arg]).doubleValue();
+                double vb = ((Number) b.getArguments()[arg]).doubleValue();
+                double v = ((Number) message.getArguments()[arg]).doubleValue();
+                assertTrue(Math.abs(v - (va + (vb - va) * fraction)) <= 0.01 + 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testMixedOffsetsShareOneTimeAxis() {
+        // Wall-clock start time; only some records carry nanosecond offsets
+        long startTime = 1_700_000_000_000L;
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            OSCMessageRecord message = record("/fader", startTime + i * 10L, i / 100.0f);
+            if (i % 2 == 0) {
+                message.setOffsetNanos(i * 10_000_000L);
+            }
+            messages.add(message);
+        }
+        SessionCompactor.Result result = new SessionCompactor(0.0001)
+                .compact(new RecordingSession("test", messages, startTime), "ramp");
+
+        assertEquals(2, result.getCompactedMessages());
+        assertTrue(result.getMaxError() <= 0.0001);
+    }
+
+    @Test
+    void testHoldErrorReportsWhatReceiversSee() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            messages.add(record("/fader", i * 10L, i / 100.0f));
+        }
+        SessionCompactor.Result result = new SessionCompactor(0.0001).compact(session(messages), "ramp");
+
+        // The ramp is a straight line, but a receiver holds 0 until the last message
+        assertTrue(result.getMaxError() <= 0.0001);
+        assertEquals(0.99, result.getMaxHoldError(), 1e-6);
+    }
+
+    @Test
+    void testRepeatedValuesAndShapeChanges() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(record("/scene", i * 100L, "intro", 1));
+        }
+        messages.add(record("/scene", 1000, "verse", 1));
+        messages.add(record("/scene", 1100, "verse", 1));
+        SessionCompactor.Result result = new SessionCompactor(0).compact(session(messages), "scenes");
+
+        List<OSCMessageRecord> kept = result.getSession().getMessages();
+        assertEquals(2, kept.size());
+        assertEquals("intro", kept.get(0).getArguments()[0]);
+        assertEquals("verse", kept.get(1).getArguments()[0]);
+        assertEquals(0.0, result.getMaxError());
+        assertTrue(result.getAddresses().get("/scene").getDuplicatesDropped() > 0);
+    }
+
+    @Test
+    void testRepeatBeforeAStepIsKept() {
+        List<OSCMessageRecord> messages = List.of(
+                record("/fader", 0, 0.0f),
+                record("/fader", 100, 0.0f),
+                record("/fader", 200, 1.0f));
+        SessionCompactor.Result result = new SessionCompactor(0.1).compact(session(messages), "step");
+
+        // Without the repeat the line from 0 to 1 would pass 0.5 at 100ms
+        assertEquals(3, result.getCompactedMessages());
+        assertEquals(0, result.getAddresses().get("/fader").getDuplicatesDropped());
+        assertEquals(0.0, result.getMaxError());
+    }
+
+    @Test
+    void testPerAddressTolerance() {
+        List<OSCMessageRecord> messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            messages.add(record("/button/1", i * 20L, 1));
+            messages.add(record("/fader/1", i * 20L, 0.5f));
+        }
+        SessionCompactor compactor = new SessionCompactor(0);
+        compactor.setTolerance("/button/*", -1);
+        assertEquals(-1, compactor.getTolerance("/button/1"));
+        assertEquals(0, compactor.getTolerance("/fader/1"));
+
+        SessionCompactor.Result result = compactor.compact(session(messages), "mixed");
+        assertEquals(50, result.getAddresses().get("/button/1").getKeptMessages());
+        assertEquals(1, result.getAddresses().get("/fader/1").getKeptMessages());
+        assertEquals(51, result.getCompactedMessages());
+        assertEquals(100, result.getOriginalMessages());
+        // Original order is kept
+        assertEquals("/button/1", result.getSession().getMessages().get(0).getAddress());
+        assertEquals("/fader/1", result.getSession().getMessages().get(1).getAddress());
+    }
+}
@@ -0,0 +1,106 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import xyz.theforks.model.ColumnarSession;
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+
+class SessionIOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SessionIO sessionIO;
+
+    @BeforeEach
+    void setUp() {
+        RecordingSession.setRecordingsDirectory(tempDir);
+        sessionIO = new SessionIO();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RecordingSession.setRecordingsDirectory(null);
+    }
+
+    private static RecordingSession session(String name, int count) {
+        RecordingSession session = new RecordingSession(name);
+        for (int i = 0; i < count; i++) {
+            session.addMessage(new OSCMessageRecord("/io", new Object[]{i}));
+        }
+        return session;
+    }
+
+    @Test
+    void testSaveThenLoad() throws Exception {
+        sessionIO.save(session("roundtrip", 3)).get(10, TimeUnit.SECONDS);
+        ColumnarSession loaded = sessionIO.loadColumnar("roundtrip").get(10, TimeUnit.SECONDS);
+        assertEquals(3, loaded.size());
+        assertEquals(2, loaded.getInt(2, 0));
+    }
+
+    @Test
+    void testQueuedSavesAreCoalesced() throws Exception {
+        // Hold the I/O thread so the saves queue up behind it
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        sessionIO.submit("Blocking", () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        List<String> started = new CopyOnWriteArrayList<>();
+        sessionIO.addProgressListener(new SessionIO.ProgressListener() {
+            @Override
+            public void taskStarted(String description, int pending) {
+                started.add(description);
+            }
+
+            @Override
+            public void taskFinished(String description, int pending, Throwable error) {
+            }
+        });
+
+        CompletableFuture<RecordingSession> first = sessionIO.save(session("edited", 1));
+        CompletableFuture<RecordingSession> second = sessionIO.save(session("edited", 2));
+        CompletableFuture<RecordingSession> latest = sessionIO.save(session("edited", 5));
+        assertSame(first, second);
+        assertSame(first, latest);
+        release.countDown();
+
+        assertEquals(5, latest.get(10, TimeUnit.SECONDS).getMessages().size());
+        sessionIO.awaitIdle();
+        assertEquals(List.of("Saving edited"), started);
+        assertEquals(5, RecordingSession.loadColumnarSession("edited").size());
+        assertEquals(0, sessionIO.getPendingCount());
+    }
+
+    @Test
+    void testFailuresCompleteExceptionally() {
+        CompletableFuture<Object> failed = sessionIO.submit("Failing", () -> {
+            throw new IOException("disk full");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertEquals("disk full", SessionIO.unwrap(e.getCause()).getMessage());
+    }
+}
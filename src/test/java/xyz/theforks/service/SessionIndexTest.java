@@ -0,0 +1,98 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.SessionSummary;
+
+class SessionIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void record(String name, int count) throws IOException {
+        SessionRecorder recorder = new SessionRecorder(name, tempDir.resolve(name));
+        recorder.start();
+        for (int i = 0; i < count; i++) {
+            recorder.record(new OSCMessageRecord("/index/" + (i % 2), new Object[]{i}));
+        }
+        recorder.finish();
+    }
+
+    @Test
+    void testListsSessionsWithSummaries() throws IOException {
+        record("b-session", 5);
+        record("a-session", 3);
+        Files.createDirectories(tempDir.resolve("not-a-session"));
+
+        SessionIndex index = new SessionIndex(tempDir);
+        assertEquals(List.of("a-session", "b-session"), index.getSessionNames());
+
+        // The recorder writes the sidecar, so no parse is needed
+        assertNotNull(SessionSummary.read(tempDir.resolve("b-session")));
+        SessionSummary summary = index.getSummary("b-session");
+        assertEquals(5, summary.getMessageCount());
+        assertEquals(3, summary.getAddresses().get("/index/0").getCount());
+        assertNull(index.getSummary("not-a-session"));
+    }
+
+    @Test
+    void testMissingSummaryComputedInBackground() throws Exception {
+        record("stale", 4);
+        Files.delete(tempDir.resolve("stale").resolve(SessionSummary.FILE_NAME));
+
+        SessionIndex index = new SessionIndex(tempDir);
+        assertEquals(List.of("stale"), index.getSessionNames());
+        assertNull(index.getCachedSummary("stale"));
+        SessionSummary summary = index.loadSummary("stale").get(10, TimeUnit.SECONDS);
+        assertEquals(4, summary.getMessageCount());
+
+        // The sidecar was written, so it is now read without computing
+        assertSame(summary, index.getCachedSummary("stale"));
+        assertNotNull(SessionSummary.read(tempDir.resolve("stale")));
+        assertNull(index.loadSummary("not-a-session").get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUnreadableSessionIsNotSummarizedAgain() throws Exception {
+        Files.createDirectories(tempDir.resolve("broken"));
+        Files.writeString(tempDir.resolve("broken").resolve("data.json"), "{\"messages\":[");
+
+        SessionIndex index = new SessionIndex(tempDir);
+        assertEquals(List.of("broken"), index.getSessionNames());
+        assertNull(index.loadSummary("broken").get(10, TimeUnit.SECONDS));
+        // Remembered until the session's files change, so nothing is queued
+        assertTrue(index.loadSummary("broken").isDone());
+    }
+
+    @Test
+    void testWatcherPicksUpNewSessions() throws Exception {
+        SessionIndex index = new SessionIndex(tempDir);
+        index.start();
+        try {
+            assertTrue(index.getSessionNames().isEmpty());
+            CountDownLatch changed = new CountDownLatch(1);
+            index.addListener(changed::countDown);
+
+            record("late", 2);
+            assertTrue(changed.await(10, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!index.getSessionNames().contains("late") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(List.of("late"), index.getSessionNames());
+            assertEquals(2, index.getSummary("late").getMessageCount());
+        } finally {
+            index.stop();
+        }
+    }
+}
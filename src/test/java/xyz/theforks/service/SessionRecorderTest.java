@@ -0,0 +1,163 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import xyz.theforks.model.OSCMessageRecord;
+import xyz.theforks.model.RecordingSession;
+
+class SessionRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RecordingSession readSession(Path sessionDir) throws IOException {
+        return new ObjectMapper().readValue(sessionDir.resolve("data.json").toFile(), RecordingSession.class);
+    }
+
+    @Test
+    void testRecordAndFinish() throws IOException {
+        Path sessionDir = tempDir.resolve("session");
+        SessionRecorder recorder = new SessionRecorder("session", sessionDir);
+        recorder.start();
+        assertTrue(Files.exists(recorder.getJournalFile()));
+
+        for (int i = 0; i < 100; i++) {
+            recorder.record(new OSCMessageRecord("/test/" + i, new Object[]{i, 0.5f, "text"}));
+        }
+        assertEquals(100, recorder.finish());
+        assertFalse(recorder.isRunning());
+        assertFalse(Files.exists(recorder.getJournalFile()));
+
+        RecordingSession session = readSession(sessionDir);
+        assertEquals("session", session.getName());
+        assertEquals(recorder.getStartTime(), session.getStartTime());
+        assertEquals(100, session.getMessages().size());
+        assertEquals("/test/99", session.getMessages().get(99).getAddress());
+        assertEquals(",ifs", session.getMessages().get(0).getTypes());
+    }
+
+    @Test
+    void testStampUsesMonotonicOffset() throws IOException {
+        Path sessionDir = tempDir.resolve("stamped");
+        SessionRecorder recorder = new SessionRecorder("stamped", sessionDir);
+        recorder.start();
+        long base = recorder.getStartNanos();
+        long[] offsets = {1_500_000L, 1_500_250L, 2_999_999L};
+        for (long offset : offsets) {
+            OSCMessageRecord record = new OSCMessageRecord("/nanos", new Object[]{1});
+            recorder.stamp(record, base + offset);
+            recorder.record(record);
+        }
+        recorder.finish();
+
+        RecordingSession session = readSession(sessionDir);
+        for (int i = 0; i < offsets.length; i++) {
+            OSCMessageRecord record = session.getMessages().get(i);
+            assertEquals(Long.valueOf(offsets[i]), record.getOffsetNanos());
+            assertEquals(session.getStartTime() + offsets[i] / 1_000_000L, record.getTimestamp());
+        }
+    }
+
+    @Test
+    void testRecoverTruncatedJournal() throws IOException {
+        Path sessionDir = tempDir.resolve("crashed");
+        Files.createDirectories(sessionDir);
+        String journal = "{\"name\":\"crashed\",\"startTime\":1000}\n"
+                + "{\"address\":\"/a\",\"arguments\":[1],\"timestamp\":1001,\"types\":\",i\"}\n"
+                + "{\"address\":\"/b\",\"arguments\":[2],\"timestamp\":1002,\"types\":\",i\"}\n"
+                + "{\"address\":\"/c\",\"argu";
+        Files.write(sessionDir.resolve(SessionRecorder.JOURNAL_FILE), journal.getBytes(StandardCharsets.UTF_8));
+
+        List<String> recovered = SessionRecorder.recoverJournals(tempDir);
+        assertEquals(List.of("crashed"), recovered);
+        assertFalse(Files.exists(sessionDir.resolve(SessionRecorder.JOURNAL_FILE)));
+
+        RecordingSession session = readSession(sessionDir);
+        assertEquals(1000, session.getStartTime());
+        assertEquals(2, session.getMessages().size());
+        assertEquals("/b", session.getMessages().get(1).getAddress());
+    }
+
+    @Test
+    void testOverBudgetRecordsSpillAndKeepOrder() throws IOException {
+        Path sessionDir = tempDir.resolve("spilled");
+        SessionRecorder recorder = new SessionRecorder("spilled", sessionDir);
+        recorder.setMemoryBudget(20 * SessionRecorder.ESTIMATED_BYTES_PER_RECORD);
+        recorder.start();
+        for (int i = 0; i < 2000; i++) {
+            OSCMessageRecord record = new OSCMessageRecord("/spill", new Object[]{i});
+            record.setTimestamp(recorder.getStartTime() + i);
+            recorder.record(record);
+        }
+        long written = recorder.finish();
+        assertTrue(recorder.getSpilledCount() > 0);
+        // Records the spill thread could not keep up with are dropped, never held
+        assertEquals(2000, written + recorder.getDroppedCount());
+        assertTrue(SessionRecorder.findSpillFiles(sessionDir).isEmpty());
+
+        List<OSCMessageRecord> messages = readSession(sessionDir).getMessages();
+        assertEquals(written, messages.size());
+        for (int i = 1; i < messages.size(); i++) {
+            assertTrue(((Number) messages.get(i).getArguments()[0]).intValue()
+                    > ((Number) messages.get(i - 1).getArguments()[0]).intValue());
+        }
+    }
+
+    @Test
+    void testRecoverJournalWithSpillFile() throws IOException {
+        Path sessionDir = tempDir.resolve("crashed-spill");
+        Files.createDirectories(sessionDir);
+        String journal = "{\"name\":\"crashed-spill\",\"startTime\":1000}\n"
+                + "{\"address\":\"/a\",\"arguments\":[1],\"timestamp\":1001,\"types\":\",i\"}\n";
+        String spill = "{\"address\":\"/b\",\"arguments\":[2],\"timestamp\":1002,\"types\":\",i\"}\n"
+                + "{\"address\":\"/c\",\"arg";
+        Files.write(sessionDir.resolve(SessionRecorder.JOURNAL_FILE), journal.getBytes(StandardCharsets.UTF_8));
+        Files.write(sessionDir.resolve(SessionRecorder.SPILL_PREFIX + "00000" + SessionRecorder.SPILL_SUFFIX),
+                spill.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("crashed-spill"), SessionRecorder.recoverJournals(tempDir));
+        assertTrue(SessionRecorder.findSpillFiles(sessionDir).isEmpty());
+
+        List<OSCMessageRecord> messages = readSession(sessionDir).getMessages();
+        assertEquals(2, messages.size());
+        assertEquals("/b", messages.get(1).getAddress());
+    }
+
+    @Test
+    void testFinishWhileRecordingLosesNothingSilently() throws Exception {
+        Path sessionDir = tempDir.resolve("busy");
+        SessionRecorder recorder = new SessionRecorder("busy", sessionDir);
+        recorder.start();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                recorder.record(new OSCMessageRecord("/busy", new Object[]{i}));
+            }
+        });
+        producer.start();
+        Thread.sleep(20);
+        long written = recorder.finish();
+        producer.join();
+
+        // Everything handed over is either in the session or counted as dropped
+        assertEquals(200_000, recorder.getRecordedCount());
+        assertEquals(recorder.getRecordedCount(), written + recorder.getDroppedCount());
+        assertEquals(written, readSession(sessionDir).getMessages().size());
+    }
+
+    @Test
+    void testFinishWithoutStart() throws IOException {
+        SessionRecorder recorder = new SessionRecorder("unused", tempDir.resolve("unused"));
+        assertEquals(0, recorder.finish());
+        assertFalse(Files.exists(tempDir.resolve("unused")));
+    }
+}
@@ -0,0 +1,66 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class SoakRunnerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private static SoakRunner.Result result(long[] heapMB, int[] threads) {
+        SoakRunner.Result result = new SoakRunner.Result(heapMB.length * 60_000L, 60_000, 1000, 100);
+        for (int i = 0; i < heapMB.length; i++) {
+            result.getSamples().add(new SoakRunner.Sample((i + 1) * 60_000L, heapMB[i] * MB, threads[i], 0));
+        }
+        return result;
+    }
+
+    @Test
+    void testSlopePerHour() {
+        SoakRunner.Result result = result(new long[] { 10, 11, 12, 13 }, new int[] { 5, 5, 5, 5 });
+        // 1 MB a minute
+        assertEquals(60 * MB, SoakRunner.slopePerHour(result.getSamples(), s -> s.getHeapBytes()), 1);
+    }
+
+    @Test
+    void testFlatHeapAfterWarmupPasses() {
+        SoakRunner runner = new SoakRunner();
+        runner.setWarmupFraction(0.25);
+        // Fills caches in the first samples, then holds steady with some noise
+        SoakRunner.Result result = result(new long[] { 10, 40, 60, 61, 60, 61, 60, 61 },
+                new int[] { 10, 14, 14, 14, 14, 14, 14, 14 });
+        runner.evaluate(result);
+        assertTrue(result.isPassed(), result.getFailures().toString());
+    }
+
+    @Test
+    void testGrowingHeapAndThreadsFail() {
+        SoakRunner runner = new SoakRunner();
+        runner.setWarmupFraction(0.25);
+        SoakRunner.Result result = result(new long[] { 10, 20, 30, 40, 50, 60, 70, 80 },
+                new int[] { 10, 10, 10, 11, 12, 13, 14, 15 });
+        runner.evaluate(result);
+        List<String> failures = result.getFailures();
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0).startsWith("Heap grows 600.0 MB/hour"));
+        assertTrue(failures.get(1).startsWith("Thread count grew by 5"));
+    }
+
+    @Test
+    void testShortRunSamples() throws Exception {
+        SoakRunner runner = new SoakRunner();
+        runner.setTraffic(2000, 500);
+        runner.setDurationMs(1200);
+        runner.setSampleIntervalMs(300);
+
+        SoakRunner.Result result = runner.run();
+
+        assertEquals(4, result.getSamples().size());
+        assertTrue(result.getMessagesSent() > 1000);
+        assertTrue(result.getMessagesReceived() > 0);
+        assertTrue(result.getSamples().get(0).getHeapBytes() > 0);
+        assertTrue(result.getSamples().get(0).getThreads() > 0);
+    }
+}
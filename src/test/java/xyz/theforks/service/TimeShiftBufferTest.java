@@ -0,0 +1,143 @@
+package xyz.theforks.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import com.illposed.osc.OSCMessage;
+
+import xyz.theforks.util.VirtualClock;
+
+class TimeShiftBufferTest {
+
+    private static OSCMessage message(int value) {
+        return new OSCMessage("/test", List.of(value));
+    }
+
+    @Test
+    void testMessagesReleasedAfterOffset() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 1000);
+        buffer.add(message(1), 100);
+        buffer.add(message(2), 200);
+
+        assertNull(buffer.pollReady(1099));
+        assertEquals(1, buffer.pollReady(1100).getArguments().get(0));
+        assertNull(buffer.pollReady(1150));
+        assertEquals(2, buffer.pollReady(1200).getArguments().get(0));
+        assertNull(buffer.pollReady(5000));
+    }
+
+    @Test
+    void testNextDueTime() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 500);
+        assertEquals(Long.MAX_VALUE, buffer.nextDueTime());
+
+        buffer.add(message(1), 1000);
+        assertEquals(1500, buffer.nextDueTime());
+    }
+
+    @Test
+    void testCapacityIsBoundedAndOverrunsAreDropped() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(3, 1000);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(message(i), i * 10L);
+        }
+
+        assertEquals(3, buffer.getPendingCount());
+        assertEquals(2, buffer.getDroppedCount());
+        // Oldest surviving message is the third one
+        assertEquals(2, buffer.pollReady(10000).getArguments().get(0));
+    }
+
+    @Test
+    void testScrubBackReplaysHistory() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(100, 0);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(message(i), i * 100L);
+        }
+        // Play everything live
+        while (buffer.pollReady(1000) != null) {
+            // drain
+        }
+        assertEquals(0, buffer.getPendingCount());
+
+        // Rewind by 450ms at time 1000: playout resumes after time 550
+        buffer.setOffsetMs(450, 1000);
+        assertEquals(450, buffer.getOffsetMs());
+        assertEquals(4, buffer.getPendingCount());
+        assertEquals(6, buffer.pollReady(1050).getArguments().get(0));
+    }
+
+    @Test
+    void testScrubForwardSkipsAhead() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(100, 1000);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(message(i), i * 100L);
+        }
+
+        // Jump to 200ms behind live at time 1000: messages up to 800 are skipped
+        buffer.setOffsetMs(200, 1000);
+        assertEquals(1, buffer.getPendingCount());
+        assertEquals(9, buffer.pollReady(1100).getArguments().get(0));
+    }
+
+    @Test
+    void testBufferedDuration() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(100, 0);
+        assertEquals(0, buffer.getBufferedDurationMs());
+        buffer.add(message(1), 1000);
+        buffer.add(message(2), 4000);
+        assertEquals(3000, buffer.getBufferedDurationMs());
+    }
+
+    @Test
+    void testClear() {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 0);
+        buffer.add(message(1), 0);
+        buffer.add(message(2), 0);
+        buffer.clear();
+
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(0, buffer.getBufferedDurationMs());
+        assertNull(buffer.pollReady(1000));
+    }
+
+    @Test
+    void testStampsOnMonotonicTime() {
+        VirtualClock clock = new VirtualClock(1_000_000);
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 100, clock);
+        long start = clock.nanoTime() / 1_000_000L;
+        buffer.add(message(1));
+        clock.advanceMillis(50);
+        buffer.add(message(2));
+
+        assertEquals(start + 100, buffer.nextDueTime());
+        assertEquals(1, buffer.pollReady(start + 100).getArguments().get(0));
+        assertNull(buffer.pollReady(start + 149));
+        assertEquals(2, buffer.pollReady(start + 150).getArguments().get(0));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeShiftBuffer(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimeShiftBuffer(10, -1));
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 0);
+        assertThrows(IllegalArgumentException.class, () -> buffer.setOffsetMs(-5, 0));
+    }
+
+    @Test
+    void testPlayoutThreadForwardsMessages() throws InterruptedException {
+        TimeShiftBuffer buffer = new TimeShiftBuffer(10, 20);
+        java.util.concurrent.CountDownLatch latch = new java.util.concurrent.CountDownLatch(2);
+        buffer.start(m -> latch.countDown());
+        try {
+            buffer.add(message(1));
+            buffer.add(message(2));
+            assertTrue(latch.await(2, java.util.concurrent.TimeUnit.SECONDS));
+        } finally {
+            buffer.stop();
+        }
+        assertFalse(buffer.isRunning());
+    }
+}
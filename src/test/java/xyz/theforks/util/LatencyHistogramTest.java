@@ -0,0 +1,56 @@
+package xyz.theforks.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        long[] values = { 0, 1, 63, 64, 65, 127, 128, 1_000, 999_999, 1_000_000_000L, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value, "upper bound of " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value, "previous bucket of " + value);
+            }
+        }
+    }
+
+    @Test
+    void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 to 1000 microseconds
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500, histogram.getMean(), 0.001);
+        assertEquals(1000, histogram.getMin());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.035);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.035);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void testNegativeClampedAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(10);
+        assertEquals(0, histogram.getMin());
+        assertEquals(10, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(40);
+        histogram.add(other);
+        assertEquals(3, histogram.getCount());
+        assertEquals(40, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,63 @@
+package xyz.theforks.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import xyz.theforks.model.OSCMessageRecord;
+
+class VirtualClockTest {
+
+    @AfterEach
+    void tearDown() {
+        Clock.setDefault(null);
+    }
+
+    @Test
+    void testAutoAdvanceSkipsWaits() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(1_000_000L, true);
+        long started = System.nanoTime();
+        // Three hours of one-second waits
+        for (int i = 0; i < 3 * 60 * 60; i++) {
+            clock.sleepMillis(1000);
+        }
+        assertTrue(System.nanoTime() - started < 1_000_000_000L);
+        assertEquals(3 * 60 * 60 * 1_000_000_000L, clock.nanoTime());
+        assertEquals(1_000_000L + 3 * 60 * 60 * 1000L, clock.currentTimeMillis());
+    }
+
+    @Test
+    void testManualClockBlocksUntilAdvanced() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(0);
+        AtomicBoolean woke = new AtomicBoolean();
+        Thread sleeper = new Thread(() -> {
+            try {
+                clock.sleepMillis(100);
+                woke.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sleeper.start();
+        assertTrue(clock.awaitSleepers(1, 5000));
+
+        clock.advanceMillis(99);
+        sleeper.join(50);
+        assertFalse(woke.get());
+
+        clock.advanceMillis(1);
+        sleeper.join(5000);
+        assertTrue(woke.get());
+        assertThrows(IllegalArgumentException.class, () -> clock.advance(-1));
+    }
+
+    @Test
+    void testDefaultClockStampsRecords() {
+        Clock.setDefault(new VirtualClock(42_000L));
+        assertEquals(42_000L, new OSCMessageRecord("/a", new Object[]{1}).getTimestamp());
+        Clock.setDefault(null);
+        assertSame(Clock.system(), Clock.getDefault());
+    }
+}